@@ -212,6 +212,11 @@ const Canvas: React.FC = () => {
       }
 
       const data = await res.json();
+      // A long colouring is answered 200 before it is done, so failures arrive in the body
+      if (!Array.isArray(data)) {
+        console.error("Server response:", res.status, data);
+        throw new Error(data?.error ?? "Unexpected colouring response");
+      }
       setMatrix(data);
       setCapturedImage(true);
       showNotification("Map colored successfully!", "success");
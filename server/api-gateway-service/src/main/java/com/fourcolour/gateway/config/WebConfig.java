@@ -26,6 +26,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Solve-Path", "X-Solve-Id", "X-Solve-Complete", "X-Solve-Conflicts", "Retry-After")
                 .allowCredentials(false);
     }
 } 
\ No newline at end of file
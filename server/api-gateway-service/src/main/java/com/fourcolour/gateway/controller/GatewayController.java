@@ -2,29 +2,87 @@ package com.fourcolour.gateway.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fourcolour.common.dto.ColoringRequest;
+import com.fourcolour.common.dto.ColoringFormat;
+import com.fourcolour.gateway.service.GrpcSolverClient;
 import com.fourcolour.gateway.service.ProxyService;
+import io.grpc.Context;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 public class GatewayController {
 
     private static final Logger logger = LoggerFactory.getLogger(GatewayController.class);
 
+    static final String SOLVE_BUDGET_HEADER = "X-Solve-Budget-Ms";
+    static final String SOLVE_REQUEST_ID_HEADER = "X-Solve-Request-Id";
+
+    // Time allowed past the solve budget for queueing and transfer before a colouring times out
+    static final long SOLVE_GRACE_MILLIS = 30_000;
+
     @Autowired
     private ProxyService proxyService;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private GrpcSolverClient grpcSolverClient;
+
+    // How long the solver may search before returning its best effort; 0 leaves it to the solver
+    @Value("${services.coloring.solve-budget-ms:20000}")
+    private long solveBudgetMillis;
+
+    // How colouring requests reach the solver: "http" (JSON) or "grpc" (packed bitmap)
+    @Value("${services.coloring.transport:http}")
+    private String solverTransport;
+
+    // How long a colouring may go without a byte to the client; each heartbeat is a space ahead
+    // of the JSON, and the only way to find out the client has hung up. 0 sends none
+    @Value("${services.coloring.heartbeat-ms:5000}")
+    private long heartbeatMillis;
+
+    // Runs upstream colouring calls and waits on them, writing heartbeats meanwhile
+    private final ExecutorService solveExecutor;
+
+    public GatewayController() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    GatewayController(ExecutorService solveExecutor) {
+        this.solveExecutor = solveExecutor;
+    }
+
+    @PreDestroy
+    void closeSolveExecutor() {
+        solveExecutor.close();
+    }
+
     @GetMapping("/")
     public ResponseEntity<String> root() {
         return ResponseEntity.ok("Hello World");
@@ -98,43 +156,262 @@ public class GatewayController {
         return forwardToService("auth", "/auth/verify", HttpMethod.POST, null, request);
     }
 
-    // Map coloring route (protected)
+    // Map coloring route (protected). Answered asynchronously so that a client hanging up, or
+    // the request timing out, cancels the solve upstream instead of leaving it to run its budget
     @PostMapping("/api/v1/maps/color")
-    public ResponseEntity<String> colorMap(@RequestBody ColoringRequest coloringRequest, 
-                                          HttpServletRequest request) {
+    public DeferredResult<ResponseEntity<String>> colorMap(@RequestBody ColoringRequest coloringRequest,
+                                                           HttpServletRequest request,
+                                                           HttpServletResponse response) {
+        long budget = solveBudget(request);
+        DeferredResult<ResponseEntity<String>> result =
+                new DeferredResult<>(budget > 0 ? budget + SOLVE_GRACE_MILLIS : 0L);
+
         // Check rate limiting
         if (isRateLimited(request)) {
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
-                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+            result.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}"));
+            return result;
         }
         
         // Check authentication
         String authHeader = request.getHeader("Authorization");
         if (!isAuthenticated(authHeader)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("{\"error\":\"Authentication required\"}");
+            result.setResult(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"error\":\"Authentication required\"}"));
+            return result;
         }
 
+        ColoringFormat format = ColoringFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        boolean grpc = "grpc".equalsIgnoreCase(solverTransport);
+        // Lets the solver find this solve again to cancel it
+        String requestId = UUID.randomUUID().toString();
+        Context.CancellableContext grpcContext = Context.current().withCancellation();
+        Callable<ResponseEntity<String>> solve;
         try {
-            // Transform the request for the solver service
-            Map<String, Object> solverRequest = Map.of(
-                "image", coloringRequest.getImage().getData(),
-                "width", coloringRequest.getWidth(),
-                "height", coloringRequest.getHeight(),
-                "userId", coloringRequest.getUserId() != null ? coloringRequest.getUserId() : "unknown"
-            );
-
-            String solverBody = objectMapper.writeValueAsString(solverRequest);
-            
-            HttpHeaders headers = extractHeaders(request);
-            headers.remove(HttpHeaders.CONTENT_LENGTH);
-            return proxyService.forwardRequest("solver", "/api/solve", HttpMethod.POST, headers, solverBody);
-            
+            if (grpc) {
+                solve = () -> grpcContext.call(() -> grpcSolverClient.solve(coloringRequest, format, budget));
+            } else {
+                // Transform the request for the solver service
+                Map<String, Object> solverRequest = Map.of(
+                    "image", coloringRequest.getImage().getData(),
+                    "width", coloringRequest.getWidth(),
+                    "height", coloringRequest.getHeight(),
+                    "userId", coloringRequest.getUserId() != null ? coloringRequest.getUserId() : "unknown"
+                );
+
+                String solverBody = objectMapper.writeValueAsString(solverRequest);
+
+                HttpHeaders headers = extractHeaders(request);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                // Ask the solver for exactly the representation the client can read
+                headers.setAccept(List.of(MediaType.parseMediaType(format.getMediaType())));
+                applySolveBudget(headers, budget);
+                headers.set(SOLVE_REQUEST_ID_HEADER, requestId);
+                solve = () -> proxyService.forwardRequest("solver", "/api/solve", HttpMethod.POST, headers, solverBody);
+            }
         } catch (Exception e) {
             logger.error("Error processing coloring request: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("{\"error\":\"Error processing request\"}");
+            result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("{\"error\":\"Error processing request\"}"));
+            return result;
         }
+
+        FutureTask<ResponseEntity<String>> upstream = new FutureTask<>(() -> {
+            try {
+                return solve.call();
+            } catch (InterruptedException e) {
+                // Cancelled, so nobody waits for the answer
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error processing coloring request: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("{\"error\":\"Error processing request\"}");
+            } finally {
+                grpcContext.cancel(null);
+            }
+        });
+        Heartbeat heartbeat = new Heartbeat(response, format);
+        // Once the client is gone, stop waiting and tell the solver; a finished call is left alone
+        Runnable cancel = () -> {
+            if (upstream.cancel(true)) {
+                grpcContext.cancel(null);
+                if (!grpc) {
+                    solveExecutor.execute(() -> proxyService.cancelSolve(requestId));
+                }
+            }
+        };
+        result.onError(error -> {
+            logger.info("Colouring failed ({}); cancelling solve {}", error.getMessage(), requestId);
+            heartbeat.stop();
+            cancel.run();
+        });
+        result.onTimeout(() -> {
+            logger.warn("Colouring timed out after {} ms; cancelling solve {}", budget + SOLVE_GRACE_MILLIS, requestId);
+            heartbeat.stop();
+            cancel.run();
+            result.setErrorResult(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body("{\"error\":\"Colouring timed out\"}"));
+        });
+        solveExecutor.execute(upstream);
+        solveExecutor.execute(() -> relay(upstream, result, heartbeat, cancel, requestId));
+        return result;
+    }
+
+    /**
+     * Wait for the solver's answer and hand it to the client. The container only finds out a
+     * client has hung up when a write to it fails, never while the request sits waiting, so a
+     * heartbeat goes out whenever the solver has been quiet for {@code heartbeatMillis}; the
+     * first write after a hang-up may still be buffered, the next one fails and cancels the solve.
+     */
+    private void relay(Future<ResponseEntity<String>> upstream, DeferredResult<ResponseEntity<String>> result,
+                       Heartbeat heartbeat, Runnable cancel, String requestId) {
+        try {
+            while (true) {
+                try {
+                    ResponseEntity<String> answer = heartbeatMillis > 0
+                            ? upstream.get(heartbeatMillis, TimeUnit.MILLISECONDS)
+                            : upstream.get();
+                    heartbeat.stop();
+                    result.setResult(answer);
+                    return;
+                } catch (TimeoutException e) {
+                    if (!heartbeat.beat()) {
+                        // Timed out or failed meanwhile; the callbacks have cancelled the solve
+                        return;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Client went away during colouring ({}); cancelling solve {}", e.getMessage(), requestId);
+            heartbeat.stop();
+            // The container also reports the failed write through onError, which ends the request
+            cancel.run();
+        } catch (CancellationException e) {
+            // Cancelled by a timeout or failure, which answered the request
+        } catch (InterruptedException e) {
+            // The gateway is shutting down
+            Thread.currentThread().interrupt();
+            heartbeat.stop();
+            cancel.run();
+            result.setErrorResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("{\"error\":\"Service unavailable\"}"));
+        } catch (ExecutionException e) {
+            logger.error("Error processing coloring request: {}", e.getCause().getMessage());
+            heartbeat.stop();
+            result.setErrorResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("{\"error\":\"Error processing request\"}"));
+        }
+    }
+
+    /**
+     * Whitespace written ahead of a colouring while the solver works, which JSON readers skip.
+     * The first heartbeat commits the response as 200 in the negotiated format, so the status and
+     * headers of the eventual answer are lost, and a failure then shows only in its body; answers
+     * quicker than one heartbeat interval never see one.
+     */
+    private static final class Heartbeat {
+
+        private final HttpServletResponse response;
+        private final ColoringFormat format;
+        private boolean stopped;
+
+        Heartbeat(HttpServletResponse response, ColoringFormat format) {
+            this.response = response;
+            this.format = format;
+        }
+
+        /**
+         * @return false once stopped, when nothing more may be written
+         * @throws IOException if the client has gone
+         */
+        synchronized boolean beat() throws IOException {
+            if (stopped) {
+                return false;
+            }
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(format.getMediaType());
+            }
+            response.getOutputStream().write(' ');
+            response.flushBuffer();
+            return true;
+        }
+
+        /**
+         * Waits out a heartbeat being written, leaving the response to the answer.
+         */
+        synchronized void stop() {
+            stopped = true;
+        }
+    }
+
+    // Colour a map while streaming its solve phases as server-sent events. Always goes over gRPC,
+    // which carries the progress; the result format is picked by the resultType parameter since
+    // Accept names the event stream
+    @PostMapping("/api/v1/maps/color/stream")
+    public ResponseEntity<?> colorMapStream(@RequestBody ColoringRequest coloringRequest,
+                                            @RequestParam(required = false) String resultType,
+                                            HttpServletRequest request) {
+        // Check rate limiting
+        if (isRateLimited(request)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+        }
+
+        if (!isAuthenticated(request.getHeader("Authorization"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"error\":\"Authentication required\"}");
+        }
+
+        return grpcSolverClient.stream(coloringRequest, ColoringFormat.negotiate(resultType), solveBudget(request));
+    }
+
+    // Re-solve an earlier colouring after a small edit; the body names it by its X-Solve-Id
+    @PostMapping("/api/v1/maps/color/incremental")
+    public ResponseEntity<String> colorMapIncremental(@RequestBody String body, HttpServletRequest request) {
+        // Check rate limiting
+        if (isRateLimited(request)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+        }
+
+        if (!isAuthenticated(request.getHeader("Authorization"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"error\":\"Authentication required\"}");
+        }
+
+        HttpHeaders headers = extractHeaders(request);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        ColoringFormat format = ColoringFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        headers.setAccept(List.of(MediaType.parseMediaType(format.getMediaType())));
+        applySolveBudget(headers, solveBudget(request));
+        return proxyService.forwardRequest("solver", "/api/solve/incremental", HttpMethod.POST, headers, body);
+    }
+
+    // Colour a large canvas sent as raw RGBA bytes; the body is streamed to the solver, never buffered
+    @PostMapping(value = "/api/v1/maps/color/raw", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<String> colorMapRaw(@RequestParam int width, @RequestParam int height,
+                                              HttpServletRequest request) throws IOException {
+        // Check rate limiting
+        if (isRateLimited(request)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+        }
+
+        if (!isAuthenticated(request.getHeader("Authorization"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"error\":\"Authentication required\"}");
+        }
+
+        // The client's Content-Length still holds, since the body is passed through unchanged
+        HttpHeaders headers = extractHeaders(request);
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        ColoringFormat format = ColoringFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        headers.setAccept(List.of(MediaType.parseMediaType(format.getMediaType())));
+        applySolveBudget(headers, solveBudget(request));
+        String path = "/api/solve/raw?width=" + width + "&height=" + height;
+        return proxyService.forwardRequest("solver", path, HttpMethod.POST, headers,
+                new InputStreamResource(request.getInputStream()));
     }
 
     // Map storage routes (protected)
@@ -202,6 +479,22 @@ public class GatewayController {
         return forwardToService("maps", "/api/v1/maps/" + id, HttpMethod.PUT, body, request);
     }
 
+    @PutMapping("/api/v1/maps/{id}/region-colors")
+    public ResponseEntity<String> updateRegionColors(@PathVariable String id, @RequestBody String body,
+                                                     HttpServletRequest request) {
+        // Check rate limiting
+        if (isRateLimited(request)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
+        }
+        
+        if (!isAuthenticated(request.getHeader("Authorization"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("{\"error\":\"Authentication required\"}");
+        }
+        return forwardToService("maps", "/api/v1/maps/" + id + "/region-colors", HttpMethod.PUT, body, request);
+    }
+
     @DeleteMapping("/api/v1/maps/{id}")
     public ResponseEntity<String> deleteMap(@PathVariable String id, HttpServletRequest request) {
         // Check rate limiting
@@ -229,6 +522,38 @@ public class GatewayController {
         return proxyService.forwardRequest(serviceName, path, method, headers, body);
     }
 
+    /**
+     * Tell the solver how long it may search, as worked out by {@link #solveBudget}.
+     */
+    private void applySolveBudget(HttpHeaders headers, long budget) {
+        headers.remove(SOLVE_BUDGET_HEADER);
+        if (budget > 0) {
+            headers.set(SOLVE_BUDGET_HEADER, String.valueOf(budget));
+        }
+    }
+
+    /**
+     * Clients can ask for a shorter budget than the gateway's, never a longer one; malformed
+     * values are ignored.
+     *
+     * @return the search budget to send the solver, or 0 to leave it to the solver
+     */
+    private long solveBudget(HttpServletRequest request) {
+        long budget = solveBudgetMillis;
+        String requested = request.getHeader(SOLVE_BUDGET_HEADER);
+        if (requested != null) {
+            try {
+                long value = Long.parseLong(requested.trim());
+                if (value > 0) {
+                    budget = budget > 0 ? Math.min(budget, value) : value;
+                }
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed {} header: {}", SOLVE_BUDGET_HEADER, requested);
+            }
+        }
+        return budget;
+    }
+
     private HttpHeaders extractHeaders(HttpServletRequest request) {
         HttpHeaders headers = new HttpHeaders();
         
@@ -0,0 +1,304 @@
+package com.fourcolour.gateway.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fourcolour.common.dto.ColoringFormat;
+import com.fourcolour.common.dto.ColoringRequest;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.common.dto.RegionLabelBitmap;
+import com.fourcolour.solver.proto.SolverProto;
+import com.fourcolour.solver.proto.SolverServiceGrpc;
+import com.google.protobuf.ByteString;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends colouring requests to the solver's gRPC interface instead of its JSON endpoint. The
+ * canvas is thresholded here and sent as a packed bitmap, one bit per pixel against the 32
+ * bits of an RGBA value, and the region colouring that comes back is rendered in whichever
+ * format the client negotiated, so callers see the same response as over HTTP.
+ * <p>
+ * {@link #stream} relays the solver's progress events as server-sent events instead; when
+ * the client goes away the gRPC call is cancelled, which stops the solve at the next phase.
+ */
+@Service
+public class GrpcSolverClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcSolverClient.class);
+
+    // Same test as the solver's MaskThresholder: red above this is a region pixel
+    static final int THRESHOLD = 128;
+
+    static final Metadata.Key<String> RETRY_AFTER_KEY =
+            Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+
+    // Extra time a progress stream stays open beyond the solve budget, for queueing and rendering
+    static final long STREAM_GRACE_MILLIS = 30_000;
+
+    @GrpcClient("coloring-service")
+    private SolverServiceGrpc.SolverServiceBlockingStub solverStub;
+
+    @GrpcClient("coloring-service")
+    private SolverServiceGrpc.SolverServiceStub solverAsyncStub;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param budgetMillis search budget for the solver, or 0 for its default
+     */
+    public ResponseEntity<String> solve(ColoringRequest request, ColoringFormat format, long budgetMillis) {
+        if (!isValid(request)) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid dimensions");
+        }
+
+        try {
+            Iterator<SolverProto.SolveEvent> events = solverStub.solve(toSolveRequest(request, budgetMillis));
+            while (events.hasNext()) {
+                SolverProto.SolveEvent event = events.next();
+                if (event.hasResult()) {
+                    return render(event.getResult(), format);
+                }
+                logger.debug("Solve progress: {}", event.getProgress().getStage());
+            }
+            logger.error("Solver stream ended without a result");
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing request");
+        } catch (StatusRuntimeException e) {
+            return fromStatus(e.getStatus(), e.getTrailers());
+        }
+    }
+
+    /**
+     * Solve while streaming {@code progress} events, then one {@code result} event carrying the
+     * solve metadata and the colouring in {@code format}, or one {@code error} event.
+     *
+     * @param budgetMillis as for {@link #solve}
+     */
+    public ResponseEntity<?> stream(ColoringRequest request, ColoringFormat format, long budgetMillis) {
+        if (!isValid(request)) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid dimensions");
+        }
+
+        SseEmitter emitter = newEmitter(budgetMillis > 0 ? budgetMillis + STREAM_GRACE_MILLIS : 0L);
+        solverAsyncStub.solve(toSolveRequest(request, budgetMillis), new EventRelay(emitter, format));
+        return ResponseEntity.ok(emitter);
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * Forwards solver events to the emitter on gRPC's threads, and cancels the call when the
+     * client disconnects or the emitter times out.
+     */
+    private class EventRelay implements ClientResponseObserver<SolverProto.SolveRequest, SolverProto.SolveEvent> {
+
+        private final SseEmitter emitter;
+        private final ColoringFormat format;
+        private ClientCallStreamObserver<SolverProto.SolveRequest> call;
+
+        EventRelay(SseEmitter emitter, ColoringFormat format) {
+            this.emitter = emitter;
+            this.format = format;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<SolverProto.SolveRequest> call) {
+            this.call = call;
+            // Also runs after a normal completion, when cancelling is a no-op
+            emitter.onCompletion(() -> call.cancel("Client disconnected", null));
+            emitter.onTimeout(() -> call.cancel("Progress stream timed out", null));
+            emitter.onError(e -> call.cancel("Client disconnected", e));
+        }
+
+        @Override
+        public void onNext(SolverProto.SolveEvent event) {
+            try {
+                if (event.hasResult()) {
+                    emitter.send(SseEmitter.event().name("result")
+                            .data(objectMapper.writeValueAsString(resultEvent(event.getResult(), format))));
+                } else {
+                    emitter.send(SseEmitter.event().name("progress")
+                            .data(objectMapper.writeValueAsString(progressEvent(event.getProgress()))));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Failed write: the client went away; IllegalStateException: the emitter timed out or completed
+                logger.debug("Progress stream closed: {}", e.getMessage());
+                call.cancel("Progress stream closed", e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            Status status = Status.fromThrowable(t);
+            if (status.getCode() == Status.Code.CANCELLED) {
+                return;
+            }
+            ResponseEntity<String> response = fromStatus(status, Status.trailersFromThrowable(t));
+            SseEmitter.SseEventBuilder error = SseEmitter.event().name("error");
+            String retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                // The SSE reconnection delay doubles as the shed solve's Retry-After
+                error.reconnectTime(Long.parseLong(retryAfter) * 1000);
+            }
+            error.data(response.getBody());
+            try {
+                emitter.send(error);
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            } catch (IllegalStateException e) {
+                // Already timed out or completed, so there is no one left to tell
+                logger.debug("Progress stream closed before error event: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            emitter.complete();
+        }
+    }
+
+    private static Map<String, Object> progressEvent(SolverProto.SolveProgress progress) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("stage", progress.getStage().name());
+        event.put("regionCount", progress.getRegionCount());
+        event.put("edgeCount", progress.getEdgeCount());
+        event.put("coloredCount", progress.getColoredCount());
+        event.put("elapsedMs", progress.getElapsedMs());
+        return event;
+    }
+
+    private static Map<String, Object> resultEvent(SolverProto.SolveResult result, ColoringFormat format) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("solveId", result.getSolveId().isEmpty() ? null : result.getSolveId());
+        event.put("path", result.getPath());
+        event.put("complete", result.getComplete());
+        event.put("conflicts", result.getConflicts());
+        event.put("format", format.getMediaType());
+        event.put("coloring", renderBody(result, format));
+        return event;
+    }
+
+    private static boolean isValid(ColoringRequest request) {
+        int width = request.getWidth();
+        int height = request.getHeight();
+        return width > 0 && height > 0 && request.getImage().getData().length == (long) width * height * 4;
+    }
+
+    private static SolverProto.SolveRequest toSolveRequest(ColoringRequest request, long budgetMillis) {
+        int width = request.getWidth();
+        int height = request.getHeight();
+        return SolverProto.SolveRequest.newBuilder()
+                .setWidth(width)
+                .setHeight(height)
+                .setMask(ByteString.copyFrom(packMask(request.getImage().getData(), width, height)))
+                .setUserId(request.getUserId() != null ? request.getUserId() : "unknown")
+                .setBudgetMs(budgetMillis)
+                .build();
+    }
+
+    /**
+     * Threshold an RGBA canvas into one bit per pixel in raster order, least significant bit
+     * of each byte first, as {@code solver.proto} specifies.
+     */
+    static byte[] packMask(int[] rgba, int width, int height) {
+        int pixels = width * height;
+        byte[] mask = new byte[(pixels + 7) >>> 3];
+        for (int pixel = 0; pixel < pixels; pixel++) {
+            if (rgba[pixel << 2] > THRESHOLD) {
+                mask[pixel >>> 3] |= (byte) (1 << (pixel & 7));
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * The colouring as the object the HTTP endpoint would serialise for {@code format}.
+     */
+    private static Object renderBody(SolverProto.SolveResult result, ColoringFormat format) {
+        RegionLabelBitmap labels = new RegionLabelBitmap(result.getWidth(), result.getHeight(),
+                result.getRegionCount(), result.getLabelRunsList().stream().mapToInt(Integer::intValue).toArray());
+        RegionColoring coloring = new RegionColoring(labels,
+                result.getRegionColorsList().stream().mapToInt(Integer::intValue).toArray());
+        switch (format) {
+            case REGIONS:
+                return coloring;
+            case RUN_LENGTH:
+                return coloring.toRunLengthMatrix();
+            default:
+                return coloring.toRunLengthMatrix().toRgbMatrix();
+        }
+    }
+
+    private ResponseEntity<String> render(SolverProto.SolveResult result, ColoringFormat format) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Solve-Path", result.getPath())
+                .header("X-Solve-Complete", String.valueOf(result.getComplete()))
+                .header("X-Solve-Conflicts", String.valueOf(result.getConflicts()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(MediaType.parseMediaType(format.getMediaType()));
+        if (!result.getSolveId().isEmpty()) {
+            response.header("X-Solve-Id", result.getSolveId());
+        }
+
+        try {
+            return response.body(objectMapper.writeValueAsString(renderBody(result, format)));
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to render solver result: {}", e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing request");
+        }
+    }
+
+    private ResponseEntity<String> fromStatus(Status status, Metadata trailers) {
+        String description = status.getDescription() != null ? status.getDescription() : "Request failed";
+        switch (status.getCode()) {
+            case INVALID_ARGUMENT:
+                return error(HttpStatus.BAD_REQUEST, description);
+            case UNAVAILABLE:
+                // Either the solver shed the solve, which says when to retry, or it is unreachable
+                String retryAfter = trailers != null ? trailers.get(RETRY_AFTER_KEY) : null;
+                if (retryAfter != null) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                            .body(errorBody(description));
+                }
+                logger.error("Solver unreachable over gRPC: {}", status);
+                return error(HttpStatus.SERVICE_UNAVAILABLE, "Solver unavailable");
+            default:
+                logger.error("gRPC solve failed: {}", status);
+                return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing request");
+        }
+    }
+
+    private ResponseEntity<String> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(errorBody(message));
+    }
+
+    private String errorBody(String message) {
+        try {
+            return objectMapper.writeValueAsString(Map.of("error", message));
+        } catch (JsonProcessingException e) {
+            return "{\"error\":\"Request failed\"}";
+        }
+    }
+}
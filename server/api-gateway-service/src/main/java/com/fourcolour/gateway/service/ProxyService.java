@@ -82,6 +82,21 @@ public class ProxyService {
                 return ResponseEntity.status(httpError.getStatusCode())
                         .body(responseBody);
             }
+
+            // A shedding service says when to retry; pass that through rather than a 500
+            if (e instanceof org.springframework.web.client.HttpServerErrorException
+                    && ((org.springframework.web.client.HttpServerErrorException) e).getStatusCode()
+                            == HttpStatus.SERVICE_UNAVAILABLE) {
+                org.springframework.web.client.HttpServerErrorException httpError =
+                    (org.springframework.web.client.HttpServerErrorException) e;
+
+                ResponseEntity.BodyBuilder unavailable = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+                HttpHeaders errorHeaders = httpError.getResponseHeaders();
+                if (errorHeaders != null && errorHeaders.getFirst(HttpHeaders.RETRY_AFTER) != null) {
+                    unavailable.header(HttpHeaders.RETRY_AFTER, errorHeaders.getFirst(HttpHeaders.RETRY_AFTER));
+                }
+                return unavailable.body(httpError.getResponseBodyAsString());
+            }
             
             // Handle other errors
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -89,6 +104,21 @@ public class ProxyService {
         }
     }
 
+    /**
+     * Tell the solver to abandon a solve forwarded with an {@code X-Solve-Request-Id}, because
+     * the client that asked for it has gone. Best effort: a solve that already finished, or
+     * has not reached the solver yet, is left alone.
+     */
+    public void cancelSolve(String requestId) {
+        String targetUrl = coloringServiceUrl + "/api/solve/requests/" + requestId;
+        try {
+            restTemplate.exchange(targetUrl, HttpMethod.DELETE, HttpEntity.EMPTY, String.class);
+            logger.info("Cancelled solve {} after the client disconnected", requestId);
+        } catch (Exception e) {
+            logger.debug("Could not cancel solve {}: {}", requestId, e.getMessage());
+        }
+    }
+
     private boolean shouldFilterHeader(String headerName) {
         if (headerName == null) {
             return true;
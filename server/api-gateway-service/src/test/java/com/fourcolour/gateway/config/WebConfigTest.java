@@ -49,6 +49,7 @@ class WebConfigTest {
         when(corsRegistration.allowedOrigins("*")).thenReturn(corsRegistration);
         when(corsRegistration.allowedMethods(any(String[].class))).thenReturn(corsRegistration);
         when(corsRegistration.allowedHeaders("*")).thenReturn(corsRegistration);
+        when(corsRegistration.exposedHeaders(any(String[].class))).thenReturn(corsRegistration);
         when(corsRegistration.allowCredentials(false)).thenReturn(corsRegistration);
 
         webConfig.addCorsMappings(corsRegistry);
@@ -57,6 +58,8 @@ class WebConfigTest {
         verify(corsRegistration).allowedOrigins("*");
         verify(corsRegistration).allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS");
         verify(corsRegistration).allowedHeaders("*");
+        verify(corsRegistration).exposedHeaders(
+                "X-Solve-Path", "X-Solve-Id", "X-Solve-Complete", "X-Solve-Conflicts", "Retry-After");
         verify(corsRegistration).allowCredentials(false);
     }
 }
@@ -1,22 +1,46 @@
 package com.fourcolour.gateway.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fourcolour.common.dto.ColoringFormat;
 import com.fourcolour.common.dto.ColoringRequest;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.common.dto.RunLengthMatrix;
+import com.fourcolour.gateway.service.GrpcSolverClient;
 import com.fourcolour.gateway.service.ProxyService;
+import io.grpc.Context;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,11 +59,19 @@ class GatewayControllerTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private GrpcSolverClient grpcSolverClient;
+
     @Mock
     private HttpServletRequest request;
 
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+    // Runs upstream colouring calls inline unless a test hands them elsewhere
+    private final HandingOffExecutor solveExecutor = new HandingOffExecutor();
+
     @InjectMocks
-    private GatewayController gatewayController;
+    private GatewayController gatewayController = new GatewayController(solveExecutor);
 
     @BeforeEach
     void setUp() {
@@ -153,13 +185,271 @@ class GatewayControllerTest {
                                         any(HttpHeaders.class), eq(expectedSolverBody)))
                 .thenReturn(ResponseEntity.ok("{\"coloredImage\":\"result\"}"));
 
-        ResponseEntity<String> response = gatewayController.colorMap(coloringRequest, request);
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("{\"coloredImage\":\"result\"}", response.getBody());
         verify(proxyService).verifyToken(authHeader);
     }
 
+    @Test
+    void colorMap_WithGrpcTransport_ShouldUseGrpcClient() {
+        ColoringRequest coloringRequest = createValidColoringRequest();
+        String authHeader = "Bearer valid-token";
+        ReflectionTestUtils.setField(gatewayController, "solverTransport", "grpc");
+        ReflectionTestUtils.setField(gatewayController, "solveBudgetMillis", 20_000L);
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(RegionColoring.MEDIA_TYPE);
+        when(request.getHeader("X-Solve-Budget-Ms")).thenReturn("500");
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(grpcSolverClient.solve(coloringRequest, ColoringFormat.REGIONS, 500L))
+                .thenReturn(ResponseEntity.ok("{\"regionColors\":[]}"));
+
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"regionColors\":[]}", response.getBody());
+        verify(proxyService, never()).forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                                     any(HttpHeaders.class), any());
+    }
+
+    @Test
+    void colorMap_ShouldTagSolverRequestForCancellation() throws Exception {
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("[]"));
+
+        gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        assertNotNull(headers.getValue().getFirst(GatewayController.SOLVE_REQUEST_ID_HEADER));
+        verify(proxyService, never()).cancelSolve(anyString());
+    }
+
+    @Test
+    void colorMap_WhenClientDisconnectsMidSolve_ShouldCancelTheForwardedSolve() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        solveExecutor.handTo(executor);
+        ReflectionTestUtils.setField(gatewayController, "heartbeatMillis", 10L);
+        String authHeader = "Bearer valid-token";
+        CountDownLatch forwarded = new CountDownLatch(1);
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenAnswer(invocation -> {
+                    forwarded.countDown();
+                    // Stands in for a solve that would run out its whole budget
+                    Thread.sleep(60_000);
+                    return ResponseEntity.ok("[]");
+                });
+
+        gatewayController.colorMap(createValidColoringRequest(), request, hungUp());
+        assertTrue(forwarded.await(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        String requestId = headers.getValue().getFirst(GatewayController.SOLVE_REQUEST_ID_HEADER);
+        verify(proxyService, timeout(5_000)).cancelSolve(requestId);
+        // The upstream wait was interrupted rather than left to finish
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void colorMap_WhenClientDisconnectsFromGrpcSolve_ShouldCancelTheCall() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        solveExecutor.handTo(executor);
+        ReflectionTestUtils.setField(gatewayController, "heartbeatMillis", 10L);
+        ReflectionTestUtils.setField(gatewayController, "solverTransport", "grpc");
+        String authHeader = "Bearer valid-token";
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(grpcSolverClient.solve(any(), any(), anyLong())).thenAnswer(invocation -> {
+            // A real stub binds its call to this context, so cancelling it cancels the call
+            Context context = Context.current();
+            started.countDown();
+            while (!context.isCancelled()) {
+                LockSupport.parkNanos(1_000_000L);
+            }
+            cancelled.countDown();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("{}");
+        });
+
+        gatewayController.colorMap(createValidColoringRequest(), request, hungUp());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        verify(proxyService, never()).cancelSolve(anyString());
+        executor.shutdown();
+    }
+
+    @Test
+    void colorMap_WhenSolveOutlastsHeartbeat_ShouldWriteWhitespaceThenPassTheAnswerOn() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        solveExecutor.handTo(executor);
+        ReflectionTestUtils.setField(gatewayController, "heartbeatMillis", 10L);
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(200);
+                    return ResponseEntity.ok("[]");
+                });
+
+        DeferredResult<ResponseEntity<String>> result = gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+        CountDownLatch answered = new CountDownLatch(1);
+        result.setResultHandler(answer -> answered.countDown());
+
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        assertEquals("[]", resultOf(result).getBody());
+        assertTrue(servletResponse.isCommitted());
+        assertEquals(HttpStatus.OK.value(), servletResponse.getStatus());
+        assertEquals(ColoringFormat.DENSE.getMediaType(), servletResponse.getContentType());
+        assertFalse(servletResponse.getContentAsString().isEmpty());
+        assertTrue(servletResponse.getContentAsString().isBlank());
+        verify(proxyService, never()).cancelSolve(anyString());
+        executor.shutdown();
+    }
+
+    @Test
+    void colorMap_WhenSolveIsQuick_ShouldNotCommitTheResponse() throws Exception {
+        ReflectionTestUtils.setField(gatewayController, "heartbeatMillis", 10L);
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("{\"error\":\"Too many regions\"}"));
+
+        ResponseEntity<String> answer = resultOf(gatewayController.colorMap(createValidColoringRequest(), request, servletResponse));
+
+        // The solver's own status still reaches the client
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, answer.getStatusCode());
+        assertFalse(servletResponse.isCommitted());
+        assertEquals("", servletResponse.getContentAsString());
+    }
+
+    @Test
+    void colorMap_WhenRequestTimesOut_ShouldCancelSolveAndReturnGatewayTimeout() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        solveExecutor.handTo(queued::add);
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+
+        DeferredResult<ResponseEntity<String>> result = gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+        assertFalse(result.hasResult());
+        ((Runnable) ReflectionTestUtils.getField(result, "timeoutCallback")).run();
+        new ArrayList<>(queued).forEach(Runnable::run);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, resultOf(result).getStatusCode());
+        // The solve never reached the solver, but the cancellation is sent regardless
+        verify(proxyService, never()).forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                                     any(HttpHeaders.class), any());
+        verify(proxyService).cancelSolve(anyString());
+    }
+
+    @Test
+    void colorMap_WithRunLengthAccept_ShouldRequestCompactResult() throws Exception {
+        ColoringRequest coloringRequest = createValidColoringRequest();
+        String authHeader = "Bearer valid-token";
+        String encoded = "{\"width\":800,\"height\":600,\"rows\":[]}";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(RunLengthMatrix.MEDIA_TYPE);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                        any(HttpHeaders.class), eq("{}")))
+                .thenReturn(ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(RunLengthMatrix.MEDIA_TYPE))
+                        .body(encoded));
+
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(encoded, response.getBody());
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        assertEquals(List.of(MediaType.parseMediaType(RunLengthMatrix.MEDIA_TYPE)), headers.getValue().getAccept());
+    }
+
+    @Test
+    void colorMap_WithoutRunLengthAccept_ShouldRequestDenseMatrix() throws Exception {
+        ColoringRequest coloringRequest = createValidColoringRequest();
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn("*/*");
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("[]"));
+
+        gatewayController.colorMap(coloringRequest, request, servletResponse);
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        assertEquals(List.of(MediaType.APPLICATION_JSON), headers.getValue().getAccept());
+    }
+
+    @Test
+    void colorMap_WithRegionsAccept_ShouldRequestRegionFormat() throws Exception {
+        ColoringRequest coloringRequest = createValidColoringRequest();
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(RegionColoring.MEDIA_TYPE);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("{}"));
+
+        gatewayController.colorMap(coloringRequest, request, servletResponse);
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        assertEquals(List.of(MediaType.parseMediaType(RegionColoring.MEDIA_TYPE)), headers.getValue().getAccept());
+    }
+
     @Test
     void colorMap_WithoutAuthentication_ShouldReturnUnauthorized() {
         ColoringRequest coloringRequest = createValidColoringRequest();
@@ -169,7 +459,7 @@ class GatewayControllerTest {
         when(request.getHeader("X-Real-IP")).thenReturn(null);
         when(proxyService.isRateLimited(anyString())).thenReturn(false);
 
-        ResponseEntity<String> response = gatewayController.colorMap(coloringRequest, request);
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertTrue(response.getBody().contains("Authentication required"));
@@ -189,7 +479,7 @@ class GatewayControllerTest {
         when(proxyService.verifyToken(authHeader))
                 .thenReturn(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("{\"error\":\"Invalid token\"}"));
 
-        ResponseEntity<String> response = gatewayController.colorMap(coloringRequest, request);
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertTrue(response.getBody().contains("Authentication required"));
@@ -298,6 +588,165 @@ class GatewayControllerTest {
         assertEquals("{\"id\":\"map-123\",\"name\":\"Updated Map\"}", response.getBody());
     }
 
+    @Test
+    void colorMap_ShouldForwardConfiguredSolveBudget() throws Exception {
+        ReflectionTestUtils.setField(gatewayController, "solveBudgetMillis", 20000L);
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("[]"));
+
+        gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), eq("{}"));
+        assertEquals("20000", headers.getValue().getFirst(GatewayController.SOLVE_BUDGET_HEADER));
+    }
+
+    @Test
+    void colorMap_WithClientBudget_ShouldForwardShorterOfBothBudgets() throws Exception {
+        ReflectionTestUtils.setField(gatewayController, "solveBudgetMillis", 20000L);
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(GatewayController.SOLVE_BUDGET_HEADER)).thenReturn("1500", "90000");
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(proxyService.forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("[]"));
+
+        gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+        gatewayController.colorMap(createValidColoringRequest(), request, servletResponse);
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService, times(2)).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                                     headers.capture(), eq("{}"));
+        assertEquals("1500", headers.getAllValues().get(0).getFirst(GatewayController.SOLVE_BUDGET_HEADER));
+        assertEquals("20000", headers.getAllValues().get(1).getFirst(GatewayController.SOLVE_BUDGET_HEADER));
+    }
+
+    @Test
+    void colorMapStream_WithValidAuthentication_ShouldStreamOverGrpc() {
+        ColoringRequest coloringRequest = createValidColoringRequest();
+        String authHeader = "Bearer valid-token";
+        SseEmitter emitter = new SseEmitter();
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        doReturn(ResponseEntity.ok(emitter)).when(grpcSolverClient)
+                .stream(coloringRequest, ColoringFormat.RUN_LENGTH, 0L);
+
+        ResponseEntity<?> response = gatewayController.colorMapStream(coloringRequest, RunLengthMatrix.MEDIA_TYPE, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(emitter, response.getBody());
+    }
+
+    @Test
+    void colorMapStream_WithoutAuthentication_ShouldReturnUnauthorized() {
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+
+        ResponseEntity<?> response = gatewayController.colorMapStream(createValidColoringRequest(), null, request);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(grpcSolverClient, never()).stream(any(), any(), anyLong());
+    }
+
+    @Test
+    void colorMapIncremental_WithValidAuthentication_ShouldForwardToSolver() {
+        String requestBody = "{\"previousSolveId\":\"solve-1\",\"pixels\":[3,4,0]}";
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(proxyService.forwardRequest(eq("solver"), eq("/api/solve/incremental"), eq(HttpMethod.POST),
+                                        any(HttpHeaders.class), eq(requestBody)))
+                .thenReturn(ResponseEntity.ok().header("X-Solve-Id", "solve-2").body("[]"));
+
+        ResponseEntity<String> response = gatewayController.colorMapIncremental(requestBody, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("solve-2", response.getHeaders().getFirst("X-Solve-Id"));
+    }
+
+    @Test
+    void colorMapIncremental_WithoutAuthentication_ShouldReturnUnauthorized() {
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+
+        ResponseEntity<String> response = gatewayController.colorMapIncremental("{}", request);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(proxyService, never()).forwardRequest(anyString(), anyString(), any(HttpMethod.class),
+                                                     any(HttpHeaders.class), any());
+    }
+
+    @Test
+    void colorMapRaw_WithValidAuthentication_ShouldStreamBodyToSolver() throws Exception {
+        String authHeader = "Bearer valid-token";
+        ServletInputStream body = mock(ServletInputStream.class);
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(RegionColoring.MEDIA_TYPE);
+        when(request.getInputStream()).thenReturn(body);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(proxyService.forwardRequest(eq("solver"), eq("/api/solve/raw?width=640&height=480"), eq(HttpMethod.POST),
+                                        any(HttpHeaders.class), any()))
+                .thenReturn(ResponseEntity.ok("{}"));
+
+        ResponseEntity<String> response = gatewayController.colorMapRaw(640, 480, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        ArgumentCaptor<Object> forwarded = ArgumentCaptor.forClass(Object.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve/raw?width=640&height=480"),
+                eq(HttpMethod.POST), headers.capture(), forwarded.capture());
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, headers.getValue().getContentType());
+        assertEquals(List.of(MediaType.parseMediaType(RegionColoring.MEDIA_TYPE)), headers.getValue().getAccept());
+        assertSame(body, ((InputStreamResource) forwarded.getValue()).getInputStream());
+    }
+
+    @Test
+    void colorMapRaw_WithoutAuthentication_ShouldReturnUnauthorized() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+
+        ResponseEntity<String> response = gatewayController.colorMapRaw(640, 480, request);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(request, never()).getInputStream();
+    }
+
+    @Test
+    void updateRegionColors_WithValidData_ShouldForwardToMapService() {
+        String requestBody = "[0,16711680]";
+        String authHeader = "Bearer valid-token";
+
+        when(request.getHeader("Authorization")).thenReturn(authHeader);
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+        when(proxyService.forwardRequest(eq("maps"), eq("/api/v1/maps/map-123/region-colors"), eq(HttpMethod.PUT),
+                                        any(HttpHeaders.class), eq(requestBody)))
+                .thenReturn(ResponseEntity.ok("{\"id\":\"map-123\"}"));
+
+        ResponseEntity<String> response = gatewayController.updateRegionColors("map-123", requestBody, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"id\":\"map-123\"}", response.getBody());
+    }
+
     @Test
     void deleteMap_WithValidId_ShouldForwardToMapService() {
         String mapId = "map-123";
@@ -387,7 +836,7 @@ class GatewayControllerTest {
         when(proxyService.forwardRequest(anyString(), anyString(), any(), any(), anyString()))
                 .thenReturn(ResponseEntity.ok("{\"result\":\"success\"}"));
 
-        ResponseEntity<String> response = gatewayController.colorMap(coloringRequest, request);
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(objectMapper).writeValueAsString(any());
@@ -409,7 +858,7 @@ class GatewayControllerTest {
         when(proxyService.verifyToken(authHeader)).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
         when(objectMapper.writeValueAsString(any())).thenThrow(new RuntimeException("JSON processing error"));
 
-        ResponseEntity<String> response = gatewayController.colorMap(coloringRequest, request);
+        ResponseEntity<String> response = resultOf(gatewayController.colorMap(coloringRequest, request, servletResponse));
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().contains("Error processing request"));
@@ -473,4 +922,69 @@ class GatewayControllerTest {
         request.setUserId("user123");
         return request;
     }
+
+    @SuppressWarnings("unchecked")
+    private static ResponseEntity<String> resultOf(DeferredResult<ResponseEntity<String>> result) {
+        assertTrue(result.hasResult());
+        return (ResponseEntity<String>) result.getResult();
+    }
+
+    /**
+     * A response whose client has gone: the first heartbeat still fits in the socket buffer, the
+     * next write fails as the container's would.
+     */
+    private static HttpServletResponse hungUp() throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+        doNothing().doThrow(new IOException("Broken pipe")).when(response).flushBuffer();
+        return response;
+    }
+
+    @Test
+    void closeSolveExecutor_ShouldShutDownTheExecutor() {
+        gatewayController.closeSolveExecutor();
+
+        assertTrue(solveExecutor.isShutdown());
+    }
+
+    /** Hands each upstream call to {@code target}: inline, or queued for the test to run. */
+    private static final class HandingOffExecutor extends AbstractExecutorService {
+        private volatile Executor target = Runnable::run;
+        private boolean shutdown;
+
+        void handTo(Executor target) {
+            this.target = target;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            target.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package com.fourcolour.gateway.integration;
+
+import com.fourcolour.gateway.service.ProxyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Colouring requests over a real connection to the embedded server, with the solver behind a
+ * mocked {@link ProxyService}, to check what a hung-up client does to a solve in flight.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "services.coloring.heartbeat-ms=100")
+class ColoringDisconnectIntegrationTest {
+
+    private static final String BODY =
+            "{\"image\":{\"data\":[1,2,3,4]},\"width\":1,\"height\":1,\"userId\":\"user123\"}";
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private ProxyService proxyService;
+
+    @BeforeEach
+    void setUp() {
+        when(proxyService.isRateLimited(anyString())).thenReturn(false);
+        when(proxyService.verifyToken("Bearer valid-token")).thenReturn(ResponseEntity.ok("{\"valid\":true}"));
+    }
+
+    @Test
+    @DisplayName("Closing the connection mid-solve should cancel the solve upstream")
+    void colorMap_WhenClientClosesConnection_ShouldCancelSolve() throws Exception {
+        CountDownLatch forwarded = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(proxyService.forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                        any(HttpHeaders.class), any()))
+                .thenAnswer(invocation -> {
+                    forwarded.countDown();
+                    try {
+                        // Stands in for a solve that would run out its whole budget
+                        Thread.sleep(60_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return ResponseEntity.ok("[]");
+                });
+
+        try (Socket socket = new Socket("localhost", port)) {
+            send(socket);
+            assertTrue(forwarded.await(5, TimeUnit.SECONDS));
+        }
+
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(proxyService).forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                           headers.capture(), any());
+        String requestId = headers.getValue().getFirst("X-Solve-Request-Id");
+        verify(proxyService, timeout(5_000)).cancelSolve(requestId);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A solve outlasting heartbeats should still deliver its colouring to a waiting client")
+    void colorMap_WhenSolveOutlastsHeartbeats_ShouldAnswerAfterWhitespace() throws Exception {
+        when(proxyService.forwardRequest(eq("solver"), eq("/api/solve"), eq(HttpMethod.POST),
+                                        any(HttpHeaders.class), any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(500);
+                    return ResponseEntity.ok("[[0]]");
+                });
+
+        String response;
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(10_000);
+            send(socket);
+            response = readAll(socket.getInputStream());
+        }
+
+        assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        assertTrue(response.contains("Content-Type: application/json"), response);
+        String body = dechunk(response.substring(response.indexOf("\r\n\r\n") + 4));
+        assertTrue(body.startsWith(" "), body);
+        assertEquals("[[0]]", body.strip());
+        verify(proxyService, never()).cancelSolve(anyString());
+    }
+
+    private static void send(Socket socket) throws IOException {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        String head = "POST /api/v1/maps/color HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Authorization: Bearer valid-token\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Accept: application/json\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n"
+                + "\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        in.transferTo(bytes);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String dechunk(String chunked) {
+        StringBuilder body = new StringBuilder();
+        int at = 0;
+        while (true) {
+            int lineEnd = chunked.indexOf("\r\n", at);
+            int size = Integer.parseInt(chunked.substring(at, lineEnd).trim(), 16);
+            if (size == 0) {
+                return body.toString();
+            }
+            body.append(chunked, lineEnd + 2, lineEnd + 2 + size);
+            at = lineEnd + 2 + size + 2;
+        }
+    }
+}
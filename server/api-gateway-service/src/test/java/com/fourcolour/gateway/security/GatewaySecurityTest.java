@@ -31,7 +31,7 @@ class GatewaySecurityTest {
     private HttpServletRequest request;
 
     @InjectMocks
-    private GatewayController gatewayController;
+    private GatewayController gatewayController = new GatewayController();
 
     @BeforeEach
     void setUp() {
@@ -0,0 +1,300 @@
+package com.fourcolour.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fourcolour.common.dto.ColoringFormat;
+import com.fourcolour.common.dto.ColoringRequest;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.common.dto.RunLengthMatrix;
+import com.fourcolour.solver.proto.SolverProto;
+import com.fourcolour.solver.proto.SolverServiceGrpc;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrpcSolverClientTest {
+
+    @Mock
+    private SolverServiceGrpc.SolverServiceBlockingStub solverStub;
+
+    @Mock
+    private SolverServiceGrpc.SolverServiceStub solverAsyncStub;
+
+    @Mock
+    private ClientCallStreamObserver<SolverProto.SolveRequest> call;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    @InjectMocks
+    private GrpcSolverClient grpcSolverClient;
+
+    @Test
+    void packMask_ShouldSetOneBitPerRegionPixelLowBitFirst() {
+        int[] rgba = new int[9 * 4];
+        for (int pixel : new int[]{0, 2, 8}) {
+            rgba[pixel * 4] = 255;
+        }
+        rgba[3 * 4] = 128; // Not above the threshold
+
+        byte[] mask = GrpcSolverClient.packMask(rgba, 9, 1);
+
+        assertArrayEquals(new byte[]{0b101, 0b1}, mask);
+    }
+
+    @Test
+    void solve_ShouldSendPackedMaskAndRenderRequestedFormat() throws Exception {
+        when(solverStub.solve(any())).thenReturn(List.of(progress(), result()).iterator());
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request(), ColoringFormat.RUN_LENGTH, 250);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("GREEDY", response.getHeaders().getFirst("X-Solve-Path"));
+        assertEquals("solve-1", response.getHeaders().getFirst("X-Solve-Id"));
+        assertEquals(RunLengthMatrix.MEDIA_TYPE, response.getHeaders().getContentType().toString());
+        RunLengthMatrix matrix = objectMapper.readValue(response.getBody(), RunLengthMatrix.class);
+        assertArrayEquals(new int[]{0xFF0000, 1, 0x000000, 1, 0x00FF00, 1}, matrix.getRows()[0]);
+
+        ArgumentCaptor<SolverProto.SolveRequest> sent = ArgumentCaptor.forClass(SolverProto.SolveRequest.class);
+        verify(solverStub).solve(sent.capture());
+        assertEquals(3, sent.getValue().getWidth());
+        assertEquals(250, sent.getValue().getBudgetMs());
+        assertArrayEquals(new byte[]{0b101}, sent.getValue().getMask().toByteArray());
+    }
+
+    @Test
+    void solve_WithDenseFormat_ShouldRenderRgbMatrix() throws Exception {
+        when(solverStub.solve(any())).thenReturn(List.of(result()).iterator());
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request(), ColoringFormat.DENSE, 0);
+
+        int[][][] matrix = objectMapper.readValue(response.getBody(), int[][][].class);
+        assertArrayEquals(new int[]{255, 0, 0}, matrix[0][0]);
+        assertArrayEquals(new int[]{0, 0, 0}, matrix[0][1]);
+        assertArrayEquals(new int[]{0, 255, 0}, matrix[0][2]);
+    }
+
+    @Test
+    void solve_WithRegionsFormat_ShouldReturnPalette() throws Exception {
+        when(solverStub.solve(any())).thenReturn(List.of(result()).iterator());
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request(), ColoringFormat.REGIONS, 0);
+
+        RegionColoring coloring = objectMapper.readValue(response.getBody(), RegionColoring.class);
+        assertArrayEquals(new int[]{0x000000, 0xFF0000, 0x00FF00}, coloring.getRegionColors());
+        assertEquals(HttpHeaders.ACCEPT, response.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    void solve_WhenSolverSheds_ShouldReturnServiceUnavailableWithRetryAfter() {
+        Metadata trailers = new Metadata();
+        trailers.put(GrpcSolverClient.RETRY_AFTER_KEY, "7");
+        when(solverStub.solve(any())).thenThrow(
+                Status.UNAVAILABLE.withDescription("Solver is busy, please retry later").asRuntimeException(trailers));
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request(), ColoringFormat.DENSE, 0);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("{\"error\":\"Solver is busy, please retry later\"}", response.getBody());
+    }
+
+    @Test
+    void solve_WithInvalidArgument_ShouldReturnBadRequest() {
+        when(solverStub.solve(any())).thenThrow(
+                Status.INVALID_ARGUMENT.withDescription("Invalid dimensions").asRuntimeException());
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request(), ColoringFormat.DENSE, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("{\"error\":\"Invalid dimensions\"}", response.getBody());
+    }
+
+    @Test
+    void solve_WithMismatchedImage_ShouldNotCallSolver() {
+        ColoringRequest request = request();
+        request.setWidth(4);
+
+        ResponseEntity<String> response = grpcSolverClient.solve(request, ColoringFormat.DENSE, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(solverStub);
+    }
+
+    @Test
+    void stream_ShouldRelayProgressThenResultAsEvents() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        doReturn(emitter).when(grpcSolverClient).newEmitter(250 + GrpcSolverClient.STREAM_GRACE_MILLIS);
+        replay(observer -> {
+            observer.onNext(progress());
+            observer.onNext(result());
+            observer.onCompleted();
+        });
+
+        ResponseEntity<?> response = grpcSolverClient.stream(request(), ColoringFormat.REGIONS, 250);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(emitter, response.getBody());
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(0).startsWith("event:progress\ndata:{\"stage\":\"LABELLED\",\"regionCount\":2"));
+        assertTrue(emitter.events.get(1).startsWith("event:result\ndata:{\"solveId\":\"solve-1\",\"path\":\"GREEDY\""));
+        assertTrue(emitter.events.get(1).contains("\"regionColors\":[0,16711680,65280]"));
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void stream_WhenClientDisconnects_ShouldCancelSolverCall() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        doReturn(emitter).when(grpcSolverClient).newEmitter(anyLong());
+        replay(observer -> observer.onNext(progress()));
+
+        grpcSolverClient.stream(request(), ColoringFormat.DENSE, 0);
+        emitter.errorCallback.accept(new java.io.IOException("Broken pipe"));
+
+        verify(call).cancel(eq("Client disconnected"), any());
+    }
+
+    @Test
+    void stream_WhenEmitterAlreadyCompleted_ShouldCancelSolverCall() {
+        SseEmitter emitter = new SseEmitter();
+        emitter.complete();
+        doReturn(emitter).when(grpcSolverClient).newEmitter(anyLong());
+        replay(observer -> observer.onNext(progress()));
+
+        assertDoesNotThrow(() -> grpcSolverClient.stream(request(), ColoringFormat.DENSE, 0));
+
+        verify(call).cancel(eq("Progress stream closed"), any(IllegalStateException.class));
+    }
+
+    @Test
+    void stream_WhenSolverFailsAfterEmitterCompleted_ShouldNotThrow() {
+        SseEmitter emitter = new SseEmitter();
+        emitter.complete();
+        doReturn(emitter).when(grpcSolverClient).newEmitter(anyLong());
+        replay(observer -> observer.onError(Status.INTERNAL.asRuntimeException()));
+
+        assertDoesNotThrow(() -> grpcSolverClient.stream(request(), ColoringFormat.DENSE, 0));
+    }
+
+    @Test
+    void stream_WhenSolverSheds_ShouldSendErrorEventWithRetryDelay() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        doReturn(emitter).when(grpcSolverClient).newEmitter(anyLong());
+        Metadata trailers = new Metadata();
+        trailers.put(GrpcSolverClient.RETRY_AFTER_KEY, "7");
+        replay(observer -> observer.onError(
+                Status.UNAVAILABLE.withDescription("Solver is busy, please retry later").asRuntimeException(trailers)));
+
+        grpcSolverClient.stream(request(), ColoringFormat.DENSE, 0);
+
+        assertEquals(1, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("event:error\n"));
+        assertTrue(emitter.events.get(0).contains("retry:7000\n"));
+        assertTrue(emitter.events.get(0).contains("{\"error\":\"Solver is busy, please retry later\"}"));
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void stream_WithMismatchedImage_ShouldReturnBadRequest() {
+        ColoringRequest request = request();
+        request.setHeight(2);
+
+        ResponseEntity<?> response = grpcSolverClient.stream(request, ColoringFormat.DENSE, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(solverAsyncStub);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(Consumer<ClientResponseObserver<SolverProto.SolveRequest, SolverProto.SolveEvent>> events) {
+        doAnswer(invocation -> {
+            ClientResponseObserver<SolverProto.SolveRequest, SolverProto.SolveEvent> observer = invocation.getArgument(1);
+            observer.beforeStart(call);
+            events.accept(observer);
+            return null;
+        }).when(solverAsyncStub).solve(any(), any());
+    }
+
+    /**
+     * Keeps what would be written to the response, since no servlet container is attached.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new ArrayList<>();
+        Consumer<Throwable> errorCallback;
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void onError(Consumer<Throwable> callback) {
+            errorCallback = callback;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static ColoringRequest request() {
+        ColoringRequest request = new ColoringRequest();
+        ColoringRequest.ImageData imageData = new ColoringRequest.ImageData();
+        imageData.setData(new int[]{255, 255, 255, 255, 0, 0, 0, 255, 255, 255, 255, 255});
+        request.setImage(imageData);
+        request.setWidth(3);
+        request.setHeight(1);
+        request.setUserId("user123");
+        return request;
+    }
+
+    private static SolverProto.SolveEvent progress() {
+        return SolverProto.SolveEvent.newBuilder()
+                .setProgress(SolverProto.SolveProgress.newBuilder()
+                        .setStage(SolverProto.SolveStage.LABELLED)
+                        .setRegionCount(2))
+                .build();
+    }
+
+    private static SolverProto.SolveEvent result() {
+        return SolverProto.SolveEvent.newBuilder()
+                .setResult(SolverProto.SolveResult.newBuilder()
+                        .setSolveId("solve-1")
+                        .setPath("GREEDY")
+                        .setComplete(true)
+                        .setWidth(3)
+                        .setHeight(1)
+                        .setRegionCount(2)
+                        .addAllLabelRuns(List.of(1, 1, 0, 1, 2, 1))
+                        .addAllRegionColors(List.of(0x000000, 0xFF0000, 0x00FF00)))
+                .build();
+    }
+}
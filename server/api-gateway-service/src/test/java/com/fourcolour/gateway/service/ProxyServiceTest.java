@@ -11,6 +11,7 @@ import org.mockito.quality.Strictness;
 import org.springframework.http.*;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -130,6 +131,29 @@ class ProxyServiceTest {
         assertEquals("{\"error\":\"User with this email already exists\"}", response.getBody());
     }
 
+    @Test
+    void forwardRequest_WithServiceUnavailable_ShouldPassRetryAfterThrough() {
+        HttpHeaders errorHeaders = new HttpHeaders();
+        errorHeaders.set(HttpHeaders.RETRY_AFTER, "4");
+        HttpServerErrorException exception = HttpServerErrorException.create(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Service Unavailable",
+                errorHeaders,
+                "{\"error\":\"Solver is busy, please retry later\"}".getBytes(),
+                null);
+
+        when(restTemplate.exchange(eq("http://solver-service:8082/api/solve"), eq(HttpMethod.POST),
+                                  any(HttpEntity.class), eq(String.class)))
+                .thenThrow(exception);
+
+        ResponseEntity<String> response = proxyService.forwardRequest("coloring", "/api/solve",
+                                                                     HttpMethod.POST, headers, "{}");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("4", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("{\"error\":\"Solver is busy, please retry later\"}", response.getBody());
+    }
+
     @Test
     void forwardRequest_WithGenericException_ShouldReturnInternalServerError() {
         String requestBody = "{\"test\":\"data\"}";
@@ -147,6 +171,22 @@ class ProxyServiceTest {
         assertTrue(response.getBody().contains("Connection timeout"));
     }
 
+    @Test
+    void cancelSolve_ShouldDeleteTheSolveRequestOnTheSolver() {
+        proxyService.cancelSolve("request-1");
+
+        verify(restTemplate).exchange(eq("http://solver-service:8082/api/solve/requests/request-1"),
+                eq(HttpMethod.DELETE), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void cancelSolve_WhenSolverFails_ShouldNotThrow() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.DELETE), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertDoesNotThrow(() -> proxyService.cancelSolve("finished"));
+    }
+
     @Test
     void forwardRequest_ShouldFilterProblematicHeaders() {
         HttpHeaders responseHeaders = new HttpHeaders();
@@ -1,5 +1,6 @@
 package com.fourcolour.auth.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,9 +14,16 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    static final int DEFAULT_BCRYPT_STRENGTH = 10;
+
+    /**
+     * BCrypt at the configured cost. Raising it makes new hashes slower to compute; existing
+     * users are rehashed at the new cost the next time they log in.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.password.bcrypt-strength:" + DEFAULT_BCRYPT_STRENGTH + "}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -1,15 +1,19 @@
 package com.fourcolour.auth.controller;
 
 import com.fourcolour.auth.service.AuthenticationService;
+import com.fourcolour.auth.service.PasswordHashingRejectedException;
+import com.fourcolour.auth.service.TokenVerification;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
 import com.fourcolour.common.dto.TokenResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 @RestController
@@ -24,6 +28,10 @@ public class AuthController {
         try {
             TokenResponse response = authenticationService.register(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (PasswordHashingRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             if (e.getMessage().contains("already exists")) {
                 return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -39,6 +47,10 @@ public class AuthController {
         try {
             TokenResponse response = authenticationService.login(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Invalid credentials"));
@@ -59,12 +71,12 @@ public class AuthController {
     @PostMapping("/verify")
     public ResponseEntity<?> verifyToken(@RequestHeader("Authorization") String token) {
         try {
-            boolean isValid = authenticationService.verifyToken(token);
-            if (isValid) {
-                Integer userId = authenticationService.getUserIdFromToken(token);
+            TokenVerification verification = authenticationService.verify(token);
+            if (verification.isValid()) {
                 return ResponseEntity.ok(Map.of(
                         "valid", true,
-                        "user_id", userId
+                        "user_id", verification.getUserId(),
+                        "expires_at", verification.getExpiresAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
                 ));
             } else {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -6,7 +6,12 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sessions")
+@Table(name = "sessions", indexes = {
+        // Unique per expiry, as on the partitioned table, whose unique indexes must hold the partition key
+        @Index(name = "ux_sessions_token_hash", columnList = "token_hash, expires_at", unique = true),
+        @Index(name = "ix_sessions_expires_at", columnList = "expires_at"),
+        @Index(name = "ix_sessions_refresh_family", columnList = "refresh_family, refresh_generation")
+})
 public class Session {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -15,9 +20,10 @@ public class Session {
     @Column(name = "user_id", nullable = false)
     private Integer userId;
 
-    @Column(unique = true, nullable = false, length = 2000)
+    // Hex SHA-256 of the session's JWT (see TokenDigest); the token itself is not stored
+    @Column(name = "token_hash", nullable = false, length = 64)
     @NotBlank
-    private String token;
+    private String tokenHash;
 
     @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
@@ -25,6 +31,14 @@ public class Session {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // The refresh token family the session was issued in, and how many rotations into it;
+    // null for sessions that predate refresh tokens
+    @Column(name = "refresh_family", length = 36)
+    private String refreshFamily;
+
+    @Column(name = "refresh_generation")
+    private Integer refreshGeneration;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -32,9 +46,9 @@ public class Session {
 
     public Session() {}
 
-    public Session(Integer userId, String token, LocalDateTime expiresAt) {
+    public Session(Integer userId, String tokenHash, LocalDateTime expiresAt) {
         this.userId = userId;
-        this.token = token;
+        this.tokenHash = tokenHash;
         this.expiresAt = expiresAt;
     }
 
@@ -55,12 +69,12 @@ public class Session {
         this.userId = userId;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenHash() {
+        return tokenHash;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public LocalDateTime getExpiresAt() {
@@ -78,4 +92,20 @@ public class Session {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getRefreshFamily() {
+        return refreshFamily;
+    }
+
+    public void setRefreshFamily(String refreshFamily) {
+        this.refreshFamily = refreshFamily;
+    }
+
+    public Integer getRefreshGeneration() {
+        return refreshGeneration;
+    }
+
+    public void setRefreshGeneration(Integer refreshGeneration) {
+        this.refreshGeneration = refreshGeneration;
+    }
 } 
\ No newline at end of file
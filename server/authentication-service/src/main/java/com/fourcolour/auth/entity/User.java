@@ -7,7 +7,9 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ix_users_created_at", columnList = "created_at")
+})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,33 @@
+package com.fourcolour.auth.repository;
+
+import com.fourcolour.auth.entity.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    
+    // Takes over the lock only if its lease has run out; returns the number of rows updated
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until, l.lockedAt = :now, l.lockedBy = :owner "
+            + "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquireExpired(String name, String owner, LocalDateTime now, LocalDateTime until);
+    
+    // A plain INSERT, so a replica creating the same lock at once fails on the primary key
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_locks (name, locked_until, locked_at, locked_by) "
+            + "VALUES (:name, :until, :now, :owner)", nativeQuery = true)
+    void insert(String name, String owner, LocalDateTime now, LocalDateTime until);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(String name, String owner, LocalDateTime now);
+}
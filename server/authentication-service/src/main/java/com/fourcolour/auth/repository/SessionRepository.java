@@ -1,6 +1,7 @@
 package com.fourcolour.auth.repository;
 
 import com.fourcolour.auth.entity.Session;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,18 +9,25 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SessionRepository extends JpaRepository<Session, Integer> {
-    Optional<Session> findByToken(String token);
+    Optional<Session> findByTokenHash(String tokenHash);
     
-    @Query("SELECT s FROM Session s WHERE s.token = :token AND s.expiresAt > :now")
-    Optional<Session> findByTokenAndNotExpired(String token, LocalDateTime now);
+    // Lookups and deletes by digest are bounded on expires_at too, so PostgreSQL only searches
+    // the partitions that can still hold the session (see V3__partition_sessions_by_expiry.sql)
+    @Query("SELECT s FROM Session s WHERE s.tokenHash = :tokenHash AND s.expiresAt > :now")
+    Optional<Session> findByTokenHashAndNotExpired(String tokenHash, LocalDateTime now);
     
-    @Modifying
+    // A single DELETE rather than the derived query's load-then-remove; bulk statements bypass
+    // the persistence context, so they clear it rather than leave stale sessions in it
+    @Modifying(clearAutomatically = true)
     @Transactional
-    void deleteByToken(String token);
+    @Query("DELETE FROM Session s WHERE s.tokenHash = :tokenHash AND s.expiresAt > :expiringAfter")
+    void deleteByTokenHash(String tokenHash, LocalDateTime expiringAfter);
     
     @Modifying
     @Transactional
@@ -29,4 +37,46 @@ public interface SessionRepository extends JpaRepository<Session, Integer> {
     @Transactional
     @Query("DELETE FROM Session s WHERE s.expiresAt < :now")
     void deleteExpiredSessions(LocalDateTime now);
+    
+    /**
+     * The next page of sessions expired before {@code now}, in (expiresAt, id) order after the
+     * given cursor, read off the expires_at index for batched purging.
+     */
+    @Query("SELECT s.id AS id, s.expiresAt AS expiresAt FROM Session s WHERE s.expiresAt < :now "
+            + "AND (s.expiresAt > :afterExpiresAt OR (s.expiresAt = :afterExpiresAt AND s.id > :afterId)) "
+            + "ORDER BY s.expiresAt, s.id")
+    List<SessionKey> findExpiredAfter(LocalDateTime now, LocalDateTime afterExpiresAt, Integer afterId,
+                                      Pageable page);
+    
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Session s WHERE s.id IN :ids")
+    int deleteByIdIn(Collection<Integer> ids);
+    
+    @Query("SELECT s FROM Session s WHERE s.refreshFamily = :family AND s.expiresAt > :expiringAfter")
+    List<Session> findByRefreshFamily(String family, LocalDateTime expiringAfter);
+    
+    /**
+     * Moves the family's session on to {@code generation} if it is still at the one before,
+     * giving it the new access token's digest and expiry, so the previous access token stops
+     * verifying in the same write. A concurrent rotation of the same family waits on the row
+     * lock and then finds the generation changed; on PostgreSQL, if the first moved the row to
+     * another expiry partition, the second fails with a serialization error instead.
+     *
+     * @return 1 if the session moved on, 0 if the family had already moved past, was revoked,
+     * or its session is no longer refreshable
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Session s SET s.tokenHash = :tokenHash, s.expiresAt = :expiresAt, s.refreshGeneration = :generation "
+            + "WHERE s.refreshFamily = :family AND s.refreshGeneration = :generation - 1 "
+            + "AND s.expiresAt > :expiringAfter")
+    int rotate(String family, Integer generation, String tokenHash, LocalDateTime expiresAt,
+               LocalDateTime expiringAfter);
+    
+    interface SessionKey {
+        Integer getId();
+        
+        LocalDateTime getExpiresAt();
+    }
 } 
\ No newline at end of file
@@ -1,13 +1,30 @@
 package com.fourcolour.auth.repository;
 
 import com.fourcolour.auth.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    // The next page of users' emails in id order after the given id, for loading all of them in batches
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserEmail> findEmailsAfter(Integer afterId, Pageable page);
+    
+    @Query("SELECT u.email FROM User u WHERE u.createdAt >= :since")
+    List<String> findEmailsCreatedSince(LocalDateTime since);
+    
+    interface UserEmail {
+        Integer getId();
+        
+        String getEmail();
+    }
 } 
\ No newline at end of file
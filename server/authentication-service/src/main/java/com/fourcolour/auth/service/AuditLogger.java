@@ -0,0 +1,143 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.common.service.LoggerClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ships auth events to the logger service from a background thread, so requests only pay for
+ * putting an event on a bounded queue rather than for a blocking gRPC call per event. When the
+ * queue is full, because the logger service is slow or down, new events are dropped, counted
+ * and written to the local log instead of holding up logins.
+ */
+@Component
+public class AuditLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogger.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final LoggerClient loggerClient;
+    private final BlockingQueue<AuditEvent> queue;
+    private final long shutdownFlushMillis;
+    private final Counter sent;
+    private final Counter dropped;
+
+    private volatile boolean closed;
+    private Thread sender;
+
+    public AuditLogger(LoggerClient loggerClient,
+                       @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+                       @Value("${app.audit.shutdown-flush-ms:5000}") long shutdownFlushMillis,
+                       MeterRegistry meterRegistry) {
+        this.loggerClient = loggerClient;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.shutdownFlushMillis = shutdownFlushMillis;
+        this.sent = meterRegistry.counter("auth.audit.events", "result", "sent");
+        this.dropped = meterRegistry.counter("auth.audit.events", "result", "dropped");
+        Gauge.builder("auth.audit.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (sender == null) {
+            sender = new Thread(this::drain, "audit-sender");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    /**
+     * Queues an event for the logger service, with the same arguments as
+     * {@link LoggerClient#logEvent(String, String, String, String, int, Map)}. Never blocks.
+     */
+    public void logEvent(String serviceName, String eventType, String userId, String description,
+                         int severity, Map<String, String> metadata) {
+        AuditEvent event = new AuditEvent(serviceName, eventType, userId, description, severity, metadata,
+                LocalDateTime.now());
+        if (closed || !queue.offer(event)) {
+            dropped.increment();
+            logger.warn("Audit event not queued, logging locally: [{}] {} - User: {}, Description: {}, Metadata: {}",
+                    serviceName, eventType, userId, description, metadata);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                AuditEvent event = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    send(event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(AuditEvent event) {
+        // LoggerClient falls back to the local log itself if the call fails
+        loggerClient.logEvent(event.serviceName, event.eventType, event.userId, event.description,
+                event.severity, event.metadata, event.occurredAt);
+        sent.increment();
+    }
+
+    /**
+     * Stops taking events and gives the sender up to the flush timeout to ship those queued.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        Thread current;
+        synchronized (this) {
+            current = sender;
+        }
+        if (current == null) {
+            return;
+        }
+        current.join(shutdownFlushMillis);
+        if (current.isAlive()) {
+            current.interrupt();
+            int abandoned = queue.size();
+            dropped.increment(abandoned);
+            logger.warn("Abandoned {} audit events still queued at shutdown", abandoned);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private static final class AuditEvent {
+        final String serviceName;
+        final String eventType;
+        final String userId;
+        final String description;
+        final int severity;
+        final Map<String, String> metadata;
+        final LocalDateTime occurredAt;
+
+        AuditEvent(String serviceName, String eventType, String userId, String description, int severity,
+                   Map<String, String> metadata, LocalDateTime occurredAt) {
+            this.serviceName = serviceName;
+            this.eventType = eventType;
+            this.userId = userId;
+            this.description = description;
+            this.severity = severity;
+            this.metadata = metadata;
+            this.occurredAt = occurredAt;
+        }
+    }
+}
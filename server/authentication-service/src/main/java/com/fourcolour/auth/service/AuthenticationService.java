@@ -7,12 +7,16 @@ import com.fourcolour.auth.repository.UserRepository;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
 import com.fourcolour.common.dto.TokenResponse;
-import com.fourcolour.common.service.LoggerClient;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
@@ -21,38 +25,62 @@ import java.util.Optional;
 @Service
 public class AuthenticationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
+
+    /**
+     * How long after its session expires a token can still be refreshed. Session lookups and
+     * deletes never look further back than this, so on a table partitioned by expiry they
+     * only touch the partitions still in use.
+     */
+    public static final Duration REFRESH_GRACE = Duration.ofMinutes(2);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserLookup userLookup;
+
     @Autowired
     private SessionRepository sessionRepository;
 
+    @Autowired
+    private SessionCache sessionCache;
+
+    @Autowired
+    private RefreshTokenFamilies refreshTokenFamilies;
+
     @Autowired
     private JwtService jwtService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Autowired
-    private LoggerClient loggerClient;
+    private AuditLogger auditLogger;
 
     @Transactional
     public TokenResponse register(RegisterRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
+        // Check if user already exists, from memory when the email was never seen
+        if (userLookup.existsByEmail(request.getEmail())) {
             throw new RuntimeException("User with this email already exists");
         }
 
         // Create new user
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        user.setPasswordHash(passwordHasher.encode(request.getPassword()));
         user.setName(request.getName());
 
-        user = userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered on another replica since this one last caught up with new users
+            throw new RuntimeException("User with this email already exists");
+        }
+        userLookup.put(user);
 
         // Log successful registration
-        loggerClient.logEvent(
+        auditLogger.logEvent(
                 "authentication-service",
                 "user_registered",
                 user.getId().toString(),
@@ -68,10 +96,10 @@ public class AuthenticationService {
     @Transactional
     public TokenResponse login(LoginRequest request) {
         // Find user by email
-        Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
+        Optional<User> userOpt = userLookup.findByEmail(request.getEmail());
         if (!userOpt.isPresent()) {
             // Log failed login attempt
-            loggerClient.logEvent(
+            auditLogger.logEvent(
                     "authentication-service",
                     "login_failed",
                     "unknown",
@@ -85,9 +113,9 @@ public class AuthenticationService {
         User user = userOpt.get();
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
             // Log failed login attempt
-            loggerClient.logEvent(
+            auditLogger.logEvent(
                     "authentication-service",
                     "login_failed",
                     user.getId().toString(),
@@ -98,8 +126,15 @@ public class AuthenticationService {
             throw new RuntimeException("Invalid credentials");
         }
 
+        // Rehash with the configured cost while the password is at hand
+        if (passwordHasher.upgradeEncoding(user.getPasswordHash())) {
+            user.setPasswordHash(passwordHasher.encode(request.getPassword()));
+            user = userRepository.save(user);
+            userLookup.put(user);
+        }
+
         // Log successful login
-        loggerClient.logEvent(
+        auditLogger.logEvent(
                 "authentication-service",
                 "user_login",
                 user.getId().toString(),
@@ -117,13 +152,23 @@ public class AuthenticationService {
         // Clean the token (remove Bearer prefix if present)
         String cleanToken = token.startsWith("Bearer ") ? token.substring(7) : token;
         
+        String tokenHash = TokenDigest.of(cleanToken);
+        
+        // Sessions further gone than the grace period can no longer be used
+        LocalDateTime stillRefreshable = LocalDateTime.now().minus(REFRESH_GRACE);
+        
         // Get user ID for logging before deleting session
         try {
             Integer userId = jwtService.getUserIdFromToken(cleanToken);
-            sessionRepository.deleteByToken(cleanToken);
+            // End the login's refresh token family too, so its refresh token stops working
+            sessionRepository.findByTokenHashAndNotExpired(tokenHash, stillRefreshable)
+                    .map(Session::getRefreshFamily)
+                    .ifPresent(refreshTokenFamilies::revoke);
+            sessionRepository.deleteByTokenHash(tokenHash, stillRefreshable);
+            sessionCache.invalidate(tokenHash);
             
             // Log successful logout
-            loggerClient.logEvent(
+            auditLogger.logEvent(
                     "authentication-service",
                     "user_logout",
                     userId.toString(),
@@ -132,23 +177,39 @@ public class AuthenticationService {
                     Map.of("token_length", String.valueOf(cleanToken.length()))
             );
         } catch (Exception e) {
-            sessionRepository.deleteByToken(cleanToken);
+            sessionRepository.deleteByTokenHash(tokenHash, stillRefreshable);
+            sessionCache.invalidate(tokenHash);
         }
     }
 
     public boolean verifyToken(String token) {
+        return verify(token).isValid();
+    }
+
+    /**
+     * Checks the token's session and signature with one session lookup and one JWT parse,
+     * returning the user id and expiry along with the verdict.
+     */
+    public TokenVerification verify(String token) {
         // Clean the token
         String cleanToken = token.startsWith("Bearer ") ? token.substring(7) : token;
         
-        // Check if token exists in sessions and is not expired
-        Optional<Session> sessionOpt = sessionRepository.findByTokenAndNotExpired(cleanToken, LocalDateTime.now());
+        // Check if token exists in sessions and is not expired, from memory when possible
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Session> sessionOpt = sessionCache.lookup(TokenDigest.of(cleanToken), now,
+                tokenHash -> sessionRepository.findByTokenHashAndNotExpired(tokenHash, now));
         
         if (!sessionOpt.isPresent()) {
-            return false;
+            return TokenVerification.invalid();
         }
 
-        // Validate JWT structure
-        return jwtService.validateToken(cleanToken);
+        // Validate JWT structure, reading the user id from the same parse
+        try {
+            VerifiedToken verified = jwtService.verify(cleanToken);
+            return TokenVerification.valid(verified.getUserId(), sessionOpt.get().getExpiresAt());
+        } catch (JwtException | IllegalArgumentException e) {
+            return TokenVerification.invalid();
+        }
     }
 
     public Integer getUserIdFromToken(String token) {
@@ -156,26 +217,31 @@ public class AuthenticationService {
         return jwtService.getUserIdFromToken(cleanToken);
     }
 
+    /**
+     * Exchanges a refresh token, or for clients that predate refresh tokens an access token
+     * whose session is still refreshable, for a new access token and refresh token.
+     */
     @Transactional
     public TokenResponse refreshToken(String oldToken) {
         String cleanToken = oldToken.startsWith("Bearer ") ? oldToken.substring(7) : oldToken;
         
-        // First, try to find the session by token (regardless of expiration)
-        Optional<Session> sessionOpt = sessionRepository.findByToken(cleanToken);
+        // A refresh token carries everything needed, so it costs one write and no reads
+        Optional<VerifiedToken> refreshToken = readRefreshToken(cleanToken);
+        if (refreshToken.isPresent()) {
+            return rotate(refreshToken.get());
+        }
+        
+        String tokenHash = TokenDigest.of(cleanToken);
+        
+        // Find the session if it has not expired or is within the grace period
+        LocalDateTime stillRefreshable = LocalDateTime.now().minus(REFRESH_GRACE);
+        Optional<Session> sessionOpt = sessionRepository.findByTokenHashAndNotExpired(tokenHash, stillRefreshable);
         if (!sessionOpt.isPresent()) {
             throw new RuntimeException("Invalid token");
         }
 
         Session session = sessionOpt.get();
         
-        // Check if the session is within grace period (2 minutes after expiration)
-        LocalDateTime gracePeriod = session.getExpiresAt().plusMinutes(2);
-        if (LocalDateTime.now().isAfter(gracePeriod)) {
-            // Session is too old, delete it and throw error
-            sessionRepository.deleteByToken(cleanToken);
-            throw new RuntimeException("Token expired and grace period exceeded");
-        }
-        
         // Find user
         Optional<User> userOpt = userRepository.findById(session.getUserId());
         if (!userOpt.isPresent()) {
@@ -185,7 +251,7 @@ public class AuthenticationService {
         User user = userOpt.get();
 
         // Log token refresh
-        loggerClient.logEvent(
+        auditLogger.logEvent(
                 "authentication-service",
                 "token_refreshed",
                 user.getId().toString(),
@@ -195,26 +261,100 @@ public class AuthenticationService {
         );
 
         // Delete old session
-        sessionRepository.deleteByToken(cleanToken);
+        sessionRepository.deleteByTokenHash(tokenHash, stillRefreshable);
+        sessionCache.invalidate(tokenHash);
 
         // Create new session
         return createUserSession(user);
     }
 
+    private Optional<VerifiedToken> readRefreshToken(String token) {
+        try {
+            return Optional.ofNullable(jwtService.verify(token)).filter(VerifiedToken::isRefreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Moves the refresh token's family on a generation, replacing the access token issued with
+     * the refresh token by a new one. If the token was already exchanged, it has been copied,
+     * and there is no telling whether this holder is the user; the family is revoked, logging
+     * out both.
+     */
+    private TokenResponse rotate(VerifiedToken refreshToken) {
+        Integer userId = refreshToken.getUserId();
+        String family = refreshToken.getRefreshFamily();
+        int generation = refreshToken.getRefreshGeneration() + 1;
+
+        String token = jwtService.generateToken(userId);
+        LocalDateTime expiresAt = jwtService.getExpirationTime();
+        Session session = new Session(userId, TokenDigest.of(token), expiresAt);
+        session.setRefreshFamily(family);
+        session.setRefreshGeneration(generation);
+
+        if (!refreshTokenFamilies.rotate(session)) {
+            auditLogger.logEvent(
+                    "authentication-service",
+                    "refresh_token_rejected",
+                    userId.toString(),
+                    "Refresh token reused or revoked, token family revoked",
+                    2,
+                    Map.of("refresh_family", family, "generation", String.valueOf(generation - 1))
+            );
+            try {
+                refreshTokenFamilies.revoke(family);
+            } catch (DataAccessException e) {
+                // Most likely revoked at the same moment by another request; the refresh is refused either way
+                logger.warn("Could not revoke refresh token family {}: {}", family, e.getMessage());
+            }
+            throw new RuntimeException("Invalid token");
+        }
+        // The replaced access token's session is gone; stop serving it from memory too
+        if (refreshToken.getAccessTokenHash() != null) {
+            sessionCache.invalidate(refreshToken.getAccessTokenHash());
+        }
+        sessionCache.put(session);
+
+        // Log token refresh
+        auditLogger.logEvent(
+                "authentication-service",
+                "token_refreshed",
+                userId.toString(),
+                "Token refreshed for user: " + userId,
+                1,
+                Map.of("refresh_family", family, "generation", String.valueOf(generation))
+        );
+
+        // Name and email are left out rather than read from the database for every refresh
+        return new TokenResponse(
+                token,
+                null,
+                userId,
+                null,
+                expiresAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                jwtService.generateRefreshToken(userId, family, generation, session.getTokenHash(),
+                        expiresAt.plus(REFRESH_GRACE))
+        );
+    }
+
     private TokenResponse createUserSession(User user) {
         // Generate JWT token
         String token = jwtService.generateToken(user.getId());
         LocalDateTime expiresAt = jwtService.getExpirationTime();
 
-        // Create session
+        // Create session, the head of a new refresh token family
         Session session = new Session();
         session.setUserId(user.getId());
-        session.setToken(token);
+        session.setTokenHash(TokenDigest.of(token));
         session.setExpiresAt(expiresAt);
+        session.setRefreshFamily(refreshTokenFamilies.newFamily());
+        session.setRefreshGeneration(0);
         sessionRepository.save(session);
+        sessionCache.put(session);
 
         // Log session creation
-        loggerClient.logEvent(
+        auditLogger.logEvent(
                 "authentication-service",
                 "session_created",
                 user.getId().toString(),
@@ -229,7 +369,9 @@ public class AuthenticationService {
                 user.getName(),
                 user.getId(),
                 user.getEmail(),
-                expiresAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                expiresAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                jwtService.generateRefreshToken(user.getId(), session.getRefreshFamily(), 0,
+                        session.getTokenHash(), expiresAt.plus(REFRESH_GRACE))
         );
     }
 } 
\ No newline at end of file
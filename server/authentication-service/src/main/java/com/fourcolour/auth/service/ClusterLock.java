@@ -0,0 +1,62 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.repository.SchedulerLockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leases on scheduled jobs held in the {@code scheduler_locks} table, so a job that every
+ * replica schedules runs on one of them at a time. A lease lapses on its own after the
+ * duration it was taken for, so a replica that dies mid-job does not hold it for good.
+ */
+@Component
+public class ClusterLock {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    // pid@host, plus a random part in case two replicas share both
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    public ClusterLock(SchedulerLockRepository schedulerLockRepository) {
+        this.schedulerLockRepository = schedulerLockRepository;
+    }
+
+    /**
+     * Takes the named lease for at most {@code atMost} unless another replica holds it.
+     *
+     * @return whether this replica now holds the lease
+     */
+    public boolean tryLock(String name, Duration atMost) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(atMost);
+        if (schedulerLockRepository.acquireExpired(name, owner, now, until) == 1) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            schedulerLockRepository.insert(name, owner, now, until);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another replica created the lock first
+            return false;
+        }
+    }
+
+    /**
+     * Gives the lease back early, if this replica still holds it.
+     */
+    public void unlock(String name) {
+        schedulerLockRepository.release(name, owner, LocalDateTime.now());
+    }
+
+    String getOwner() {
+        return owner;
+    }
+}
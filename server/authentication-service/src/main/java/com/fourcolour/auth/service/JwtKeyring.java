@@ -0,0 +1,104 @@
+package com.fourcolour.auth.service;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HMAC signing keys indexed by key id, with the parser that verifies against them. New tokens
+ * are signed with the active key and name it in their {@code kid} header; a token is verified
+ * with whichever key its header names, so retired keys keep accepting tokens issued before a
+ * rotation until they expire. Tokens without a {@code kid} predate key ids and are verified
+ * with the active key.
+ * <p>
+ * Keys are derived and the parser built once, when the keyring is created. Both are immutable
+ * and safe to share between request threads.
+ */
+public final class JwtKeyring {
+
+    private final String activeKeyId;
+    private final SecretKey activeKey;
+    private final Map<String, SecretKey> keys;
+    private final JwtParser parser;
+
+    private JwtKeyring(String activeKeyId, Map<String, SecretKey> keys) {
+        this.activeKeyId = activeKeyId;
+        this.activeKey = keys.get(activeKeyId);
+        this.keys = Map.copyOf(keys);
+        this.parser = Jwts.parser()
+                .keyLocator(header -> keyFor(header instanceof ProtectedHeader protectedHeader
+                        ? protectedHeader.getKeyId() : null))
+                .build();
+    }
+
+    /**
+     * @param retiredKeys keys that only verify, as comma-separated {@code id=secret} pairs;
+     *                    blank for none
+     * @throws IllegalArgumentException if a retired key is malformed or reuses a key id
+     */
+    public static JwtKeyring of(String activeKeyId, String activeSecret, String retiredKeys) {
+        if (activeKeyId == null || activeKeyId.isBlank()) {
+            throw new IllegalArgumentException("Active JWT key id must not be blank");
+        }
+        Map<String, SecretKey> keys = new HashMap<>();
+        keys.put(activeKeyId, deriveKey(activeSecret));
+        if (retiredKeys != null) {
+            for (String entry : retiredKeys.split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int separator = entry.indexOf('=');
+                if (separator <= 0 || separator == entry.length() - 1) {
+                    throw new IllegalArgumentException("Retired JWT keys must be id=secret pairs");
+                }
+                String keyId = entry.substring(0, separator).trim();
+                if (keys.putIfAbsent(keyId, deriveKey(entry.substring(separator + 1).trim())) != null) {
+                    throw new IllegalArgumentException("Duplicate JWT key id: " + keyId);
+                }
+            }
+        }
+        return new JwtKeyring(activeKeyId, keys);
+    }
+
+    private static SecretKey deriveKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public SecretKey getActiveKey() {
+        return activeKey;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @param keyId a token's {@code kid} header, or {@code null} if it has none
+     * @throws UnsupportedJwtException if no key has that id
+     */
+    public SecretKey keyFor(String keyId) {
+        if (keyId == null) {
+            return activeKey;
+        }
+        SecretKey key = keys.get(keyId);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + keyId);
+        }
+        return key;
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+}
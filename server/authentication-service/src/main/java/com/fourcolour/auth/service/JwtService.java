@@ -1,11 +1,10 @@
 package com.fourcolour.auth.service;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
@@ -14,26 +13,84 @@ import java.util.UUID;
 @Service
 public class JwtService {
 
+    static final String DEFAULT_KEY_ID = "default";
+
+    // Claims that mark a refresh token and place it in its family
+    static final String TYPE_CLAIM = "typ";
+    static final String REFRESH_TOKEN_TYPE = "refresh";
+    static final String FAMILY_CLAIM = "fam";
+    static final String GENERATION_CLAIM = "gen";
+    // Digest of the access token issued alongside, which the refresh replaces
+    static final String ACCESS_TOKEN_CLAIM = "ath";
+
     @Value("${app.jwt.secret:defaultSecretKeyThatShouldBeChanged}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration:86400}") // 24 hours in seconds
     private int jwtExpirationInSeconds;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${app.jwt.key-id:" + DEFAULT_KEY_ID + "}")
+    private String jwtKeyId;
+
+    // Previous keys, as id=secret pairs, that still verify tokens issued before a rotation
+    @Value("${app.jwt.retired-keys:}")
+    private String jwtRetiredKeys;
+
+    private volatile JwtKeyring keyring;
+
+    /**
+     * Derives the signing keys and builds the parser on first use, then shares them across
+     * requests instead of repeating the HMAC key setup for every token.
+     */
+    JwtKeyring getKeyring() {
+        JwtKeyring current = keyring;
+        if (current == null) {
+            synchronized (this) {
+                current = keyring;
+                if (current == null) {
+                    current = JwtKeyring.of(jwtKeyId != null ? jwtKeyId : DEFAULT_KEY_ID, jwtSecret, jwtRetiredKeys);
+                    keyring = current;
+                }
+            }
+        }
+        return current;
     }
 
     public String generateToken(Integer userId) {
+        JwtKeyring signing = getKeyring();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInSeconds * 1000L);
 
         return Jwts.builder()
+                .header().keyId(signing.getActiveKeyId()).and()
                 .setSubject(userId.toString())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .setId(UUID.randomUUID().toString()) // Add unique ID to prevent duplicates
-                .signWith(getSigningKey())
+                .signWith(signing.getActiveKey())
+                .compact();
+    }
+
+    /**
+     * Signs a refresh token for generation {@code generation} of a refresh token family, issued
+     * with the access token whose digest is {@code accessTokenHash}. It carries everything a
+     * refresh needs, so exchanging it reads nothing from the database.
+     */
+    public String generateRefreshToken(Integer userId, String family, int generation, String accessTokenHash,
+                                       LocalDateTime expiresAt) {
+        JwtKeyring signing = getKeyring();
+
+        return Jwts.builder()
+                .header().keyId(signing.getActiveKeyId()).and()
+                .setSubject(userId.toString())
+                .claim(TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .claim(FAMILY_CLAIM, family)
+                .claim(GENERATION_CLAIM, generation)
+                .claim(ACCESS_TOKEN_CLAIM, accessTokenHash)
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant()))
+                .setId(UUID.randomUUID().toString())
+                .signWith(signing.getActiveKey())
                 .compact();
     }
 
@@ -41,22 +98,24 @@ public class JwtService {
         return LocalDateTime.now().plusSeconds(jwtExpirationInSeconds);
     }
 
-    public Integer getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Parses the token once, checking its signature against the key its header names and its
+     * expiry.
+     *
+     * @throws JwtException if the token is malformed, expired, or not signed by a known key
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.of(getKeyring().getParser().parseSignedClaims(token));
+    }
 
-        return Integer.valueOf(claims.getSubject());
+    public Integer getUserIdFromToken(String token) {
+        return verify(token).getUserId();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -65,15 +124,9 @@ public class JwtService {
 
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            
-            return claims.getExpiration().before(new Date());
+            return verify(token).isExpired(Instant.now());
         } catch (JwtException | IllegalArgumentException e) {
             return true;
         }
     }
-} 
\ No newline at end of file
+}
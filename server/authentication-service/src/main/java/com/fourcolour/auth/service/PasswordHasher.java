@@ -0,0 +1,124 @@
+package com.fourcolour.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on its own small pool instead of on request threads. BCrypt is
+ * deliberately slow, so a burst of logins left on the Tomcat pool would take every core and
+ * every worker, starving {@code /auth/verify}; here at most {@code threads} hashes run at once
+ * and at most {@code queue-capacity} wait, and anything beyond that is refused straight away
+ * with {@link PasswordHashingRejectedException} rather than queued behind them.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${app.password.threads:0}") int threads,
+                          @Value("${app.password.queue-capacity:64}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HasherThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.matchTimer = meterRegistry.timer("auth.password.hash", "operation", "matches");
+        this.encodeTimer = meterRegistry.timer("auth.password.hash", "operation", "encode");
+        this.rejected = meterRegistry.counter("auth.password.rejected");
+        Gauge.builder("auth.password.queue.depth", executor.getQueue(), BlockingQueue::size)
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks a password against its stored hash on the hashing pool, waiting for the answer.
+     *
+     * @throws PasswordHashingRejectedException if the pool's queue is full
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes a password on the hashing pool with the configured cost, waiting for the answer.
+     *
+     * @throws PasswordHashingRejectedException if the pool's queue is full
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether a stored hash was made with a lower cost than is now configured and should be
+     * replaced the next time its password is known. Only reads the hash, so runs inline.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer timer, Callable<T> hash) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(hash));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException();
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class HasherThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.fourcolour.auth.service;
+
+/**
+ * Thrown when the {@link PasswordHasher} sheds a hash because its queue is full.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    public PasswordHashingRejectedException() {
+        super("Too many sign-ins in progress, please retry shortly");
+    }
+
+    /**
+     * Hashes take tens of milliseconds each, so the queue soon has room again.
+     */
+    public long getRetryAfterSeconds() {
+        return RETRY_AFTER_SECONDS;
+    }
+}
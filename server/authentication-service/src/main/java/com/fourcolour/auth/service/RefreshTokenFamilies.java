@@ -0,0 +1,75 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.Session;
+import com.fourcolour.auth.repository.SessionRepository;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh token families. Every refresh token issued from one login belongs to the same
+ * family, and the login's session row is its head: it holds the generation last issued and
+ * the digest of the access token issued with it. Each refresh moves that row on a generation
+ * in place, so it costs one write and leaves the previous access token without a session. A
+ * refresh token presented again after it was exchanged means it has leaked, so the family is
+ * revoked as a whole: its session is deleted, leaving nothing to refresh from.
+ */
+@Component
+public class RefreshTokenFamilies {
+
+    private final SessionRepository sessionRepository;
+    private final SessionCache sessionCache;
+
+    public RefreshTokenFamilies(SessionRepository sessionRepository, SessionCache sessionCache) {
+        this.sessionRepository = sessionRepository;
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * A new family, at generation 0 once its first session is saved. Nothing is written until
+     * then.
+     *
+     * @return the family's id
+     */
+    public String newFamily() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Moves the family's session on to {@code session}'s generation, token and expiry, with an
+     * UPDATE conditional on the generation before. That takes the session's row lock, so two
+     * refreshes with the same token are serialized and the second finds the generation moved.
+     *
+     * @return whether the session moved on; false if a refresh token of this generation was
+     * already exchanged, or the family has been revoked or has expired
+     */
+    public boolean rotate(Session session) {
+        try {
+            return sessionRepository.rotate(session.getRefreshFamily(), session.getRefreshGeneration(),
+                    session.getTokenHash(), session.getExpiresAt(),
+                    LocalDateTime.now().minus(AuthenticationService.REFRESH_GRACE)) > 0;
+        } catch (ConcurrencyFailureException e) {
+            // Lost to a concurrent rotation that moved the session to another partition
+            return false;
+        }
+    }
+
+    /**
+     * Revokes the family by ending its sessions. Commits on its own, so the revocation stands
+     * when the request that found the reuse then fails.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void revoke(String family) {
+        List<Session> sessions = sessionRepository.findByRefreshFamily(family,
+                LocalDateTime.now().minus(AuthenticationService.REFRESH_GRACE));
+        if (!sessions.isEmpty()) {
+            sessionRepository.deleteByIdIn(sessions.stream().map(Session::getId).toList());
+            sessions.forEach(session -> sessionCache.invalidate(session.getTokenHash()));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Sessions kept in memory by token digest so {@code /auth/verify} does not query Postgres on
+ * every call. Sessions never change once created, only disappear, so a cached one stays right
+ * until it expires, is logged out or refreshed here, or is deleted by another replica; the
+ * last is only noticed once the entry's TTL runs out. Tokens the database does not know are
+ * remembered as absent for a shorter while, so replayed or forged tokens do not reach it
+ * either.
+ * <p>
+ * A hit takes no lock: it only stamps the entry with the number of insertions so far. Once the
+ * cache overflows, one thread at a time evicts a tenth of it, least recently stamped first,
+ * so eviction is approximately least recently used.
+ */
+@Component
+public class SessionCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Advances on every insertion; hits stamp their entry with it as a coarse recency
+    private final AtomicLong insertions = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+
+    @Autowired
+    public SessionCache(@Value("${app.session-cache.max-entries:100000}") int maxEntries,
+                        @Value("${app.session-cache.ttl-ms:30000}") long ttlMillis,
+                        @Value("${app.session-cache.negative-ttl-ms:5000}") long negativeTtlMillis,
+                        MeterRegistry meterRegistry) {
+        this(maxEntries, ttlMillis, negativeTtlMillis, meterRegistry, System::nanoTime);
+    }
+
+    SessionCache(int maxEntries, long ttlMillis, long negativeTtlMillis, MeterRegistry meterRegistry,
+                 LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.nanoClock = nanoClock;
+        this.hits = meterRegistry.counter("auth.session.cache", "result", "hit");
+        this.negativeHits = meterRegistry.counter("auth.session.cache", "result", "negative_hit");
+        this.misses = meterRegistry.counter("auth.session.cache", "result", "miss");
+        Gauge.builder("auth.session.cache.size", this, SessionCache::size).register(meterRegistry);
+        Gauge.builder("auth.session.cache.hit.ratio", this, SessionCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Returns the unexpired session for the digest, asking {@code loader} only when the cache
+     * cannot answer.
+     */
+    public Optional<Session> lookup(String tokenHash, LocalDateTime now,
+                                    Function<String, Optional<Session>> loader) {
+        if (maxEntries <= 0) {
+            return loader.apply(tokenHash);
+        }
+        Entry entry = entries.get(tokenHash);
+        if (entry != null && entry.isLive(nanoClock.getAsLong())) {
+            if (entry.session == null) {
+                entry.touch(insertions.get());
+                negativeHits.increment();
+                return Optional.empty();
+            }
+            if (entry.session.getExpiresAt().isAfter(now)) {
+                entry.touch(insertions.get());
+                hits.increment();
+                return Optional.of(entry.session);
+            }
+        }
+        if (entry != null) {
+            entries.remove(tokenHash, entry);
+        }
+        misses.increment();
+        Optional<Session> loaded = loader.apply(tokenHash);
+        // A logout or refresh that ran while loading leaves a tombstone the load must not replace
+        entries.putIfAbsent(tokenHash, loaded.isPresent()
+                ? newEntry(loaded.get(), ttlNanos)
+                : newEntry(null, negativeTtlNanos));
+        evictOverflow();
+        return loaded;
+    }
+
+    /**
+     * Caches a session just created, replacing anything held for its digest.
+     */
+    public void put(Session session) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(session.getTokenHash(), newEntry(session, ttlNanos));
+        evictOverflow();
+    }
+
+    /**
+     * Marks a session as gone, on logout or refresh. The mark outlives any copy of the session
+     * a concurrent lookup may still be loading from before the delete committed.
+     */
+    public void invalidate(String tokenHash) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(tokenHash, newEntry(null, Math.max(ttlNanos, negativeTtlNanos)));
+        evictOverflow();
+    }
+
+    private Entry newEntry(Session session, long lifetimeNanos) {
+        return new Entry(session, nanoClock.getAsLong() + lifetimeNanos, insertions.incrementAndGet());
+    }
+
+    /**
+     * Brings the cache back to nine tenths of its capacity, least recently used first. Skipped
+     * while another thread is at it; the cache may overflow by a little until that finishes.
+     */
+    private void evictOverflow() {
+        if (entries.size() <= maxEntries || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - (maxEntries - maxEntries / 10);
+            if (excess <= 0) {
+                return;
+            }
+            // Stamps are copied first, as hits keep moving them during the sort
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((tokenHash, entry) -> candidates.add(new Candidate(tokenHash, entry, entry.lastUsed)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                entries.remove(candidate.tokenHash(), candidate.entry());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the share of lookups answered without the database, positive or negative
+     */
+    public double hitRatio() {
+        double answered = hits.count() + negativeHits.count();
+        double total = answered + misses.count();
+        return total == 0 ? 0 : answered / total;
+    }
+
+    private static final class Entry {
+        // null for a token known to have no session
+        final Session session;
+        final long expiresAtNanos;
+        volatile long lastUsed;
+
+        Entry(Session session, long expiresAtNanos, long lastUsed) {
+            this.session = session;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastUsed = lastUsed;
+        }
+
+        boolean isLive(long nowNanos) {
+            return nowNanos - expiresAtNanos < 0;
+        }
+
+        void touch(long stamp) {
+            // Most hits find the stamp current, and then leave the cache line alone
+            if (lastUsed != stamp) {
+                lastUsed = stamp;
+            }
+        }
+    }
+
+    private record Candidate(String tokenHash, Entry entry, long lastUsed) {
+    }
+}
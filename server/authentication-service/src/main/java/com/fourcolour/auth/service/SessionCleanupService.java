@@ -1,41 +1,197 @@
 package com.fourcolour.auth.service;
 
 import com.fourcolour.auth.repository.SessionRepository;
+import com.fourcolour.auth.repository.SessionRepository.SessionKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class SessionCleanupService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(SessionCleanupService.class);
-    
-    @Autowired
-    private SessionRepository sessionRepository;
-    
+
+    static final String LOCK_NAME = "session-cleanup";
+    // Cursor start, earlier than any session's expiry
+    private static final LocalDateTime BEFORE_ANY_SESSION = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SessionRepository sessionRepository;
+    private final ClusterLock clusterLock;
+    private final SessionPartitions sessionPartitions;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Duration lockAtMost;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter deleted;
+    private final Counter batches;
+    private final Counter partitionsCreated;
+    private final Counter partitionsDropped;
+    private final Timer duration;
+
+    public SessionCleanupService(SessionRepository sessionRepository,
+                                 ClusterLock clusterLock,
+                                 SessionPartitions sessionPartitions,
+                                 @Value("${app.session-cleanup.batch-size:1000}") int batchSize,
+                                 @Value("${app.session-cleanup.pause-ms:100}") long pauseMillis,
+                                 @Value("${app.session-cleanup.lock-at-most-ms:3000000}") long lockAtMostMillis,
+                                 MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Session cleanup batch size must be positive");
+        }
+        this.sessionRepository = sessionRepository;
+        this.clusterLock = clusterLock;
+        this.sessionPartitions = sessionPartitions;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.lockAtMost = Duration.ofMillis(lockAtMostMillis);
+        this.meterRegistry = meterRegistry;
+        this.deleted = meterRegistry.counter("auth.session.cleanup.deleted");
+        this.batches = meterRegistry.counter("auth.session.cleanup.batches");
+        this.partitionsCreated = meterRegistry.counter("auth.session.cleanup.partitions", "action", "created");
+        this.partitionsDropped = meterRegistry.counter("auth.session.cleanup.partitions", "action", "dropped");
+        this.duration = meterRegistry.timer("auth.session.cleanup.duration");
+    }
+
     /**
-     * Clean up expired sessions every hour
-     * This prevents database bloat from accumulated expired sessions
+     * Clean up expired sessions every hour (by default)
+     * This prevents database bloat from accumulated expired sessions. Where the sessions table
+     * is partitioned by expiry, whole expired partitions are dropped; otherwise sessions are
+     * deleted in small batches, each its own short transaction, with a pause between them so
+     * the purge never holds long locks. Only the replica holding the cleanup lock runs it.
      */
-    @Scheduled(fixedRate = 3600000) // Run every hour (3600000 ms = 1 hour)
+    @Scheduled(fixedRateString = "${app.session-cleanup.interval-ms:3600000}")
     public void cleanupExpiredSessions() {
         try {
+            if (!clusterLock.tryLock(LOCK_NAME, lockAtMost)) {
+                logger.debug("Session cleanup already running on another replica");
+                countRun("skipped");
+                return;
+            }
+        } catch (Exception e) {
+            logger.error("Error taking session cleanup lock: {}", e.getMessage(), e);
+            countRun("failed");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
             LocalDateTime now = LocalDateTime.now();
-            sessionRepository.deleteExpiredSessions(now);
-            logger.info("Session cleanup completed successfully");
+            if (sessionPartitions.isPartitioned()) {
+                rotatePartitions(now);
+            } else {
+                long purged = purge(now, start + lockAtMost.toNanos());
+                logger.info("Session cleanup completed successfully, {} expired sessions deleted", purged);
+            }
+            duration.record(Duration.ofNanos(System.nanoTime() - start));
+            countRun("completed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Session cleanup interrupted");
+            countRun("failed");
         } catch (Exception e) {
             logger.error("Error during session cleanup: {}", e.getMessage(), e);
+            countRun("failed");
+        } finally {
+            try {
+                clusterLock.unlock(LOCK_NAME);
+            } catch (Exception e) {
+                // The lease runs out on its own
+                logger.warn("Could not release session cleanup lock: {}", e.getMessage());
+            }
         }
     }
-    
+
+    /**
+     * On a table partitioned by expiry, creates the coming days' partitions at startup too, so
+     * sessions still have somewhere to go after cleanup runs have been missed for a while.
+     * Needs no lock: partitions that already exist are skipped, and losing a race to create
+     * one with another replica starting only costs a warning.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitionsAhead() {
+        try {
+            if (!sessionPartitions.isPartitioned()) {
+                return;
+            }
+            List<String> created = sessionPartitions.createAhead(LocalDate.now());
+            partitionsCreated.increment(created.size());
+            logger.info("Session partitions checked at startup, created: {}", created);
+        } catch (Exception e) {
+            logger.warn("Could not create session partitions at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * On a table partitioned by expiry, makes sure the coming days have partitions and drops
+     * the ones whose sessions are all past refreshing, instead of deleting rows.
+     */
+    private void rotatePartitions(LocalDateTime now) {
+        List<String> created = sessionPartitions.createAhead(now.toLocalDate());
+        List<String> dropped = sessionPartitions.dropExpiredBefore(now.minus(AuthenticationService.REFRESH_GRACE));
+        partitionsCreated.increment(created.size());
+        partitionsDropped.increment(dropped.size());
+        logger.info("Session cleanup completed successfully, partitions created: {}, dropped: {}", created, dropped);
+    }
+
+    /**
+     * Deletes sessions expired before {@code now} a batch at a time, walking the expires_at
+     * index from the oldest so each batch picks up where the last one stopped. Stops early
+     * once the lock's lease would have run out, leaving the rest to the next run.
+     */
+    private long purge(LocalDateTime now, long deadlineNanos) throws InterruptedException {
+        Pageable page = PageRequest.of(0, batchSize);
+        LocalDateTime afterExpiresAt = BEFORE_ANY_SESSION;
+        Integer afterId = 0;
+        long purged = 0;
+        while (true) {
+            List<SessionKey> expired = sessionRepository.findExpiredAfter(now, afterExpiresAt, afterId, page);
+            if (expired.isEmpty()) {
+                return purged;
+            }
+            int count = sessionRepository.deleteByIdIn(expired.stream().map(SessionKey::getId).toList());
+            purged += count;
+            deleted.increment(count);
+            batches.increment();
+            logger.debug("Deleted {} expired sessions, {} so far", count, purged);
+
+            if (expired.size() < batchSize) {
+                return purged;
+            }
+            SessionKey last = expired.get(expired.size() - 1);
+            afterExpiresAt = last.getExpiresAt();
+            afterId = last.getId();
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                logger.warn("Session cleanup stopped after {} sessions, lock lease ran out", purged);
+                return purged;
+            }
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+    }
+
+    private void countRun(String result) {
+        meterRegistry.counter("auth.session.cleanup.runs", "result", result).increment();
+    }
+
     /**
      * Manual cleanup method that can be called on demand
      */
     public void manualCleanup() {
         cleanupExpiredSessions();
     }
-} 
\ No newline at end of file
+}
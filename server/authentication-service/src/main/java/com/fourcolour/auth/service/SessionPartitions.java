@@ -0,0 +1,158 @@
+package com.fourcolour.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Day partitions of the {@code sessions} table on PostgreSQL, where it is range-partitioned
+ * on {@code expires_at} (see {@code V3__partition_sessions_by_expiry.sql}). Expired sessions
+ * then go a day at a time by dropping the partition holding them, in place of deleting
+ * them row by row, and partitions are created days before any session can land in them.
+ * <p>
+ * Partitions are named {@code sessions_pYYYYMMDD} and hold sessions expiring from midnight
+ * that day to midnight the next. Any other database, or a sessions table that is not
+ * partitioned, reports {@link #isPartitioned()} false and is left alone.
+ */
+@Component
+public class SessionPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionPartitions.class);
+
+    static final String PREFIX = "sessions_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int daysAhead;
+    private volatile Boolean partitioned;
+
+    public SessionPartitions(JdbcTemplate jdbcTemplate,
+                             @Value("${app.session-partitions.days-ahead:7}") int daysAhead) {
+        if (daysAhead < 1) {
+            throw new IllegalArgumentException("Session partitions must be created at least a day ahead");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.daysAhead = daysAhead;
+    }
+
+    /**
+     * Whether sessions live in a partitioned PostgreSQL table. Checked once; the table is only
+     * ever converted by a migration, before the application starts.
+     */
+    public boolean isPartitioned() {
+        Boolean known = partitioned;
+        if (known == null) {
+            known = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()))
+                    && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid "
+                            + "WHERE c.relname = 'sessions' AND c.relnamespace = to_regnamespace(current_schema()))",
+                    Boolean.class));
+            partitioned = known;
+        }
+        return known;
+    }
+
+    /**
+     * Creates any missing partitions from {@code today} to the configured number of days ahead.
+     * This must stay ahead of the longest token lifetime, as a session with nowhere to go
+     * cannot be stored.
+     *
+     * @return the partitions created
+     */
+    public List<String> createAhead(LocalDate today) {
+        Set<LocalDate> existing = new HashSet<>(partitionDays());
+        List<String> created = new ArrayList<>();
+        for (LocalDate day = today; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            if (existing.contains(day)) {
+                continue;
+            }
+            String name = nameOf(day);
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF sessions FOR VALUES FROM ('%s') TO ('%s')",
+                    name, day, day.plusDays(1)));
+            created.add(name);
+        }
+        return created;
+    }
+
+    /**
+     * Drops every partition whose sessions all expired before {@code cutoff}. Each is first
+     * detached concurrently, which does not block queries on the other partitions, then dropped.
+     *
+     * @return the partitions dropped
+     */
+    public List<String> dropExpiredBefore(LocalDateTime cutoff) {
+        List<String> dropped = new ArrayList<>();
+        for (LocalDate day : partitionDays()) {
+            if (day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+            String name = nameOf(day);
+            try {
+                detach(name);
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+                dropped.add(name);
+            } catch (DataAccessException e) {
+                // Left attached, or pending detach, for the next run to retry
+                logger.warn("Could not drop session partition {}: {}", name, e.getMessage());
+            }
+        }
+        return dropped;
+    }
+
+    private void detach(String name) {
+        try {
+            // Cannot run inside a transaction; JdbcTemplate runs it in autocommit
+            jdbcTemplate.execute("ALTER TABLE sessions DETACH PARTITION " + name + " CONCURRENTLY");
+        } catch (DataAccessException e) {
+            // An interrupted concurrent detach leaves the partition pending until finalized
+            jdbcTemplate.execute("ALTER TABLE sessions DETACH PARTITION " + name + " FINALIZE");
+        }
+    }
+
+    /**
+     * The days of the partitions currently attached to the sessions table, oldest first.
+     */
+    List<LocalDate> partitionDays() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = 'sessions' AND p.relnamespace = to_regnamespace(current_schema())",
+                String.class);
+        return names.stream()
+                .map(SessionPartitions::dayOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    static String nameOf(LocalDate day) {
+        return PREFIX + day.format(SUFFIX);
+    }
+
+    static Optional<LocalDate> dayOf(String partitionName) {
+        if (!partitionName.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(partitionName.substring(PREFIX.length()), SUFFIX));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.fourcolour.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The key a session is stored and looked up under: the lowercase hex SHA-256 of its token.
+ * JWTs run to a few hundred characters and share a long common prefix, so indexing them
+ * directly makes for a large B-tree and long key comparisons; the digest is a fixed 64
+ * characters, and the sessions table never holds a usable bearer token.
+ */
+public final class TokenDigest {
+
+    public static final int LENGTH = 64;
+
+    private TokenDigest() {
+    }
+
+    public static String of(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
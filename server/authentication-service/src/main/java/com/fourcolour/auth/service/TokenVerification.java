@@ -0,0 +1,48 @@
+package com.fourcolour.auth.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of checking a bearer token against its session and signature, carrying what a
+ * caller needs from a valid token so it does not have to parse it again.
+ */
+public final class TokenVerification {
+
+    private static final TokenVerification INVALID = new TokenVerification(false, null, null);
+
+    private final boolean valid;
+    private final Integer userId;
+    private final LocalDateTime expiresAt;
+
+    private TokenVerification(boolean valid, Integer userId, LocalDateTime expiresAt) {
+        this.valid = valid;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    public static TokenVerification valid(Integer userId, LocalDateTime expiresAt) {
+        return new TokenVerification(true, userId, expiresAt);
+    }
+
+    public static TokenVerification invalid() {
+        return INVALID;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the token's user, or {@code null} if the token is invalid
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return when the token's session expires, or {@code null} if the token is invalid
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
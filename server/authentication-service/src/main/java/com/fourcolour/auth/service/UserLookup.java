@@ -0,0 +1,227 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.User;
+import com.fourcolour.auth.repository.UserRepository;
+import com.fourcolour.auth.repository.UserRepository.UserEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Users looked up by email for login and registration, answered from memory where possible.
+ * A Bloom filter of every registered email, built at startup, turns away emails that were
+ * never registered without a query, so floods of logins for made-up accounts and checks
+ * for free emails do not reach the database. Recently used user records are cached for a
+ * short while too.
+ * <p>
+ * Users registered on this replica go into the filter at once. Those registered on another
+ * replica are picked up by a catch-up in the background, once per catch-up interval, that
+ * reads the emails created since the one before. Until then such a user is reported missing,
+ * so the interval bounds how stale the filter can be, however many unknown emails come in.
+ * The cached records only change when a password is rehashed, which does not change the
+ * password.
+ */
+@Component
+public class UserLookup {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookup.class);
+
+    // Catch-ups read back this far past the previous one, for registrations still uncommitted then
+    static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Null until built; until then every lookup goes to the database
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime syncedSince;
+
+    private final Counter filtered;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public UserLookup(UserRepository userRepository,
+                      @Value("${app.user-lookup.expected-users:1000000}") long expectedUsers,
+                      @Value("${app.user-lookup.false-positive-rate:0.01}") double falsePositiveRate,
+                      @Value("${app.user-lookup.cache.max-entries:10000}") int maxEntries,
+                      @Value("${app.user-lookup.cache.ttl-ms:60000}") long ttlMillis,
+                      MeterRegistry meterRegistry) {
+        this(userRepository, expectedUsers, falsePositiveRate, maxEntries, ttlMillis, meterRegistry,
+                System::nanoTime);
+    }
+
+    UserLookup(UserRepository userRepository, long expectedUsers, double falsePositiveRate,
+               int maxEntries, long ttlMillis, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        // Fails on a bad size at startup rather than at the first rebuild
+        new BloomFilter(expectedUsers, falsePositiveRate);
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+        this.filtered = meterRegistry.counter("auth.user.lookup", "result", "filtered");
+        this.hits = meterRegistry.counter("auth.user.lookup", "result", "hit");
+        this.misses = meterRegistry.counter("auth.user.lookup", "result", "miss");
+        Gauge.builder("auth.user.lookup.cache.size", this, UserLookup::size).register(meterRegistry);
+    }
+
+    /**
+     * Loads every registered email into a new filter, sized for twice the current users or the
+     * configured number, whichever is more, and swaps it in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long users = userRepository.count();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedUsers, users * 2), falsePositiveRate);
+        Pageable page = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        Integer afterId = 0;
+        long loaded = 0;
+        List<UserEmail> batch;
+        do {
+            batch = userRepository.findEmailsAfter(afterId, page);
+            for (UserEmail user : batch) {
+                rebuilt.add(user.getEmail());
+                afterId = user.getId();
+            }
+            loaded += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        syncedSince = startedAt.minus(CATCH_UP_OVERLAP);
+        filter = rebuilt;
+        logger.info("User email filter built from {} users, {} bits", loaded, rebuilt.bitCount());
+    }
+
+    /**
+     * The user with this email, without a query if the filter rules it out or it is cached.
+     * The user returned is not shared with other callers.
+     */
+    public Optional<User> findByEmail(String email) {
+        if (!mightExist(email)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        User cached = cached(email);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        Optional<User> loaded = userRepository.findByEmail(email);
+        loaded.ifPresent(this::cache);
+        return loaded;
+    }
+
+    public boolean existsByEmail(String email) {
+        if (!mightExist(email)) {
+            filtered.increment();
+            return false;
+        }
+        if (cached(email) != null) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Records a user just registered, or whose record just changed, on this replica.
+     */
+    public void put(User user) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(user.getEmail());
+        }
+        cache(user);
+    }
+
+    /**
+     * Adds the users registered since the last catch-up, here or on another replica, to the
+     * filter. Lookups never wait for it.
+     */
+    @Scheduled(fixedDelayString = "${app.user-lookup.catch-up-interval-ms:1000}")
+    public void catchUp() {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            userRepository.findEmailsCreatedSince(syncedSince).forEach(current::add);
+            syncedSince = startedAt.minus(CATCH_UP_OVERLAP);
+        } catch (Exception e) {
+            // Tried again at the next interval, reading from the same point
+            logger.warn("Could not catch up the user email filter: {}", e.getMessage());
+        }
+    }
+
+    private boolean mightExist(String email) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(email);
+    }
+
+    private synchronized User cached(String email) {
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.expiresAtNanos >= 0) {
+            entries.remove(email);
+            return null;
+        }
+        return copyOf(entry.user);
+    }
+
+    private synchronized void cache(User user) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(user.getEmail(), new Entry(copyOf(user), nanoClock.getAsLong() + ttlNanos));
+        var eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User(user.getEmail(), user.getPasswordHash(), user.getName());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        return copy;
+    }
+
+    private record Entry(User user, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.fourcolour.auth.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+
+import java.time.Instant;
+
+/**
+ * The claims of a token whose signature and expiry have been checked, read once at parse time
+ * so a request can use them without parsing the token again.
+ */
+public final class VerifiedToken {
+
+    private final Integer userId;
+    private final String tokenId;
+    private final String keyId;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final String refreshFamily;
+    private final Integer refreshGeneration;
+    private final String accessTokenHash;
+
+    public VerifiedToken(Integer userId, String tokenId, String keyId, Instant issuedAt, Instant expiresAt) {
+        this(userId, tokenId, keyId, issuedAt, expiresAt, null, null, null);
+    }
+
+    public VerifiedToken(Integer userId, String tokenId, String keyId, Instant issuedAt, Instant expiresAt,
+                         String refreshFamily, Integer refreshGeneration, String accessTokenHash) {
+        this.userId = userId;
+        this.tokenId = tokenId;
+        this.keyId = keyId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.refreshFamily = refreshFamily;
+        this.refreshGeneration = refreshGeneration;
+        this.accessTokenHash = accessTokenHash;
+    }
+
+    static VerifiedToken of(Jws<Claims> jws) {
+        Claims claims = jws.getPayload();
+        boolean refresh = JwtService.REFRESH_TOKEN_TYPE.equals(claims.get(JwtService.TYPE_CLAIM, String.class));
+        return new VerifiedToken(
+                Integer.valueOf(claims.getSubject()),
+                claims.getId(),
+                jws.getHeader().getKeyId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                refresh ? claims.get(JwtService.FAMILY_CLAIM, String.class) : null,
+                refresh ? claims.get(JwtService.GENERATION_CLAIM, Integer.class) : null,
+                refresh ? claims.get(JwtService.ACCESS_TOKEN_CLAIM, String.class) : null);
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return the id of the key that signed the token, or {@code null} if it predates key ids
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Whether this is a refresh token, which can only be exchanged for new tokens and is never
+     * accepted in place of an access token.
+     */
+    public boolean isRefreshToken() {
+        return refreshFamily != null && refreshGeneration != null;
+    }
+
+    /**
+     * @return the refresh token family, shared by every token rotated from the same login,
+     * or {@code null} for an access token
+     */
+    public String getRefreshFamily() {
+        return refreshFamily;
+    }
+
+    /**
+     * @return how many times the family had been rotated when this refresh token was issued,
+     * or {@code null} for an access token
+     */
+    public Integer getRefreshGeneration() {
+        return refreshGeneration;
+    }
+
+    /**
+     * @return the digest of the access token issued with this refresh token, or {@code null}
+     * for an access token or a refresh token that predates it
+     */
+    public String getAccessTokenHash() {
+        return accessTokenHash;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,18 @@
+-- Sessions were stored and looked up by their full JWT. Replace that column with the
+-- token's hex SHA-256 (see TokenDigest) under a unique B-tree index, digesting existing rows
+-- in place so signed-in users stay signed in.
+--
+-- On a fresh database there is no sessions table yet and this does nothing; Hibernate then
+-- creates the table, index included, from the Session entity.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'sessions' AND column_name = 'token') THEN
+        ALTER TABLE sessions ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+        UPDATE sessions SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+            WHERE token_hash IS NULL;
+        ALTER TABLE sessions ALTER COLUMN token_hash SET NOT NULL;
+        CREATE UNIQUE INDEX IF NOT EXISTS ux_sessions_token_hash ON sessions (token_hash);
+        ALTER TABLE sessions DROP COLUMN token;
+    END IF;
+END $$;
@@ -0,0 +1,12 @@
+-- Expired sessions are purged in batches read off an index on expires_at (see
+-- SessionCleanupService), instead of one DELETE scanning the whole table.
+--
+-- On a fresh database there is no sessions table yet and this does nothing; Hibernate then
+-- creates the table, index included, from the Session entity.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = current_schema() AND table_name = 'sessions') THEN
+        CREATE INDEX IF NOT EXISTS ix_sessions_expires_at ON sessions (expires_at);
+    END IF;
+END $$;
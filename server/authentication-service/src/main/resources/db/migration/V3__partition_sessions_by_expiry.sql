@@ -0,0 +1,56 @@
+-- Range-partition sessions by expires_at, one partition per day, so expired sessions are
+-- removed by dropping a day's partition (see SessionPartitions) rather than by deleting rows.
+-- Lookups carry a lower bound on expires_at, which limits them to the partitions still live.
+--
+-- PostgreSQL needs the partition key in every unique index, so the primary key becomes
+-- (id, expires_at) and token digests are unique per expiry; digests of distinct tokens do
+-- not collide either way. An existing table is replaced, bringing over only the sessions
+-- that can still be used. A fresh database gets the partitioned table here, and Hibernate's
+-- update mode then finds it already in place.
+DO $$
+DECLARE
+    first_day DATE := current_date - 2;
+    last_day DATE := current_date + 7;
+    partition_day DATE;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid
+               WHERE c.relname = 'sessions' AND c.relnamespace = to_regnamespace(current_schema())) THEN
+        RETURN;
+    END IF;
+
+    IF to_regclass('sessions') IS NOT NULL THEN
+        ALTER TABLE sessions RENAME TO sessions_unpartitioned;
+        ALTER INDEX IF EXISTS sessions_pkey RENAME TO sessions_unpartitioned_pkey;
+        ALTER INDEX IF EXISTS ux_sessions_token_hash RENAME TO ux_sessions_unpartitioned_token_hash;
+        ALTER INDEX IF EXISTS ix_sessions_expires_at RENAME TO ix_sessions_unpartitioned_expires_at;
+        SELECT greatest(last_day, max(expires_at)::date) INTO last_day FROM sessions_unpartitioned;
+    END IF;
+
+    CREATE TABLE sessions (
+        id INTEGER GENERATED BY DEFAULT AS IDENTITY,
+        user_id INTEGER NOT NULL,
+        token_hash VARCHAR(64) NOT NULL,
+        expires_at TIMESTAMP(6) NOT NULL,
+        created_at TIMESTAMP(6),
+        PRIMARY KEY (id, expires_at)
+    ) PARTITION BY RANGE (expires_at);
+    CREATE UNIQUE INDEX ux_sessions_token_hash ON sessions (token_hash, expires_at);
+    CREATE INDEX ix_sessions_expires_at ON sessions (expires_at);
+
+    partition_day := first_day;
+    WHILE partition_day <= last_day LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF sessions FOR VALUES FROM (%L) TO (%L)',
+                       'sessions_p' || to_char(partition_day, 'YYYYMMDD'), partition_day, partition_day + 1);
+        partition_day := partition_day + 1;
+    END LOOP;
+
+    IF to_regclass('sessions_unpartitioned') IS NOT NULL THEN
+        -- Anything older is past its refresh grace period and would never be read again
+        INSERT INTO sessions (id, user_id, token_hash, expires_at, created_at)
+            SELECT id, user_id, token_hash, expires_at, created_at FROM sessions_unpartitioned
+            WHERE expires_at >= first_day;
+        PERFORM setval(pg_get_serial_sequence('sessions', 'id'),
+                       (SELECT coalesce(max(id), 0) + 1 FROM sessions_unpartitioned), false);
+        DROP TABLE sessions_unpartitioned;
+    END IF;
+END $$;
@@ -2,6 +2,7 @@ package com.fourcolour.auth;
 
 import com.fourcolour.auth.entity.User;
 import com.fourcolour.auth.entity.Session;
+import com.fourcolour.auth.service.TokenDigest;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
 
@@ -39,7 +40,7 @@ public class TestUtils {
         Session session = new Session();
         session.setId(1);
         session.setUserId(userId);
-        session.setToken(token);
+        session.setTokenHash(TokenDigest.of(token));
         session.setExpiresAt(LocalDateTime.now().plusHours(24));
         session.setCreatedAt(LocalDateTime.now());
         return session;
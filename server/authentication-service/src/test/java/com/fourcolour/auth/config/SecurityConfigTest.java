@@ -17,7 +17,7 @@ class SecurityConfigTest {
 
     @Test
     void passwordEncoder_ShouldCreateBCryptPasswordEncoder() {
-        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
+        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder(SecurityConfig.DEFAULT_BCRYPT_STRENGTH);
         
         assertNotNull(passwordEncoder);
         assertTrue(passwordEncoder instanceof BCryptPasswordEncoder);
@@ -25,7 +25,7 @@ class SecurityConfigTest {
 
     @Test
     void passwordEncoder_ShouldEncryptPasswords() {
-        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
+        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder(SecurityConfig.DEFAULT_BCRYPT_STRENGTH);
         String plainPassword = "testPassword123";
         
         String encodedPassword = passwordEncoder.encode(plainPassword);
@@ -37,7 +37,7 @@ class SecurityConfigTest {
 
     @Test
     void passwordEncoder_ShouldGenerateDifferentHashesForSamePassword() {
-        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
+        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder(SecurityConfig.DEFAULT_BCRYPT_STRENGTH);
         String plainPassword = "testPassword123";
         
         String hash1 = passwordEncoder.encode(plainPassword);
@@ -50,7 +50,7 @@ class SecurityConfigTest {
 
     @Test
     void passwordEncoder_ShouldNotMatchIncorrectPassword() {
-        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder();
+        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder(SecurityConfig.DEFAULT_BCRYPT_STRENGTH);
         String correctPassword = "correctPassword";
         String wrongPassword = "wrongPassword";
         
@@ -58,4 +58,16 @@ class SecurityConfigTest {
         
         assertFalse(passwordEncoder.matches(wrongPassword, encodedPassword));
     }
-}
\ No newline at end of file
+
+    @Test
+    void passwordEncoder_ShouldUseConfiguredStrength() {
+        PasswordEncoder passwordEncoder = securityConfig.passwordEncoder(12);
+
+        String encodedPassword = passwordEncoder.encode("password");
+
+        assertTrue(encodedPassword.startsWith("$2a$12$"));
+        assertTrue(passwordEncoder.upgradeEncoding(
+                securityConfig.passwordEncoder(4).encode("password")));
+        assertFalse(passwordEncoder.upgradeEncoding(encodedPassword));
+    }
+}
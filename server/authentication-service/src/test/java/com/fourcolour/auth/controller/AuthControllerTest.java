@@ -1,6 +1,8 @@
 package com.fourcolour.auth.controller;
 
 import com.fourcolour.auth.service.AuthenticationService;
+import com.fourcolour.auth.service.PasswordHashingRejectedException;
+import com.fourcolour.auth.service.TokenVerification;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
 import com.fourcolour.common.dto.TokenResponse;
@@ -12,9 +14,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -118,6 +123,28 @@ class AuthControllerTest {
         assertTrue(response.getBody().toString().contains("Invalid credentials"));
     }
 
+    @Test
+    void login_WhenPasswordHashingIsSaturated_ShouldReturnServiceUnavailable() {
+        when(authenticationService.login(any(LoginRequest.class)))
+                .thenThrow(new PasswordHashingRejectedException());
+
+        ResponseEntity<?> response = authController.login(loginRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void register_WhenPasswordHashingIsSaturated_ShouldReturnServiceUnavailable() {
+        when(authenticationService.register(any(RegisterRequest.class)))
+                .thenThrow(new PasswordHashingRejectedException());
+
+        ResponseEntity<?> response = authController.register(registerRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     void logout_WithValidToken_ShouldReturnSuccessMessage() {
         String token = "Bearer jwt-token";
@@ -145,20 +172,22 @@ class AuthControllerTest {
     @Test
     void verifyToken_WithValidToken_ShouldReturnValidResponse() {
         String token = "Bearer jwt-token";
-        when(authenticationService.verifyToken(token)).thenReturn(true);
-        when(authenticationService.getUserIdFromToken(token)).thenReturn(1);
+        when(authenticationService.verify(token))
+                .thenReturn(TokenVerification.valid(1, LocalDateTime.now().plusHours(1)));
 
         ResponseEntity<?> response = authController.verifyToken(token);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("valid=true"));
         assertTrue(response.getBody().toString().contains("user_id=1"));
+        assertTrue(response.getBody().toString().contains("expires_at="));
+        verify(authenticationService, never()).getUserIdFromToken(anyString());
     }
 
     @Test
     void verifyToken_WithInvalidToken_ShouldReturnUnauthorized() {
         String token = "Bearer invalid-token";
-        when(authenticationService.verifyToken(token)).thenReturn(false);
+        when(authenticationService.verify(token)).thenReturn(TokenVerification.invalid());
 
         ResponseEntity<?> response = authController.verifyToken(token);
 
@@ -169,7 +198,7 @@ class AuthControllerTest {
     @Test
     void verifyToken_WithException_ShouldReturnUnauthorized() {
         String token = "Bearer jwt-token";
-        when(authenticationService.verifyToken(token))
+        when(authenticationService.verify(token))
                 .thenThrow(new RuntimeException("Token parsing error"));
 
         ResponseEntity<?> response = authController.verifyToken(token);
@@ -236,7 +265,7 @@ class AuthControllerTest {
     @Test
     void verifyToken_WithMalformedToken_ShouldReturnUnauthorized() {
         String malformedToken = "malformed-token";
-        when(authenticationService.verifyToken(malformedToken))
+        when(authenticationService.verify(malformedToken))
                 .thenThrow(new RuntimeException("Malformed JWT"));
 
         ResponseEntity<?> response = authController.verifyToken(malformedToken);
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fourcolour.auth.entity.User;
 import com.fourcolour.auth.repository.SessionRepository;
 import com.fourcolour.auth.repository.UserRepository;
+import com.fourcolour.auth.service.TokenDigest;
+import com.fourcolour.auth.service.UserLookup;
 import com.fourcolour.common.service.LoggerClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,6 +41,9 @@ import static org.mockito.Mockito.*;
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class AuthenticationIntegrationTest {
 
+    // Auth events reach the logger service from a background sender
+    private static final long AUDIT_TIMEOUT_MS = 5000;
+
     @LocalServerPort
     private int port;
 
@@ -54,6 +59,9 @@ class AuthenticationIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserLookup userLookup;
+
     @MockBean
     private LoggerClient loggerClient;
 
@@ -88,7 +96,7 @@ class AuthenticationIntegrationTest {
         
         // Reset mocks
         reset(loggerClient);
-        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any(), any());
         
         // Configure TestRestTemplate to use Apache HttpClient with disabled retries
         var httpClient = HttpClients.custom()
@@ -110,6 +118,15 @@ class AuthenticationIntegrationTest {
         }
     }
 
+    /**
+     * Stores a user behind the service's back, as a registration on another replica would, and
+     * runs the catch-up that would pick it up within the catch-up interval.
+     */
+    private void saveUser(User user) {
+        userRepository.save(user);
+        userLookup.catchUp();
+    }
+
     // ==================== HEALTH CHECK TESTS ====================
 
     @Test
@@ -152,8 +169,8 @@ class AuthenticationIntegrationTest {
         assertTrue(userRepository.existsByEmail("test@example.com"));
         
         // Verify logging was called
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_registered"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS)).logEvent(eq("authentication-service"), eq("user_registered"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     @Test
@@ -161,7 +178,7 @@ class AuthenticationIntegrationTest {
     void registration_ShouldFailWithDuplicateEmail() throws Exception {
         // Create user first
         User existingUser = new User("test@example.com", passwordEncoder.encode("password"), "Existing User");
-        userRepository.save(existingUser);
+        saveUser(existingUser);
 
         Map<String, Object> requestBody = Map.of(
                 "name", "New User",
@@ -209,7 +226,7 @@ class AuthenticationIntegrationTest {
     void userLogin_ShouldWorkWithValidCredentials() throws Exception {
         // Create user first
         User user = new User("test@example.com", passwordEncoder.encode("password123"), "Test User");
-        userRepository.save(user);
+        saveUser(user);
 
         Map<String, Object> requestBody = Map.of(
                 "email", "test@example.com",
@@ -235,8 +252,8 @@ class AuthenticationIntegrationTest {
         assertTrue(sessionRepository.findAll().size() > 0);
         
         // Verify logging was called
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_login"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS)).logEvent(eq("authentication-service"), eq("user_login"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     @Test
@@ -244,7 +261,7 @@ class AuthenticationIntegrationTest {
     void login_ShouldFailWithIncorrectPassword() throws Exception {
         // Create user first
         User user = new User("test@example.com", passwordEncoder.encode("correctpassword"), "Test User");
-        userRepository.save(user);
+        saveUser(user);
 
         Map<String, Object> requestBody = Map.of(
                 "email", "test@example.com",
@@ -263,8 +280,8 @@ class AuthenticationIntegrationTest {
         assertTrue(response.getBody().contains("Invalid credentials"));
         
         // Verify failed login was logged
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("login_failed"), 
-                anyString(), anyString(), eq(2), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS)).logEvent(eq("authentication-service"), eq("login_failed"), 
+                anyString(), anyString(), eq(2), any(), any());
     }
 
     @Test
@@ -287,8 +304,8 @@ class AuthenticationIntegrationTest {
         assertTrue(response.getBody().contains("Invalid credentials"));
         
         // Verify failed login was logged
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("login_failed"), 
-                eq("unknown"), anyString(), eq(2), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS)).logEvent(eq("authentication-service"), eq("login_failed"), 
+                eq("unknown"), anyString(), eq(2), any(), any());
     }
 
     // ==================== TOKEN VERIFICATION TESTS ====================
@@ -353,11 +370,11 @@ class AuthenticationIntegrationTest {
         assertTrue(response.getBody().contains("Logged out successfully"));
 
         // Verify session was deleted
-        assertTrue(sessionRepository.findByToken(token).isEmpty());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(token)).isEmpty());
         
         // Verify logout was logged
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("user_logout"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("user_logout"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     @Test
@@ -400,14 +417,14 @@ class AuthenticationIntegrationTest {
         assertNotEquals(originalToken, newToken);
 
         // Verify original session was deleted
-        assertTrue(sessionRepository.findByToken(originalToken).isEmpty());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(originalToken)).isEmpty());
         
         // Verify new session was created
-        assertTrue(sessionRepository.findByToken(newToken).isPresent());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(newToken)).isPresent());
         
         // Verify token refresh was logged
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("token_refreshed"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("token_refreshed"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     @Test
@@ -424,6 +441,44 @@ class AuthenticationIntegrationTest {
         assertTrue(response.getBody().contains("Invalid or expired token"));
     }
 
+    @Test
+    @DisplayName("Refresh token should rotate, and reusing it should revoke its family")
+    void refreshTokenRotation_ShouldRejectReuseAndRevokeFamily() throws Exception {
+        String registered = registerUser();
+        String accessToken = extractField(registered, "token");
+        String refreshToken = extractField(registered, "refresh_token");
+        assertNotNull(refreshToken);
+
+        ResponseEntity<String> rotated = postWithToken("/auth/refresh", refreshToken);
+
+        assertEquals(HttpStatus.OK, rotated.getStatusCode());
+        String newAccessToken = extractField(rotated.getBody(), "token");
+        String newRefreshToken = extractField(rotated.getBody(), "refresh_token");
+        assertNotEquals(refreshToken, newRefreshToken);
+        assertEquals(HttpStatus.OK, postWithToken("/auth/verify", newAccessToken).getStatusCode());
+        // A refresh token is not an access token
+        assertEquals(HttpStatus.UNAUTHORIZED, postWithToken("/auth/verify", newRefreshToken).getStatusCode());
+
+        // The first refresh token again: whoever holds it, the whole family is logged out
+        assertEquals(HttpStatus.UNAUTHORIZED, postWithToken("/auth/refresh", refreshToken).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, postWithToken("/auth/refresh", newRefreshToken).getStatusCode());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(accessToken)).isEmpty());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(newAccessToken)).isEmpty());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"),
+                eq("refresh_token_rejected"), anyString(), anyString(), eq(2), any(), any());
+    }
+
+    @Test
+    @DisplayName("Logout should stop the refresh token working")
+    void logout_ShouldRevokeRefreshToken() throws Exception {
+        String registered = registerUser();
+
+        assertEquals(HttpStatus.OK, postWithToken("/auth/logout", extractField(registered, "token")).getStatusCode());
+
+        assertEquals(HttpStatus.UNAUTHORIZED,
+                postWithToken("/auth/refresh", extractField(registered, "refresh_token")).getStatusCode());
+    }
+
     // ==================== END-TO-END WORKFLOW TESTS ====================
 
     @Test
@@ -483,14 +538,14 @@ class AuthenticationIntegrationTest {
         assertEquals(HttpStatus.UNAUTHORIZED, finalVerifyResponse.getStatusCode());
 
         // Verify all expected log events were called
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("user_registered"), 
-                anyString(), anyString(), eq(1), any());
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("session_created"), 
-                anyString(), anyString(), eq(1), any());
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("token_refreshed"), 
-                anyString(), anyString(), eq(1), any());
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("user_logout"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("user_registered"), 
+                anyString(), anyString(), eq(1), any(), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("session_created"), 
+                anyString(), anyString(), eq(1), any(), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("token_refreshed"), 
+                anyString(), anyString(), eq(1), any(), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("user_logout"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     @Test
@@ -530,10 +585,10 @@ class AuthenticationIntegrationTest {
         assertTrue(loginResponse.getBody().contains("Login Test User"));
 
         // Verify both registration and login were logged
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("user_registered"), 
-                anyString(), anyString(), eq(1), any());
-        verify(loggerClient, atLeastOnce()).logEvent(eq("authentication-service"), eq("user_login"), 
-                anyString(), anyString(), eq(1), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("user_registered"), 
+                anyString(), anyString(), eq(1), any(), any());
+        verify(loggerClient, timeout(AUDIT_TIMEOUT_MS).atLeastOnce()).logEvent(eq("authentication-service"), eq("user_login"), 
+                anyString(), anyString(), eq(1), any(), any());
     }
 
     // ==================== ERROR HANDLING TESTS ====================
@@ -573,6 +628,10 @@ class AuthenticationIntegrationTest {
     // ==================== HELPER METHODS ====================
 
     private String registerUserAndGetToken() throws Exception {
+        return extractTokenFromResponse(registerUser());
+    }
+
+    private String registerUser() throws Exception {
         Map<String, Object> requestBody = Map.of(
                 "name", "Test User",
                 "email", "test@example.com",
@@ -588,13 +647,23 @@ class AuthenticationIntegrationTest {
                 baseUrl + "/auth/register", request, String.class);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        return extractTokenFromResponse(response.getBody());
+        return response.getBody();
+    }
+
+    private ResponseEntity<String> postWithToken(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+        return restTemplate.postForEntity(baseUrl + path, new HttpEntity<>(headers), String.class);
     }
 
     private String extractTokenFromResponse(String responseBody) {
+        return extractField(responseBody, "token");
+    }
+
+    private String extractField(String responseBody, String field) {
         try {
             Map<?, ?> responseMap = objectMapper.readValue(responseBody, Map.class);
-            return (String) responseMap.get("token");
+            return (String) responseMap.get(field);
         } catch (Exception e) {
             fail("Failed to extract token from response: " + responseBody);
             return null;
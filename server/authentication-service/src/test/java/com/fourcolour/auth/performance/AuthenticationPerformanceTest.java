@@ -1,19 +1,22 @@
 package com.fourcolour.auth.performance;
 
+import com.fourcolour.auth.service.AuditLogger;
 import com.fourcolour.auth.service.AuthenticationService;
 import com.fourcolour.auth.service.JwtService;
+import com.fourcolour.auth.service.PasswordHasher;
+import com.fourcolour.auth.service.RefreshTokenFamilies;
+import com.fourcolour.auth.service.SessionCache;
+import com.fourcolour.auth.service.UserLookup;
 import com.fourcolour.auth.repository.UserRepository;
 import com.fourcolour.auth.repository.SessionRepository;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
-import com.fourcolour.common.service.LoggerClient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -36,14 +39,17 @@ class AuthenticationPerformanceTest {
     @Mock
     private SessionRepository sessionRepository;
 
+    @Mock
+    private RefreshTokenFamilies refreshTokenFamilies;
+
     @Mock
     private JwtService jwtService;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
-    private LoggerClient loggerClient;
+    private AuditLogger auditLogger;
 
     @Test
     void jwtTokenGeneration_UnderConcurrentLoad_ShouldHandleCorrectly() throws InterruptedException {
@@ -234,14 +240,21 @@ class AuthenticationPerformanceTest {
         when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(jwtService.generateToken(anyInt())).thenReturn("mocked.jwt.token");
         when(jwtService.getExpirationTime()).thenReturn(java.time.LocalDateTime.now().plusHours(24));
-        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        doNothing().when(auditLogger).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
 
         AuthenticationService authService = new AuthenticationService();
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "userLookup",
+                new UserLookup(userRepository, 1000, 0.01, 0, 60_000,
+                        new io.micrometer.core.instrument.simple.SimpleMeterRegistry()));
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "sessionRepository", sessionRepository);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "sessionCache",
+                new SessionCache(10_000, 30_000, 5_000, new io.micrometer.core.instrument.simple.SimpleMeterRegistry()));
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "refreshTokenFamilies",
+                refreshTokenFamilies);
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "jwtService", jwtService);
-        org.springframework.test.util.ReflectionTestUtils.setField(authService, "passwordEncoder", passwordEncoder);
-        org.springframework.test.util.ReflectionTestUtils.setField(authService, "loggerClient", loggerClient);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "passwordHasher", passwordHasher);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "auditLogger", auditLogger);
 
         AtomicLong totalResponseTime = new AtomicLong(0);
         AtomicInteger requestCount = new AtomicInteger(0);
@@ -357,14 +370,21 @@ class AuthenticationPerformanceTest {
         when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(jwtService.generateToken(anyInt())).thenReturn("mocked.jwt.token");
         when(jwtService.getExpirationTime()).thenReturn(java.time.LocalDateTime.now().plusHours(24));
-        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        doNothing().when(auditLogger).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
 
         AuthenticationService authService = new AuthenticationService();
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "userLookup",
+                new UserLookup(userRepository, 1000, 0.01, 0, 60_000,
+                        new io.micrometer.core.instrument.simple.SimpleMeterRegistry()));
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "sessionRepository", sessionRepository);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "sessionCache",
+                new SessionCache(10_000, 30_000, 5_000, new io.micrometer.core.instrument.simple.SimpleMeterRegistry()));
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "refreshTokenFamilies",
+                refreshTokenFamilies);
         org.springframework.test.util.ReflectionTestUtils.setField(authService, "jwtService", jwtService);
-        org.springframework.test.util.ReflectionTestUtils.setField(authService, "passwordEncoder", passwordEncoder);
-        org.springframework.test.util.ReflectionTestUtils.setField(authService, "loggerClient", loggerClient);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "passwordHasher", passwordHasher);
+        org.springframework.test.util.ReflectionTestUtils.setField(authService, "auditLogger", auditLogger);
 
         AtomicInteger successfulRegistrations = new AtomicInteger(0);
         AtomicInteger duplicateEmailErrors = new AtomicInteger(0);
@@ -0,0 +1,69 @@
+package com.fourcolour.auth.performance;
+
+import com.fourcolour.auth.service.JwtService;
+import com.fourcolour.auth.service.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification throughput. {@code rebuildKeyAndParser} is the old per-call path that
+ * derived the HMAC key and built a parser for every token; {@code validateThenExtract} is a
+ * request that checks a token and then reads its user id, parsing it twice; {@code verify}
+ * parses once against the cached keyring. Not part of the surefire run; start {@link #main}
+ * on the test classpath after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyForJwtVerification1234567890";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationInSeconds", 3600);
+        token = jwtService.generateToken(123);
+    }
+
+    @Benchmark
+    public Integer rebuildKeyAndParser() {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return Integer.valueOf(claims.getSubject());
+    }
+
+    @Benchmark
+    public Integer validateThenExtract() {
+        return jwtService.validateToken(token) ? jwtService.getUserIdFromToken(token) : null;
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerifyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
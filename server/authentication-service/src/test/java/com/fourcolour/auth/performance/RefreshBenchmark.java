@@ -0,0 +1,247 @@
+package com.fourcolour.auth.performance;
+
+import com.fourcolour.auth.service.TokenDigest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refresh throughput, counting the database work only (token signing is the same either way),
+ * with several clients refreshing at once against a table of a hundred thousand sessions.
+ * {@code sessionRefresh} is the refresh of an access token: look up its session, look up the
+ * user, delete the session and insert the new one. {@code refreshTokenRotation} is the
+ * exchange of a refresh token: a single UPDATE that moves the family's session on to the new
+ * token, conditional on the generation before, which is also the check for reuse and
+ * revocation. Each runs in a transaction of its own, as in the service.
+ * <p>
+ * Runs against in-memory H2 by default; pass {@code -Dbenchmark.jdbc.url}, {@code .user} and
+ * {@code .password} to measure a real PostgreSQL. Not part of the surefire run; start
+ * {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RefreshBenchmark {
+
+    private static final String SESSIONS = "benchmark_refresh_sessions";
+    private static final String USERS = "benchmark_refresh_users";
+    private static final int USER_COUNT = 10_000;
+    // Sessions each client refreshes in turn on the access token path
+    private static final int SESSIONS_PER_CLIENT = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"100000"})
+        private int sessions;
+
+        private final AtomicInteger clients = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            try (Connection connection = connect(); Statement ddl = connection.createStatement()) {
+                dropTables(ddl);
+                ddl.execute("CREATE TABLE " + USERS + " (id INTEGER PRIMARY KEY, email VARCHAR(255) NOT NULL, "
+                        + "name VARCHAR(255), password_hash VARCHAR(255) NOT NULL)");
+                ddl.execute("CREATE TABLE " + SESSIONS + " (id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "user_id INTEGER NOT NULL, token_hash VARCHAR(64) NOT NULL, expires_at TIMESTAMP NOT NULL, "
+                        + "created_at TIMESTAMP, refresh_family VARCHAR(36), refresh_generation INTEGER)");
+                ddl.execute("CREATE UNIQUE INDEX ux_" + SESSIONS + " ON " + SESSIONS + " (token_hash)");
+                ddl.execute("CREATE INDEX ix_" + SESSIONS + "_family ON " + SESSIONS
+                        + " (refresh_family, refresh_generation)");
+                populate(connection);
+            }
+        }
+
+        private void populate(Connection connection) throws SQLException {
+            connection.setAutoCommit(false);
+            try (PreparedStatement user = connection.prepareStatement(
+                    "INSERT INTO " + USERS + " (id, email, name, password_hash) VALUES (?, ?, ?, ?)")) {
+                for (int id = 1; id <= USER_COUNT; id++) {
+                    user.setInt(1, id);
+                    user.setString(2, "user" + id + "@example.com");
+                    user.setString(3, "User " + id);
+                    user.setString(4, "$2a$10$" + "x".repeat(53));
+                    user.addBatch();
+                }
+                user.executeBatch();
+            }
+            try (PreparedStatement session = connection.prepareStatement(insertSessionSql())) {
+                for (int i = 0; i < sessions; i++) {
+                    bindSession(session, i % USER_COUNT + 1, TokenDigest.of(UUID.randomUUID().toString()));
+                    session.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        session.executeBatch();
+                        connection.commit();
+                    }
+                }
+                session.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            try (Statement analyze = connection.createStatement()) {
+                analyze.execute("ANALYZE");
+            } catch (SQLException e) {
+                // Not every database takes a bare ANALYZE; statistics only sharpen the plan
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Connection connection = connect(); Statement ddl = connection.createStatement()) {
+                dropTables(ddl);
+            }
+        }
+
+        private static void dropTables(Statement ddl) throws SQLException {
+            ddl.execute("DROP TABLE IF EXISTS " + SESSIONS);
+            ddl.execute("DROP TABLE IF EXISTS " + USERS);
+        }
+
+        Connection connect() throws SQLException {
+            return DriverManager.getConnection(
+                    System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:refresh;DB_CLOSE_DELAY=-1"),
+                    System.getProperty("benchmark.jdbc.user", "sa"),
+                    System.getProperty("benchmark.jdbc.password", ""));
+        }
+    }
+
+    /** One client, with its own connection, sessions and refresh token family. */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private Connection connection;
+        private PreparedStatement findSession;
+        private PreparedStatement findUser;
+        private PreparedStatement deleteSession;
+        private PreparedStatement insertSession;
+        private PreparedStatement rotate;
+
+        private int userId;
+        private String[] tokenHashes;
+        private int next;
+        private final String family = UUID.randomUUID().toString();
+        private int generation;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) throws SQLException {
+            connection = database.connect();
+            userId = database.clients.incrementAndGet() % USER_COUNT + 1;
+            findSession = connection.prepareStatement(
+                    "SELECT id, user_id, expires_at FROM " + SESSIONS + " WHERE token_hash = ? AND expires_at > ?");
+            findUser = connection.prepareStatement(
+                    "SELECT id, email, name, password_hash FROM " + USERS + " WHERE id = ?");
+            deleteSession = connection.prepareStatement(
+                    "DELETE FROM " + SESSIONS + " WHERE token_hash = ? AND expires_at > ?");
+            insertSession = connection.prepareStatement(insertSessionSql());
+            rotate = connection.prepareStatement("UPDATE " + SESSIONS
+                    + " SET token_hash = ?, expires_at = ?, refresh_generation = ? "
+                    + "WHERE refresh_family = ? AND refresh_generation = ? AND expires_at > ?");
+            try (PreparedStatement login = connection.prepareStatement("INSERT INTO " + SESSIONS
+                    + " (user_id, token_hash, expires_at, created_at, refresh_family, refresh_generation) "
+                    + "VALUES (?, ?, ?, ?, ?, 0)")) {
+                bindSession(login, userId, TokenDigest.of(UUID.randomUUID().toString()));
+                login.setString(5, family);
+                login.executeUpdate();
+            }
+
+            tokenHashes = new String[SESSIONS_PER_CLIENT];
+            for (int i = 0; i < tokenHashes.length; i++) {
+                tokenHashes[i] = TokenDigest.of(UUID.randomUUID().toString());
+                bindSession(insertSession, userId, tokenHashes[i]);
+                insertSession.executeUpdate();
+            }
+            connection.setAutoCommit(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    private static String insertSessionSql() {
+        return "INSERT INTO " + SESSIONS + " (user_id, token_hash, expires_at, created_at) VALUES (?, ?, ?, ?)";
+    }
+
+    private static void bindSession(PreparedStatement insert, int userId, String tokenHash) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        insert.setInt(1, userId);
+        insert.setString(2, tokenHash);
+        insert.setTimestamp(3, Timestamp.valueOf(now.plusDays(1)));
+        insert.setTimestamp(4, Timestamp.valueOf(now));
+    }
+
+    @Benchmark
+    public boolean sessionRefresh(Client client) throws SQLException {
+        String tokenHash = client.tokenHashes[client.next];
+        Timestamp stillRefreshable = Timestamp.valueOf(LocalDateTime.now().minusMinutes(2));
+        client.findSession.setString(1, tokenHash);
+        client.findSession.setTimestamp(2, stillRefreshable);
+        int userId;
+        try (ResultSet session = client.findSession.executeQuery()) {
+            if (!session.next()) {
+                client.connection.rollback();
+                return false;
+            }
+            userId = session.getInt("user_id");
+        }
+        client.findUser.setInt(1, userId);
+        try (ResultSet user = client.findUser.executeQuery()) {
+            user.next();
+        }
+        client.deleteSession.setString(1, tokenHash);
+        client.deleteSession.setTimestamp(2, stillRefreshable);
+        client.deleteSession.executeUpdate();
+
+        String newTokenHash = TokenDigest.of(UUID.randomUUID().toString());
+        bindSession(client.insertSession, userId, newTokenHash);
+        client.insertSession.executeUpdate();
+        client.connection.commit();
+
+        client.tokenHashes[client.next] = newTokenHash;
+        client.next = (client.next + 1) % client.tokenHashes.length;
+        return true;
+    }
+
+    @Benchmark
+    public int refreshTokenRotation(Client client) throws SQLException {
+        int generation = client.generation + 1;
+        LocalDateTime now = LocalDateTime.now();
+        PreparedStatement rotate = client.rotate;
+        rotate.setString(1, TokenDigest.of(UUID.randomUUID().toString()));
+        rotate.setTimestamp(2, Timestamp.valueOf(now.plusDays(1)));
+        rotate.setInt(3, generation);
+        rotate.setString(4, client.family);
+        rotate.setInt(5, client.generation);
+        rotate.setTimestamp(6, Timestamp.valueOf(now.minusMinutes(2)));
+        int rotated = rotate.executeUpdate();
+        client.connection.commit();
+        if (rotated > 0) {
+            client.generation = generation;
+        }
+        return rotated;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RefreshBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
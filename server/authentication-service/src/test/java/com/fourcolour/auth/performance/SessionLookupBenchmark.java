@@ -0,0 +1,173 @@
+package com.fourcolour.auth.performance;
+
+import com.fourcolour.auth.service.TokenDigest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the session queries behind verify, refresh and logout on a table of a million
+ * sessions, keyed either by the full JWT ({@code token}, as sessions were stored before) or by
+ * its digest ({@code token_hash}). Both keys carry a unique B-tree index, so the difference is
+ * the index size and the cost of comparing long keys that share a JWT header prefix.
+ * <p>
+ * Runs against in-memory H2 by default; pass {@code -Dbenchmark.jdbc.url}, {@code .user} and
+ * {@code .password} to measure a real PostgreSQL. Not part of the surefire run; start
+ * {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SessionLookupBenchmark {
+
+    private static final String TABLE = "benchmark_sessions";
+    // Header of an HS256 token with a kid, which every session token starts with
+    private static final String JWT_HEADER = "eyJraWQiOiJkZWZhdWx0IiwiYWxnIjoiSFMyNTYifQ.";
+    private static final int SAMPLE_EVERY = 10;
+
+    @Param({"1000000"})
+    private int sessions;
+
+    @Param({"token", "token_hash"})
+    private String keyColumn;
+
+    private Connection connection;
+    private PreparedStatement verify;
+    private PreparedStatement refresh;
+    private PreparedStatement logout;
+    private PreparedStatement restore;
+    // Keys of every SAMPLE_EVERY-th session, the ones the benchmarks look up
+    private String[] keys;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:sessions;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        int keyLength = keyColumn.equals("token") ? 2000 : TokenDigest.LENGTH;
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS " + TABLE);
+            ddl.execute("CREATE TABLE " + TABLE + " (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "user_id INTEGER NOT NULL, lookup_key VARCHAR(" + keyLength + ") NOT NULL, "
+                    + "expires_at TIMESTAMP NOT NULL)");
+            ddl.execute("CREATE UNIQUE INDEX ux_" + TABLE + " ON " + TABLE + " (lookup_key)");
+        }
+        populate();
+
+        verify = connection.prepareStatement(
+                "SELECT id, user_id, expires_at FROM " + TABLE + " WHERE lookup_key = ? AND expires_at > ?");
+        refresh = connection.prepareStatement(
+                "SELECT id, user_id, expires_at FROM " + TABLE + " WHERE lookup_key = ?");
+        logout = connection.prepareStatement("DELETE FROM " + TABLE + " WHERE lookup_key = ?");
+        restore = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (user_id, lookup_key, expires_at) VALUES (?, ?, ?)");
+    }
+
+    private void populate() throws SQLException {
+        Random tokens = new Random(42);
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+        keys = new String[sessions / SAMPLE_EVERY];
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (user_id, lookup_key, expires_at) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < sessions; i++) {
+                String token = randomToken(tokens);
+                String key = keyColumn.equals("token") ? token : TokenDigest.of(token);
+                if (i % SAMPLE_EVERY == 0 && i / SAMPLE_EVERY < keys.length) {
+                    keys[i / SAMPLE_EVERY] = key;
+                }
+                insert.setInt(1, i);
+                insert.setString(2, key);
+                insert.setTimestamp(3, expiresAt);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        try (Statement analyze = connection.createStatement()) {
+            analyze.execute("ANALYZE");
+        } catch (SQLException e) {
+            // Not every database takes a bare ANALYZE; statistics only sharpen the plan
+        }
+    }
+
+    /** A token shaped like the service's: shared header, random claims and signature. */
+    private static String randomToken(Random random) {
+        byte[] claims = new byte[110];
+        byte[] signature = new byte[32];
+        random.nextBytes(claims);
+        random.nextBytes(signature);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return JWT_HEADER + encoder.encodeToString(claims) + "." + encoder.encodeToString(signature);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+        connection.close();
+    }
+
+    private String nextKey() {
+        return keys[random.nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public boolean verify() throws SQLException {
+        verify.setString(1, nextKey());
+        verify.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+        try (ResultSet rows = verify.executeQuery()) {
+            return rows.next();
+        }
+    }
+
+    @Benchmark
+    public boolean refresh() throws SQLException {
+        refresh.setString(1, nextKey());
+        try (ResultSet rows = refresh.executeQuery()) {
+            return rows.next();
+        }
+    }
+
+    /** Deletes a session and puts it back, so the table keeps its size across invocations. */
+    @Benchmark
+    public int logout() throws SQLException {
+        String key = nextKey();
+        logout.setString(1, key);
+        int deleted = logout.executeUpdate();
+        restore.setInt(1, 0);
+        restore.setString(2, key);
+        restore.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now().plusDays(1)));
+        return deleted + restore.executeUpdate();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SessionLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -2,14 +2,18 @@ package com.fourcolour.auth.repository;
 
 import com.fourcolour.auth.entity.Session;
 import com.fourcolour.auth.entity.User;
+import com.fourcolour.auth.service.TokenDigest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,7 +46,7 @@ class SessionRepositoryTest {
         // Create a test session
         testSession = new Session();
         testSession.setUserId(testUser.getId());
-        testSession.setToken("test-jwt-token");
+        testSession.setTokenHash("test-jwt-token");
         testSession.setExpiresAt(LocalDateTime.now().plusHours(1));
         testSession.setCreatedAt(LocalDateTime.now());
     }
@@ -51,70 +55,70 @@ class SessionRepositoryTest {
     void findByToken_WithExistingToken_ShouldReturnSession() {
         entityManager.persistAndFlush(testSession);
 
-        Optional<Session> found = sessionRepository.findByToken("test-jwt-token");
+        Optional<Session> found = sessionRepository.findByTokenHash("test-jwt-token");
 
         assertTrue(found.isPresent());
-        assertEquals("test-jwt-token", found.get().getToken());
+        assertEquals("test-jwt-token", found.get().getTokenHash());
         assertEquals(testUser.getId(), found.get().getUserId());
     }
 
     @Test
     void findByToken_WithNonExistentToken_ShouldReturnEmpty() {
-        Optional<Session> found = sessionRepository.findByToken("non-existent-token");
+        Optional<Session> found = sessionRepository.findByTokenHash("non-existent-token");
 
         assertFalse(found.isPresent());
     }
 
     @Test
     void findByToken_WithNullToken_ShouldReturnEmpty() {
-        Optional<Session> found = sessionRepository.findByToken(null);
+        Optional<Session> found = sessionRepository.findByTokenHash(null);
 
         assertFalse(found.isPresent());
     }
 
     @Test
     void findByToken_WithEmptyToken_ShouldReturnEmpty() {
-        Optional<Session> found = sessionRepository.findByToken("");
+        Optional<Session> found = sessionRepository.findByTokenHash("");
 
         assertFalse(found.isPresent());
     }
 
     @Test
-    void findByTokenAndNotExpired_WithValidToken_ShouldReturnSession() {
+    void findByTokenHashAndNotExpired_WithValidToken_ShouldReturnSession() {
         entityManager.persistAndFlush(testSession);
         LocalDateTime now = LocalDateTime.now();
 
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("test-jwt-token", now);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("test-jwt-token", now);
 
         assertTrue(found.isPresent());
-        assertEquals("test-jwt-token", found.get().getToken());
+        assertEquals("test-jwt-token", found.get().getTokenHash());
         assertTrue(found.get().getExpiresAt().isAfter(now));
     }
 
     @Test
-    void findByTokenAndNotExpired_WithExpiredToken_ShouldReturnEmpty() {
+    void findByTokenHashAndNotExpired_WithExpiredToken_ShouldReturnEmpty() {
         // Set session to expire in the past
         testSession.setExpiresAt(LocalDateTime.now().minusHours(1));
         entityManager.persistAndFlush(testSession);
 
         LocalDateTime now = LocalDateTime.now();
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("test-jwt-token", now);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("test-jwt-token", now);
 
         assertFalse(found.isPresent());
     }
 
     @Test
-    void findByTokenAndNotExpired_WithNonExistentToken_ShouldReturnEmpty() {
+    void findByTokenHashAndNotExpired_WithNonExistentToken_ShouldReturnEmpty() {
         LocalDateTime now = LocalDateTime.now();
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("non-existent-token", now);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("non-existent-token", now);
 
         assertFalse(found.isPresent());
     }
 
     @Test
-    void findByTokenAndNotExpired_WithNullToken_ShouldReturnEmpty() {
+    void findByTokenHashAndNotExpired_WithNullToken_ShouldReturnEmpty() {
         LocalDateTime now = LocalDateTime.now();
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired(null, now);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired(null, now);
 
         assertFalse(found.isPresent());
     }
@@ -123,24 +127,35 @@ class SessionRepositoryTest {
     void deleteByToken_WithExistingToken_ShouldDeleteSession() {
         Session savedSession = entityManager.persistAndFlush(testSession);
 
-        sessionRepository.deleteByToken("test-jwt-token");
+        sessionRepository.deleteByTokenHash("test-jwt-token", LocalDateTime.now());
         entityManager.flush();
 
         Optional<Session> found = sessionRepository.findById(savedSession.getId());
         assertFalse(found.isPresent());
     }
 
+    @Test
+    void deleteByToken_ShouldLeaveSessionsExpiredBeforeBound() {
+        testSession.setExpiresAt(LocalDateTime.now().minusHours(1));
+        entityManager.persistAndFlush(testSession);
+
+        sessionRepository.deleteByTokenHash("test-jwt-token", LocalDateTime.now());
+        entityManager.clear();
+
+        assertTrue(sessionRepository.findByTokenHash("test-jwt-token").isPresent());
+    }
+
     @Test
     void deleteByToken_WithNonExistentToken_ShouldNotThrowException() {
         assertDoesNotThrow(() -> {
-            sessionRepository.deleteByToken("non-existent-token");
+            sessionRepository.deleteByTokenHash("non-existent-token", LocalDateTime.now());
         });
     }
 
     @Test
     void deleteByToken_WithNullToken_ShouldNotThrowException() {
         assertDoesNotThrow(() -> {
-            sessionRepository.deleteByToken(null);
+            sessionRepository.deleteByTokenHash(null, LocalDateTime.now());
         });
     }
 
@@ -158,9 +173,9 @@ class SessionRepositoryTest {
         sessionRepository.deleteByUserId(testUser.getId());
         entityManager.flush();
 
-        assertFalse(sessionRepository.findByToken("token1").isPresent());
-        assertFalse(sessionRepository.findByToken("token2").isPresent());
-        assertFalse(sessionRepository.findByToken("token3").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("token1").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("token2").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("token3").isPresent());
     }
 
     @Test
@@ -197,12 +212,12 @@ class SessionRepositoryTest {
         entityManager.flush();
 
         // Expired sessions should be deleted
-        assertFalse(sessionRepository.findByToken("expired1").isPresent());
-        assertFalse(sessionRepository.findByToken("expired2").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("expired1").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("expired2").isPresent());
 
         // Valid sessions should remain
-        assertTrue(sessionRepository.findByToken("valid1").isPresent());
-        assertTrue(sessionRepository.findByToken("valid2").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("valid1").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("valid2").isPresent());
     }
 
     @Test
@@ -221,8 +236,8 @@ class SessionRepositoryTest {
         long countAfter = sessionRepository.count();
 
         assertEquals(countBefore, countAfter);
-        assertTrue(sessionRepository.findByToken("valid1").isPresent());
-        assertTrue(sessionRepository.findByToken("valid2").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("valid1").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("valid2").isPresent());
     }
 
     @Test
@@ -241,25 +256,77 @@ class SessionRepositoryTest {
         assertEquals(0, sessionRepository.count());
     }
 
+    @Test
+    void findExpiredAfter_ShouldPageExpiredSessionsInExpiryOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        Session oldest = entityManager.persistAndFlush(new Session(testUser.getId(), "expired1", now.minusHours(3)));
+        Session middle = entityManager.persistAndFlush(new Session(testUser.getId(), "expired2", now.minusHours(2)));
+        Session newest = entityManager.persistAndFlush(new Session(testUser.getId(), "expired3", now.minusHours(1)));
+        entityManager.persistAndFlush(new Session(testUser.getId(), "valid1", now.plusHours(1)));
+
+        List<SessionRepository.SessionKey> first = sessionRepository.findExpiredAfter(
+                now, LocalDateTime.of(1970, 1, 1, 0, 0), 0, PageRequest.of(0, 2));
+        SessionRepository.SessionKey last = first.get(first.size() - 1);
+        List<SessionRepository.SessionKey> second = sessionRepository.findExpiredAfter(
+                now, last.getExpiresAt(), last.getId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(oldest.getId(), middle.getId()),
+                first.stream().map(SessionRepository.SessionKey::getId).toList());
+        assertEquals(List.of(newest.getId()),
+                second.stream().map(SessionRepository.SessionKey::getId).toList());
+    }
+
+    @Test
+    void findExpiredAfter_WithSameExpiry_ShouldBreakTiesById() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        Session first = entityManager.persistAndFlush(new Session(testUser.getId(), "expired1", expiresAt));
+        Session second = entityManager.persistAndFlush(new Session(testUser.getId(), "expired2", expiresAt));
+
+        List<SessionRepository.SessionKey> page = sessionRepository.findExpiredAfter(
+                now, expiresAt, first.getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, page.size());
+        assertEquals(second.getId(), page.get(0).getId());
+    }
+
+    @Test
+    void deleteByIdIn_ShouldDeleteOnlyGivenSessions() {
+        Session expired1 = entityManager.persistAndFlush(
+                new Session(testUser.getId(), "expired1", LocalDateTime.now().minusHours(1)));
+        Session expired2 = entityManager.persistAndFlush(
+                new Session(testUser.getId(), "expired2", LocalDateTime.now().minusHours(1)));
+        entityManager.persistAndFlush(new Session(testUser.getId(), "expired3", LocalDateTime.now().minusHours(1)));
+
+        int deleted = sessionRepository.deleteByIdIn(List.of(expired1.getId(), expired2.getId()));
+        entityManager.clear();
+
+        assertEquals(2, deleted);
+        assertFalse(sessionRepository.findByTokenHash("expired1").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("expired2").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("expired3").isPresent());
+    }
+
     @Test
     void save_WithValidSession_ShouldPersistSession() {
         Session savedSession = sessionRepository.save(testSession);
 
         assertNotNull(savedSession.getId());
         assertEquals(testUser.getId(), savedSession.getUserId());
-        assertEquals("test-jwt-token", savedSession.getToken());
+        assertEquals("test-jwt-token", savedSession.getTokenHash());
         assertNotNull(savedSession.getExpiresAt());
         assertNotNull(savedSession.getCreatedAt());
     }
 
     @Test
-    void save_WithDuplicateToken_ShouldThrowException() {
+    void save_WithDuplicateTokenHash_ShouldThrowException() {
         entityManager.persistAndFlush(testSession);
 
         Session duplicateSession = new Session();
         duplicateSession.setUserId(testUser.getId());
-        duplicateSession.setToken("test-jwt-token"); // Same token
-        duplicateSession.setExpiresAt(LocalDateTime.now().plusHours(1));
+        duplicateSession.setTokenHash("test-jwt-token"); // Same token hash
+        // Digests are unique per expiry, as the partitioned table requires
+        duplicateSession.setExpiresAt(testSession.getExpiresAt());
 
         assertThrows(Exception.class, () -> {
             sessionRepository.saveAndFlush(duplicateSession);
@@ -274,7 +341,7 @@ class SessionRepositoryTest {
 
         assertTrue(found.isPresent());
         assertEquals(savedSession.getId(), found.get().getId());
-        assertEquals("test-jwt-token", found.get().getToken());
+        assertEquals("test-jwt-token", found.get().getTokenHash());
     }
 
     @Test
@@ -313,7 +380,7 @@ class SessionRepositoryTest {
     }
 
     @Test
-    void findByTokenAndNotExpired_WithExactExpiryTime_ShouldReturnEmpty() {
+    void findByTokenHashAndNotExpired_WithExactExpiryTime_ShouldReturnEmpty() {
         // Use a fixed time to avoid timing precision issues
         LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
         LocalDateTime exactExpiryTime = baseTime.plusMinutes(30);
@@ -322,7 +389,7 @@ class SessionRepositoryTest {
         entityManager.persistAndFlush(testSession);
 
         // Query with the exact expiry time
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("test-jwt-token", exactExpiryTime);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("test-jwt-token", exactExpiryTime);
 
         // Session expires at exactExpiryTime, so it should not be found when queried at that time
         // The query uses expiresAt > now, so when now == expiresAt, it should return empty
@@ -330,16 +397,16 @@ class SessionRepositoryTest {
     }
 
     @Test
-    void findByTokenAndNotExpired_WithTimeBeforeExpiry_ShouldReturnSession() {
+    void findByTokenHashAndNotExpired_WithTimeBeforeExpiry_ShouldReturnSession() {
         LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(30);
         testSession.setExpiresAt(expiryTime);
         entityManager.persistAndFlush(testSession);
 
         LocalDateTime queryTime = expiryTime.minusMinutes(5); // 5 minutes before expiry
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("test-jwt-token", queryTime);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("test-jwt-token", queryTime);
 
         assertTrue(found.isPresent());
-        assertEquals("test-jwt-token", found.get().getToken());
+        assertEquals("test-jwt-token", found.get().getTokenHash());
     }
 
     @Test
@@ -367,27 +434,28 @@ class SessionRepositoryTest {
         entityManager.flush();
 
         // testUser sessions should be deleted
-        assertFalse(sessionRepository.findByToken("user1token1").isPresent());
-        assertFalse(sessionRepository.findByToken("user1token2").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("user1token1").isPresent());
+        assertFalse(sessionRepository.findByTokenHash("user1token2").isPresent());
 
         // anotherUser sessions should remain
-        assertTrue(sessionRepository.findByToken("user2token1").isPresent());
-        assertTrue(sessionRepository.findByToken("user2token2").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("user2token1").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("user2token2").isPresent());
     }
 
     @Test
-    void save_WithLongToken_ShouldPersistSession() {
+    void save_WithDigestOfLongToken_ShouldPersistSession() {
         StringBuilder longToken = new StringBuilder();
         for (int i = 0; i < 1000; i++) {
             longToken.append("a");
         }
 
-        testSession.setToken(longToken.toString());
+        testSession.setTokenHash(TokenDigest.of(longToken.toString()));
 
         Session savedSession = sessionRepository.save(testSession);
 
         assertNotNull(savedSession.getId());
-        assertEquals(longToken.toString(), savedSession.getToken());
+        assertEquals(TokenDigest.LENGTH, savedSession.getTokenHash().length());
+        assertTrue(sessionRepository.findByTokenHash(TokenDigest.of(longToken.toString())).isPresent());
     }
 
     @Test
@@ -413,7 +481,7 @@ class SessionRepositoryTest {
 
         assertEquals(sessionId, updatedSession.getId());
         assertEquals(newExpiryTime, updatedSession.getExpiresAt());
-        assertEquals("test-jwt-token", updatedSession.getToken()); // Token should remain the same
+        assertEquals("test-jwt-token", updatedSession.getTokenHash()); // Token should remain the same
     }
 
     @Test
@@ -421,16 +489,16 @@ class SessionRepositoryTest {
         sessionRepository.save(testSession);
         
         // The session should be visible within this transaction
-        assertTrue(sessionRepository.findByToken("test-jwt-token").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("test-jwt-token").isPresent());
         
         // After the test completes, the transaction will roll back
     }
 
     @Test
-    void findByTokenAndNotExpired_WithNullTime_ShouldHandleGracefully() {
+    void findByTokenHashAndNotExpired_WithNullTime_ShouldHandleGracefully() {
         entityManager.persistAndFlush(testSession);
 
-        Optional<Session> found = sessionRepository.findByTokenAndNotExpired("test-jwt-token", null);
+        Optional<Session> found = sessionRepository.findByTokenHashAndNotExpired("test-jwt-token", null);
 
         // Should handle null time parameter gracefully
         assertFalse(found.isPresent());
@@ -4,11 +4,13 @@ import com.fourcolour.auth.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -442,4 +444,33 @@ class UserRepositoryTest {
         assertTrue(userRepository.existsByEmail("concurrent1@example.com"));
         assertTrue(userRepository.existsByEmail("concurrent2@example.com"));
     }
+
+    @Test
+    void findEmailsAfter_ShouldPageThroughUsersInIdOrder() {
+        User user1 = entityManager.persistAndFlush(new User("user1@example.com", "hash1", "User One"));
+        User user2 = entityManager.persistAndFlush(new User("user2@example.com", "hash2", "User Two"));
+        User user3 = entityManager.persistAndFlush(new User("user3@example.com", "hash3", "User Three"));
+
+        List<UserRepository.UserEmail> first = userRepository.findEmailsAfter(0, PageRequest.of(0, 2));
+        List<UserRepository.UserEmail> second = userRepository.findEmailsAfter(first.get(1).getId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(user1.getId(), user2.getId()), first.stream().map(UserRepository.UserEmail::getId).toList());
+        assertEquals("user1@example.com", first.get(0).getEmail());
+        assertEquals(1, second.size());
+        assertEquals(user3.getId(), second.get(0).getId());
+        assertEquals("user3@example.com", second.get(0).getEmail());
+    }
+
+    @Test
+    void findEmailsCreatedSince_ShouldReturnOnlyLaterRegistrations() {
+        entityManager.persistAndFlush(testUser);
+        // Set after the insert, which stamps the creation time itself
+        testUser.setCreatedAt(LocalDateTime.now().minusHours(1));
+        entityManager.flush();
+        entityManager.persistAndFlush(new User("recent@example.com", "hash1", "Recent User"));
+
+        List<String> emails = userRepository.findEmailsCreatedSince(LocalDateTime.now().minusMinutes(5));
+
+        assertEquals(List.of("recent@example.com"), emails);
+    }
 }
\ No newline at end of file
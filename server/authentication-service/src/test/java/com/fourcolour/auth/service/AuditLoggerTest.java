@@ -0,0 +1,105 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.common.service.LoggerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLoggerTest {
+
+    @Mock
+    private LoggerClient loggerClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogger auditLogger;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        auditLogger = new AuditLogger(loggerClient, 2, 1000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        auditLogger.close();
+    }
+
+    @Test
+    void logEvent_ShouldShipEventFromBackgroundSender() {
+        auditLogger.start();
+        LocalDateTime before = LocalDateTime.now();
+
+        auditLogger.logEvent("authentication-service", "user_login", "1", "User logged in", 1, Map.of("email", "a@b.c"));
+
+        verify(loggerClient, timeout(2000)).logEvent(eq("authentication-service"), eq("user_login"), eq("1"),
+                eq("User logged in"), eq(1), eq(Map.of("email", "a@b.c")),
+                argThat(occurredAt -> !occurredAt.isBefore(before)));
+    }
+
+    @Test
+    void logEvent_ShouldNotWaitForLoggerService() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any(), any());
+        auditLogger.start();
+
+        long start = System.nanoTime();
+        auditLogger.logEvent("authentication-service", "user_login", "1", "User logged in", 1, null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 100, "took " + elapsedMs + " ms");
+        release.countDown();
+    }
+
+    @Test
+    void logEvent_WhenQueueFull_ShouldDropAndCount() throws InterruptedException {
+        // Not started, so nothing drains the two-event queue
+        for (int i = 0; i < 5; i++) {
+            auditLogger.logEvent("authentication-service", "user_login", String.valueOf(i), "User logged in", 1, null);
+        }
+
+        assertEquals(2, auditLogger.getQueueDepth());
+        assertEquals(3, meterRegistry.counter("auth.audit.events", "result", "dropped").count());
+        assertEquals(2, meterRegistry.get("auth.audit.queue.depth").gauge().value());
+    }
+
+    @Test
+    void close_ShouldFlushQueuedEvents() throws InterruptedException {
+        auditLogger.logEvent("authentication-service", "user_login", "1", "User logged in", 1, null);
+        auditLogger.logEvent("authentication-service", "user_logout", "1", "User logged out", 1, null);
+        auditLogger.start();
+
+        auditLogger.close();
+
+        verify(loggerClient, times(2)).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any(), any());
+        assertEquals(2, meterRegistry.counter("auth.audit.events", "result", "sent").count());
+        assertEquals(0, auditLogger.getQueueDepth());
+    }
+
+    @Test
+    void logEvent_AfterClose_ShouldDrop() throws InterruptedException {
+        auditLogger.start();
+        auditLogger.close();
+
+        auditLogger.logEvent("authentication-service", "user_login", "1", "User logged in", 1, null);
+
+        assertEquals(1, meterRegistry.counter("auth.audit.events", "result", "dropped").count());
+        verifyNoInteractions(loggerClient);
+    }
+}
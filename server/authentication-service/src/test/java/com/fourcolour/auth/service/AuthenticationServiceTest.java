@@ -7,18 +7,24 @@ import com.fourcolour.auth.repository.UserRepository;
 import com.fourcolour.common.dto.LoginRequest;
 import com.fourcolour.common.dto.RegisterRequest;
 import com.fourcolour.common.dto.TokenResponse;
-import com.fourcolour.common.service.LoggerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,14 +41,20 @@ class AuthenticationServiceTest {
     @Mock
     private SessionRepository sessionRepository;
 
+    @Spy
+    private SessionCache sessionCache = new SessionCache(100, 30_000, 5_000, new SimpleMeterRegistry());
+
+    @Mock
+    private RefreshTokenFamilies refreshTokenFamilies;
+
     @Mock
     private JwtService jwtService;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
-    private LoggerClient loggerClient;
+    private AuditLogger auditLogger;
 
     @InjectMocks
     private AuthenticationService authenticationService;
@@ -73,12 +85,16 @@ class AuthenticationServiceTest {
         testSession = new Session();
         testSession.setId(1);
         testSession.setUserId(1);
-        testSession.setToken("jwt-token");
+        testSession.setTokenHash(TokenDigest.of("jwt-token"));
         testSession.setExpiresAt(LocalDateTime.now().plusHours(24));
         testSession.setCreatedAt(LocalDateTime.now());
 
+        // No filter built and no cache, so every lookup reaches the repository mock
+        ReflectionTestUtils.setField(authenticationService, "userLookup",
+                new UserLookup(userRepository, 1000, 0.01, 0, 60_000, new SimpleMeterRegistry()));
+
         // Setup common mocks
-        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        doNothing().when(auditLogger).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
     }
 
     // ==================== REGISTRATION TESTS ====================
@@ -86,7 +102,7 @@ class AuthenticationServiceTest {
     @Test
     void register_WithValidRequest_ShouldReturnTokenResponse() {
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
+        when(passwordHasher.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
@@ -101,11 +117,11 @@ class AuthenticationServiceTest {
         assertEquals("test@example.com", response.getEmail());
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
-        verify(passwordEncoder).encode(registerRequest.getPassword());
+        verify(passwordHasher).encode(registerRequest.getPassword());
         verify(userRepository).save(any(User.class));
         verify(jwtService).generateToken(testUser.getId());
         verify(sessionRepository).save(any(Session.class));
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_registered"), 
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("user_registered"), 
                 eq("1"), anyString(), eq(1), any());
     }
 
@@ -120,7 +136,43 @@ class AuthenticationServiceTest {
         assertEquals("User with this email already exists", exception.getMessage());
         verify(userRepository).existsByEmail(registerRequest.getEmail());
         verify(userRepository, never()).save(any(User.class));
-        verify(loggerClient, never()).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        verify(auditLogger, never()).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void register_WhenEmailTakenOnAnotherReplica_ShouldThrowAlreadyExists() {
+        when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
+        when(passwordHasher.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("ux_users_email"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> authenticationService.register(registerRequest));
+
+        assertEquals("User with this email already exists", exception.getMessage());
+        verify(sessionRepository, never()).save(any(Session.class));
+    }
+
+    @Test
+    void registerAndLogin_WithEmailFilterBuilt_ShouldNotQueryUnknownEmails() {
+        when(userRepository.findEmailsAfter(anyInt(), any())).thenReturn(List.of());
+        when(userRepository.findEmailsCreatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+        UserLookup userLookup = new UserLookup(userRepository, 1000, 0.01, 100, 60_000, new SimpleMeterRegistry());
+        userLookup.rebuild();
+        ReflectionTestUtils.setField(authenticationService, "userLookup", userLookup);
+        when(passwordHasher.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(jwtService.generateToken(1)).thenReturn("jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(1));
+
+        authenticationService.register(registerRequest);
+        TokenResponse response = authenticationService.login(loginRequest);
+        loginRequest.setEmail("nobody@example.com");
+        assertThrows(RuntimeException.class, () -> authenticationService.login(loginRequest));
+
+        assertEquals(1, response.getUserId());
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
@@ -128,7 +180,7 @@ class AuthenticationServiceTest {
         registerRequest.setName(null);
         
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
+        when(passwordHasher.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
         
         User userWithNullName = new User();
         userWithNullName.setId(1);
@@ -153,7 +205,7 @@ class AuthenticationServiceTest {
     @Test
     void login_WithValidCredentials_ShouldReturnTokenResponse() {
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
@@ -167,13 +219,27 @@ class AuthenticationServiceTest {
         assertEquals("test@example.com", response.getEmail());
 
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPasswordHash());
+        verify(passwordHasher).matches(loginRequest.getPassword(), testUser.getPasswordHash());
         verify(jwtService).generateToken(testUser.getId());
         verify(sessionRepository).save(any(Session.class));
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_login"), 
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("user_login"), 
                 eq("1"), anyString(), eq(1), any());
     }
 
+    @Test
+    void login_ShouldStoreSessionUnderTokenDigest() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
+
+        authenticationService.login(loginRequest);
+
+        ArgumentCaptor<Session> saved = ArgumentCaptor.forClass(Session.class);
+        verify(sessionRepository).save(saved.capture());
+        assertEquals(TokenDigest.of("jwt-token"), saved.getValue().getTokenHash());
+    }
+
     @Test
     void login_WithNonExistentUser_ShouldThrowException() {
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
@@ -184,15 +250,15 @@ class AuthenticationServiceTest {
 
         assertEquals("Invalid credentials", exception.getMessage());
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder, never()).matches(anyString(), anyString());
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("login_failed"), 
+        verify(passwordHasher, never()).matches(anyString(), anyString());
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("login_failed"), 
                 eq("unknown"), anyString(), eq(2), any());
     }
 
     @Test
     void login_WithInvalidPassword_ShouldThrowException() {
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(false);
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             authenticationService.login(loginRequest);
@@ -200,24 +266,78 @@ class AuthenticationServiceTest {
 
         assertEquals("Invalid credentials", exception.getMessage());
         verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPasswordHash());
+        verify(passwordHasher).matches(loginRequest.getPassword(), testUser.getPasswordHash());
         verify(jwtService, never()).generateToken(anyInt());
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("login_failed"), 
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("login_failed"), 
                 eq("1"), anyString(), eq(2), any());
     }
 
+    @Test
+    void login_WithHashBelowConfiguredCost_ShouldRehashPassword() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(passwordHasher.upgradeEncoding(testUser.getPasswordHash())).thenReturn(true);
+        when(passwordHasher.encode(loginRequest.getPassword())).thenReturn("$2a$12$rehashedpassword");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
+
+        authenticationService.login(loginRequest);
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertEquals("$2a$12$rehashedpassword", saved.getValue().getPasswordHash());
+    }
+
+    @Test
+    void login_WithHashAtConfiguredCost_ShouldNotRehashPassword() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(passwordHasher.upgradeEncoding(testUser.getPasswordHash())).thenReturn(false);
+        when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
+
+        authenticationService.login(loginRequest);
+
+        verify(passwordHasher, never()).encode(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void login_WithInvalidPassword_ShouldNotRehashPassword() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(false);
+        when(passwordHasher.upgradeEncoding(testUser.getPasswordHash())).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> authenticationService.login(loginRequest));
+
+        verify(passwordHasher, never()).encode(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void login_WhenHashingIsSaturated_ShouldPropagateRejection() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash()))
+                .thenThrow(new PasswordHashingRejectedException());
+
+        assertThrows(PasswordHashingRejectedException.class, () -> authenticationService.login(loginRequest));
+
+        verify(sessionRepository, never()).save(any(Session.class));
+    }
+
     // ==================== LOGOUT TESTS ====================
 
     @Test
     void logout_WithValidToken_ShouldDeleteSession() {
         String token = "Bearer jwt-token";
         when(jwtService.getUserIdFromToken("jwt-token")).thenReturn(1);
-        doNothing().when(sessionRepository).deleteByToken("jwt-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
 
         authenticationService.logout(token);
 
-        verify(sessionRepository).deleteByToken("jwt-token");
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_logout"), 
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("user_logout"), 
                 eq("1"), anyString(), eq(1), any());
     }
 
@@ -225,12 +345,12 @@ class AuthenticationServiceTest {
     void logout_WithTokenWithoutBearer_ShouldDeleteSession() {
         String token = "jwt-token";
         when(jwtService.getUserIdFromToken("jwt-token")).thenReturn(1);
-        doNothing().when(sessionRepository).deleteByToken("jwt-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
 
         authenticationService.logout(token);
 
-        verify(sessionRepository).deleteByToken("jwt-token");
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("user_logout"), 
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("user_logout"), 
                 eq("1"), anyString(), eq(1), any());
     }
 
@@ -238,71 +358,168 @@ class AuthenticationServiceTest {
     void logout_WithInvalidToken_ShouldStillDeleteSession() {
         String token = "Bearer invalid-token";
         when(jwtService.getUserIdFromToken("invalid-token")).thenThrow(new RuntimeException("Invalid token"));
-        doNothing().when(sessionRepository).deleteByToken("invalid-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("invalid-token")), any(LocalDateTime.class));
 
         authenticationService.logout(token);
 
-        verify(sessionRepository).deleteByToken("invalid-token");
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("invalid-token")), any(LocalDateTime.class));
         // Should not log user logout event if token is invalid
-        verify(loggerClient, never()).logEvent(eq("authentication-service"), eq("user_logout"), 
+        verify(auditLogger, never()).logEvent(eq("authentication-service"), eq("user_logout"), 
                 anyString(), anyString(), eq(1), any());
     }
 
+    @Test
+    void logout_ShouldRevokeTheSessionsRefreshTokenFamily() {
+        testSession.setRefreshFamily("family-1");
+        testSession.setRefreshGeneration(3);
+        when(jwtService.getUserIdFromToken("jwt-token")).thenReturn(1);
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testSession));
+
+        authenticationService.logout("Bearer jwt-token");
+
+        verify(refreshTokenFamilies).revoke("family-1");
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+    }
+
     // ==================== TOKEN VERIFICATION TESTS ====================
 
     @Test
     void verifyToken_WithValidToken_ShouldReturnTrue() {
         String token = "Bearer jwt-token";
-        when(sessionRepository.findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class)))
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(testSession));
-        when(jwtService.validateToken("jwt-token")).thenReturn(true);
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
 
         boolean result = authenticationService.verifyToken(token);
 
         assertTrue(result);
-        verify(sessionRepository).findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class));
-        verify(jwtService).validateToken("jwt-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(jwtService).verify("jwt-token");
     }
 
     @Test
     void verifyToken_WithExpiredSession_ShouldReturnFalse() {
         String token = "Bearer jwt-token";
-        when(sessionRepository.findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class)))
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
                 .thenReturn(Optional.empty());
 
         boolean result = authenticationService.verifyToken(token);
 
         assertFalse(result);
-        verify(sessionRepository).findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class));
-        verify(jwtService, never()).validateToken(anyString());
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(jwtService, never()).verify(anyString());
     }
 
     @Test
     void verifyToken_WithInvalidJwt_ShouldReturnFalse() {
         String token = "Bearer jwt-token";
-        when(sessionRepository.findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class)))
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(testSession));
-        when(jwtService.validateToken("jwt-token")).thenReturn(false);
+        when(jwtService.verify("jwt-token")).thenThrow(new JwtException("Invalid signature"));
 
         boolean result = authenticationService.verifyToken(token);
 
         assertFalse(result);
-        verify(sessionRepository).findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class));
-        verify(jwtService).validateToken("jwt-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(jwtService).verify("jwt-token");
     }
 
     @Test
     void verifyToken_WithTokenWithoutBearer_ShouldWork() {
         String token = "jwt-token";
-        when(sessionRepository.findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class)))
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
                 .thenReturn(Optional.of(testSession));
-        when(jwtService.validateToken("jwt-token")).thenReturn(true);
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
 
         boolean result = authenticationService.verifyToken(token);
 
         assertTrue(result);
-        verify(sessionRepository).findByTokenAndNotExpired(eq("jwt-token"), any(LocalDateTime.class));
-        verify(jwtService).validateToken("jwt-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(jwtService).verify("jwt-token");
+    }
+
+    @Test
+    void verify_WithValidToken_ShouldReturnUserAndExpiryFromOneParse() {
+        String token = "Bearer jwt-token";
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testSession));
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
+
+        TokenVerification result = authenticationService.verify(token);
+
+        assertTrue(result.isValid());
+        assertEquals(1, result.getUserId());
+        assertEquals(testSession.getExpiresAt(), result.getExpiresAt());
+        verify(sessionRepository, times(1)).findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class));
+        verify(jwtService, times(1)).verify("jwt-token");
+        verify(jwtService, never()).validateToken(anyString());
+        verify(jwtService, never()).getUserIdFromToken(anyString());
+    }
+
+    @Test
+    void verify_WithInvalidJwt_ShouldReturnInvalid() {
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testSession));
+        when(jwtService.verify("jwt-token")).thenThrow(new JwtException("Invalid signature"));
+
+        TokenVerification result = authenticationService.verify("Bearer jwt-token");
+
+        assertFalse(result.isValid());
+        assertNull(result.getUserId());
+        assertNull(result.getExpiresAt());
+    }
+
+    @Test
+    void verify_Repeatedly_ShouldQuerySessionOnce() {
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testSession));
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
+
+        assertTrue(authenticationService.verify("Bearer jwt-token").isValid());
+        assertTrue(authenticationService.verify("Bearer jwt-token").isValid());
+
+        verify(sessionRepository, times(1)).findByTokenHashAndNotExpired(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void verify_AfterLogin_ShouldNotQuerySession() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
+
+        authenticationService.login(loginRequest);
+
+        assertTrue(authenticationService.verify("Bearer jwt-token").isValid());
+        verify(sessionRepository, never()).findByTokenHashAndNotExpired(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void verify_AfterLogout_ShouldRejectCachedSession() {
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("jwt-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testSession));
+        when(jwtService.verify("jwt-token")).thenReturn(verifiedToken(1));
+        when(jwtService.getUserIdFromToken("jwt-token")).thenReturn(1);
+        assertTrue(authenticationService.verify("Bearer jwt-token").isValid());
+
+        authenticationService.logout("Bearer jwt-token");
+
+        assertFalse(authenticationService.verify("Bearer jwt-token").isValid());
+        verify(sessionCache).invalidate(TokenDigest.of("jwt-token"));
+    }
+
+    @Test
+    void verify_WithUnknownToken_ShouldRememberAbsence() {
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("forged-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        assertFalse(authenticationService.verify("Bearer forged-token").isValid());
+        assertFalse(authenticationService.verify("Bearer forged-token").isValid());
+
+        verify(sessionRepository, times(1)).findByTokenHashAndNotExpired(anyString(), any(LocalDateTime.class));
+        verify(jwtService, never()).verify(anyString());
     }
 
     // ==================== GET USER ID FROM TOKEN TESTS ====================
@@ -339,15 +556,15 @@ class AuthenticationServiceTest {
         Session oldSession = new Session();
         oldSession.setId(1);
         oldSession.setUserId(1);
-        oldSession.setToken("old-jwt-token");
+        oldSession.setTokenHash(TokenDigest.of("old-jwt-token"));
         oldSession.setExpiresAt(futureExpiry);
 
-        when(sessionRepository.findByToken("old-jwt-token")).thenReturn(Optional.of(oldSession));
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class))).thenReturn(Optional.of(oldSession));
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
-        doNothing().when(sessionRepository).deleteByToken("old-jwt-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class));
 
         TokenResponse response = authenticationService.refreshToken(oldToken);
 
@@ -356,48 +573,140 @@ class AuthenticationServiceTest {
         assertEquals("Test User", response.getName());
         assertEquals(1, response.getUserId());
 
-        verify(sessionRepository).findByToken("old-jwt-token");
-        verify(sessionRepository).deleteByToken("old-jwt-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class));
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class));
         verify(sessionRepository).save(any(Session.class));
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("token_refreshed"), 
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("token_refreshed"), 
+                eq("1"), anyString(), eq(1), any());
+    }
+
+    @Test
+    void refreshToken_WithRefreshToken_ShouldRotateWithOneWriteAndNoReads() {
+        when(jwtService.verify("refresh-token")).thenReturn(refreshToken(1, "family-1", 4));
+        when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+        when(jwtService.getExpirationTime()).thenReturn(expiresAt);
+        when(jwtService.generateRefreshToken(1, "family-1", 5, TokenDigest.of("new-jwt-token"),
+                expiresAt.plus(AuthenticationService.REFRESH_GRACE))).thenReturn("new-refresh-token");
+        when(refreshTokenFamilies.rotate(any(Session.class))).thenReturn(true);
+
+        TokenResponse response = authenticationService.refreshToken("Bearer refresh-token");
+
+        assertEquals("new-jwt-token", response.getToken());
+        assertEquals("new-refresh-token", response.getRefreshToken());
+        assertEquals(1, response.getUserId());
+        ArgumentCaptor<Session> stored = ArgumentCaptor.forClass(Session.class);
+        verify(refreshTokenFamilies).rotate(stored.capture());
+        assertEquals(TokenDigest.of("new-jwt-token"), stored.getValue().getTokenHash());
+        assertEquals("family-1", stored.getValue().getRefreshFamily());
+        assertEquals(5, stored.getValue().getRefreshGeneration());
+        assertEquals(expiresAt, stored.getValue().getExpiresAt());
+        verifyNoInteractions(sessionRepository, userRepository);
+        verify(refreshTokenFamilies, never()).revoke(anyString());
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("token_refreshed"),
                 eq("1"), anyString(), eq(1), any());
+
+        // The new session is served from memory until it is first looked up
+        when(jwtService.verify("new-jwt-token")).thenReturn(verifiedToken(1));
+        assertTrue(authenticationService.verify("new-jwt-token").isValid());
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    void refreshToken_WithRefreshToken_ShouldStopServingTheReplacedAccessToken() {
+        sessionCache.put(new Session(1, TokenDigest.of("old-jwt-token"), LocalDateTime.now().plusHours(1)));
+        when(jwtService.verify("old-jwt-token")).thenReturn(verifiedToken(1));
+        assertTrue(authenticationService.verify("old-jwt-token").isValid());
+        when(jwtService.verify("refresh-token"))
+                .thenReturn(refreshToken(1, "family-1", 4, TokenDigest.of("old-jwt-token")));
+        when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(1));
+        when(refreshTokenFamilies.rotate(any(Session.class))).thenReturn(true);
+
+        authenticationService.refreshToken("Bearer refresh-token");
+
+        verify(sessionCache).invalidate(TokenDigest.of("old-jwt-token"));
+        assertFalse(authenticationService.verify("old-jwt-token").isValid());
+    }
+
+    @Test
+    void refreshToken_WithAlreadyRotatedRefreshToken_ShouldRevokeFamilyAndThrow() {
+        when(jwtService.verify("refresh-token")).thenReturn(refreshToken(1, "family-1", 4));
+        when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(1));
+        when(refreshTokenFamilies.rotate(any(Session.class))).thenReturn(false);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> authenticationService.refreshToken("Bearer refresh-token"));
+
+        assertEquals("Invalid token", exception.getMessage());
+        verify(refreshTokenFamilies).revoke("family-1");
+        verify(jwtService, never()).generateRefreshToken(anyInt(), anyString(), anyInt(), anyString(),
+                any(LocalDateTime.class));
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("refresh_token_rejected"),
+                eq("1"), anyString(), eq(2), any());
+        assertFalse(authenticationService.verify("new-jwt-token").isValid());
+    }
+
+    @Test
+    void refreshToken_WhenRevocationFails_ShouldStillThrowInvalidToken() {
+        when(jwtService.verify("refresh-token")).thenReturn(refreshToken(1, "family-1", 0));
+        when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
+        when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(1));
+        when(refreshTokenFamilies.rotate(any(Session.class))).thenReturn(false);
+        doThrow(new org.springframework.dao.DataIntegrityViolationException("duplicate key"))
+                .when(refreshTokenFamilies).revoke(anyString());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> authenticationService.refreshToken("Bearer refresh-token"));
+
+        assertEquals("Invalid token", exception.getMessage());
+    }
+
+    @Test
+    void refreshToken_WithExpiredRefreshToken_ShouldFallBackToSessionLookupAndFail() {
+        when(jwtService.verify("refresh-token")).thenThrow(new JwtException("Token expired"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> authenticationService.refreshToken("Bearer refresh-token"));
+
+        assertEquals("Invalid token", exception.getMessage());
+        verify(refreshTokenFamilies, never()).rotate(any(Session.class));
     }
 
     @Test
     void refreshToken_WithNonExistentSession_ShouldThrowException() {
         String oldToken = "Bearer non-existent-token";
-        when(sessionRepository.findByToken("non-existent-token")).thenReturn(Optional.empty());
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("non-existent-token")), any(LocalDateTime.class))).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             authenticationService.refreshToken(oldToken);
         });
 
         assertEquals("Invalid token", exception.getMessage());
-        verify(sessionRepository).findByToken("non-existent-token");
-        verify(sessionRepository, never()).deleteByToken(anyString());
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("non-existent-token")), any(LocalDateTime.class));
+        verify(sessionRepository, never()).deleteByTokenHash(anyString(), any(LocalDateTime.class));
         verify(sessionRepository, never()).save(any(Session.class));
     }
 
     @Test
     void refreshToken_WithExpiredTokenBeyondGracePeriod_ShouldThrowException() {
         String oldToken = "Bearer expired-token";
-        LocalDateTime expiredTime = LocalDateTime.now().minusMinutes(5); // 5 minutes ago
         
-        Session expiredSession = new Session();
-        expiredSession.setUserId(1);
-        expiredSession.setToken("expired-token");
-        expiredSession.setExpiresAt(expiredTime);
-
-        when(sessionRepository.findByToken("expired-token")).thenReturn(Optional.of(expiredSession));
-        doNothing().when(sessionRepository).deleteByToken("expired-token");
+        // A session further gone than the grace period is not found by the bounded lookup
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("expired-token")), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
 
+        LocalDateTime beforeCall = LocalDateTime.now();
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             authenticationService.refreshToken(oldToken);
         });
 
-        assertEquals("Token expired and grace period exceeded", exception.getMessage());
-        verify(sessionRepository).findByToken("expired-token");
-        verify(sessionRepository).deleteByToken("expired-token");
+        assertEquals("Invalid token", exception.getMessage());
+        ArgumentCaptor<LocalDateTime> bound = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("expired-token")), bound.capture());
+        assertFalse(bound.getValue().isBefore(beforeCall.minus(AuthenticationService.REFRESH_GRACE)));
+        assertFalse(bound.getValue().isAfter(LocalDateTime.now().minus(AuthenticationService.REFRESH_GRACE)));
         verify(userRepository, never()).findById(anyInt());
     }
 
@@ -408,10 +717,10 @@ class AuthenticationServiceTest {
         
         Session validSession = new Session();
         validSession.setUserId(999); // Non-existent user ID
-        validSession.setToken("valid-token");
+        validSession.setTokenHash(TokenDigest.of("valid-token"));
         validSession.setExpiresAt(futureExpiry);
 
-        when(sessionRepository.findByToken("valid-token")).thenReturn(Optional.of(validSession));
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("valid-token")), any(LocalDateTime.class))).thenReturn(Optional.of(validSession));
         when(userRepository.findById(999)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -419,9 +728,9 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("User not found", exception.getMessage());
-        verify(sessionRepository).findByToken("valid-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("valid-token")), any(LocalDateTime.class));
         verify(userRepository).findById(999);
-        verify(sessionRepository, never()).deleteByToken(anyString());
+        verify(sessionRepository, never()).deleteByTokenHash(anyString(), any(LocalDateTime.class));
     }
 
     @Test
@@ -431,25 +740,45 @@ class AuthenticationServiceTest {
         
         Session oldSession = new Session();
         oldSession.setUserId(1);
-        oldSession.setToken("old-jwt-token");
+        oldSession.setTokenHash(TokenDigest.of("old-jwt-token"));
         oldSession.setExpiresAt(futureExpiry);
 
-        when(sessionRepository.findByToken("old-jwt-token")).thenReturn(Optional.of(oldSession));
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class))).thenReturn(Optional.of(oldSession));
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
-        doNothing().when(sessionRepository).deleteByToken("old-jwt-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class));
 
         TokenResponse response = authenticationService.refreshToken(oldToken);
 
         assertNotNull(response);
         assertEquals("new-jwt-token", response.getToken());
-        verify(sessionRepository).findByToken("old-jwt-token");
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("old-jwt-token")), any(LocalDateTime.class));
     }
 
     // ==================== CREATE USER SESSION TESTS ====================
 
+    @Test
+    void login_ShouldStartANewRefreshTokenFamily() {
+        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(jwtService.generateToken(1)).thenReturn("jwt-token");
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+        when(jwtService.getExpirationTime()).thenReturn(expiresAt);
+        when(refreshTokenFamilies.newFamily()).thenReturn("family-1");
+        when(jwtService.generateRefreshToken(1, "family-1", 0, TokenDigest.of("jwt-token"),
+                expiresAt.plus(AuthenticationService.REFRESH_GRACE))).thenReturn("refresh-token");
+
+        TokenResponse response = authenticationService.login(loginRequest);
+
+        assertEquals("refresh-token", response.getRefreshToken());
+        ArgumentCaptor<Session> saved = ArgumentCaptor.forClass(Session.class);
+        verify(sessionRepository).save(saved.capture());
+        assertEquals("family-1", saved.getValue().getRefreshFamily());
+        assertEquals(0, saved.getValue().getRefreshGeneration());
+    }
+
     @Test
     void createUserSession_ShouldCreateSessionAndReturnTokenResponse() {
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
@@ -469,7 +798,7 @@ class AuthenticationServiceTest {
         verify(jwtService).generateToken(testUser.getId());
         verify(jwtService).getExpirationTime();
         verify(sessionRepository).save(any(Session.class));
-        verify(loggerClient).logEvent(eq("authentication-service"), eq("session_created"), 
+        verify(auditLogger).logEvent(eq("authentication-service"), eq("session_created"), 
                 eq("1"), anyString(), eq(1), any());
     }
 
@@ -480,7 +809,7 @@ class AuthenticationServiceTest {
         registerRequest.setPassword("");
         
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode("")).thenReturn("$2a$10$emptyhashedpassword");
+        when(passwordHasher.encode("")).thenReturn("$2a$10$emptyhashedpassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
@@ -489,7 +818,7 @@ class AuthenticationServiceTest {
         TokenResponse response = authenticationService.register(registerRequest);
 
         assertNotNull(response);
-        verify(passwordEncoder).encode("");
+        verify(passwordHasher).encode("");
         verify(userRepository).save(any(User.class));
     }
 
@@ -498,37 +827,37 @@ class AuthenticationServiceTest {
         loginRequest.setPassword("");
         
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("", testUser.getPasswordHash())).thenReturn(false);
+        when(passwordHasher.matches("", testUser.getPasswordHash())).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             authenticationService.login(loginRequest);
         });
 
         assertEquals("Invalid credentials", exception.getMessage());
-        verify(passwordEncoder).matches("", testUser.getPasswordHash());
+        verify(passwordHasher).matches("", testUser.getPasswordHash());
     }
 
     @Test
     void verifyToken_WithEmptyToken_ShouldReturnFalse() {
         String token = "";
-        when(sessionRepository.findByTokenAndNotExpired(eq(""), any(LocalDateTime.class)))
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("")), any(LocalDateTime.class)))
                 .thenReturn(Optional.empty());
 
         boolean result = authenticationService.verifyToken(token);
 
         assertFalse(result);
-        verify(sessionRepository).findByTokenAndNotExpired(eq(""), any(LocalDateTime.class));
+        verify(sessionRepository).findByTokenHashAndNotExpired(eq(TokenDigest.of("")), any(LocalDateTime.class));
     }
 
     @Test
     void logout_WithEmptyToken_ShouldStillCallDelete() {
         String token = "";
         when(jwtService.getUserIdFromToken("")).thenThrow(new RuntimeException("Empty token"));
-        doNothing().when(sessionRepository).deleteByToken("");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("")), any(LocalDateTime.class));
 
         authenticationService.logout(token);
 
-        verify(sessionRepository).deleteByToken("");
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("")), any(LocalDateTime.class));
     }
 
     @Test
@@ -541,7 +870,7 @@ class AuthenticationServiceTest {
         registerRequest.setEmail(longEmail.toString());
         
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
+        when(passwordHasher.encode(registerRequest.getPassword())).thenReturn("$2a$10$hashedpassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
@@ -559,7 +888,7 @@ class AuthenticationServiceTest {
         loginRequest.setPassword("P@ssw0rd!@#$%^&*()");
         
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
+        when(passwordHasher.matches(loginRequest.getPassword(), testUser.getPasswordHash())).thenReturn(true);
         when(jwtService.generateToken(testUser.getId())).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
@@ -567,7 +896,7 @@ class AuthenticationServiceTest {
         TokenResponse response = authenticationService.login(loginRequest);
 
         assertNotNull(response);
-        verify(passwordEncoder).matches("P@ssw0rd!@#$%^&*()", testUser.getPasswordHash());
+        verify(passwordHasher).matches("P@ssw0rd!@#$%^&*()", testUser.getPasswordHash());
     }
 
     @Test
@@ -577,21 +906,36 @@ class AuthenticationServiceTest {
         
         Session barelyValidSession = new Session();
         barelyValidSession.setUserId(1);
-        barelyValidSession.setToken("barely-valid-token");
+        barelyValidSession.setTokenHash(TokenDigest.of("barely-valid-token"));
         barelyValidSession.setExpiresAt(justExpired); // Expired but within grace period
 
-        when(sessionRepository.findByToken("barely-valid-token")).thenReturn(Optional.of(barelyValidSession));
+        when(sessionRepository.findByTokenHashAndNotExpired(eq(TokenDigest.of("barely-valid-token")), any(LocalDateTime.class))).thenReturn(Optional.of(barelyValidSession));
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(jwtService.generateToken(1)).thenReturn("new-jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(LocalDateTime.now().plusHours(24));
         when(sessionRepository.save(any(Session.class))).thenReturn(testSession);
-        doNothing().when(sessionRepository).deleteByToken("barely-valid-token");
+        doNothing().when(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("barely-valid-token")), any(LocalDateTime.class));
 
         TokenResponse response = authenticationService.refreshToken(oldToken);
 
         assertNotNull(response);
         assertEquals("new-jwt-token", response.getToken());
-        verify(sessionRepository).deleteByToken("barely-valid-token");
+        verify(sessionRepository).deleteByTokenHash(eq(TokenDigest.of("barely-valid-token")), any(LocalDateTime.class));
         verify(sessionRepository).save(any(Session.class));
     }
-}
\ No newline at end of file
+
+    private static VerifiedToken refreshToken(Integer userId, String family, int generation) {
+        return refreshToken(userId, family, generation, null);
+    }
+
+    private static VerifiedToken refreshToken(Integer userId, String family, int generation, String accessTokenHash) {
+        Instant now = Instant.now();
+        return new VerifiedToken(userId, "token-id", JwtService.DEFAULT_KEY_ID, now, now.plusSeconds(3600),
+                family, generation, accessTokenHash);
+    }
+
+    private static VerifiedToken verifiedToken(Integer userId) {
+        Instant now = Instant.now();
+        return new VerifiedToken(userId, "token-id", JwtService.DEFAULT_KEY_ID, now, now.plusSeconds(3600));
+    }
+}
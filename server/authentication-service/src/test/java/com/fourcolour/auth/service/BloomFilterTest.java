@@ -0,0 +1,62 @@
+package com.fourcolour.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_ShouldBeTrueForEveryAddedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    void mightContain_WhenFull_ShouldBeFalsePositiveAboutAsOftenAsSizedFor() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("stranger" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_WhenEmpty_ShouldBeFalse() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("test@example.com"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void constructor_ShouldSizeForExpectedInsertionsAndRate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // About 9.6 bits and 7 hashes per entry at 1%
+        assertEquals(7, filter.hashCount());
+        assertTrue(filter.bitCount() >= 9_585_059 && filter.bitCount() < 9_585_059 + Long.SIZE);
+    }
+
+    @Test
+    void constructor_WithInvalidArguments_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, Double.NaN));
+    }
+}
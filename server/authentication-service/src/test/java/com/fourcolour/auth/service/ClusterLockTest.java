@@ -0,0 +1,85 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.SchedulerLock;
+import com.fourcolour.auth.repository.SchedulerLockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ClusterLockTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    // Two replicas sharing the database
+    private ClusterLock replicaA;
+    private ClusterLock replicaB;
+
+    @BeforeEach
+    void setUp() {
+        replicaA = new ClusterLock(schedulerLockRepository);
+        replicaB = new ClusterLock(schedulerLockRepository);
+    }
+
+    @Test
+    void tryLock_WithNoLockYet_ShouldCreateAndTakeIt() {
+        assertTrue(replicaA.tryLock("job", Duration.ofMinutes(5)));
+
+        entityManager.clear();
+        SchedulerLock lock = schedulerLockRepository.findById("job").orElseThrow();
+        assertEquals(replicaA.getOwner(), lock.getLockedBy());
+        assertTrue(lock.getLockedUntil().isAfter(LocalDateTime.now().plusMinutes(4)));
+    }
+
+    @Test
+    void tryLock_WhileHeldByAnotherReplica_ShouldFail() {
+        assertTrue(replicaA.tryLock("job", Duration.ofMinutes(5)));
+
+        assertFalse(replicaB.tryLock("job", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void tryLock_AfterRelease_ShouldSucceedForAnotherReplica() {
+        assertTrue(replicaA.tryLock("job", Duration.ofMinutes(5)));
+        replicaA.unlock("job");
+
+        assertTrue(replicaB.tryLock("job", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void tryLock_AfterLeaseRunsOut_ShouldSucceedForAnotherReplica() {
+        assertTrue(replicaA.tryLock("job", Duration.ZERO));
+
+        assertTrue(replicaB.tryLock("job", Duration.ofMinutes(5)));
+        entityManager.clear();
+        assertEquals(replicaB.getOwner(), schedulerLockRepository.findById("job").orElseThrow().getLockedBy());
+    }
+
+    @Test
+    void unlock_ByNonHolder_ShouldNotReleaseLock() {
+        assertTrue(replicaA.tryLock("job", Duration.ofMinutes(5)));
+        replicaB.unlock("job");
+
+        assertFalse(replicaB.tryLock("job", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void tryLock_ShouldKeepLocksIndependentByName() {
+        assertTrue(replicaA.tryLock("job", Duration.ofMinutes(5)));
+
+        assertTrue(replicaB.tryLock("other-job", Duration.ofMinutes(5)));
+    }
+}
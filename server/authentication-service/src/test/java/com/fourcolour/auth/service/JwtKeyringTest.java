@@ -0,0 +1,63 @@
+package com.fourcolour.auth.service;
+
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyringTest {
+
+    private static final String ACTIVE_SECRET = "testSecretKeyForUnitTests12345678901234567890123456789012";
+    private static final String RETIRED_SECRET = "testSecretKeyForUnitTests98765432109876543210987654321098";
+
+    @Test
+    void of_WithoutRetiredKeys_ShouldHoldOnlyActiveKey() {
+        JwtKeyring keyring = JwtKeyring.of("k2", ACTIVE_SECRET, "");
+
+        assertEquals(1, keyring.size());
+        assertEquals("k2", keyring.getActiveKeyId());
+        assertSame(keyring.getActiveKey(), keyring.keyFor("k2"));
+    }
+
+    @Test
+    void of_WithRetiredKeys_ShouldIndexThemById() {
+        JwtKeyring keyring = JwtKeyring.of("k3", ACTIVE_SECRET, "k1=" + RETIRED_SECRET + ", k2=" + RETIRED_SECRET + ",");
+
+        assertEquals(3, keyring.size());
+        assertNotNull(keyring.keyFor("k1"));
+        assertNotNull(keyring.keyFor("k2"));
+        assertNotEquals(keyring.getActiveKey(), keyring.keyFor("k1"));
+    }
+
+    @Test
+    void keyFor_WithoutKeyId_ShouldReturnActiveKey() {
+        JwtKeyring keyring = JwtKeyring.of("k2", ACTIVE_SECRET, "k1=" + RETIRED_SECRET);
+
+        assertSame(keyring.getActiveKey(), keyring.keyFor(null));
+    }
+
+    @Test
+    void keyFor_WithUnknownKeyId_ShouldThrow() {
+        JwtKeyring keyring = JwtKeyring.of("k2", ACTIVE_SECRET, null);
+
+        assertThrows(UnsupportedJwtException.class, () -> keyring.keyFor("k1"));
+    }
+
+    @Test
+    void of_WithMalformedRetiredKey_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> JwtKeyring.of("k2", ACTIVE_SECRET, "k1"));
+        assertThrows(IllegalArgumentException.class, () -> JwtKeyring.of("k2", ACTIVE_SECRET, "=" + RETIRED_SECRET));
+        assertThrows(IllegalArgumentException.class, () -> JwtKeyring.of("k2", ACTIVE_SECRET, "k1="));
+    }
+
+    @Test
+    void of_WithDuplicateKeyId_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> JwtKeyring.of("k2", ACTIVE_SECRET, "k2=" + RETIRED_SECRET));
+    }
+
+    @Test
+    void of_WithBlankActiveKeyId_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> JwtKeyring.of(" ", ACTIVE_SECRET, null));
+    }
+}
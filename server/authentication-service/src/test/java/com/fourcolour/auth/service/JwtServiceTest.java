@@ -4,9 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -364,4 +370,122 @@ class JwtServiceTest {
         assertTrue(longExpiryService.validateToken(token));
         assertEquals(userId, longExpiryService.getUserIdFromToken(token));
     }
-}
\ No newline at end of file
+
+    @Test
+    void verify_WithValidToken_ShouldReturnClaims() {
+        Instant before = Instant.now().minusSeconds(1);
+        String token = jwtService.generateToken(123);
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals(123, verified.getUserId());
+        assertNotNull(verified.getTokenId());
+        assertEquals(JwtService.DEFAULT_KEY_ID, verified.getKeyId());
+        assertFalse(verified.getIssuedAt().isBefore(before));
+        assertTrue(verified.getExpiresAt().isAfter(Instant.now().plusSeconds(3500)));
+        assertFalse(verified.isExpired(Instant.now()));
+    }
+
+    @Test
+    void verify_WithInvalidToken_ShouldThrowJwtException() {
+        assertThrows(JwtException.class, () -> jwtService.verify("invalid.jwt.token"));
+        assertThrows(IllegalArgumentException.class, () -> jwtService.verify(null));
+    }
+
+    @Test
+    void getKeyring_ShouldBeBuiltOnceAndReused() {
+        jwtService.generateToken(123);
+
+        assertSame(jwtService.getKeyring(), jwtService.getKeyring());
+        assertSame(jwtService.getKeyring().getParser(), jwtService.getKeyring().getParser());
+    }
+
+    @Test
+    void generateToken_ShouldNameSigningKeyInHeader() {
+        ReflectionTestUtils.setField(jwtService, "jwtKeyId", "2024-06");
+
+        String token = jwtService.generateToken(123);
+
+        assertEquals("2024-06", jwtService.verify(token).getKeyId());
+    }
+
+    @Test
+    void verify_AfterKeyRotation_ShouldAcceptTokensSignedWithRetiredKey() {
+        JwtService oldService = serviceWithKeys("k1", "testSecretKeyForUnitTests12345678901234567890123456789012", null);
+        String oldToken = oldService.generateToken(123);
+
+        JwtService rotatedService = serviceWithKeys("k2", "testSecretKeyForUnitTests98765432109876543210987654321098",
+                "k1=testSecretKeyForUnitTests12345678901234567890123456789012");
+        String newToken = rotatedService.generateToken(456);
+
+        assertEquals(123, rotatedService.verify(oldToken).getUserId());
+        assertEquals("k1", rotatedService.verify(oldToken).getKeyId());
+        assertEquals(456, rotatedService.verify(newToken).getUserId());
+        assertFalse(oldService.validateToken(newToken));
+    }
+
+    @Test
+    void verify_WithUnknownKeyId_ShouldReject() {
+        JwtService otherService = serviceWithKeys("other", "testSecretKeyForUnitTests12345678901234567890123456789012", null);
+        String token = otherService.generateToken(123);
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+        assertFalse(jwtService.validateToken(token));
+    }
+
+    @Test
+    void verify_WithTokenWithoutKeyId_ShouldUseActiveKey() {
+        String legacyToken = Jwts.builder()
+                .subject("123")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("testSecretKeyForUnitTests123456789".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        VerifiedToken verified = jwtService.verify(legacyToken);
+
+        assertEquals(123, verified.getUserId());
+        assertNull(verified.getKeyId());
+    }
+
+    @Test
+    void generateRefreshToken_ShouldCarryFamilyGenerationAndAccessTokenDigest() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1).withNano(0);
+
+        String token = jwtService.generateRefreshToken(123, "family-1", 4, TokenDigest.of("access-token"), expiresAt);
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertTrue(verified.isRefreshToken());
+        assertEquals(123, verified.getUserId());
+        assertEquals("family-1", verified.getRefreshFamily());
+        assertEquals(4, verified.getRefreshGeneration());
+        assertEquals(TokenDigest.of("access-token"), verified.getAccessTokenHash());
+        assertEquals(expiresAt.atZone(java.time.ZoneId.systemDefault()).toInstant(), verified.getExpiresAt());
+    }
+
+    @Test
+    void verify_WithAccessToken_ShouldNotBeRefreshToken() {
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(123));
+
+        assertFalse(verified.isRefreshToken());
+        assertNull(verified.getRefreshFamily());
+        assertNull(verified.getRefreshGeneration());
+        assertNull(verified.getAccessTokenHash());
+    }
+
+    @Test
+    void generateRefreshToken_AlreadyExpired_ShouldBeRejected() {
+        String token = jwtService.generateRefreshToken(123, "family-1", 0, TokenDigest.of("access-token"),
+                LocalDateTime.now().minusMinutes(1));
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    private static JwtService serviceWithKeys(String keyId, String secret, String retiredKeys) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "jwtSecret", secret);
+        ReflectionTestUtils.setField(service, "jwtExpirationInSeconds", 3600);
+        ReflectionTestUtils.setField(service, "jwtKeyId", keyId);
+        ReflectionTestUtils.setField(service, "jwtRetiredKeys", retiredKeys);
+        return service;
+    }
+}
@@ -0,0 +1,94 @@
+package com.fourcolour.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) {
+            hasher.close();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRoundTripOnHasherThreads() {
+        AtomicReference<String> hashingThread = new AtomicReference<>();
+        PasswordEncoder encoder = spy(new BCryptPasswordEncoder(4));
+        doAnswer(invocation -> {
+            hashingThread.set(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(encoder).encode(any());
+        hasher = new PasswordHasher(encoder, 2, 4, meterRegistry);
+
+        String hash = hasher.encode("password123");
+
+        assertTrue(hasher.matches("password123", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertTrue(hashingThread.get().startsWith("password-hasher-"));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_ShouldFlagHashesBelowConfiguredCost() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(6), 1, 1, meterRegistry);
+
+        assertTrue(hasher.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123")));
+        assertFalse(hasher.upgradeEncoding(hasher.encode("password123")));
+    }
+
+    @Test
+    void matches_WhenQueueIsFull_ShouldRejectImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        hasher = new PasswordHasher(encoder, 1, 1, meterRegistry);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hasher.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hasher.matches("b", "hash"));
+        while (hasher.getQueueDepth() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(PasswordHashingRejectedException.class, () -> hasher.matches("c", "hash"));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void matches_ShouldRethrowEncoderFailures() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), anyString())).thenThrow(new IllegalArgumentException("Invalid salt"));
+        hasher = new PasswordHasher(encoder, 1, 1, meterRegistry);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> hasher.matches("password", "not-a-hash"));
+        assertEquals("Invalid salt", e.getMessage());
+    }
+}
@@ -0,0 +1,196 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.Session;
+import com.fourcolour.auth.repository.SessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RefreshTokenFamiliesTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SessionCache sessionCache;
+    private RefreshTokenFamilies refreshTokenFamilies;
+    private String family;
+
+    @BeforeEach
+    void setUp() {
+        sessionCache = new SessionCache(100, 30_000, 5_000, new SimpleMeterRegistry());
+        refreshTokenFamilies = new RefreshTokenFamilies(sessionRepository, sessionCache);
+        family = refreshTokenFamilies.newFamily();
+        sessionRepository.save(session("login-token", 0));
+    }
+
+    private Session session(String token, int generation) {
+        Session session = new Session(1, TokenDigest.of(token), LocalDateTime.now().plusHours(1));
+        session.setRefreshFamily(family);
+        session.setRefreshGeneration(generation);
+        return session;
+    }
+
+    private Optional<Session> stored(String token) {
+        entityManager.clear();
+        return sessionRepository.findByTokenHash(TokenDigest.of(token));
+    }
+
+    @Test
+    void newFamily_ShouldWriteNothing() {
+        long sessions = sessionRepository.count();
+
+        assertNotEquals(family, refreshTokenFamilies.newFamily());
+        assertEquals(sessions, sessionRepository.count());
+    }
+
+    @Test
+    void rotate_ToNextGeneration_ShouldMoveTheSessionOnInPlace() {
+        Session login = stored("login-token").orElseThrow();
+        Session next = session("first-refresh", 1);
+        next.setExpiresAt(LocalDateTime.now().plusHours(2).withNano(0));
+
+        assertTrue(refreshTokenFamilies.rotate(next));
+
+        Session rotated = stored("first-refresh").orElseThrow();
+        assertEquals(login.getId(), rotated.getId());
+        assertEquals(family, rotated.getRefreshFamily());
+        assertEquals(1, rotated.getRefreshGeneration());
+        assertEquals(next.getExpiresAt(), rotated.getExpiresAt());
+        assertEquals(1, sessionRepository.count());
+    }
+
+    @Test
+    void rotate_ShouldEndThePreviousAccessTokensSession() {
+        assertTrue(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+
+        assertTrue(stored("login-token").isEmpty());
+    }
+
+    @Test
+    void rotate_SameGenerationTwice_ShouldRefuseTheSecond() {
+        assertTrue(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+
+        assertFalse(refreshTokenFamilies.rotate(session("replayed-refresh", 1)));
+        assertTrue(stored("replayed-refresh").isEmpty());
+        assertTrue(stored("first-refresh").isPresent());
+    }
+
+    @Test
+    void rotate_OlderGenerationAfterLaterOnes_ShouldRefuse() {
+        assertTrue(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+        assertTrue(refreshTokenFamilies.rotate(session("second-refresh", 2)));
+
+        assertFalse(refreshTokenFamilies.rotate(session("replayed-refresh", 1)));
+    }
+
+    @Test
+    void rotate_PastRefreshGrace_ShouldRefuse() {
+        Session login = stored("login-token").orElseThrow();
+        login.setExpiresAt(LocalDateTime.now().minus(AuthenticationService.REFRESH_GRACE).minusMinutes(1));
+        sessionRepository.saveAndFlush(login);
+
+        assertFalse(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+    }
+
+    @Test
+    void rotate_InOtherFamily_ShouldNotBeAffected() {
+        assertTrue(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+        family = refreshTokenFamilies.newFamily();
+        sessionRepository.save(session("other-login", 0));
+
+        assertTrue(refreshTokenFamilies.rotate(session("other-refresh", 1)));
+        assertTrue(stored("first-refresh").isPresent());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void rotate_SameGenerationConcurrently_ShouldMoveOnOnlyOnce() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch firstRotated = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // The first refresh holds its transaction open until the second is waiting on the session
+            Future<Boolean> first = executor.submit(() -> transaction.execute(status -> {
+                boolean rotated = refreshTokenFamilies.rotate(session("first-refresh", 1));
+                firstRotated.countDown();
+                try {
+                    secondStarted.await(5, TimeUnit.SECONDS);
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rotated;
+            }));
+            Future<Boolean> second = executor.submit(() -> {
+                firstRotated.await(5, TimeUnit.SECONDS);
+                return transaction.execute(status -> {
+                    secondStarted.countDown();
+                    return refreshTokenFamilies.rotate(session("replayed-refresh", 1));
+                });
+            });
+
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+            assertFalse(second.get(10, TimeUnit.SECONDS));
+            assertTrue(sessionRepository.findByTokenHash(TokenDigest.of("replayed-refresh")).isEmpty());
+            assertEquals(1, sessionRepository.findByTokenHash(TokenDigest.of("first-refresh"))
+                    .orElseThrow().getRefreshGeneration());
+        } finally {
+            executor.shutdownNow();
+            sessionRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void revoke_ShouldEndSessionsAndRefuseFurtherRotation() {
+        refreshTokenFamilies.revoke(family);
+
+        assertTrue(stored("login-token").isEmpty());
+        assertFalse(refreshTokenFamilies.rotate(session("first-refresh", 1)));
+    }
+
+    @Test
+    void revoke_ShouldDropCachedSessions() {
+        sessionCache.put(sessionRepository.findByTokenHash(TokenDigest.of("login-token")).orElseThrow());
+
+        refreshTokenFamilies.revoke(family);
+
+        LocalDateTime now = LocalDateTime.now();
+        assertTrue(sessionCache.lookup(TokenDigest.of("login-token"), now,
+                tokenHash -> sessionRepository.findByTokenHashAndNotExpired(tokenHash, now)).isEmpty());
+    }
+
+    @Test
+    void revoke_Twice_ShouldNotThrow() {
+        refreshTokenFamilies.revoke(family);
+
+        assertDoesNotThrow(() -> refreshTokenFamilies.revoke(family));
+        assertEquals(0, sessionRepository.count());
+    }
+}
@@ -0,0 +1,188 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.Session;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCacheTest {
+
+    private static final long TTL_MS = 30_000;
+    private static final long NEGATIVE_TTL_MS = 5_000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private SessionCache cache;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SessionCache(3, TTL_MS, NEGATIVE_TTL_MS, meterRegistry, clock::get);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void lookup_ShouldLoadOnMissAndServeRepeatsFromMemory() {
+        Session session = session("token-1", now.plusHours(1));
+
+        assertEquals(Optional.of(session), cache.lookup(session.getTokenHash(), now, loading(session)));
+        assertEquals(Optional.of(session), cache.lookup(session.getTokenHash(), now, loading(session)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.counter("auth.session.cache", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("auth.session.cache", "result", "miss").count());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void lookup_AfterPut_ShouldNotLoad() {
+        Session session = session("token-1", now.plusHours(1));
+        cache.put(session);
+
+        assertEquals(Optional.of(session), cache.lookup(session.getTokenHash(), now, loading(null)));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void lookup_WithUnknownToken_ShouldRememberAbsenceUntilNegativeTtl() {
+        String tokenHash = TokenDigest.of("unknown");
+
+        assertTrue(cache.lookup(tokenHash, now, loading(null)).isEmpty());
+        assertTrue(cache.lookup(tokenHash, now, loading(null)).isEmpty());
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.counter("auth.session.cache", "result", "negative_hit").count());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(NEGATIVE_TTL_MS));
+        cache.lookup(tokenHash, now, loading(null));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void lookup_AfterTtl_ShouldReload() {
+        Session session = session("token-1", now.plusHours(1));
+        cache.put(session);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MS));
+
+        assertTrue(cache.lookup(session.getTokenHash(), now, loading(null)).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void lookup_WithExpiredSession_ShouldNotServeIt() {
+        Session session = session("token-1", now.plusMinutes(1));
+        cache.put(session);
+
+        assertTrue(cache.lookup(session.getTokenHash(), now.plusMinutes(2), loading(null)).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldHideSessionEvenFromLoadInFlight() {
+        Session session = session("token-1", now.plusHours(1));
+
+        // A logout lands while the lookup is still reading the session from the database
+        Optional<Session> stale = cache.lookup(session.getTokenHash(), now, tokenHash -> {
+            cache.invalidate(tokenHash);
+            return Optional.of(session);
+        });
+
+        assertTrue(stale.isPresent());
+        assertTrue(cache.lookup(session.getTokenHash(), now, loading(session)).isEmpty());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void put_BeyondCapacity_ShouldEvictLeastRecentlyUsed() {
+        Session first = session("token-1", now.plusHours(1));
+        Session second = session("token-2", now.plusHours(1));
+        Session third = session("token-3", now.plusHours(1));
+        cache.put(first);
+        cache.put(second);
+        cache.put(third);
+        cache.lookup(first.getTokenHash(), now, loading(null));
+
+        cache.put(session("token-4", now.plusHours(1)));
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.lookup(first.getTokenHash(), now, loading(null)).isPresent());
+        assertTrue(cache.lookup(second.getTokenHash(), now, loading(null)).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void put_FarBeyondCapacity_ShouldEvictDownToNineTenthsKeepingRecentlyUsed() {
+        SessionCache large = new SessionCache(100, TTL_MS, NEGATIVE_TTL_MS, meterRegistry, clock::get);
+        Session kept = session("token-0", now.plusHours(1));
+        large.put(kept);
+        for (int i = 1; i <= 100; i++) {
+            large.put(session("token-" + i, now.plusHours(1)));
+            large.lookup(kept.getTokenHash(), now, loading(null));
+        }
+
+        assertEquals(90, large.size());
+        assertTrue(large.lookup(kept.getTokenHash(), now, loading(null)).isPresent());
+        assertTrue(large.lookup(TokenDigest.of("token-1"), now, loading(null)).isEmpty());
+    }
+
+    @Test
+    void lookup_FromManyThreads_ShouldServeHitsWithoutLoading() throws Exception {
+        Session session = session("token-1", now.plusHours(1));
+        cache.put(session);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Session>>> lookups = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                lookups.add(executor.submit(() -> cache.lookup(session.getTokenHash(), now, loading(null))));
+            }
+            for (Future<Optional<Session>> lookup : lookups) {
+                assertEquals(Optional.of(session), lookup.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, loads.get());
+        assertEquals(1_000, meterRegistry.counter("auth.session.cache", "result", "hit").count());
+    }
+
+    @Test
+    void lookup_WhenDisabled_ShouldAlwaysLoad() {
+        SessionCache disabled = new SessionCache(0, TTL_MS, NEGATIVE_TTL_MS, meterRegistry, clock::get);
+        Session session = session("token-1", now.plusHours(1));
+        disabled.put(session);
+
+        disabled.lookup(session.getTokenHash(), now, loading(session));
+        disabled.lookup(session.getTokenHash(), now, loading(session));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, disabled.size());
+    }
+
+    private Function<String, Optional<Session>> loading(Session session) {
+        return tokenHash -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(session);
+        };
+    }
+
+    private static Session session(String token, LocalDateTime expiresAt) {
+        return new Session(1, TokenDigest.of(token), expiresAt);
+    }
+}
@@ -1,16 +1,22 @@
 package com.fourcolour.auth.service;
 
 import com.fourcolour.auth.repository.SessionRepository;
+import com.fourcolour.auth.repository.SessionRepository.SessionKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -20,327 +26,226 @@ import static org.mockito.Mockito.*;
 @MockitoSettings(strictness = Strictness.LENIENT)
 class SessionCleanupServiceTest {
 
+    private static final LocalDateTime EXPIRED = LocalDateTime.now().minusDays(1);
+
     @Mock
     private SessionRepository sessionRepository;
 
-    @InjectMocks
+    @Mock
+    private ClusterLock clusterLock;
+
+    @Mock
+    private SessionPartitions sessionPartitions;
+
+    private SimpleMeterRegistry meterRegistry;
     private SessionCleanupService sessionCleanupService;
 
     @BeforeEach
     void setUp() {
-        // Reset mock behavior before each test
-        reset(sessionRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        sessionCleanupService = new SessionCleanupService(sessionRepository, clusterLock, sessionPartitions,
+                2, 0, 60_000, meterRegistry);
+        when(clusterLock.tryLock(eq(SessionCleanupService.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(sessionRepository.deleteByIdIn(anyCollection()))
+                .thenAnswer(invocation -> invocation.<List<Integer>>getArgument(0).size());
+    }
+
+    private static SessionKey key(int id, LocalDateTime expiresAt) {
+        return new SessionKey() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getExpiresAt() {
+                return expiresAt;
+            }
+        };
     }
 
     @Test
-    void cleanupExpiredSessions_ShouldCallRepositoryMethod() {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_ShouldDeleteInBatchesFollowingTheCursor() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(key(1, EXPIRED), key(2, EXPIRED.plusMinutes(1))))
+                .thenReturn(List.of(key(3, EXPIRED.plusMinutes(2)), key(4, EXPIRED.plusMinutes(3))))
+                .thenReturn(List.of(key(5, EXPIRED.plusMinutes(4))));
 
         sessionCleanupService.cleanupExpiredSessions();
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(sessionRepository).deleteByIdIn(List.of(1, 2));
+        verify(sessionRepository).deleteByIdIn(List.of(3, 4));
+        verify(sessionRepository).deleteByIdIn(List.of(5));
+        verify(sessionRepository).findExpiredAfter(any(), eq(EXPIRED.plusMinutes(1)), eq(2), any(Pageable.class));
+        verify(sessionRepository).findExpiredAfter(any(), eq(EXPIRED.plusMinutes(3)), eq(4), any(Pageable.class));
+        verify(sessionRepository, times(3)).findExpiredAfter(any(), any(), any(), any(Pageable.class));
+        assertEquals(5.0, meterRegistry.get("auth.session.cleanup.deleted").counter().count());
+        assertEquals(3.0, meterRegistry.get("auth.session.cleanup.batches").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.runs").tag("result", "completed").counter().count());
     }
 
     @Test
-    void cleanupExpiredSessions_ShouldPassCorrectTimestamp() {
-        LocalDateTime beforeCleanup = LocalDateTime.now();
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_ShouldReadBatchesOfConfiguredSize() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class))).thenReturn(List.of());
 
         sessionCleanupService.cleanupExpiredSessions();
 
-        LocalDateTime afterCleanup = LocalDateTime.now();
-
-        verify(sessionRepository).deleteExpiredSessions(argThat(timestamp -> 
-            !timestamp.isBefore(beforeCleanup) && !timestamp.isAfter(afterCleanup)
-        ));
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(sessionRepository).findExpiredAfter(any(), any(), any(), page.capture());
+        assertEquals(2, page.getValue().getPageSize());
+        assertEquals(0, page.getValue().getPageNumber());
     }
 
     @Test
-    void cleanupExpiredSessions_WithRepositoryException_ShouldHandleGracefully() {
-        doThrow(new RuntimeException("Database connection failed"))
-                .when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_WithNothingExpired_ShouldNotDelete() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class))).thenReturn(List.of());
 
-        // Should not throw exception
-        assertDoesNotThrow(() -> {
-            sessionCleanupService.cleanupExpiredSessions();
-        });
+        sessionCleanupService.cleanupExpiredSessions();
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(sessionRepository, never()).deleteByIdIn(anyCollection());
+        assertEquals(0.0, meterRegistry.get("auth.session.cleanup.deleted").counter().count());
     }
 
     @Test
-    void manualCleanup_ShouldCallCleanupExpiredSessions() {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_ShouldUseCurrentTimeForEveryBatch() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(key(1, EXPIRED), key(2, EXPIRED)))
+                .thenReturn(List.of());
 
-        sessionCleanupService.manualCleanup();
+        LocalDateTime beforeCall = LocalDateTime.now();
+        sessionCleanupService.cleanupExpiredSessions();
+        LocalDateTime afterCall = LocalDateTime.now();
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(sessionRepository, times(2)).findExpiredAfter(now.capture(), any(), any(), any(Pageable.class));
+        LocalDateTime first = now.getAllValues().get(0);
+        assertFalse(first.isBefore(beforeCall));
+        assertFalse(first.isAfter(afterCall));
+        assertEquals(first, now.getAllValues().get(1));
     }
 
     @Test
-    void manualCleanup_WithException_ShouldHandleGracefully() {
-        doThrow(new RuntimeException("Database error"))
-                .when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_WhenLockHeldElsewhere_ShouldSkip() {
+        when(clusterLock.tryLock(eq(SessionCleanupService.LOCK_NAME), any(Duration.class))).thenReturn(false);
 
-        assertDoesNotThrow(() -> {
-            sessionCleanupService.manualCleanup();
-        });
+        sessionCleanupService.cleanupExpiredSessions();
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verifyNoInteractions(sessionRepository);
+        verify(clusterLock, never()).unlock(anyString());
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.runs").tag("result", "skipped").counter().count());
     }
 
     @Test
-    void cleanupExpiredSessions_ShouldBeIdempotent() {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_ShouldReleaseLockWhenDone() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class))).thenReturn(List.of());
 
-        // Call cleanup multiple times
-        sessionCleanupService.cleanupExpiredSessions();
-        sessionCleanupService.cleanupExpiredSessions();
         sessionCleanupService.cleanupExpiredSessions();
 
-        // Should call repository method each time
-        verify(sessionRepository, times(3)).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(clusterLock).tryLock(SessionCleanupService.LOCK_NAME, Duration.ofMillis(60_000));
+        verify(clusterLock).unlock(SessionCleanupService.LOCK_NAME);
     }
 
     @Test
-    void cleanupExpiredSessions_WithNullPointerException_ShouldHandleGracefully() {
-        doThrow(new NullPointerException("Null session reference"))
-                .when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_WithRepositoryException_ShouldHandleGracefullyAndReleaseLock() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class)))
+                .thenThrow(new org.springframework.dao.DataAccessException("Transaction failed") {});
 
-        assertDoesNotThrow(() -> {
-            sessionCleanupService.cleanupExpiredSessions();
-        });
+        assertDoesNotThrow(() -> sessionCleanupService.cleanupExpiredSessions());
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(clusterLock).unlock(SessionCleanupService.LOCK_NAME);
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.runs").tag("result", "failed").counter().count());
     }
 
     @Test
-    void cleanupExpiredSessions_WithTransactionException_ShouldHandleGracefully() {
-        doThrow(new org.springframework.dao.DataAccessException("Transaction failed") {})
-                .when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void cleanupExpiredSessions_WhenLockCannotBeTaken_ShouldHandleGracefully() {
+        when(clusterLock.tryLock(anyString(), any(Duration.class)))
+                .thenThrow(new RuntimeException("Database connection failed"));
 
-        assertDoesNotThrow(() -> {
-            sessionCleanupService.cleanupExpiredSessions();
-        });
+        assertDoesNotThrow(() -> sessionCleanupService.cleanupExpiredSessions());
 
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verifyNoInteractions(sessionRepository);
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.runs").tag("result", "failed").counter().count());
     }
 
     @Test
-    void cleanupExpiredSessions_ShouldUseCurrentTime() {
-        // Capture the argument passed to the repository method
-        org.mockito.ArgumentCaptor<LocalDateTime> timeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(timeCaptor.capture());
+    void cleanupExpiredSessions_WhenLeaseRunsOut_ShouldStopAfterCurrentBatch() {
+        sessionCleanupService = new SessionCleanupService(sessionRepository, clusterLock, sessionPartitions,
+                2, 0, 0, meterRegistry);
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(key(1, EXPIRED), key(2, EXPIRED)));
 
-        LocalDateTime beforeCall = LocalDateTime.now();
         sessionCleanupService.cleanupExpiredSessions();
-        LocalDateTime afterCall = LocalDateTime.now();
 
-        LocalDateTime capturedTime = timeCaptor.getValue();
-        
-        // The captured time should be between beforeCall and afterCall
-        assertTrue(capturedTime.isAfter(beforeCall.minusSeconds(1))); // Small buffer
-        assertTrue(capturedTime.isBefore(afterCall.plusSeconds(1)));  // Small buffer
+        verify(sessionRepository, times(1)).findExpiredAfter(any(), any(), any(), any(Pageable.class));
+        verify(sessionRepository).deleteByIdIn(List.of(1, 2));
     }
 
     @Test
-    void cleanupExpiredSessions_ShouldNotPassFutureTime() {
-        org.mockito.ArgumentCaptor<LocalDateTime> timeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(timeCaptor.capture());
+    void cleanupExpiredSessions_OnPartitionedTable_ShouldRotatePartitionsInsteadOfDeletingRows() {
+        when(sessionPartitions.isPartitioned()).thenReturn(true);
+        when(sessionPartitions.createAhead(any(LocalDate.class))).thenReturn(List.of("sessions_p20260110"));
+        when(sessionPartitions.dropExpiredBefore(any(LocalDateTime.class)))
+                .thenReturn(List.of("sessions_p20260101", "sessions_p20260102"));
 
+        LocalDateTime beforeCall = LocalDateTime.now();
         sessionCleanupService.cleanupExpiredSessions();
 
-        LocalDateTime capturedTime = timeCaptor.getValue();
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Captured time should not be in the future
-        assertFalse(capturedTime.isAfter(now.plusSeconds(1)));
+        verify(sessionPartitions).createAhead(beforeCall.toLocalDate());
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(sessionPartitions).dropExpiredBefore(cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(beforeCall.minus(AuthenticationService.REFRESH_GRACE)));
+        assertFalse(cutoff.getValue().isAfter(LocalDateTime.now().minus(AuthenticationService.REFRESH_GRACE)));
+        verifyNoInteractions(sessionRepository);
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.partitions").tag("action", "created").counter().count());
+        assertEquals(2.0, meterRegistry.get("auth.session.cleanup.partitions").tag("action", "dropped").counter().count());
+        verify(clusterLock).unlock(SessionCleanupService.LOCK_NAME);
     }
 
     @Test
-    void cleanupExpiredSessions_MultipleCalls_ShouldUseDifferentTimestamps() {
-        org.mockito.ArgumentCaptor<LocalDateTime> timeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(timeCaptor.capture());
-
-        sessionCleanupService.cleanupExpiredSessions();
-        
-        // Small delay to ensure different timestamps
-        try {
-            Thread.sleep(1);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        sessionCleanupService.cleanupExpiredSessions();
+    void createPartitionsAhead_OnPartitionedTable_ShouldCreateWithoutTheLock() {
+        when(sessionPartitions.isPartitioned()).thenReturn(true);
+        when(sessionPartitions.createAhead(any(LocalDate.class))).thenReturn(List.of("sessions_p20260110"));
 
-        // Should have been called twice with potentially different timestamps
-        verify(sessionRepository, times(2)).deleteExpiredSessions(any(LocalDateTime.class));
-        
-        // Get all captured values
-        java.util.List<LocalDateTime> allCapturedTimes = timeCaptor.getAllValues();
-        assertEquals(2, allCapturedTimes.size());
-        
-        // Times should be close but may be different
-        LocalDateTime firstTime = allCapturedTimes.get(0);
-        LocalDateTime secondTime = allCapturedTimes.get(1);
-        
-        // Second time should not be before first time
-        assertFalse(secondTime.isBefore(firstTime));
-    }
-
-    @Test
-    void manualCleanup_ShouldBehaveSameAsScheduledCleanup() {
-        org.mockito.ArgumentCaptor<LocalDateTime> scheduledTimeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        org.mockito.ArgumentCaptor<LocalDateTime> manualTimeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-
-        // Call scheduled cleanup
-        sessionCleanupService.cleanupExpiredSessions();
-        
-        // Small delay
-        try {
-            Thread.sleep(1);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // Call manual cleanup
-        sessionCleanupService.manualCleanup();
+        sessionCleanupService.createPartitionsAhead();
 
-        // Both should call the repository method
-        verify(sessionRepository, times(2)).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(sessionPartitions).createAhead(LocalDate.now());
+        verifyNoInteractions(clusterLock);
+        assertEquals(1.0, meterRegistry.get("auth.session.cleanup.partitions").tag("action", "created").counter().count());
     }
 
     @Test
-    void cleanupExpiredSessions_WithSuccessfulExecution_ShouldCompleteNormally() {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+    void createPartitionsAhead_OnUnpartitionedTable_ShouldDoNothing() {
+        when(sessionPartitions.isPartitioned()).thenReturn(false);
 
-        long startTime = System.currentTimeMillis();
-        sessionCleanupService.cleanupExpiredSessions();
-        long endTime = System.currentTimeMillis();
+        sessionCleanupService.createPartitionsAhead();
 
-        // Should complete quickly (within reasonable time)
-        assertTrue(endTime - startTime < 1000); // Less than 1 second
-        
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        verify(sessionPartitions, never()).createAhead(any(LocalDate.class));
     }
 
     @Test
-    void cleanupExpiredSessions_WithSlowRepository_ShouldWait() {
-        // Simulate slow repository operation
-        doAnswer(invocation -> {
-            Thread.sleep(100); // 100ms delay
-            return null;
-        }).when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-
-        long startTime = System.currentTimeMillis();
-        sessionCleanupService.cleanupExpiredSessions();
-        long endTime = System.currentTimeMillis();
+    void createPartitionsAhead_WhenCreationFails_ShouldNotThrow() {
+        when(sessionPartitions.isPartitioned()).thenReturn(true);
+        when(sessionPartitions.createAhead(any(LocalDate.class)))
+                .thenThrow(new RuntimeException("relation already exists"));
 
-        // Should take at least 100ms due to the delay
-        assertTrue(endTime - startTime >= 100);
-        
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
+        assertDoesNotThrow(() -> sessionCleanupService.createPartitionsAhead());
     }
 
     @Test
-    void cleanupExpiredSessions_WithInterruptedException_ShouldHandleGracefully() {
-        doAnswer(invocation -> {
-            Thread.currentThread().interrupt();
-            throw new InterruptedException("Thread interrupted");
-        }).when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-
-        assertDoesNotThrow(() -> {
-            sessionCleanupService.cleanupExpiredSessions();
-        });
-
-        verify(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-    }
-
-    @Test
-    void cleanupExpiredSessions_ShouldNotModifyPassedTimestamp() {
-        org.mockito.ArgumentCaptor<LocalDateTime> timeCaptor = 
-                org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
-        
-        doNothing().when(sessionRepository).deleteExpiredSessions(timeCaptor.capture());
+    void manualCleanup_ShouldBehaveSameAsScheduledCleanup() {
+        when(sessionRepository.findExpiredAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(key(1, EXPIRED)));
 
-        sessionCleanupService.cleanupExpiredSessions();
+        sessionCleanupService.manualCleanup();
 
-        LocalDateTime capturedTime = timeCaptor.getValue();
-        
-        // The timestamp should be a valid LocalDateTime
-        assertNotNull(capturedTime);
-        
-        // Should be able to format it without exception
-        assertDoesNotThrow(() -> {
-            capturedTime.toString();
-        });
+        verify(sessionRepository).deleteByIdIn(List.of(1));
+        verify(clusterLock).unlock(SessionCleanupService.LOCK_NAME);
     }
 
     @Test
-    void cleanupExpiredSessions_ConcurrentCalls_ShouldBeThreadSafe() throws InterruptedException {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-
-        int numberOfThreads = 10;
-        java.util.concurrent.CountDownLatch latch = new java.util.concurrent.CountDownLatch(numberOfThreads);
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(numberOfThreads);
-
-        for (int i = 0; i < numberOfThreads; i++) {
-            executor.submit(() -> {
-                try {
-                    sessionCleanupService.cleanupExpiredSessions();
-                } finally {
-                    latch.countDown();
-                }
-            });
-        }
-
-        // Wait for all threads to complete
-        assertTrue(latch.await(5, java.util.concurrent.TimeUnit.SECONDS));
-        executor.shutdown();
-
-        // Should have called the repository method for each thread
-        verify(sessionRepository, times(numberOfThreads)).deleteExpiredSessions(any(LocalDateTime.class));
-    }
-
-    @Test
-    void manualCleanup_ConcurrentWithScheduledCleanup_ShouldNotCauseIssues() throws InterruptedException {
-        doNothing().when(sessionRepository).deleteExpiredSessions(any(LocalDateTime.class));
-
-        java.util.concurrent.CountDownLatch latch = new java.util.concurrent.CountDownLatch(2);
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
-
-        // Simulate scheduled cleanup
-        executor.submit(() -> {
-            try {
-                sessionCleanupService.cleanupExpiredSessions();
-            } finally {
-                latch.countDown();
-            }
-        });
-
-        // Simulate manual cleanup
-        executor.submit(() -> {
-            try {
-                sessionCleanupService.manualCleanup();
-            } finally {
-                latch.countDown();
-            }
-        });
-
-        assertTrue(latch.await(5, java.util.concurrent.TimeUnit.SECONDS));
-        executor.shutdown();
-
-        verify(sessionRepository, times(2)).deleteExpiredSessions(any(LocalDateTime.class));
+    void constructor_WithNonPositiveBatchSize_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SessionCleanupService(sessionRepository, clusterLock, sessionPartitions,
+                        0, 0, 60_000, meterRegistry));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.Session;
+import com.fourcolour.auth.repository.SessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations against a real PostgreSQL, since H2 has no table partitioning. Needs
+ * Docker; {@link SessionPartitionsTest} covers the same logic against a mocked database.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Detaching a partition concurrently cannot run inside a transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SessionPartitionsPostgresTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+    }
+
+    private SessionPartitions partitions() {
+        return new SessionPartitions(jdbcTemplate, 7);
+    }
+
+    private Session save(String tokenHash, LocalDateTime expiresAt) {
+        return sessionRepository.save(new Session(1, tokenHash, expiresAt));
+    }
+
+    @Test
+    void migration_ShouldCreateSessionsPartitionedByDay() {
+        SessionPartitions partitions = partitions();
+        LocalDate today = LocalDate.now();
+
+        assertTrue(partitions.isPartitioned());
+        List<LocalDate> days = partitions.partitionDays();
+        for (int ahead = 0; ahead <= 7; ahead++) {
+            assertTrue(days.contains(today.plusDays(ahead)), "missing partition for " + today.plusDays(ahead));
+        }
+    }
+
+    @Test
+    void save_ShouldRouteSessionToItsExpiryDay() {
+        LocalDateTime tomorrowNoon = LocalDate.now().plusDays(1).atTime(12, 0);
+
+        save("tomorrow", tomorrowNoon);
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + SessionPartitions.nameOf(tomorrowNoon.toLocalDate())
+                        + " WHERE token_hash = 'tomorrow'", Integer.class);
+        assertEquals(1, rows);
+    }
+
+    @Test
+    void findByTokenHashAndNotExpired_ShouldOnlySearchLivePartitions() {
+        LocalDateTime now = LocalDateTime.now();
+        save("live", now.plusHours(1));
+
+        assertTrue(sessionRepository.findByTokenHashAndNotExpired("live", now).isPresent());
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM sessions WHERE token_hash = 'live' AND expires_at > '" + now + "'",
+                String.class));
+        assertFalse(plan.contains(SessionPartitions.nameOf(now.toLocalDate().minusDays(1))), plan);
+        assertTrue(plan.contains(SessionPartitions.nameOf(now.toLocalDate().plusDays(1))), plan);
+    }
+
+    @Test
+    void createAhead_ShouldAddOnlyMissingPartitions() {
+        LocalDate today = LocalDate.now();
+        SessionPartitions partitions = new SessionPartitions(jdbcTemplate, 9);
+
+        List<String> created = partitions.createAhead(today);
+
+        assertFalse(created.contains(SessionPartitions.nameOf(today)));
+        assertTrue(partitions.partitionDays().contains(today.plusDays(9)));
+        assertTrue(partitions.createAhead(today).isEmpty());
+    }
+
+    @Test
+    void dropExpiredBefore_ShouldDropWhollyExpiredPartitionsOnly() {
+        SessionPartitions partitions = partitions();
+        LocalDate today = LocalDate.now();
+        partitions.createAhead(today.minusDays(2));
+        save("two-days-ago", today.minusDays(2).atTime(8, 0));
+        save("yesterday", today.minusDays(1).atTime(8, 0));
+        save("today", today.atTime(23, 0));
+
+        List<String> dropped = partitions.dropExpiredBefore(today.atStartOfDay().plusMinutes(1));
+
+        assertEquals(List.of(SessionPartitions.nameOf(today.minusDays(2)), SessionPartitions.nameOf(today.minusDays(1))),
+                dropped);
+        assertFalse(partitions.partitionDays().contains(today.minusDays(1)));
+        assertTrue(partitions.partitionDays().contains(today));
+        assertFalse(sessionRepository.findByTokenHash("yesterday").isPresent());
+        assertTrue(sessionRepository.findByTokenHash("today").isPresent());
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?)::text", String.class, SessionPartitions.nameOf(today.minusDays(1))));
+    }
+}
@@ -0,0 +1,119 @@
+package com.fourcolour.auth.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The partition bookkeeping against a mocked database, so it is covered without Docker;
+ * {@link SessionPartitionsPostgresTest} runs it and the migration on a real PostgreSQL.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SessionPartitionsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SessionPartitions partitions;
+
+    @BeforeEach
+    void setUp() {
+        partitions = new SessionPartitions(jdbcTemplate, 3);
+    }
+
+    private void attached(LocalDate... days) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(Arrays.stream(days).map(SessionPartitions::nameOf).toList());
+    }
+
+    @Test
+    void createAhead_ShouldCreateOnlyTheMissingDays() {
+        attached(TODAY, TODAY.plusDays(1));
+
+        List<String> created = partitions.createAhead(TODAY);
+
+        assertEquals(List.of("sessions_p20260112", "sessions_p20260113"), created);
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS sessions_p20260112 PARTITION OF sessions "
+                + "FOR VALUES FROM ('2026-01-12') TO ('2026-01-13')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS sessions_p20260113 PARTITION OF sessions "
+                + "FOR VALUES FROM ('2026-01-13') TO ('2026-01-14')");
+        verify(jdbcTemplate, never()).execute(contains("sessions_p20260110 PARTITION OF"));
+    }
+
+    @Test
+    void dropExpiredBefore_ShouldDetachAndDropWhollyExpiredDaysOnly() {
+        attached(TODAY.minusDays(2), TODAY.minusDays(1), TODAY);
+
+        List<String> dropped = partitions.dropExpiredBefore(TODAY.atStartOfDay().plusMinutes(1));
+
+        assertEquals(List.of("sessions_p20260108", "sessions_p20260109"), dropped);
+        verify(jdbcTemplate).execute("ALTER TABLE sessions DETACH PARTITION sessions_p20260109 CONCURRENTLY");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS sessions_p20260109");
+        verify(jdbcTemplate, never()).execute(contains("sessions_p20260110"));
+    }
+
+    @Test
+    void dropExpiredBefore_WhenConcurrentDetachFails_ShouldFinalizeIt() {
+        attached(TODAY.minusDays(1));
+        doThrow(new DataAccessResourceFailureException("canceling statement"))
+                .when(jdbcTemplate).execute("ALTER TABLE sessions DETACH PARTITION sessions_p20260109 CONCURRENTLY");
+
+        List<String> dropped = partitions.dropExpiredBefore(TODAY.atStartOfDay());
+
+        assertEquals(List.of("sessions_p20260109"), dropped);
+        verify(jdbcTemplate).execute("ALTER TABLE sessions DETACH PARTITION sessions_p20260109 FINALIZE");
+    }
+
+    @Test
+    void dropExpiredBefore_WhenDropFails_ShouldLeaveItForTheNextRun() {
+        attached(TODAY.minusDays(2), TODAY.minusDays(1));
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(jdbcTemplate).execute("DROP TABLE IF EXISTS sessions_p20260108");
+
+        List<String> dropped = partitions.dropExpiredBefore(TODAY.atStartOfDay());
+
+        assertEquals(List.of("sessions_p20260109"), dropped);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void isPartitioned_OnAnotherDatabase_ShouldBeFalseWithoutQueryingTheCatalog() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(false);
+
+        assertFalse(partitions.isPartitioned());
+        assertFalse(partitions.isPartitioned());
+
+        verify(jdbcTemplate, times(1)).execute(any(ConnectionCallback.class));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Boolean.class));
+    }
+
+    @Test
+    void dayOf_ShouldIgnoreTablesThatAreNotDayPartitions() {
+        assertEquals(LocalDate.of(2026, 1, 31), SessionPartitions.dayOf("sessions_p20260131").orElseThrow());
+        assertTrue(SessionPartitions.dayOf("sessions_default").isEmpty());
+        assertTrue(SessionPartitions.dayOf("sessions_p2026").isEmpty());
+    }
+
+    @Test
+    void constructor_WithNoDaysAhead_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionPartitions(jdbcTemplate, 0));
+    }
+}
@@ -0,0 +1,30 @@
+package com.fourcolour.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDigestTest {
+
+    @Test
+    void of_ShouldReturnLowercaseHexSha256() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", TokenDigest.of("abc"));
+    }
+
+    @Test
+    void of_ShouldHaveFixedLengthForAnyToken() {
+        assertEquals(TokenDigest.LENGTH, TokenDigest.of("").length());
+        assertEquals(TokenDigest.LENGTH, TokenDigest.of("a".repeat(5000)).length());
+    }
+
+    @Test
+    void of_ShouldDifferForDifferentTokens() {
+        assertNotEquals(TokenDigest.of("token1"), TokenDigest.of("token2"));
+        assertEquals(TokenDigest.of("token1"), TokenDigest.of("token1"));
+    }
+
+    @Test
+    void of_WithNullToken_ShouldThrow() {
+        assertThrows(NullPointerException.class, () -> TokenDigest.of(null));
+    }
+}
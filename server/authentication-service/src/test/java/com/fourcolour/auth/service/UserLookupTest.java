@@ -0,0 +1,265 @@
+package com.fourcolour.auth.service;
+
+import com.fourcolour.auth.entity.User;
+import com.fourcolour.auth.repository.UserRepository;
+import com.fourcolour.auth.repository.UserRepository.UserEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserLookupTest {
+
+    private static final long TTL_MS = 60_000;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private long nanos;
+    private UserLookup userLookup;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanos = 0;
+        userLookup = lookup(100);
+        when(userRepository.findEmailsAfter(anyInt(), any(Pageable.class))).thenReturn(List.of());
+        when(userRepository.findEmailsCreatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+    }
+
+    private UserLookup lookup(int maxEntries) {
+        return new UserLookup(userRepository, 1000, 0.01, maxEntries, TTL_MS, meterRegistry, () -> nanos);
+    }
+
+    private void advanceMillis(long millis) {
+        nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static User user(int id, String email) {
+        User user = new User(email, "$2a$10$hashedpassword", "User " + id);
+        user.setId(id);
+        return user;
+    }
+
+    private static UserEmail email(int id, String email) {
+        return new UserEmail() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("auth.user.lookup").tag("result", result).counter().count();
+    }
+
+    @Test
+    void findByEmail_BeforeRebuild_ShouldAskTheDatabase() {
+        when(userRepository.findByEmail("a@example.com")).thenReturn(Optional.empty());
+
+        assertTrue(userLookup.findByEmail("a@example.com").isEmpty());
+        assertFalse(userLookup.existsByEmail("a@example.com"));
+
+        verify(userRepository).findByEmail("a@example.com");
+        verify(userRepository).existsByEmail("a@example.com");
+    }
+
+    @Test
+    void rebuild_ShouldLoadEveryEmailInBatchesFollowingTheId() {
+        List<UserEmail> firstBatch = IntStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> email(id, "user" + id + "@example.com"))
+                .toList();
+        when(userRepository.findEmailsAfter(eq(0), any(Pageable.class))).thenReturn(firstBatch);
+        when(userRepository.findEmailsAfter(eq(10_000), any(Pageable.class)))
+                .thenReturn(List.of(email(10_001, "last@example.com")));
+        when(userRepository.existsByEmail(anyString())).thenReturn(true);
+
+        userLookup.rebuild();
+
+        assertTrue(userLookup.existsByEmail("user1@example.com"));
+        assertTrue(userLookup.existsByEmail("user10000@example.com"));
+        assertTrue(userLookup.existsByEmail("last@example.com"));
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(userRepository, times(2)).findEmailsAfter(anyInt(), page.capture());
+        assertEquals(10_000, page.getValue().getPageSize());
+    }
+
+    @Test
+    void findByEmail_WithUnknownEmailAfterRebuild_ShouldNotQueryTheDatabase() {
+        userLookup.rebuild();
+
+        assertTrue(userLookup.findByEmail("nobody@example.com").isEmpty());
+        assertFalse(userLookup.existsByEmail("nobody@example.com"));
+
+        verify(userRepository, never()).findEmailsCreatedSince(any(LocalDateTime.class));
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        assertEquals(2.0, count("filtered"));
+    }
+
+    @Test
+    void findByEmail_WithKnownEmail_ShouldLoadOnceThenServeFromCache() {
+        when(userRepository.findEmailsAfter(eq(0), any(Pageable.class)))
+                .thenReturn(List.of(email(1, "a@example.com")));
+        when(userRepository.findByEmail("a@example.com")).thenReturn(Optional.of(user(1, "a@example.com")));
+        userLookup.rebuild();
+
+        assertEquals(1, userLookup.findByEmail("a@example.com").orElseThrow().getId());
+        assertEquals(1, userLookup.findByEmail("a@example.com").orElseThrow().getId());
+        assertTrue(userLookup.existsByEmail("a@example.com"));
+
+        verify(userRepository, times(1)).findByEmail("a@example.com");
+        verify(userRepository, never()).existsByEmail(anyString());
+        assertEquals(1.0, count("miss"));
+        assertEquals(2.0, count("hit"));
+    }
+
+    @Test
+    void findByEmail_ShouldHandOutCopiesOfCachedUsers() {
+        userLookup.put(user(1, "a@example.com"));
+
+        User first = userLookup.findByEmail("a@example.com").orElseThrow();
+        first.setPasswordHash("changed-by-caller");
+
+        assertEquals("$2a$10$hashedpassword", userLookup.findByEmail("a@example.com").orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void findByEmail_AfterTtl_ShouldReload() {
+        userLookup.put(user(1, "a@example.com"));
+        when(userRepository.findByEmail("a@example.com")).thenReturn(Optional.of(user(1, "a@example.com")));
+
+        advanceMillis(TTL_MS);
+        userLookup.findByEmail("a@example.com");
+
+        verify(userRepository).findByEmail("a@example.com");
+    }
+
+    @Test
+    void put_ShouldAddNewUserToFilter() {
+        userLookup = lookup(0);
+        userLookup.rebuild();
+        when(userRepository.existsByEmail("new@example.com")).thenReturn(true);
+
+        userLookup.put(user(1, "new@example.com"));
+
+        assertTrue(userLookup.existsByEmail("new@example.com"));
+        verify(userRepository).existsByEmail("new@example.com");
+    }
+
+    @Test
+    void findByEmail_WithUserRegisteredOnAnotherReplica_ShouldFindThemAfterCatchUp() {
+        userLookup.rebuild();
+        when(userRepository.findEmailsCreatedSince(any(LocalDateTime.class)))
+                .thenReturn(List.of("elsewhere@example.com"));
+        when(userRepository.findByEmail("elsewhere@example.com"))
+                .thenReturn(Optional.of(user(2, "elsewhere@example.com")));
+
+        assertTrue(userLookup.findByEmail("elsewhere@example.com").isEmpty());
+        userLookup.catchUp();
+
+        assertTrue(userLookup.findByEmail("elsewhere@example.com").isPresent());
+    }
+
+    @Test
+    void findByEmail_WithManyUnknownEmails_ShouldNeverCatchUpItself() {
+        userLookup.rebuild();
+
+        for (int i = 0; i < 1_000; i++) {
+            advanceMillis(1);
+            assertTrue(userLookup.findByEmail("nobody" + i + "@example.com").isEmpty());
+        }
+
+        verify(userRepository, never()).findEmailsCreatedSince(any(LocalDateTime.class));
+        verify(userRepository, never()).findByEmail(anyString());
+        assertEquals(1_000.0, count("filtered"));
+    }
+
+    @Test
+    void catchUp_BeforeRebuild_ShouldDoNothing() {
+        userLookup.catchUp();
+
+        verify(userRepository, never()).findEmailsCreatedSince(any(LocalDateTime.class));
+    }
+
+    @Test
+    void catchUp_ShouldReadBackPastThePreviousOne() {
+        LocalDateTime beforeRebuild = LocalDateTime.now();
+        userLookup.rebuild();
+
+        userLookup.catchUp();
+        LocalDateTime beforeCatchUp = LocalDateTime.now();
+        userLookup.catchUp();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository, times(2)).findEmailsCreatedSince(since.capture());
+        assertFalse(since.getAllValues().get(0).isBefore(beforeRebuild.minus(UserLookup.CATCH_UP_OVERLAP)));
+        assertFalse(since.getAllValues().get(0).isAfter(beforeCatchUp.minus(UserLookup.CATCH_UP_OVERLAP)));
+        assertFalse(since.getAllValues().get(1).isBefore(since.getAllValues().get(0)));
+        assertFalse(since.getAllValues().get(1).isAfter(beforeCatchUp.minus(UserLookup.CATCH_UP_OVERLAP)));
+    }
+
+    @Test
+    void catchUp_WhenDatabaseFails_ShouldReadFromTheSamePointNextTime() {
+        userLookup.rebuild();
+        when(userRepository.findEmailsCreatedSince(any(LocalDateTime.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(List.of("late@example.com"));
+
+        assertDoesNotThrow(() -> userLookup.catchUp());
+        userLookup.catchUp();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository, times(2)).findEmailsCreatedSince(since.capture());
+        assertEquals(since.getAllValues().get(0), since.getAllValues().get(1));
+        when(userRepository.existsByEmail("late@example.com")).thenReturn(true);
+        assertTrue(userLookup.existsByEmail("late@example.com"));
+    }
+
+    @Test
+    void cache_ShouldEvictLeastRecentlyUsedBeyondMaxEntries() {
+        userLookup = lookup(2);
+
+        userLookup.put(user(1, "a@example.com"));
+        userLookup.put(user(2, "b@example.com"));
+        userLookup.findByEmail("a@example.com");
+        userLookup.put(user(3, "c@example.com"));
+
+        assertEquals(2, userLookup.size());
+        userLookup.findByEmail("b@example.com");
+        verify(userRepository).findByEmail("b@example.com");
+        verify(userRepository, never()).findByEmail("a@example.com");
+    }
+
+    @Test
+    void constructor_WithInvalidFalsePositiveRate_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new UserLookup(userRepository, 1000, 1.5, 100, 60_000, meterRegistry));
+    }
+}
@@ -0,0 +1,11 @@
+package com.fourcolour.coloring;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication(scanBasePackages = {"com.fourcolour.coloring", "com.fourcolour.common"})
+public class ColoringServiceApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(ColoringServiceApplication.class, args);
+    }
+}
@@ -0,0 +1,253 @@
+package com.fourcolour.coloring.buffer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recycles the scratch arrays a solve needs only while it runs: mask words, union-find
+ * parents, run tables, edge lists and search state. Arrays are kept in power-of-two size
+ * classes, so a buffer freed by one solve serves any later request of up to its length.
+ * <p>
+ * Each thread keeps the last few buffers it freed of every class, up to a sixty-fourth of
+ * {@code maxRetainedBytes}, and takes from those first without locking. What does not fit
+ * there goes to classes shared by every thread, since a solve often takes buffers on one
+ * thread (a strip task) and frees them on another. Virtual threads come and go too often to
+ * keep buffers of their own and use the shared classes only.
+ * <p>
+ * Buffers come back with whatever the previous user left in them; callers clear what they
+ * read before writing. Arrays that escape a solve, such as the label image or the colours,
+ * must not be given back. At most {@code maxRetainedBytes} are kept in the shared classes;
+ * beyond that freed buffers are left to the garbage collector.
+ */
+public final class BufferPool {
+
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 256L << 20;
+
+    // The smallest class; shorter requests are rounded up to it rather than each given a class
+    static final int MIN_CLASS = 6;
+    private static final int CLASS_COUNT = 31;
+    // Buffers of each class a thread keeps for itself
+    static final int LOCAL_DEPTH = 4;
+
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+    private final long maxRetainedBytes;
+    private final long maxLocalBytes;
+    private final ArrayDeque<int[]>[] ints;
+    private final ArrayDeque<long[]>[] longs;
+    private final ThreadLocal<LocalBuffers> local = ThreadLocal.withInitial(LocalBuffers::new);
+    private long retainedBytes;
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.maxLocalBytes = maxRetainedBytes / 64;
+        this.ints = new ArrayDeque[CLASS_COUNT];
+        this.longs = new ArrayDeque[CLASS_COUNT];
+        for (int c = 0; c < CLASS_COUNT; c++) {
+            ints[c] = new ArrayDeque<>();
+            longs[c] = new ArrayDeque<>();
+        }
+    }
+
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * An array of at least {@code minLength} ints with unspecified contents.
+     */
+    public int[] takeInts(int minLength) {
+        int sizeClass = sizeClass(minLength);
+        LocalBuffers own = localBuffers();
+        if (own != null) {
+            int[] buffer = own.takeInts(sizeClass);
+            if (buffer != null) {
+                reused.increment();
+                return buffer;
+            }
+        }
+        synchronized (this) {
+            int[] buffer = ints[sizeClass].pollFirst();
+            if (buffer != null) {
+                retainedBytes -= 4L * buffer.length;
+                reused.increment();
+                return buffer;
+            }
+        }
+        allocated.increment();
+        return new int[1 << sizeClass];
+    }
+
+    /**
+     * An array of at least {@code minLength} ints, all zero.
+     */
+    public int[] takeZeroedInts(int minLength) {
+        int[] buffer = takeInts(minLength);
+        Arrays.fill(buffer, 0, minLength, 0);
+        return buffer;
+    }
+
+    /**
+     * An array of at least {@code minLength} longs with unspecified contents.
+     */
+    public long[] takeLongs(int minLength) {
+        int sizeClass = sizeClass(minLength);
+        LocalBuffers own = localBuffers();
+        if (own != null) {
+            long[] buffer = own.takeLongs(sizeClass);
+            if (buffer != null) {
+                reused.increment();
+                return buffer;
+            }
+        }
+        synchronized (this) {
+            long[] buffer = longs[sizeClass].pollFirst();
+            if (buffer != null) {
+                retainedBytes -= 8L * buffer.length;
+                reused.increment();
+                return buffer;
+            }
+        }
+        allocated.increment();
+        return new long[1 << sizeClass];
+    }
+
+    /**
+     * Hand back a buffer taken from this pool, or grown from one by doubling. Other arrays
+     * and {@code null} are ignored. The caller must not touch the buffer afterwards.
+     */
+    public void give(int[] buffer) {
+        if (buffer == null || !isClassSize(buffer.length)) {
+            return;
+        }
+        LocalBuffers own = localBuffers();
+        if (own != null && own.give(buffer)) {
+            return;
+        }
+        synchronized (this) {
+            if (retainedBytes + 4L * buffer.length <= maxRetainedBytes) {
+                ints[Integer.numberOfTrailingZeros(buffer.length)].addFirst(buffer);
+                retainedBytes += 4L * buffer.length;
+            }
+        }
+    }
+
+    public void give(long[] buffer) {
+        if (buffer == null || !isClassSize(buffer.length)) {
+            return;
+        }
+        LocalBuffers own = localBuffers();
+        if (own != null && own.give(buffer)) {
+            return;
+        }
+        synchronized (this) {
+            if (retainedBytes + 8L * buffer.length <= maxRetainedBytes) {
+                longs[Integer.numberOfTrailingZeros(buffer.length)].addFirst(buffer);
+                retainedBytes += 8L * buffer.length;
+            }
+        }
+    }
+
+    /**
+     * Bytes held in the shared classes, not counting what threads keep for themselves.
+     */
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Requests served from a freed buffer.
+     */
+    public long getReused() {
+        return reused.sum();
+    }
+
+    /**
+     * Requests that had to allocate a new buffer.
+     */
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    private LocalBuffers localBuffers() {
+        return maxLocalBytes <= 0 || Thread.currentThread().isVirtual() ? null : local.get();
+    }
+
+    static int sizeClass(int minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Buffer length must not be negative");
+        }
+        if (minLength > 1 << (CLASS_COUNT - 1)) {
+            throw new IllegalArgumentException("Buffer length " + minLength + " is too large to pool");
+        }
+        int sizeClass = 32 - Integer.numberOfLeadingZeros(Math.max(0, minLength - 1));
+        return Math.max(MIN_CLASS, sizeClass);
+    }
+
+    private static boolean isClassSize(int length) {
+        return length >= 1 << MIN_CLASS && Integer.bitCount(length) == 1;
+    }
+
+    /**
+     * One thread's own buffers, a short stack per class. Only its thread touches it.
+     */
+    private final class LocalBuffers {
+        private final int[][][] ints = new int[CLASS_COUNT][LOCAL_DEPTH][];
+        private final long[][][] longs = new long[CLASS_COUNT][LOCAL_DEPTH][];
+        private final int[] intCounts = new int[CLASS_COUNT];
+        private final int[] longCounts = new int[CLASS_COUNT];
+        private long bytes;
+
+        int[] takeInts(int sizeClass) {
+            int count = intCounts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            int[] buffer = ints[sizeClass][--count];
+            ints[sizeClass][count] = null;
+            intCounts[sizeClass] = count;
+            bytes -= 4L * buffer.length;
+            return buffer;
+        }
+
+        long[] takeLongs(int sizeClass) {
+            int count = longCounts[sizeClass];
+            if (count == 0) {
+                return null;
+            }
+            long[] buffer = longs[sizeClass][--count];
+            longs[sizeClass][count] = null;
+            longCounts[sizeClass] = count;
+            bytes -= 8L * buffer.length;
+            return buffer;
+        }
+
+        boolean give(int[] buffer) {
+            int sizeClass = Integer.numberOfTrailingZeros(buffer.length);
+            int count = intCounts[sizeClass];
+            if (count == LOCAL_DEPTH || bytes + 4L * buffer.length > maxLocalBytes) {
+                return false;
+            }
+            ints[sizeClass][count] = buffer;
+            intCounts[sizeClass] = count + 1;
+            bytes += 4L * buffer.length;
+            return true;
+        }
+
+        boolean give(long[] buffer) {
+            int sizeClass = Integer.numberOfTrailingZeros(buffer.length);
+            int count = longCounts[sizeClass];
+            if (count == LOCAL_DEPTH || bytes + 8L * buffer.length > maxLocalBytes) {
+                return false;
+            }
+            longs[sizeClass][count] = buffer;
+            longCounts[sizeClass] = count + 1;
+            bytes += 8L * buffer.length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.fourcolour.coloring.config;
+
+import com.fourcolour.coloring.service.SolveScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SolveSchedulerConfig {
+
+    // 0 means one worker per available core
+    @Value("${coloring.scheduler.workers:0}")
+    private int workers;
+
+    @Value("${coloring.scheduler.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${coloring.scheduler.max-queue-wait-ms:10000}")
+    private long maxQueueWaitMillis;
+
+    @Value("${coloring.scheduler.interactive-max-cost:50000000}")
+    private long interactiveMaxCost;
+
+    @Value("${coloring.scheduler.standard-max-cost:2000000000}")
+    private long standardMaxCost;
+
+    @Bean(destroyMethod = "shutdown")
+    public SolveScheduler solveScheduler(MeterRegistry meterRegistry) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new SolveScheduler(workerCount, queueCapacity, maxQueueWaitMillis,
+                interactiveMaxCost, standardMaxCost, meterRegistry);
+    }
+}
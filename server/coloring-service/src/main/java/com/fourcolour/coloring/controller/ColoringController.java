@@ -0,0 +1,159 @@
+package com.fourcolour.coloring.controller;
+
+import com.fourcolour.coloring.dto.IncrementalSolveRequest;
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.coloring.service.ColoringService;
+import com.fourcolour.coloring.service.MapSolution;
+import com.fourcolour.coloring.service.SolveRejectedException;
+import com.fourcolour.common.dto.ColoringFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+public class ColoringController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColoringController.class);
+
+    public static final String SOLVE_PATH_HEADER = "X-Solve-Path";
+    public static final String SOLVE_ID_HEADER = "X-Solve-Id";
+    public static final String SOLVE_BUDGET_HEADER = "X-Solve-Budget-Ms";
+    public static final String SOLVE_COMPLETE_HEADER = "X-Solve-Complete";
+    public static final String SOLVE_CONFLICTS_HEADER = "X-Solve-Conflicts";
+    public static final String SOLVE_REQUEST_ID_HEADER = "X-Solve-Request-Id";
+
+    @Autowired
+    private ColoringService coloringService;
+
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, String>> health() {
+        return ResponseEntity.ok(Map.of("status", "healthy"));
+    }
+
+    @PostMapping("/api/solve")
+    public ResponseEntity<?> solve(@RequestBody(required = false) SolveRequest request,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                   @RequestHeader(value = SOLVE_BUDGET_HEADER, required = false) Long budgetMillis,
+                                   @RequestHeader(value = SOLVE_REQUEST_ID_HEADER, required = false) String requestId) {
+        if (request == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "No JSON data received"));
+        }
+
+        return solved(() -> coloringService.solve(request, budgetMillis, requestId), accept);
+    }
+
+    /**
+     * Cancel a solve started with an {@code X-Solve-Request-Id}, for callers whose client has
+     * disconnected. The cancelled request itself is answered with a 503.
+     */
+    @DeleteMapping("/api/solve/requests/{requestId}")
+    public ResponseEntity<?> cancelSolve(@PathVariable String requestId) {
+        if (!coloringService.cancel(requestId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Solve request not found"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Solve a canvas sent as raw RGBA bytes, four per pixel in row-major order. Meant for
+     * large maps: the body is spooled to disk rather than parsed into a JSON array.
+     */
+    @PostMapping(value = "/api/solve/raw", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> solveRaw(InputStream body,
+                                      @RequestParam int width,
+                                      @RequestParam int height,
+                                      @RequestParam(required = false) String userId,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                      @RequestHeader(value = SOLVE_BUDGET_HEADER, required = false) Long budgetMillis) {
+        return solved(() -> coloringService.solveRaw(body, width, height, userId, budgetMillis), accept);
+    }
+
+    private ResponseEntity<?> solved(Supplier<MapSolution> solve, String accept) {
+        try {
+            return render(solve.get(), accept);
+        } catch (SolveRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        } catch (SolveCancelledException e) {
+            // Nobody is waiting for this answer any more
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error processing request: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to color map"));
+        }
+    }
+
+    @PostMapping("/api/solve/incremental")
+    public ResponseEntity<?> solveIncremental(@RequestBody(required = false) IncrementalSolveRequest request,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestHeader(value = SOLVE_BUDGET_HEADER, required = false) Long budgetMillis) {
+        if (request == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "No JSON data received"));
+        }
+
+        try {
+            MapSolution solution = coloringService.solveIncremental(request, budgetMillis);
+            if (solution == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Previous solve not found"));
+            }
+            return render(solution, accept);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error processing incremental request: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to color map"));
+        }
+    }
+
+    private ResponseEntity<?> render(MapSolution solution, String accept) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(SOLVE_PATH_HEADER, solution.getResult().getPath().name())
+                .header(SOLVE_COMPLETE_HEADER, String.valueOf(solution.getResult().isComplete()))
+                .header(SOLVE_CONFLICTS_HEADER, String.valueOf(solution.getResult().getConflicts()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (solution.getSolveId() != null) {
+            response.header(SOLVE_ID_HEADER, solution.getSolveId());
+        }
+
+        ColoringFormat format = ColoringFormat.negotiate(accept);
+        switch (format) {
+            case RUN_LENGTH:
+                return response.contentType(MediaType.parseMediaType(format.getMediaType()))
+                        .body(solution.toRunLengthMatrix());
+            case REGIONS:
+                return response.contentType(MediaType.parseMediaType(format.getMediaType()))
+                        .body(solution.toRegionColoring());
+            default:
+                return response.body(solution.toRgbMatrix());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.fourcolour.coloring.dto;
+
+/**
+ * Body of {@code POST /api/solve/incremental}: a reference to an earlier solve, as returned in
+ * its {@code X-Solve-Id} header, and the pixels the user changed since, as flat
+ * {@code [x, y, red]} triples.
+ */
+public class IncrementalSolveRequest {
+    private String previousSolveId;
+    private int[] pixels;
+    private String userId;
+
+    public IncrementalSolveRequest() {}
+
+    public IncrementalSolveRequest(String previousSolveId, int[] pixels, String userId) {
+        this.previousSolveId = previousSolveId;
+        this.pixels = pixels;
+        this.userId = userId;
+    }
+
+    public String getPreviousSolveId() {
+        return previousSolveId;
+    }
+
+    public void setPreviousSolveId(String previousSolveId) {
+        this.previousSolveId = previousSolveId;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public void setPixels(int[] pixels) {
+        this.pixels = pixels;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+}
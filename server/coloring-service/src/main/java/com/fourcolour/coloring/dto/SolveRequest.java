@@ -0,0 +1,53 @@
+package com.fourcolour.coloring.dto;
+
+/**
+ * Body of {@code POST /api/solve} as sent by the API gateway: the canvas as a flat RGBA
+ * array plus its dimensions.
+ */
+public class SolveRequest {
+    private int[] image;
+    private Integer width;
+    private Integer height;
+    private String userId;
+
+    public SolveRequest() {}
+
+    public SolveRequest(int[] image, Integer width, Integer height, String userId) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+        this.userId = userId;
+    }
+
+    public int[] getImage() {
+        return image;
+    }
+
+    public void setImage(int[] image) {
+        this.image = image;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,222 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.Arrays;
+
+/**
+ * Exhaustive backtracking search with forward checking, MRV variable ordering (ties broken
+ * by degree) and least-constraining-value ordering. Domains are four-bit colour masks.
+ * <p>
+ * The search keeps its own explicit stack instead of recursing, so maps with thousands of
+ * regions cannot overflow the request thread's stack. Its per-vertex state is drawn from the
+ * {@link BufferPool}.
+ * <p>
+ * A search given a {@link Deadline} checks it every {@value #DEADLINE_CHECK_INTERVAL} steps
+ * and, once it has passed, gives up with the deepest partial assignment it reached. A cancelled
+ * deadline stops it at the same check with a {@link SolveCancelledException}.
+ */
+public class BacktrackingSolver {
+
+    static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    /**
+     * @return a proper four-colouring, or {@code null} if none exists
+     */
+    public int[] solve(RegionGraph graph) {
+        return search(graph, Deadline.NONE).getColors();
+    }
+
+    public SearchResult search(RegionGraph graph, Deadline deadline) {
+        int vertexCount = graph.vertexCount();
+        int[] colors = new int[vertexCount];
+        Arrays.fill(colors, MapColor.UNASSIGNED);
+        if (vertexCount == 0) {
+            return new SearchResult(colors, false, colors);
+        }
+
+        BufferPool buffers = BufferPool.shared();
+        int[] domains = buffers.takeInts(vertexCount);
+        Arrays.fill(domains, 0, vertexCount, MapColor.ALL_COLORS_MASK);
+
+        // Per-depth search state
+        int[] vertexAt = buffers.takeInts(vertexCount);
+        int[] domainAt = buffers.takeInts(vertexCount);
+        int[] triedAt = buffers.takeZeroedInts(vertexCount);
+        int[] trailStartAt = buffers.takeInts(vertexCount);
+        // Vertices whose domain lost the colour assigned at some depth, in assignment order
+        int[] trail = buffers.takeInts(2 * graph.edgeCount());
+        try {
+            return backtrack(graph, deadline, colors, domains, vertexAt, domainAt, triedAt, trailStartAt, trail);
+        } finally {
+            buffers.give(domains);
+            buffers.give(vertexAt);
+            buffers.give(domainAt);
+            buffers.give(triedAt);
+            buffers.give(trailStartAt);
+            buffers.give(trail);
+        }
+    }
+
+    private static SearchResult backtrack(RegionGraph graph, Deadline deadline, int[] colors, int[] domains,
+                                          int[] vertexAt, int[] domainAt, int[] triedAt, int[] trailStartAt,
+                                          int[] trail) {
+        int vertexCount = graph.vertexCount();
+        int trailTop = 0;
+
+        int depth = 0;
+        vertexAt[0] = selectUnassigned(graph, colors, domains);
+        domainAt[0] = domains[vertexAt[0]];
+        int[] deepest = colors.clone();
+        int deepestDepth = 0;
+        long steps = 0;
+
+        while (true) {
+            if (deadline.isPolled() && steps++ % DEADLINE_CHECK_INTERVAL == 0) {
+                deadline.checkCancelled();
+                if (deadline.isExpired()) {
+                    return new SearchResult(null, true, deepest);
+                }
+            }
+            int vertex = vertexAt[depth];
+            int candidates = domainAt[depth] & ~triedAt[depth];
+
+            if (candidates == 0) {
+                triedAt[depth] = 0;
+                if (depth == 0) {
+                    return new SearchResult(null, false, deepest);
+                }
+                depth--;
+                trailTop = unassign(colors, domains, vertexAt[depth], domainAt[depth],
+                        trail, trailTop, trailStartAt[depth]);
+                continue;
+            }
+
+            int color = leastConstrainingColor(graph, colors, domains, vertex, candidates);
+            int bit = 1 << color;
+            triedAt[depth] |= bit;
+            colors[vertex] = color;
+            domains[vertex] = bit;
+            trailStartAt[depth] = trailTop;
+
+            boolean wipeout = false;
+            for (int neighbour : graph.neighbours(vertex)) {
+                if (colors[neighbour] == MapColor.UNASSIGNED && (domains[neighbour] & bit) != 0) {
+                    domains[neighbour] &= ~bit;
+                    trail[trailTop++] = neighbour;
+                    if (domains[neighbour] == 0) {
+                        wipeout = true;
+                        break;
+                    }
+                }
+            }
+
+            if (wipeout) {
+                trailTop = unassign(colors, domains, vertex, domainAt[depth], trail, trailTop, trailStartAt[depth]);
+                continue;
+            }
+            if (depth + 1 == vertexCount) {
+                return new SearchResult(colors, false, colors);
+            }
+            if (deadline.isBounded() && depth + 1 > deepestDepth) {
+                // Only a bounded search can stop early, so only it pays for the snapshot
+                deepestDepth = depth + 1;
+                System.arraycopy(colors, 0, deepest, 0, vertexCount);
+            }
+
+            depth++;
+            vertexAt[depth] = selectUnassigned(graph, colors, domains);
+            domainAt[depth] = domains[vertexAt[depth]];
+            triedAt[depth] = 0;
+        }
+    }
+
+    private static int unassign(int[] colors, int[] domains, int vertex, int domain,
+                                int[] trail, int trailTop, int trailStart) {
+        int bit = 1 << colors[vertex];
+        while (trailTop > trailStart) {
+            domains[trail[--trailTop]] |= bit;
+        }
+        colors[vertex] = MapColor.UNASSIGNED;
+        domains[vertex] = domain;
+        return trailTop;
+    }
+
+    private static int selectUnassigned(RegionGraph graph, int[] colors, int[] domains) {
+        int best = -1;
+        int bestSize = Integer.MAX_VALUE;
+        int bestDegree = -1;
+        for (int v = 0; v < colors.length; v++) {
+            if (colors[v] != MapColor.UNASSIGNED) {
+                continue;
+            }
+            int size = Integer.bitCount(domains[v]);
+            int degree = graph.degree(v);
+            if (size < bestSize || (size == bestSize && degree > bestDegree)) {
+                best = v;
+                bestSize = size;
+                bestDegree = degree;
+            }
+        }
+        return best;
+    }
+
+    private static int leastConstrainingColor(RegionGraph graph, int[] colors, int[] domains,
+                                              int vertex, int candidates) {
+        int bestColor = -1;
+        int bestConflicts = Integer.MAX_VALUE;
+        for (int remaining = candidates; remaining != 0; remaining &= remaining - 1) {
+            int color = Integer.numberOfTrailingZeros(remaining);
+            int bit = 1 << color;
+            int conflicts = 0;
+            for (int neighbour : graph.neighbours(vertex)) {
+                if (colors[neighbour] == MapColor.UNASSIGNED && (domains[neighbour] & bit) != 0) {
+                    conflicts++;
+                }
+            }
+            if (conflicts < bestConflicts) {
+                bestColor = color;
+                bestConflicts = conflicts;
+            }
+        }
+        return bestColor;
+    }
+
+    /**
+     * Outcome of a {@link #search}: a proper colouring, or the reason there is none and the
+     * deepest partial assignment reached before giving up.
+     */
+    public static final class SearchResult {
+        private final int[] colors;
+        private final boolean timedOut;
+        private final int[] deepestPartial;
+
+        SearchResult(int[] colors, boolean timedOut, int[] deepestPartial) {
+            this.colors = colors;
+            this.timedOut = timedOut;
+            this.deepestPartial = deepestPartial;
+        }
+
+        /**
+         * A proper four-colouring, or {@code null} if none was found.
+         */
+        public int[] getColors() {
+            return colors;
+        }
+
+        /**
+         * Whether the search stopped at its deadline rather than proving there is no colouring.
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * The deepest conflict-free partial assignment reached, {@link MapColor#UNASSIGNED}
+         * elsewhere. Only tracked for searches with a deadline.
+         */
+        public int[] getDeepestPartial() {
+            return deepestPartial;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.fourcolour.coloring.engine;
+
+import java.util.List;
+
+/**
+ * Outcome of a single engine solve.
+ */
+public final class ColoringResult {
+
+    private final int[] colors;
+    private final SolvePath path;
+    private final int greedyUncolored;
+    private final int conflicts;
+    private final long elapsedNanos;
+    private final int coreSize;
+    private final List<ComponentStats> components;
+    private final boolean complete;
+
+    public ColoringResult(int[] colors, SolvePath path, int greedyUncolored, int conflicts, long elapsedNanos) {
+        this(colors, path, greedyUncolored, conflicts, elapsedNanos, colors.length);
+    }
+
+    public ColoringResult(int[] colors, SolvePath path, int greedyUncolored, int conflicts, long elapsedNanos,
+                          int coreSize) {
+        this(colors, path, greedyUncolored, conflicts, elapsedNanos, coreSize, true);
+    }
+
+    public ColoringResult(int[] colors, SolvePath path, int greedyUncolored, int conflicts, long elapsedNanos,
+                          int coreSize, boolean complete) {
+        this(colors, path, greedyUncolored, conflicts, elapsedNanos, coreSize,
+                colors.length == 0 ? List.of() : List.of(new ComponentStats(colors.length, coreSize, path, elapsedNanos)),
+                complete);
+    }
+
+    public ColoringResult(int[] colors, SolvePath path, int greedyUncolored, int conflicts, long elapsedNanos,
+                          int coreSize, List<ComponentStats> components) {
+        this(colors, path, greedyUncolored, conflicts, elapsedNanos, coreSize, components, true);
+    }
+
+    public ColoringResult(int[] colors, SolvePath path, int greedyUncolored, int conflicts, long elapsedNanos,
+                          int coreSize, List<ComponentStats> components, boolean complete) {
+        this.colors = colors;
+        this.path = path;
+        this.greedyUncolored = greedyUncolored;
+        this.conflicts = conflicts;
+        this.elapsedNanos = elapsedNanos;
+        this.coreSize = coreSize;
+        this.components = components;
+        this.complete = complete;
+    }
+
+    /**
+     * Colour ordinal per region, see {@link MapColor}.
+     */
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * The most expensive stage any component needed.
+     */
+    public SolvePath getPath() {
+        return path;
+    }
+
+    /**
+     * Number of regions the greedy pass could not colour before repair.
+     */
+    public int getGreedyUncolored() {
+        return greedyUncolored;
+    }
+
+    /**
+     * Number of adjacent region pairs sharing a colour in the returned colouring.
+     */
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Whether the engine ran every stage it needed. {@code false} means the deadline cut the
+     * search short and the colouring is the best found by then, with {@link #getConflicts()}
+     * conflicts.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Number of regions in the graph that was coloured.
+     */
+    public int getRegionCount() {
+        return colors.length;
+    }
+
+    /**
+     * Number of regions left for the search after low-degree peeling.
+     */
+    public int getCoreSize() {
+        return coreSize;
+    }
+
+    public int getComponentCount() {
+        return components.size();
+    }
+
+    /**
+     * Size, path and timing of each connected component, in component order.
+     */
+    public List<ComponentStats> getComponents() {
+        return components;
+    }
+}
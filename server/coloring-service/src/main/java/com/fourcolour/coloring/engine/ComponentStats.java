@@ -0,0 +1,35 @@
+package com.fourcolour.coloring.engine;
+
+/**
+ * Per-component breakdown of a solve over a disconnected region graph.
+ */
+public final class ComponentStats {
+
+    private final int regionCount;
+    private final int coreSize;
+    private final SolvePath path;
+    private final long elapsedNanos;
+
+    public ComponentStats(int regionCount, int coreSize, SolvePath path, long elapsedNanos) {
+        this.regionCount = regionCount;
+        this.coreSize = coreSize;
+        this.path = path;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getCoreSize() {
+        return coreSize;
+    }
+
+    public SolvePath getPath() {
+        return path;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
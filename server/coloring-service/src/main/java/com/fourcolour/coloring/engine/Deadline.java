@@ -0,0 +1,68 @@
+package com.fourcolour.coloring.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Point in time after which a solve should stop searching and return what it has. Based on
+ * {@link System#nanoTime()}, so it is only meaningful within this JVM.
+ * <p>
+ * A deadline may also carry a cancellation check for solves whose caller has gone away.
+ * Unlike expiry, cancellation abandons the solve outright: {@link #checkCancelled()} throws
+ * rather than letting the engine assemble a result nobody will read.
+ */
+public final class Deadline {
+
+    /** Never expires. */
+    public static final Deadline NONE = new Deadline(0L, false, null);
+
+    private final long expiresAtNanos;
+    private final boolean bounded;
+    private final BooleanSupplier cancelled;
+
+    private Deadline(long expiresAtNanos, boolean bounded, BooleanSupplier cancelled) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+        this.cancelled = cancelled;
+    }
+
+    public static Deadline after(long amount, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(amount), true, null);
+    }
+
+    /**
+     * The same deadline, also cancelled once {@code cancelled} returns true. The check is
+     * polled from solving threads, so it must be cheap and thread-safe.
+     */
+    public Deadline cancelledWhen(BooleanSupplier cancelled) {
+        return new Deadline(expiresAtNanos, bounded, cancelled);
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Whether long-running loops need to poll this deadline at all.
+     */
+    public boolean isPolled() {
+        return bounded || cancelled != null;
+    }
+
+    public boolean isCancelled() {
+        return cancelled != null && cancelled.getAsBoolean();
+    }
+
+    /**
+     * @throws SolveCancelledException if the solve has been cancelled
+     */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new SolveCancelledException();
+        }
+    }
+}
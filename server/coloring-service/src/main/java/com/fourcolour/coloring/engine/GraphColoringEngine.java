@@ -0,0 +1,222 @@
+package com.fourcolour.coloring.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Colours a region graph in escalating stages: a greedy pass, Kempe-chain repair of the
+ * regions it could not colour, and finally exhaustive backtracking search. Most political
+ * maps finish in the first two stages; the returned {@link ColoringResult} records which
+ * stage produced the answer.
+ * <p>
+ * The stages only ever see the core left by {@link LowDegreeReduction}; peeled regions are
+ * coloured afterwards. Disconnected maps (islands, separated areas) are split into connected
+ * components that are solved independently on a fork-join pool and merged at the end.
+ * <p>
+ * Only backtracking can run away on a pathological map, so it alone honours the
+ * {@link Deadline}. When the deadline stops it, the result is marked incomplete and carries
+ * whichever of the repaired greedy colouring and the deepest search state, each completed
+ * with fewest conflicts, has fewer conflicts. A cancelled deadline is checked before every
+ * component as well as during the search, and abandons the whole solve with a
+ * {@link SolveCancelledException}.
+ */
+public class GraphColoringEngine {
+
+    /**
+     * Components smaller than this are solved inline; forking them costs more than solving.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private final GreedyColoring greedyColoring;
+    private final KempeChainRepair kempeChainRepair;
+    private final BacktrackingSolver backtrackingSolver;
+    private final LowDegreeReduction lowDegreeReduction;
+    private final ForkJoinPool pool;
+
+    public GraphColoringEngine() {
+        this(new GreedyColoring(), new KempeChainRepair(), new BacktrackingSolver());
+    }
+
+    public GraphColoringEngine(GreedyColoring greedyColoring, KempeChainRepair kempeChainRepair,
+                               BacktrackingSolver backtrackingSolver) {
+        this(greedyColoring, kempeChainRepair, backtrackingSolver, new LowDegreeReduction(), ForkJoinPool.commonPool());
+    }
+
+    public GraphColoringEngine(GreedyColoring greedyColoring, KempeChainRepair kempeChainRepair,
+                               BacktrackingSolver backtrackingSolver, LowDegreeReduction lowDegreeReduction,
+                               ForkJoinPool pool) {
+        this.greedyColoring = greedyColoring;
+        this.kempeChainRepair = kempeChainRepair;
+        this.backtrackingSolver = backtrackingSolver;
+        this.lowDegreeReduction = lowDegreeReduction;
+        this.pool = pool;
+    }
+
+    public ColoringResult solve(RegionGraph graph) {
+        return solve(graph, Deadline.NONE);
+    }
+
+    public ColoringResult solve(RegionGraph graph, Deadline deadline) {
+        return solve(graph, deadline, colored -> {});
+    }
+
+    /**
+     * @param progress told the running number of coloured regions as components finish, one
+     *                 call at a time; a connected map reports once, when it is done
+     */
+    public ColoringResult solve(RegionGraph graph, Deadline deadline, IntConsumer progress) {
+        long start = System.nanoTime();
+
+        int[][] components = graph.connectedComponents();
+        if (components.length <= 1) {
+            ColoringResult result = solveConnected(graph, deadline);
+            progress.accept(graph.vertexCount());
+            return result;
+        }
+
+        ColoringResult[] results = pool.invoke(ForkJoinTask.adapt(
+                () -> solveComponents(graph, components, deadline, progress)));
+
+        int[] colors = new int[graph.vertexCount()];
+        SolvePath path = SolvePath.GREEDY;
+        int uncolored = 0;
+        int conflicts = 0;
+        int coreSize = 0;
+        boolean complete = true;
+        List<ComponentStats> stats = new ArrayList<>(components.length);
+        for (int c = 0; c < components.length; c++) {
+            ColoringResult result = results[c];
+            int[] componentColors = result.getColors();
+            for (int i = 0; i < componentColors.length; i++) {
+                colors[components[c][i]] = componentColors[i];
+            }
+            if (result.getPath().compareTo(path) > 0) {
+                path = result.getPath();
+            }
+            uncolored += result.getGreedyUncolored();
+            conflicts += result.getConflicts();
+            coreSize += result.getCoreSize();
+            complete &= result.isComplete();
+            stats.addAll(result.getComponents());
+        }
+
+        return new ColoringResult(colors, path, uncolored, conflicts, System.nanoTime() - start, coreSize, stats,
+                complete);
+    }
+
+    private ColoringResult[] solveComponents(RegionGraph graph, int[][] components, Deadline deadline,
+                                            IntConsumer progress) {
+        ColoringResult[] results = new ColoringResult[components.length];
+        List<ForkJoinTask<ColoringResult>> forked = new ArrayList<>();
+        List<Integer> forkedIndices = new ArrayList<>();
+
+        int colored = 0;
+        for (int c = 0; c < components.length; c++) {
+            RegionGraph component = graph.subgraph(components[c]);
+            if (components[c].length >= PARALLEL_THRESHOLD) {
+                forked.add(ForkJoinTask.adapt(() -> solveConnected(component, deadline)).fork());
+                forkedIndices.add(c);
+            } else {
+                results[c] = solveConnected(component, deadline);
+                colored += components[c].length;
+            }
+        }
+        // Reported from this thread only, so listeners need not be thread-safe
+        if (colored > 0) {
+            progress.accept(colored);
+        }
+        for (int i = 0; i < forked.size(); i++) {
+            // Forked components check for themselves; this stops waiting on them
+            deadline.checkCancelled();
+            int c = forkedIndices.get(i);
+            results[c] = forked.get(i).join();
+            colored += components[c].length;
+            progress.accept(colored);
+        }
+        return results;
+    }
+
+    private ColoringResult solveConnected(RegionGraph graph, Deadline deadline) {
+        deadline.checkCancelled();
+        long start = System.nanoTime();
+
+        LowDegreeReduction.Reduction reduction = lowDegreeReduction.reduce(graph);
+        RegionGraph core = reduction.getCore();
+
+        SolvePath path;
+        boolean complete = true;
+        int[] coreColors = greedyColoring.color(core);
+        int uncolored = countUnassigned(coreColors);
+        if (uncolored == 0) {
+            path = SolvePath.GREEDY;
+        } else if (kempeChainRepair.repair(core, coreColors)) {
+            path = SolvePath.KEMPE_REPAIR;
+        } else {
+            BacktrackingSolver.SearchResult search = backtrackingSolver.search(core, deadline);
+            if (search.getColors() != null) {
+                coreColors = search.getColors();
+                path = SolvePath.BACKTRACKING;
+            } else if (search.isTimedOut()) {
+                coreColors = fewerConflicts(core, coreColors, search.getDeepestPartial());
+                path = SolvePath.BEST_EFFORT;
+                complete = false;
+            } else {
+                // Fuzzy border detection can produce non-planar graphs with no four-colouring at all
+                completeWithFewestConflicts(core, coreColors);
+                path = SolvePath.BEST_EFFORT;
+            }
+        }
+
+        int[] colors = reduction.expand(coreColors);
+        int conflicts = path == SolvePath.BEST_EFFORT ? graph.countConflicts(colors) : 0;
+        return new ColoringResult(colors, path, uncolored, conflicts, System.nanoTime() - start,
+                reduction.getCoreSize(), complete);
+    }
+
+    static int countUnassigned(int[] colors) {
+        int count = 0;
+        for (int color : colors) {
+            if (color == MapColor.UNASSIGNED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Complete both partial colourings and return the one with fewer conflicts.
+     */
+    private static int[] fewerConflicts(RegionGraph graph, int[] first, int[] second) {
+        int[] a = first.clone();
+        int[] b = second.clone();
+        completeWithFewestConflicts(graph, a);
+        completeWithFewestConflicts(graph, b);
+        return graph.countConflicts(b) < graph.countConflicts(a) ? b : a;
+    }
+
+    static void completeWithFewestConflicts(RegionGraph graph, int[] colors) {
+        int[] counts = new int[MapColor.COUNT];
+        for (int v = 0; v < colors.length; v++) {
+            if (colors[v] != MapColor.UNASSIGNED) {
+                continue;
+            }
+            Arrays.fill(counts, 0);
+            for (int neighbour : graph.neighbours(v)) {
+                if (colors[neighbour] != MapColor.UNASSIGNED) {
+                    counts[colors[neighbour]]++;
+                }
+            }
+            int best = 0;
+            for (int color = 1; color < MapColor.COUNT; color++) {
+                if (counts[color] < counts[best]) {
+                    best = color;
+                }
+            }
+            colors[v] = best;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.Arrays;
+
+/**
+ * Welsh-Powell style greedy pass: regions are visited by descending degree and take the
+ * lowest colour not used by an already coloured neighbour. Regions whose neighbours already
+ * use all four colours are left {@link MapColor#UNASSIGNED} for the repair stage.
+ */
+public class GreedyColoring {
+
+    public int[] color(RegionGraph graph) {
+        int vertexCount = graph.vertexCount();
+        int[] colors = new int[vertexCount];
+        Arrays.fill(colors, MapColor.UNASSIGNED);
+
+        int[] order = orderByDegree(graph);
+        for (int i = 0; i < vertexCount; i++) {
+            int vertex = order[i];
+            int free = MapColor.ALL_COLORS_MASK & ~usedColors(graph, colors, vertex);
+            if (free != 0) {
+                colors[vertex] = Integer.numberOfTrailingZeros(free);
+            }
+        }
+        BufferPool.shared().give(order);
+        return colors;
+    }
+
+    static int usedColors(RegionGraph graph, int[] colors, int vertex) {
+        int used = 0;
+        for (int neighbour : graph.neighbours(vertex)) {
+            if (colors[neighbour] != MapColor.UNASSIGNED) {
+                used |= 1 << colors[neighbour];
+            }
+        }
+        return used;
+    }
+
+    /**
+     * @return a pooled array whose first {@code vertexCount} entries are the visiting order
+     */
+    private static int[] orderByDegree(RegionGraph graph) {
+        int vertexCount = graph.vertexCount();
+        // Counting sort by degree, highest first; ties keep region order so results are deterministic
+        int maxDegree = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            maxDegree = Math.max(maxDegree, graph.degree(v));
+        }
+        BufferPool buffers = BufferPool.shared();
+        int[] start = buffers.takeZeroedInts(maxDegree + 2);
+        for (int v = 0; v < vertexCount; v++) {
+            start[maxDegree - graph.degree(v) + 1]++;
+        }
+        for (int i = 1; i < maxDegree + 2; i++) {
+            start[i] += start[i - 1];
+        }
+        int[] order = buffers.takeInts(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            order[start[maxDegree - graph.degree(v)]++] = v;
+        }
+        buffers.give(start);
+        return order;
+    }
+}
@@ -0,0 +1,85 @@
+package com.fourcolour.coloring.engine;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Carries a previous colouring over to a patched region graph and recolours only what the
+ * edit disturbed: new regions and one endpoint of every edge that now joins two regions of
+ * the same colour. Those regions go through {@link KempeChainRepair}; only if that fails is
+ * the whole graph handed to the {@link GraphColoringEngine}.
+ */
+public class IncrementalRecoloring {
+
+    private final KempeChainRepair kempeChainRepair;
+    private final GraphColoringEngine engine;
+
+    public IncrementalRecoloring() {
+        this(new KempeChainRepair(), new GraphColoringEngine());
+    }
+
+    public IncrementalRecoloring(KempeChainRepair kempeChainRepair, GraphColoringEngine engine) {
+        this.kempeChainRepair = kempeChainRepair;
+        this.engine = engine;
+    }
+
+    /**
+     * Build the graph after an edit: every previous edge moved onto the regions its endpoints
+     * now belong to, plus the edges found around the edit. Edges of a vertex that
+     * {@code carryOver} drops are not moved, so the window must cover its current region.
+     *
+     * @param carryOver   maps a previous vertex to its current vertex, or -1 if its edges are dropped
+     * @param windowEdges edges extracted around the edit, over the new vertex count
+     */
+    public RegionGraph patchGraph(RegionGraph previous, IntUnaryOperator carryOver, RegionGraph.Builder windowEdges) {
+        for (int v = 0; v < previous.vertexCount(); v++) {
+            int from = carryOver.applyAsInt(v);
+            if (from < 0) {
+                continue;
+            }
+            for (int neighbour : previous.neighbours(v)) {
+                if (neighbour > v) {
+                    // A dropped neighbour maps to -1, which the builder ignores
+                    windowEdges.addEdge(from, carryOver.applyAsInt(neighbour));
+                }
+            }
+        }
+        return windowEdges.build();
+    }
+
+    /**
+     * Colour {@code graph} starting from {@code previousColors}, which covers a prefix of its
+     * vertices; vertices past it are new.
+     */
+    public ColoringResult recolor(RegionGraph graph, int[] previousColors) {
+        return recolor(graph, previousColors, Deadline.NONE);
+    }
+
+    /**
+     * As {@link #recolor(RegionGraph, int[])}, passing {@code deadline} to the full solve if
+     * local repair fails.
+     */
+    public ColoringResult recolor(RegionGraph graph, int[] previousColors, Deadline deadline) {
+        long begin = System.nanoTime();
+        int vertexCount = graph.vertexCount();
+        int[] colors = Arrays.copyOf(previousColors, vertexCount);
+        Arrays.fill(colors, Math.min(previousColors.length, vertexCount), vertexCount, MapColor.UNASSIGNED);
+
+        for (int v = 0; v < vertexCount; v++) {
+            if (colors[v] == MapColor.UNASSIGNED) {
+                continue;
+            }
+            for (int neighbour : graph.neighbours(v)) {
+                if (neighbour > v && colors[neighbour] == colors[v]) {
+                    colors[neighbour] = MapColor.UNASSIGNED;
+                }
+            }
+        }
+        int impacted = GraphColoringEngine.countUnassigned(colors);
+
+        if (impacted == 0 || kempeChainRepair.repair(graph, colors)) {
+            return new ColoringResult(colors, SolvePath.INCREMENTAL, impacted, 0, System.nanoTime() - begin, impacted);
+        }
+        return engine.solve(graph, deadline);
+    }
+}
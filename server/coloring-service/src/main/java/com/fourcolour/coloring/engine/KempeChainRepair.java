@@ -0,0 +1,101 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.Arrays;
+
+/**
+ * Resolves regions left uncoloured by the greedy pass using Kempe-chain interchanges.
+ * <p>
+ * For an uncoloured region {@code v} and a colour pair {@code (a, b)}, the a/b chain grown
+ * from every neighbour of {@code v} coloured {@code a} is the connected set of regions coloured
+ * {@code a} or {@code b} reachable from them. If that chain touches no neighbour of {@code v}
+ * coloured {@code b}, swapping {@code a} and {@code b} inside it keeps the colouring proper and
+ * frees {@code a} for {@code v}. Every colour pair is tried before giving up on a region.
+ */
+public class KempeChainRepair {
+
+    /**
+     * Repair {@code colors} in place.
+     *
+     * @return true if every region ended up coloured with no conflicts
+     */
+    public boolean repair(RegionGraph graph, int[] colors) {
+        int vertexCount = graph.vertexCount();
+        BufferPool buffers = BufferPool.shared();
+        int[] visitedStamp = buffers.takeZeroedInts(vertexCount);
+        int[] queue = buffers.takeInts(vertexCount);
+        int stamp = 0;
+        boolean complete = true;
+
+        for (int v = 0; v < vertexCount; v++) {
+            if (colors[v] != MapColor.UNASSIGNED) {
+                continue;
+            }
+            int free = MapColor.ALL_COLORS_MASK & ~GreedyColoring.usedColors(graph, colors, v);
+            if (free != 0) {
+                colors[v] = Integer.numberOfTrailingZeros(free);
+                continue;
+            }
+
+            boolean inserted = false;
+            for (int a = 0; a < MapColor.COUNT && !inserted; a++) {
+                for (int b = 0; b < MapColor.COUNT && !inserted; b++) {
+                    if (a != b) {
+                        inserted = swapChain(graph, colors, v, a, b, visitedStamp, queue, ++stamp);
+                    }
+                }
+            }
+            if (inserted) {
+                colors[v] = firstFree(graph, colors, v);
+            } else {
+                complete = false;
+            }
+        }
+        buffers.give(visitedStamp);
+        buffers.give(queue);
+        return complete;
+    }
+
+    private static boolean swapChain(RegionGraph graph, int[] colors, int v, int a, int b,
+                                     int[] visitedStamp, int[] queue, int stamp) {
+        int head = 0;
+        int tail = 0;
+        for (int neighbour : graph.neighbours(v)) {
+            if (colors[neighbour] == a) {
+                visitedStamp[neighbour] = stamp;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int next : graph.neighbours(current)) {
+                if (visitedStamp[next] == stamp || (colors[next] != a && colors[next] != b)) {
+                    continue;
+                }
+                if (colors[next] == b && isNeighbour(graph, v, next)) {
+                    // The chain links an a-neighbour to a b-neighbour; swapping would not free a
+                    return false;
+                }
+                visitedStamp[next] = stamp;
+                queue[tail++] = next;
+            }
+        }
+
+        for (int i = 0; i < tail; i++) {
+            int region = queue[i];
+            colors[region] = colors[region] == a ? b : a;
+        }
+        return true;
+    }
+
+    private static boolean isNeighbour(RegionGraph graph, int v, int candidate) {
+        return Arrays.binarySearch(graph.neighbours(v), candidate) >= 0;
+    }
+
+    private static int firstFree(RegionGraph graph, int[] colors, int v) {
+        int free = MapColor.ALL_COLORS_MASK & ~GreedyColoring.usedColors(graph, colors, v);
+        return Integer.numberOfTrailingZeros(free);
+    }
+}
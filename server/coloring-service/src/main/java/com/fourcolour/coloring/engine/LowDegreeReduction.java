@@ -0,0 +1,104 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.Arrays;
+
+/**
+ * Peels regions with fewer than four neighbours before searching. Such a region can always be
+ * coloured after its neighbours, so it is removed, its neighbours' degrees drop, and peeling
+ * continues until only the core (every region with at least four remaining neighbours) is
+ * left. The core is solved on its own and peeled regions are re-inserted in reverse order,
+ * each taking a colour its at most three already coloured neighbours do not use.
+ */
+public class LowDegreeReduction {
+
+    static final int MAX_PEEL_DEGREE = MapColor.COUNT - 1;
+
+    // Remaining degree of a region once it is peeled
+    private static final int PEELED = -1;
+
+    public Reduction reduce(RegionGraph graph) {
+        int vertexCount = graph.vertexCount();
+        BufferPool buffers = BufferPool.shared();
+        int[] degree = buffers.takeInts(vertexCount);
+        // Each region is queued at most once: initially, or when its degree drops to the limit
+        int[] peelOrder = buffers.takeInts(vertexCount);
+        int tail = 0;
+
+        for (int v = 0; v < vertexCount; v++) {
+            degree[v] = graph.degree(v);
+            if (degree[v] <= MAX_PEEL_DEGREE) {
+                peelOrder[tail++] = v;
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int v = peelOrder[head];
+            degree[v] = PEELED;
+            for (int u : graph.neighbours(v)) {
+                if (degree[u] != PEELED && --degree[u] == MAX_PEEL_DEGREE) {
+                    peelOrder[tail++] = u;
+                }
+            }
+        }
+
+        int[] coreVertices = new int[vertexCount - tail];
+        int count = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (degree[v] != PEELED) {
+                coreVertices[count++] = v;
+            }
+        }
+
+        RegionGraph core = tail == 0 ? graph : graph.subgraph(coreVertices);
+        Reduction reduction = new Reduction(graph, core, coreVertices, Arrays.copyOf(peelOrder, tail));
+        buffers.give(degree);
+        buffers.give(peelOrder);
+        return reduction;
+    }
+
+    public static final class Reduction {
+        private final RegionGraph original;
+        private final RegionGraph core;
+        private final int[] coreVertices;
+        private final int[] peelOrder;
+
+        private Reduction(RegionGraph original, RegionGraph core, int[] coreVertices, int[] peelOrder) {
+            this.original = original;
+            this.core = core;
+            this.coreVertices = coreVertices;
+            this.peelOrder = peelOrder;
+        }
+
+        public RegionGraph getCore() {
+            return core;
+        }
+
+        public int getOriginalSize() {
+            return original.vertexCount();
+        }
+
+        public int getCoreSize() {
+            return coreVertices.length;
+        }
+
+        /**
+         * Map a colouring of the core back onto the original graph and colour the peeled
+         * regions greedily, last peeled first.
+         */
+        public int[] expand(int[] coreColors) {
+            int[] colors = new int[original.vertexCount()];
+            Arrays.fill(colors, MapColor.UNASSIGNED);
+            for (int i = 0; i < coreVertices.length; i++) {
+                colors[coreVertices[i]] = coreColors[i];
+            }
+            for (int i = peelOrder.length - 1; i >= 0; i--) {
+                int v = peelOrder[i];
+                int free = MapColor.ALL_COLORS_MASK & ~GreedyColoring.usedColors(original, colors, v);
+                colors[v] = Integer.numberOfTrailingZeros(free);
+            }
+            return colors;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.fourcolour.coloring.engine;
+
+/**
+ * The four colours handed out by the engine, in the order they are tried.
+ * Colourings are stored as {@code int[]} indexed by region, holding the ordinal
+ * of one of these constants or {@link #UNASSIGNED}.
+ */
+public enum MapColor {
+    RED(255, 0, 0),
+    GREEN(0, 255, 0),
+    BLUE(0, 0, 255),
+    YELLOW(255, 255, 0);
+
+    public static final int COUNT = 4;
+    public static final int UNASSIGNED = -1;
+    public static final int ALL_COLORS_MASK = (1 << COUNT) - 1;
+
+    private static final MapColor[] VALUES = values();
+
+    private final int red;
+    private final int green;
+    private final int blue;
+
+    MapColor(int red, int green, int blue) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    public int getRed() {
+        return red;
+    }
+
+    public int getGreen() {
+        return green;
+    }
+
+    public int getBlue() {
+        return blue;
+    }
+
+    public static MapColor of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
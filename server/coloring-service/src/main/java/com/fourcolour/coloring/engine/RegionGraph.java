@@ -0,0 +1,307 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.Arrays;
+
+/**
+ * Immutable adjacency structure over map regions. Vertices are region indices
+ * {@code 0..vertexCount-1}; each vertex keeps a sorted, duplicate-free array of neighbours.
+ */
+public final class RegionGraph {
+
+    private final int[][] neighbours;
+    private final int edgeCount;
+
+    private RegionGraph(int[][] neighbours, int edgeCount) {
+        this.neighbours = neighbours;
+        this.edgeCount = edgeCount;
+    }
+
+    public static Builder builder(int vertexCount) {
+        return new Builder(vertexCount);
+    }
+
+    public int vertexCount() {
+        return neighbours.length;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int degree(int vertex) {
+        return neighbours[vertex].length;
+    }
+
+    /**
+     * Returns the backing neighbour array of a vertex; callers must not modify it.
+     */
+    public int[] neighbours(int vertex) {
+        return neighbours[vertex];
+    }
+
+    /**
+     * Count edges whose endpoints share a colour. Unassigned vertices never conflict.
+     */
+    public int countConflicts(int[] colors) {
+        int conflicts = 0;
+        for (int v = 0; v < neighbours.length; v++) {
+            if (colors[v] == MapColor.UNASSIGNED) {
+                continue;
+            }
+            for (int u : neighbours[v]) {
+                if (u > v && colors[u] == colors[v]) {
+                    conflicts++;
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Induced subgraph on the given vertices, which must be sorted ascending. Vertex {@code i}
+     * of the result is {@code vertices[i]} of this graph.
+     */
+    public RegionGraph subgraph(int[] vertices) {
+        BufferPool buffers = BufferPool.shared();
+        int[] index = buffers.takeInts(neighbours.length);
+        Arrays.fill(index, 0, neighbours.length, -1);
+        for (int i = 0; i < vertices.length; i++) {
+            index[vertices[i]] = i;
+        }
+
+        int[][] subNeighbours = new int[vertices.length][];
+        int degreeSum = 0;
+        int[] buffer = buffers.takeInts(16);
+        for (int i = 0; i < vertices.length; i++) {
+            int[] adjacent = neighbours[vertices[i]];
+            if (buffer.length < adjacent.length) {
+                buffers.give(buffer);
+                buffer = buffers.takeInts(adjacent.length);
+            }
+            int count = 0;
+            for (int u : adjacent) {
+                if (index[u] >= 0) {
+                    // Indices are assigned in ascending vertex order, so the result stays sorted
+                    buffer[count++] = index[u];
+                }
+            }
+            subNeighbours[i] = Arrays.copyOf(buffer, count);
+            degreeSum += count;
+        }
+        buffers.give(index);
+        buffers.give(buffer);
+        return new RegionGraph(subNeighbours, degreeSum / 2);
+    }
+
+    /**
+     * Split the graph into connected components. Components are ordered by their lowest
+     * vertex and each lists its vertices in ascending order, ready for {@link #subgraph}.
+     */
+    public int[][] connectedComponents() {
+        int vertexCount = neighbours.length;
+        BufferPool buffers = BufferPool.shared();
+        int[] componentOf = buffers.takeInts(vertexCount);
+        Arrays.fill(componentOf, 0, vertexCount, -1);
+        int[] queue = buffers.takeInts(vertexCount);
+        int[] sizes = buffers.takeInts(vertexCount);
+        int componentCount = 0;
+
+        for (int root = 0; root < vertexCount; root++) {
+            if (componentOf[root] != -1) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            componentOf[root] = componentCount;
+            queue[tail++] = root;
+            while (head < tail) {
+                for (int u : neighbours[queue[head++]]) {
+                    if (componentOf[u] == -1) {
+                        componentOf[u] = componentCount;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            sizes[componentCount++] = tail;
+        }
+
+        int[][] components = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            components[c] = new int[sizes[c]];
+        }
+        int[] fill = buffers.takeZeroedInts(componentCount);
+        for (int v = 0; v < vertexCount; v++) {
+            int c = componentOf[v];
+            components[c][fill[c]++] = v;
+        }
+        buffers.give(componentOf);
+        buffers.give(queue);
+        buffers.give(sizes);
+        buffers.give(fill);
+        return components;
+    }
+
+    /**
+     * Collects edges as packed {@code low << 32 | high} longs in a pooled buffer. Duplicates
+     * are dropped by sorting whenever the buffer fills, so it only grows when at least half
+     * of it holds distinct edges. {@link #build} hands the buffer back to the pool, after
+     * which the builder must not be used.
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 256;
+        private static final int RADIX_BITS = 11;
+        private static final int RADIX = 1 << RADIX_BITS;
+        private static final int RADIX_MIN_SIZE = 1024;
+
+        private final int vertexCount;
+        private long[] edges;
+        private int size;
+
+        private Builder(int vertexCount) {
+            if (vertexCount < 0) {
+                throw new IllegalArgumentException("Vertex count must not be negative");
+            }
+            this.vertexCount = vertexCount;
+            this.edges = BufferPool.shared().takeLongs(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Add an undirected edge. Self-loops, duplicates and out-of-range endpoints are ignored,
+         * matching how the Python solver filtered its edge list.
+         */
+        public Builder addEdge(int u, int v) {
+            if (u == v || u < 0 || v < 0 || u >= vertexCount || v >= vertexCount) {
+                return this;
+            }
+            int low = Math.min(u, v);
+            int high = Math.max(u, v);
+            append(((long) low << 32) | high);
+            return this;
+        }
+
+        /**
+         * Merge the edges collected by another builder over the same vertex set. The other
+         * builder is left unchanged.
+         */
+        public Builder addAll(Builder other) {
+            if (other.vertexCount != vertexCount) {
+                throw new IllegalArgumentException("Cannot merge builders over different vertex counts");
+            }
+            for (int i = 0; i < other.size; i++) {
+                append(other.edges[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Hand the edge buffer back to the pool without building a graph.
+         */
+        public void discard() {
+            BufferPool.shared().give(edges);
+            edges = null;
+        }
+
+        public RegionGraph build() {
+            deduplicate();
+            BufferPool buffers = BufferPool.shared();
+            int[] degrees = buffers.takeZeroedInts(vertexCount);
+            for (int i = 0; i < size; i++) {
+                long edge = edges[i];
+                degrees[(int) (edge >>> 32)]++;
+                degrees[(int) edge]++;
+            }
+
+            int[][] neighbours = new int[vertexCount][];
+            for (int v = 0; v < vertexCount; v++) {
+                neighbours[v] = new int[degrees[v]];
+            }
+
+            // Edges are sorted by low then high endpoint, so each vertex receives its lower
+            // neighbours in ascending order before its higher ones, also ascending
+            int[] fill = buffers.takeZeroedInts(vertexCount);
+            for (int i = 0; i < size; i++) {
+                long edge = edges[i];
+                int low = (int) (edge >>> 32);
+                int high = (int) edge;
+                neighbours[low][fill[low]++] = high;
+                neighbours[high][fill[high]++] = low;
+            }
+
+            int edgeCount = size;
+            buffers.give(degrees);
+            buffers.give(fill);
+            discard();
+            return new RegionGraph(neighbours, edgeCount);
+        }
+
+        private void append(long edge) {
+            if (size == edges.length) {
+                deduplicate();
+                if (size > edges.length / 2) {
+                    BufferPool buffers = BufferPool.shared();
+                    long[] grown = buffers.takeLongs(edges.length * 2);
+                    System.arraycopy(edges, 0, grown, 0, size);
+                    buffers.give(edges);
+                    edges = grown;
+                }
+            }
+            edges[size++] = edge;
+        }
+
+        private void deduplicate() {
+            sort();
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || edges[i] != edges[distinct - 1]) {
+                    edges[distinct++] = edges[i];
+                }
+            }
+            size = distinct;
+        }
+
+        /**
+         * LSD radix sort on the packed endpoints. {@code Arrays.sort} allocates a merge buffer
+         * for the partly sorted input this sees after the first deduplication.
+         */
+        private void sort() {
+            if (size < RADIX_MIN_SIZE) {
+                Arrays.sort(edges, 0, size);
+                return;
+            }
+            // Both endpoints fit in this many bits, so the key is their concatenation
+            int endpointBits = 32 - Integer.numberOfLeadingZeros(vertexCount);
+            BufferPool buffers = BufferPool.shared();
+            long[] from = edges;
+            long[] to = buffers.takeLongs(edges.length);
+            int[] counts = buffers.takeInts(RADIX);
+            for (int shift = 0; shift < 2 * endpointBits; shift += RADIX_BITS) {
+                Arrays.fill(counts, 0, RADIX, 0);
+                for (int i = 0; i < size; i++) {
+                    counts[digit(from[i], endpointBits, shift)]++;
+                }
+                int position = 0;
+                for (int d = 0; d < RADIX; d++) {
+                    int count = counts[d];
+                    counts[d] = position;
+                    position += count;
+                }
+                for (int i = 0; i < size; i++) {
+                    to[counts[digit(from[i], endpointBits, shift)]++] = from[i];
+                }
+                long[] swap = from;
+                from = to;
+                to = swap;
+            }
+            edges = from;
+            buffers.give(to);
+            buffers.give(counts);
+        }
+
+        private static int digit(long edge, int endpointBits, int shift) {
+            long key = ((edge >>> 32) << endpointBits) | (edge & 0xFFFFFFFFL);
+            return (int) (key >>> shift) & (RADIX - 1);
+        }
+    }
+}
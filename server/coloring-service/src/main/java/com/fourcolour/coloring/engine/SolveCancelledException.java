@@ -0,0 +1,14 @@
+package com.fourcolour.coloring.engine;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown out of a solve whose {@link Deadline} was cancelled, typically because the client
+ * that asked for it disconnected. No partial result is kept.
+ */
+public class SolveCancelledException extends CancellationException {
+
+    public SolveCancelledException() {
+        super("Solve cancelled by the caller");
+    }
+}
@@ -0,0 +1,22 @@
+package com.fourcolour.coloring.engine;
+
+/**
+ * Which stage of the engine produced the returned colouring. Constants are declared from
+ * cheapest to most expensive.
+ */
+public enum SolvePath {
+    /** Only regions around an edit were recoloured, keeping the rest of a previous solve. */
+    INCREMENTAL,
+    /** The greedy pass coloured every region without conflicts. */
+    GREEDY,
+    /** Kempe-chain interchanges resolved every region the greedy pass left uncoloured. */
+    KEMPE_REPAIR,
+    /** Repair failed and the exhaustive backtracking search found a colouring. */
+    BACKTRACKING,
+    /**
+     * No proper four-colouring was found, either because none exists or because the deadline
+     * expired first (see {@link ColoringResult#isComplete()}); the best partial colouring was
+     * completed with minimal conflicts.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,222 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+import com.fourcolour.coloring.engine.RegionGraph;
+
+
+/**
+ * Builds the region adjacency graph from a label image. Two regions border each other when
+ * pixels of both lie within {@code fuzziness / 2} pixels on each axis, which matches the
+ * Python solver's dilation with an 8x8 square footprint across hand-drawn border lines.
+ * <p>
+ * Rows are first compressed into runs of equal labels, so the neighbourhood test compares
+ * runs rather than every pixel against its whole window. Run tables and the other scratch
+ * arrays are drawn from the {@link BufferPool} and handed back once the graph is built.
+ */
+public class AdjacencyExtractor {
+
+    public static final int DEFAULT_FUZZINESS = 8;
+
+    protected final int radius;
+
+    public AdjacencyExtractor() {
+        this(DEFAULT_FUZZINESS);
+    }
+
+    public AdjacencyExtractor(int fuzziness) {
+        if (fuzziness < 2) {
+            throw new IllegalArgumentException("Fuzziness must be at least 2");
+        }
+        this.radius = fuzziness / 2;
+    }
+
+    public RegionGraph extract(LabelImage image) {
+        Runs runs = Runs.of(image, 0, image.getHeight());
+        RegionGraph.Builder builder = RegionGraph.builder(image.getRegionCount());
+        extractRows(runs, image.getHeight(), 0, image.getHeight(), builder, image.getRegionCount());
+        runs.release();
+        return builder.build();
+    }
+
+    /**
+     * Collect the adjacencies visible inside the window {@code [x0, x1] x [y0, y1]} (inclusive),
+     * over a vertex set of {@code vertexCount} regions. Pixels outside the window are ignored,
+     * so the result is the subset of the full graph witnessed within it.
+     */
+    public RegionGraph.Builder extractWindow(LabelImage image, int x0, int y0, int x1, int y1, int vertexCount) {
+        int windowWidth = x1 - x0 + 1;
+        int windowHeight = y1 - y0 + 1;
+        int[] source = image.getLabels();
+        int[] window = BufferPool.shared().takeInts(windowWidth * windowHeight);
+        for (int y = 0; y < windowHeight; y++) {
+            System.arraycopy(source, (y0 + y) * image.getWidth() + x0, window, y * windowWidth, windowWidth);
+        }
+
+        LabelImage cropped = new LabelImage(windowWidth, windowHeight, window, vertexCount);
+        RegionGraph.Builder builder = RegionGraph.builder(vertexCount);
+        Runs runs = Runs.of(cropped, 0, windowHeight);
+        extractRows(runs, windowHeight, 0, windowHeight, builder, vertexCount);
+        runs.release();
+        BufferPool.shared().give(window);
+        return builder;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Add every adjacency found looking from rows {@code [rowFrom, rowTo)} forward. Rows up to
+     * {@code radius} below {@code rowTo} are read but only as neighbours.
+     */
+    void extractRows(Runs runs, int height, int rowFrom, int rowTo, RegionGraph.Builder builder, int regionCount) {
+        // Runs of one region mostly face the same neighbour, so remembering the last partner
+        // per region filters nearly all repeated edges before they reach the builder
+        int[] lastPartner = BufferPool.shared().takeZeroedInts(regionCount + 1);
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int from = runs.rowStart[y];
+            int to = runs.rowStart[y + 1];
+
+            // Runs on the same row separated by a border no wider than the radius
+            for (int i = from; i < to; i++) {
+                for (int j = i + 1; j < to && runs.start[j] - runs.end[i] <= radius; j++) {
+                    connect(builder, lastPartner, runs.label[i], runs.label[j]);
+                }
+            }
+
+            // Runs on the following rows whose x-ranges come within the radius of each other
+            for (int dy = 1; dy <= radius && y + dy < height; dy++) {
+                int otherFrom = runs.rowStart[y + dy];
+                int otherTo = runs.rowStart[y + dy + 1];
+                int first = otherFrom;
+                for (int i = from; i < to; i++) {
+                    while (first < otherTo && runs.end[first] + radius < runs.start[i]) {
+                        first++;
+                    }
+                    for (int j = first; j < otherTo && runs.start[j] <= runs.end[i] + radius; j++) {
+                        connect(builder, lastPartner, runs.label[i], runs.label[j]);
+                    }
+                }
+            }
+        }
+        BufferPool.shared().give(lastPartner);
+    }
+
+    private static void connect(RegionGraph.Builder builder, int[] lastPartner, int label, int other) {
+        if (label != other && lastPartner[label] != other) {
+            builder.addEdge(label - 1, other - 1);
+            lastPartner[label] = other;
+        }
+    }
+
+    /**
+     * Maximal horizontal runs of one non-zero label, stored row by row. {@code rowStart} is
+     * indexed by absolute row and has an entry for {@code rowTo} marking the end. The arrays
+     * are pooled and may be longer than the runs they hold.
+     */
+    static final class Runs {
+        final int[] rowStart;
+        final int[] label;
+        final int[] start;
+        final int[] end;
+
+        private Runs(int[] rowStart, int[] label, int[] start, int[] end) {
+            this.rowStart = rowStart;
+            this.label = label;
+            this.start = start;
+            this.end = end;
+        }
+
+        static Runs of(LabelImage image, int rowFrom, int rowTo) {
+            int width = image.getWidth();
+            int[] labels = image.getLabels();
+            BufferPool buffers = BufferPool.shared();
+
+            int[] rowStart = buffers.takeInts(image.getHeight() + 1);
+            int capacity = Math.max(16, (rowTo - rowFrom) * 4);
+            int[] label = buffers.takeInts(capacity);
+            int[] start = buffers.takeInts(capacity);
+            int[] end = buffers.takeInts(capacity);
+            int count = 0;
+
+            for (int y = rowFrom; y < rowTo; y++) {
+                rowStart[y] = count;
+                int row = y * width;
+                int x = 0;
+                while (x < width) {
+                    int current = labels[row + x];
+                    int runStart = x;
+                    while (x < width && labels[row + x] == current) {
+                        x++;
+                    }
+                    if (current == 0) {
+                        continue;
+                    }
+                    if (count == label.length) {
+                        label = grow(buffers, label, count);
+                        start = grow(buffers, start, count);
+                        end = grow(buffers, end, count);
+                    }
+                    label[count] = current;
+                    start[count] = runStart;
+                    end[count] = x - 1;
+                    count++;
+                }
+            }
+            rowStart[rowTo] = count;
+            return new Runs(rowStart, label, start, end);
+        }
+
+        private static int[] grow(BufferPool buffers, int[] full, int count) {
+            int[] grown = buffers.takeInts(count * 2);
+            System.arraycopy(full, 0, grown, 0, count);
+            buffers.give(full);
+            return grown;
+        }
+
+        /**
+         * Join runs built for consecutive strips into one row-indexed table.
+         *
+         * @param stripStart strip boundaries, strip {@code s} covering {@code [stripStart[s], stripStart[s + 1])}
+         */
+        static Runs concat(Runs[] parts, int[] stripStart) {
+            int height = stripStart[stripStart.length - 1];
+            int total = 0;
+            for (int s = 0; s < parts.length; s++) {
+                total += parts[s].rowStart[stripStart[s + 1]];
+            }
+
+            BufferPool buffers = BufferPool.shared();
+            int[] rowStart = buffers.takeInts(height + 1);
+            int[] label = buffers.takeInts(total);
+            int[] start = buffers.takeInts(total);
+            int[] end = buffers.takeInts(total);
+            int offset = 0;
+            for (int s = 0; s < parts.length; s++) {
+                Runs part = parts[s];
+                int count = part.rowStart[stripStart[s + 1]];
+                System.arraycopy(part.label, 0, label, offset, count);
+                System.arraycopy(part.start, 0, start, offset, count);
+                System.arraycopy(part.end, 0, end, offset, count);
+                for (int y = stripStart[s]; y < stripStart[s + 1]; y++) {
+                    rowStart[y] = part.rowStart[y] + offset;
+                }
+                offset += count;
+            }
+            rowStart[height] = total;
+            return new Runs(rowStart, label, start, end);
+        }
+
+        /**
+         * Hand the arrays back to the pool; the runs must not be used afterwards.
+         */
+        void release() {
+            BufferPool buffers = BufferPool.shared();
+            buffers.give(rowStart);
+            buffers.give(label);
+            buffers.give(start);
+            buffers.give(end);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.util.Arrays;
+
+/**
+ * One bit per pixel, set for region pixels and clear for border pixels. Rows start on a
+ * word boundary so horizontal strips can be written concurrently without sharing words.
+ */
+public final class BinaryMask {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public BinaryMask(int width, int height) {
+        this(width, height, new long[wordsFor(width, height)]);
+    }
+
+    /**
+     * A mask over a reused buffer of at least {@link #wordsFor} words, which is cleared.
+     */
+    public BinaryMask(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = words;
+        Arrays.fill(words, 0, wordsPerRow * height, 0L);
+    }
+
+    public static int wordsFor(int width, int height) {
+        return ((width + 63) >>> 6) * height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Backing words, row-major; bit {@code x & 63} of word {@code y * wordsPerRow + x / 64}
+     * holds pixel {@code (x, y)}.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    public boolean get(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+}
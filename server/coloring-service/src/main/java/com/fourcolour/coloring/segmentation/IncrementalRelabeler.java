@@ -0,0 +1,409 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patches a previous label image after a small pixel edit instead of relabelling the canvas.
+ * <p>
+ * Pixels that turn into border are cleared first. A region that lost pixels can only have
+ * split if two or more of its pixels border the removed ones; from each such pixel a
+ * breadth-first front is grown in lockstep. Fronts that meet are joined, and a group that runs
+ * out of pixels while another is still growing is a piece that broke off and gets a new
+ * label. The walk stops as soon as one group is left, so the cost follows the smaller pieces
+ * rather than the size of the region. Pixels that turn into region pixels are then added one
+ * by one: an isolated pixel starts a new region and a pixel touching several regions merges
+ * them, relabelling the smaller ones into the largest.
+ * <p>
+ * A region that lost pixels may have lost borders too, so its adjacency cannot be carried
+ * over; the patch reports such regions and widens its box to cover them for re-extraction.
+ * <p>
+ * Merged-away labels are left empty rather than compacted, so label numbers stay stable for
+ * the colouring that is patched alongside.
+ */
+public class IncrementalRelabeler {
+
+    /**
+     * Apply {@code pixels} to a copy of {@code previous}.
+     *
+     * @param extents sizes and bounding boxes of the labels of {@code previous}
+     * @param pixels  flat {@code [x, y, red]} triples; {@code red} is thresholded like the canvas
+     */
+    public LabelPatch apply(LabelImage previous, RegionExtents extents, int[] pixels) {
+        int width = previous.getWidth();
+        int height = previous.getHeight();
+        if (pixels == null || pixels.length % 3 != 0) {
+            throw new IllegalArgumentException("Pixel changes must be [x, y, value] triples");
+        }
+
+        // A pixel may appear more than once in a stroke; the last value wins
+        Map<Integer, Boolean> finalValues = new LinkedHashMap<>();
+        for (int i = 0; i < pixels.length; i += 3) {
+            int x = pixels[i];
+            int y = pixels[i + 1];
+            if (x < 0 || y < 0 || x >= width || y >= height) {
+                throw new IllegalArgumentException("Pixel change outside the image: (" + x + ", " + y + ")");
+            }
+            finalValues.put(y * width + x, pixels[i + 2] > MaskThresholder.THRESHOLD);
+        }
+
+        State state = new State(previous, extents);
+        IntList added = new IntList();
+        IntList removed = new IntList();
+        for (Map.Entry<Integer, Boolean> change : finalValues.entrySet()) {
+            int index = change.getKey();
+            int label = state.labels[index];
+            if (change.getValue() && label == 0) {
+                added.add(index);
+            } else if (!change.getValue() && label != 0) {
+                state.labels[index] = 0;
+                state.sizes[label]--;
+                state.shrunk[label] = true;
+                removed.add(index);
+            } else {
+                continue;
+            }
+            state.touchIndex(index);
+        }
+
+        // Seeds are gathered after every removal so a pixel cleared later in the list is not used
+        List<IntList> seedsByLabel = new ArrayList<>();
+        IntList splitLabels = new IntList();
+        int[] seedSlot = new int[state.sizes.length];
+        for (int r = 0; r < removed.size(); r++) {
+            for (int neighbour : state.neighbours(removed.get(r))) {
+                if (neighbour < 0) {
+                    continue;
+                }
+                int label = state.labels[neighbour];
+                if (label <= 0) {
+                    continue;
+                }
+                if (seedSlot[label] == 0) {
+                    seedsByLabel.add(new IntList());
+                    splitLabels.add(label);
+                    seedSlot[label] = seedsByLabel.size();
+                }
+                seedsByLabel.get(seedSlot[label] - 1).add(neighbour);
+            }
+        }
+        for (int s = 0; s < splitLabels.size(); s++) {
+            IntList seeds = seedsByLabel.get(s);
+            if (seeds.size() > 1) {
+                state.splitIfDisconnected(splitLabels.get(s), seeds);
+            }
+        }
+
+        for (int a = 0; a < added.size(); a++) {
+            state.add(added.get(a));
+        }
+
+        return state.toPatch(previous.getRegionCount());
+    }
+
+    private static final class State {
+        final int width;
+        final int height;
+        final int[] labels;
+        final boolean[] shrunk;
+        int[] sizes;
+        int[] bounds;
+        int[] parent;
+        int maxLabel;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        private final int[] neighbourBuffer = new int[4];
+
+        State(LabelImage previous, RegionExtents extents) {
+            this.width = previous.getWidth();
+            this.height = previous.getHeight();
+            this.labels = previous.getLabels().clone();
+            this.maxLabel = previous.getRegionCount();
+            this.shrunk = new boolean[maxLabel + 1];
+            this.sizes = extents.copySizes(maxLabel + 1);
+            this.bounds = extents.copyBounds(maxLabel + 1);
+            this.parent = new int[maxLabel + 1];
+            for (int label = 0; label <= maxLabel; label++) {
+                parent[label] = label;
+            }
+        }
+
+        void touch(int x, int y) {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        void touchIndex(int index) {
+            touch(index % width, index / width);
+        }
+
+        /**
+         * 4-neighbours of {@code index}, with {@code -1} for positions outside the image. The
+         * returned array is reused between calls.
+         */
+        int[] neighbours(int index) {
+            int x = index % width;
+            neighbourBuffer[0] = x > 0 ? index - 1 : -1;
+            neighbourBuffer[1] = x < width - 1 ? index + 1 : -1;
+            neighbourBuffer[2] = index >= width ? index - width : -1;
+            neighbourBuffer[3] = index + width < width * height ? index + width : -1;
+            return neighbourBuffer;
+        }
+
+        int newLabel() {
+            maxLabel++;
+            if (maxLabel >= sizes.length) {
+                int capacity = Math.max(sizes.length * 2, maxLabel + 1);
+                sizes = Arrays.copyOf(sizes, capacity);
+                int[] grown = RegionExtents.emptyBounds(capacity);
+                System.arraycopy(bounds, 0, grown, 0, bounds.length);
+                bounds = grown;
+                int oldLength = parent.length;
+                parent = Arrays.copyOf(parent, capacity);
+                for (int label = oldLength; label < capacity; label++) {
+                    parent[label] = label;
+                }
+            }
+            return maxLabel;
+        }
+
+        /**
+         * Grow one front per seed in lockstep over pixels of {@code label}. Visited pixels are
+         * marked in place with {@code -(front + 1)} and restored or relabelled at the end.
+         */
+        void splitIfDisconnected(int label, IntList seeds) {
+            int fronts = seeds.size();
+            IntList[] visited = new IntList[fronts];
+            int[] head = new int[fronts];
+            int[] group = new int[fronts];
+            boolean[] exhausted = new boolean[fronts];
+            int activeGroups = 0;
+
+            for (int f = 0; f < fronts; f++) {
+                visited[f] = new IntList();
+                group[f] = f;
+                int seed = seeds.get(f);
+                int mark = labels[seed];
+                if (mark == label) {
+                    labels[seed] = -(f + 1);
+                    visited[f].add(seed);
+                    activeGroups++;
+                } else {
+                    // Seed already claimed by an earlier front: this front starts out joined to it
+                    group[f] = findGroup(group, -mark - 1);
+                    head[f] = 0;
+                }
+            }
+
+            while (activeGroups > 1) {
+                for (int f = 0; f < fronts; f++) {
+                    if (head[f] >= visited[f].size()) {
+                        continue;
+                    }
+                    int pixel = visited[f].get(head[f]++);
+                    for (int neighbour : neighbours(pixel)) {
+                        if (neighbour < 0) {
+                            continue;
+                        }
+                        int value = labels[neighbour];
+                        if (value == label) {
+                            labels[neighbour] = -(f + 1);
+                            visited[f].add(neighbour);
+                        } else if (value < 0) {
+                            int mine = findGroup(group, f);
+                            int theirs = findGroup(group, -value - 1);
+                            if (mine != theirs && !exhausted[theirs]) {
+                                group[Math.max(mine, theirs)] = Math.min(mine, theirs);
+                                activeGroups--;
+                            }
+                        }
+                    }
+                }
+
+                // A group whose fronts have all stopped growing is a complete piece
+                boolean[] growing = new boolean[fronts];
+                for (int f = 0; f < fronts; f++) {
+                    if (head[f] < visited[f].size()) {
+                        growing[findGroup(group, f)] = true;
+                    }
+                }
+                for (int f = 0; f < fronts && activeGroups > 1; f++) {
+                    if (group[f] == f && !exhausted[f] && !growing[f]) {
+                        exhausted[f] = true;
+                        activeGroups--;
+                    }
+                }
+            }
+
+            // Exactly one group keeps the original label: the one still growing, or the largest
+            int keep = -1;
+            for (int f = 0; f < fronts; f++) {
+                if (group[f] == f && !exhausted[f]) {
+                    keep = f;
+                }
+            }
+            int[] groupSize = new int[fronts];
+            for (int f = 0; f < fronts; f++) {
+                groupSize[findGroup(group, f)] += visited[f].size();
+            }
+            if (keep < 0) {
+                for (int f = 0; f < fronts; f++) {
+                    if (group[f] == f && (keep < 0 || groupSize[f] > groupSize[keep])) {
+                        keep = f;
+                    }
+                }
+            }
+
+            int[] pieceLabel = new int[fronts];
+            for (int f = 0; f < fronts; f++) {
+                int root = findGroup(group, f);
+                if (root != keep && pieceLabel[root] == 0 && groupSize[root] > 0) {
+                    pieceLabel[root] = newLabel();
+                    sizes[pieceLabel[root]] = groupSize[root];
+                    sizes[label] -= groupSize[root];
+                }
+            }
+            for (int f = 0; f < fronts; f++) {
+                int root = findGroup(group, f);
+                int target = root == keep ? label : pieceLabel[root];
+                for (int i = 0; i < visited[f].size(); i++) {
+                    int pixel = visited[f].get(i);
+                    labels[pixel] = target;
+                    if (target != label) {
+                        touchIndex(pixel);
+                        RegionExtents.extend(bounds, target, pixel % width, pixel / width);
+                    }
+                }
+            }
+        }
+
+        void add(int index) {
+            int survivor = 0;
+            int[] touching = new int[4];
+            int count = 0;
+            for (int neighbour : neighbours(index)) {
+                if (neighbour < 0 || labels[neighbour] == 0) {
+                    continue;
+                }
+                int label = labels[neighbour];
+                boolean seen = false;
+                for (int i = 0; i < count; i++) {
+                    seen |= touching[i] == label;
+                }
+                if (!seen) {
+                    touching[count++] = label;
+                    if (survivor == 0 || sizes[label] > sizes[survivor]) {
+                        survivor = label;
+                    }
+                }
+            }
+
+            if (survivor == 0) {
+                survivor = newLabel();
+            }
+            labels[index] = survivor;
+            sizes[survivor]++;
+            RegionExtents.extend(bounds, survivor, index % width, index / width);
+
+            for (int i = 0; i < count; i++) {
+                int other = touching[i];
+                if (other != survivor) {
+                    relabel(other, survivor, index);
+                }
+            }
+        }
+
+        /**
+         * Flood region {@code from}, reached through a neighbour of {@code start}, into {@code to}.
+         */
+        private void relabel(int from, int to, int start) {
+            IntList queue = new IntList();
+            for (int neighbour : neighbours(start)) {
+                if (neighbour >= 0 && labels[neighbour] == from) {
+                    labels[neighbour] = to;
+                    queue.add(neighbour);
+                }
+            }
+            for (int head = 0; head < queue.size(); head++) {
+                for (int neighbour : neighbours(queue.get(head))) {
+                    if (neighbour >= 0 && labels[neighbour] == from) {
+                        labels[neighbour] = to;
+                        queue.add(neighbour);
+                    }
+                }
+            }
+            sizes[to] += sizes[from];
+            sizes[from] = 0;
+            RegionExtents.merge(bounds, to, from);
+            parent[from] = to;
+        }
+
+        LabelPatch toPatch(int previousRegionCount) {
+            int[] remap = new int[maxLabel + 1];
+            for (int label = 1; label <= maxLabel; label++) {
+                int root = label;
+                while (parent[root] != root) {
+                    root = parent[root];
+                }
+                remap[label] = sizes[root] > 0 ? root : 0;
+            }
+
+            // Regions that lost pixels are re-extracted whole, wherever they now live
+            boolean[] reextract = new boolean[maxLabel + 1];
+            for (int label = 1; label < shrunk.length; label++) {
+                if (shrunk[label]) {
+                    reextract[label] = true;
+                    int current = remap[label];
+                    if (current != 0) {
+                        touch(bounds[current * 4], bounds[current * 4 + 1]);
+                        touch(bounds[current * 4 + 2], bounds[current * 4 + 3]);
+                    }
+                }
+            }
+
+            LabelImage image = new LabelImage(width, height, labels, maxLabel);
+            RegionExtents extents = new RegionExtents(Arrays.copyOf(sizes, maxLabel + 1),
+                    Arrays.copyOf(bounds, (maxLabel + 1) * 4));
+            return new LabelPatch(image, extents, remap, reextract, previousRegionCount,
+                    minX, minY, maxX, maxY);
+        }
+
+        private static int findGroup(int[] group, int front) {
+            while (group[front] != front) {
+                group[front] = group[group[front]];
+                front = group[front];
+            }
+            return front;
+        }
+    }
+
+    /**
+     * Growable {@code int} list, so visited pixels are not boxed.
+     */
+    static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.fourcolour.coloring.segmentation;
+
+/**
+ * Row-major region labels for a map image. Label {@code 0} marks border pixels; regions are
+ * numbered from {@code 1} in raster order of their first pixel, so region {@code n} is graph
+ * vertex {@code n - 1}.
+ */
+public final class LabelImage {
+
+    private final int width;
+    private final int height;
+    private final int[] labels;
+    private final int regionCount;
+
+    public LabelImage(int width, int height, int[] labels, int regionCount) {
+        this.width = width;
+        this.height = height;
+        this.labels = labels;
+        this.regionCount = regionCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int labelAt(int x, int y) {
+        return labels[y * width + x];
+    }
+}
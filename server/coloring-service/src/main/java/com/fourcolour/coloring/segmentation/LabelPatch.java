@@ -0,0 +1,91 @@
+package com.fourcolour.coloring.segmentation;
+
+/**
+ * Result of {@link IncrementalRelabeler#apply}: the patched label image plus what changed.
+ * Labels up to {@link #getPreviousRegionCount()} keep their meaning unless merged away; labels
+ * above it are new regions.
+ */
+public final class LabelPatch {
+
+    private final LabelImage image;
+    private final RegionExtents extents;
+    private final int[] remap;
+    private final boolean[] reextract;
+    private final int previousRegionCount;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+
+    LabelPatch(LabelImage image, RegionExtents extents, int[] remap, boolean[] reextract,
+               int previousRegionCount, int minX, int minY, int maxX, int maxY) {
+        this.image = image;
+        this.extents = extents;
+        this.remap = remap;
+        this.reextract = reextract;
+        this.previousRegionCount = previousRegionCount;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public LabelImage getImage() {
+        return image;
+    }
+
+    /**
+     * Sizes and bounding boxes per label; merged-away and erased labels have size 0.
+     */
+    public RegionExtents getExtents() {
+        return extents;
+    }
+
+    /**
+     * The label each label now lives on: itself, the region it was merged into, or 0 if it no
+     * longer has any pixels.
+     */
+    public int remap(int label) {
+        return remap[label];
+    }
+
+    /**
+     * Like {@link #remap}, but 0 also for a label that lost pixels: its previous borders may
+     * no longer exist, so they must be re-extracted rather than carried over.
+     */
+    public int carryOver(int label) {
+        return reextract[label] ? 0 : remap[label];
+    }
+
+    public int getPreviousRegionCount() {
+        return previousRegionCount;
+    }
+
+    /**
+     * Whether any pixel changed or was relabelled into a new region.
+     */
+    public boolean isEmpty() {
+        return maxX < 0;
+    }
+
+    /**
+     * Bounding box, inclusive, of the edited pixels, of pieces that split off and of every
+     * region that lost pixels. Every border that appeared, or that is not carried over, lies
+     * within the adjacency radius of this box.
+     */
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the RGBA canvas into a {@link BinaryMask}: a pixel belongs to a region when its
+ * red channel is above {@link #THRESHOLD}, the same test the Python solver applied.
+ */
+public interface MaskThresholder {
+
+    int THRESHOLD = 128;
+
+    /**
+     * Threshold rows {@code [rowFrom, rowTo)} into {@code mask}. The target rows must be clear.
+     */
+    void threshold(int[] rgba, int rowFrom, int rowTo, BinaryMask mask);
+
+    /**
+     * As {@link #threshold(int[], int, int, BinaryMask)} for packed RGBA bytes, one byte per
+     * channel from index 0, such as a memory-mapped spool file. Absolute reads only, so
+     * several strips may share the buffer.
+     */
+    default void threshold(ByteBuffer rgba, int rowFrom, int rowTo, BinaryMask mask) {
+        int width = mask.getWidth();
+        int wordsPerRow = mask.getWordsPerRow();
+        long[] words = mask.getWords();
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int pixel = y * width;
+            int word = y * wordsPerRow;
+            for (int x = 0; x < width; x += 64) {
+                int end = Math.min(width, x + 64);
+                long bits = 0;
+                for (int i = x; i < end; i++, pixel++) {
+                    if ((rgba.get(pixel << 2) & 0xFF) > THRESHOLD) {
+                        bits |= 1L << i;
+                    }
+                }
+                words[word++] = bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.fourcolour.coloring.segmentation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the thresholder once at startup: the Vector API implementation when the JVM was
+ * started with {@code --add-modules jdk.incubator.vector} and offers at least eight int lanes
+ * (two pixels per step), the scalar one otherwise.
+ */
+public final class MaskThresholders {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaskThresholders.class);
+
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final MaskThresholder PREFERRED = select();
+
+    private MaskThresholders() {}
+
+    public static MaskThresholder preferred() {
+        return PREFERRED;
+    }
+
+    /**
+     * @return the Vector API thresholder, or {@code null} when it cannot be used on this JVM
+     */
+    public static MaskThresholder vectorized() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            if (VectorMaskThresholder.lanes() < 8) {
+                return null;
+            }
+            return new VectorMaskThresholder();
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static MaskThresholder select() {
+        MaskThresholder vector = vectorized();
+        if (vector != null) {
+            logger.info("Using Vector API mask thresholder with {} int lanes", VectorMaskThresholder.lanes());
+            return vector;
+        }
+        logger.info("Vector API unavailable, using scalar mask thresholder");
+        return new ScalarMaskThresholder();
+    }
+}
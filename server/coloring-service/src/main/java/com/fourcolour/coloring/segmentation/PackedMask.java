@@ -0,0 +1,85 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the bitmaps the gRPC interface receives: one bit per pixel in raster order, least
+ * significant bit of each byte first, set for region pixels. Rows are not padded, so a row
+ * generally starts mid-byte and is realigned into the word-aligned rows of a {@link BinaryMask}
+ * 64 bits at a time.
+ */
+public final class PackedMask {
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private PackedMask() {}
+
+    /**
+     * @throws IllegalArgumentException unless the dimensions are positive and {@code length}
+     *                                  bytes hold exactly one bit per pixel
+     */
+    public static void validate(int length, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid dimensions");
+        }
+        long expectedLength = ((long) width * height + 7) >>> 3;
+        if (length != expectedLength) {
+            throw new IllegalArgumentException("Mask length mismatch. Expected "
+                    + expectedLength + ", got " + length);
+        }
+    }
+
+    public static boolean get(byte[] bits, int pixel) {
+        return (bits[pixel >>> 3] & (1 << (pixel & 7))) != 0;
+    }
+
+    /**
+     * Copy rows {@code [rowFrom, rowTo)} into {@code mask}.
+     */
+    static void unpack(byte[] bits, int rowFrom, int rowTo, BinaryMask mask) {
+        int width = mask.getWidth();
+        int wordsPerRow = mask.getWordsPerRow();
+        long[] words = mask.getWords();
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            long bit = (long) y * width;
+            int word = y * wordsPerRow;
+            for (int x = 0; x < width; x += 64, bit += 64) {
+                long value = read64(bits, bit);
+                int count = Math.min(64, width - x);
+                if (count < 64) {
+                    value &= (1L << count) - 1;
+                }
+                words[word++] = value;
+            }
+        }
+    }
+
+    /**
+     * The 64 bits starting at {@code bit}; bits beyond the array read as zero.
+     */
+    private static long read64(byte[] bits, long bit) {
+        int index = (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        long value;
+        if (index + 9 <= bits.length) {
+            value = (long) LONGS.get(bits, index) >>> shift;
+            if (shift != 0) {
+                value |= (long) (bits[index + 8] & 0xFF) << (64 - shift);
+            }
+            return value;
+        }
+        value = 0;
+        for (int i = 0; i < 9 && index + i < bits.length; i++) {
+            int position = i * 8 - shift;
+            if (position < 64) {
+                long b = bits[index + i] & 0xFFL;
+                value |= position >= 0 ? b << position : b >>> -position;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+/**
+ * Guesses how many regions a canvas holds without labelling it, so a solve can be scheduled
+ * by cost before any work is done. Every region has a topmost run: a run of region pixels
+ * with no region pixel directly above it. Counting such runs on about
+ * {@value #SAMPLED_ROWS} row pairs and scaling up by the sampling stride estimates the region
+ * count; U-shaped regions count once per prong, which only errs towards a higher cost.
+ */
+public final class RegionCountEstimator {
+
+    static final int SAMPLED_ROWS = 256;
+
+    private RegionCountEstimator() {}
+
+    /**
+     * @return estimated region count, at least 1
+     */
+    public static int estimate(int[] rgba, int width, int height) {
+        return estimate(pixel -> rgba[pixel << 2] > MaskThresholder.THRESHOLD, width, height);
+    }
+
+    /**
+     * As {@link #estimate(int[], int, int)} for packed RGBA bytes.
+     */
+    public static int estimate(ByteBuffer rgba, int width, int height) {
+        return estimate(pixel -> (rgba.get(pixel << 2) & 0xFF) > MaskThresholder.THRESHOLD, width, height);
+    }
+
+    /**
+     * As {@link #estimate(int[], int, int)} for a bitmap packed as by {@link PackedMask}.
+     */
+    public static int estimatePacked(byte[] packedMask, int width, int height) {
+        return estimate(pixel -> PackedMask.get(packedMask, pixel), width, height);
+    }
+
+    private static int estimate(IntPredicate isRegion, int width, int height) {
+        // A power of two, so the jitter below is a plain shift
+        int stride = Integer.highestOneBit(Math.max(1, height / SAMPLED_ROWS));
+        int jitterShift = 32 - Integer.numberOfTrailingZeros(stride);
+        long tops = countTops(isRegion, width, -1, 0);
+        for (int k = 0; ; k++) {
+            // Hash the sampled row within each stride so regular grids do not alias with it
+            int y = k * stride + (stride == 1 ? 0 : (k * 0x9E3779B9) >>> jitterShift);
+            if (y + 1 >= height) {
+                break;
+            }
+            tops += countTops(isRegion, width, y, y + 1) * stride;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, tops));
+    }
+
+    /**
+     * Runs of region pixels on row {@code y} with no region pixel directly above on row
+     * {@code above}, or all runs when {@code above} is negative.
+     */
+    private static long countTops(IntPredicate isRegion, int width, int above, int y) {
+        long tops = 0;
+        boolean inRun = false;
+        boolean touchesAbove = false;
+        int row = y * width;
+        int rowAbove = above * width;
+        for (int x = 0; x < width; x++) {
+            boolean region = isRegion.test(row + x);
+            if (region) {
+                if (!inRun) {
+                    inRun = true;
+                    touchesAbove = false;
+                }
+                touchesAbove |= above >= 0 && isRegion.test(rowAbove + x);
+            } else if (inRun) {
+                inRun = false;
+                if (!touchesAbove) {
+                    tops++;
+                }
+            }
+        }
+        if (inRun && !touchesAbove) {
+            tops++;
+        }
+        return tops;
+    }
+}
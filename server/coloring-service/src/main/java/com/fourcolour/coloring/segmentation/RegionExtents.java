@@ -0,0 +1,89 @@
+package com.fourcolour.coloring.segmentation;
+
+import java.util.Arrays;
+
+/**
+ * Pixel count and bounding box of every label in a {@link LabelImage}, index 0 unused.
+ * Bounding boxes may be larger than the region after pixels are erased, never smaller.
+ */
+public final class RegionExtents {
+
+    private final int[] sizes;
+    // minX, minY, maxX, maxY per label
+    private final int[] bounds;
+
+    RegionExtents(int[] sizes, int[] bounds) {
+        this.sizes = sizes;
+        this.bounds = bounds;
+    }
+
+    public static RegionExtents of(LabelImage image) {
+        int labelCount = image.getRegionCount() + 1;
+        int[] sizes = new int[labelCount];
+        int[] bounds = emptyBounds(labelCount);
+        int width = image.getWidth();
+        int[] labels = image.getLabels();
+        for (int index = 0; index < labels.length; index++) {
+            int label = labels[index];
+            if (label != 0) {
+                sizes[label]++;
+                extend(bounds, label, index % width, index / width);
+            }
+        }
+        return new RegionExtents(sizes, bounds);
+    }
+
+    public int size(int label) {
+        return sizes[label];
+    }
+
+    public int minX(int label) {
+        return bounds[label * 4];
+    }
+
+    public int minY(int label) {
+        return bounds[label * 4 + 1];
+    }
+
+    public int maxX(int label) {
+        return bounds[label * 4 + 2];
+    }
+
+    public int maxY(int label) {
+        return bounds[label * 4 + 3];
+    }
+
+    int[] copySizes(int length) {
+        return Arrays.copyOf(sizes, length);
+    }
+
+    int[] copyBounds(int length) {
+        int[] copy = emptyBounds(length);
+        System.arraycopy(bounds, 0, copy, 0, Math.min(bounds.length, length * 4));
+        return copy;
+    }
+
+    static int[] emptyBounds(int labelCount) {
+        int[] bounds = new int[labelCount * 4];
+        for (int label = 0; label < labelCount; label++) {
+            bounds[label * 4] = Integer.MAX_VALUE;
+            bounds[label * 4 + 1] = Integer.MAX_VALUE;
+            bounds[label * 4 + 2] = -1;
+            bounds[label * 4 + 3] = -1;
+        }
+        return bounds;
+    }
+
+    static void extend(int[] bounds, int label, int x, int y) {
+        int base = label * 4;
+        bounds[base] = Math.min(bounds[base], x);
+        bounds[base + 1] = Math.min(bounds[base + 1], y);
+        bounds[base + 2] = Math.max(bounds[base + 2], x);
+        bounds[base + 3] = Math.max(bounds[base + 3], y);
+    }
+
+    static void merge(int[] bounds, int into, int from) {
+        extend(bounds, into, bounds[from * 4], bounds[from * 4 + 1]);
+        extend(bounds, into, bounds[from * 4 + 2], bounds[from * 4 + 3]);
+    }
+}
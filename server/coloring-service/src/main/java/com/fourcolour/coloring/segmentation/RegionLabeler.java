@@ -0,0 +1,173 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Thresholds an RGBA canvas and labels its 4-connected regions, equivalent to the Python
+ * solver's {@code pixel_value > 128} mask followed by {@code scipy.ndimage.label}.
+ * <p>
+ * The canvas is first packed into a {@link BinaryMask} by a {@link MaskThresholder}, then
+ * labelled with the classic two-pass algorithm: provisional labels with union-find on the
+ * first pass, then a second pass that resolves and compacts them into raster order.
+ * <p>
+ * The mask and the union-find tables come from the {@link BufferPool}; only the label array,
+ * which outlives the call, is allocated per image.
+ */
+public class RegionLabeler {
+
+    protected final MaskThresholder thresholder;
+
+    public RegionLabeler() {
+        this(MaskThresholders.preferred());
+    }
+
+    public RegionLabeler(MaskThresholder thresholder) {
+        this.thresholder = thresholder;
+    }
+
+    public LabelImage label(int[] rgba, int width, int height) {
+        validate(rgba.length, width, height);
+        return label(width, height, (rowFrom, rowTo, mask) -> thresholder.threshold(rgba, rowFrom, rowTo, mask));
+    }
+
+    /**
+     * Label packed RGBA bytes, such as an image spooled to a memory-mapped file, without
+     * copying them onto the heap.
+     */
+    public LabelImage label(ByteBuffer rgba, int width, int height) {
+        validate(rgba.limit(), width, height);
+        return label(width, height, (rowFrom, rowTo, mask) -> thresholder.threshold(rgba, rowFrom, rowTo, mask));
+    }
+
+    /**
+     * Label a mask that was thresholded by the client and packed as by {@link PackedMask}.
+     */
+    public LabelImage labelPacked(byte[] packedMask, int width, int height) {
+        PackedMask.validate(packedMask.length, width, height);
+        return label(width, height, (rowFrom, rowTo, mask) -> PackedMask.unpack(packedMask, rowFrom, rowTo, mask));
+    }
+
+    protected LabelImage label(int width, int height, MaskSource source) {
+        BufferPool buffers = BufferPool.shared();
+        long[] words = buffers.takeLongs(BinaryMask.wordsFor(width, height));
+        BinaryMask mask = new BinaryMask(width, height, words);
+        source.threshold(0, height, mask);
+        int[] labels = new int[width * height];
+        int regionCount = labelRows(mask, 0, height, labels);
+        buffers.give(words);
+        return new LabelImage(width, height, labels, regionCount);
+    }
+
+    static void validate(int length, int width, int height) {
+        long expectedLength = (long) width * height * 4;
+        if (length != expectedLength) {
+            throw new IllegalArgumentException("Image data length mismatch. Expected "
+                    + expectedLength + ", got " + length);
+        }
+    }
+
+    /**
+     * Thresholds rows of whichever canvas representation is being labelled.
+     */
+    @FunctionalInterface
+    protected interface MaskSource {
+        void threshold(int rowFrom, int rowTo, BinaryMask mask);
+    }
+
+    /**
+     * Label rows {@code [rowFrom, rowTo)} as if they were an image of their own. Labels written
+     * to {@code labels} run from {@code 1} in raster order within the strip.
+     *
+     * @return the number of regions found in the strip
+     */
+    static int labelRows(BinaryMask mask, int rowFrom, int rowTo, int[] labels) {
+        int width = mask.getWidth();
+        int wordsPerRow = mask.getWordsPerRow();
+        long[] words = mask.getWords();
+        int firstIndex = rowFrom * width;
+        int lastIndex = rowTo * width;
+        BufferPool buffers = BufferPool.shared();
+        // parent[0] is unused; provisional labels start at 1
+        int[] parent = buffers.takeInts((lastIndex - firstIndex) / 2 + 2);
+        int next = 1;
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int row = y * width;
+            int rowWord = y * wordsPerRow;
+            long bits = 0;
+            for (int x = 0; x < width; x++) {
+                int index = row + x;
+                if ((x & 63) == 0) {
+                    bits = words[rowWord + (x >>> 6)];
+                }
+                if ((bits & (1L << x)) == 0) {
+                    labels[index] = 0;
+                    continue;
+                }
+                int left = x > 0 ? labels[index - 1] : 0;
+                int up = y > rowFrom ? labels[index - width] : 0;
+
+                if (left == 0 && up == 0) {
+                    if (next == parent.length) {
+                        parent = Arrays.copyOf(parent, parent.length * 2);
+                    }
+                    parent[next] = next;
+                    labels[index] = next++;
+                } else if (left == 0) {
+                    labels[index] = up;
+                } else if (up == 0) {
+                    labels[index] = left;
+                } else {
+                    labels[index] = left;
+                    union(parent, left, up);
+                }
+            }
+        }
+
+        int[] compact = buffers.takeZeroedInts(next);
+        int regionCount = 0;
+        for (int index = firstIndex; index < lastIndex; index++) {
+            int provisional = labels[index];
+            if (provisional == 0) {
+                continue;
+            }
+            int root = find(parent, provisional);
+            if (compact[root] == 0) {
+                compact[root] = ++regionCount;
+            }
+            labels[index] = compact[root];
+        }
+        buffers.give(parent);
+        buffers.give(compact);
+        return regionCount;
+    }
+
+    static int find(int[] parent, int label) {
+        int root = label;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[label] != root) {
+            int nextLabel = parent[label];
+            parent[label] = root;
+            label = nextLabel;
+        }
+        return root;
+    }
+
+    static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            // Keep the smaller label as root so raster order is preserved cheaply
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else {
+                parent[rootA] = rootB;
+            }
+        }
+    }
+}
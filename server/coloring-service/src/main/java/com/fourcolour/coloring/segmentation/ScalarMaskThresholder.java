@@ -0,0 +1,29 @@
+package com.fourcolour.coloring.segmentation;
+
+/**
+ * Portable thresholder that packs 64 pixels per word with plain loops.
+ */
+public class ScalarMaskThresholder implements MaskThresholder {
+
+    @Override
+    public void threshold(int[] rgba, int rowFrom, int rowTo, BinaryMask mask) {
+        int width = mask.getWidth();
+        int wordsPerRow = mask.getWordsPerRow();
+        long[] words = mask.getWords();
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int pixel = y * width;
+            int word = y * wordsPerRow;
+            for (int x = 0; x < width; x += 64) {
+                int end = Math.min(width, x + 64);
+                long bits = 0;
+                for (int i = x; i < end; i++, pixel++) {
+                    if (rgba[pixel << 2] > THRESHOLD) {
+                        bits |= 1L << i;
+                    }
+                }
+                words[word++] = bits;
+            }
+        }
+    }
+}
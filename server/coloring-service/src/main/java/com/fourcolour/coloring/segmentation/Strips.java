@@ -0,0 +1,21 @@
+package com.fourcolour.coloring.segmentation;
+
+/**
+ * Splits image rows into horizontal strips for the tiled segmentation stages.
+ */
+final class Strips {
+
+    private Strips() {}
+
+    /**
+     * @return strip boundaries: strip {@code s} covers rows {@code [result[s], result[s + 1])}
+     */
+    static int[] split(int height, int parallelism, int minStripRows) {
+        int strips = Math.max(1, Math.min(parallelism, height / minStripRows));
+        int[] start = new int[strips + 1];
+        for (int s = 0; s <= strips; s++) {
+            start[s] = (int) ((long) height * s / strips);
+        }
+        return start;
+    }
+}
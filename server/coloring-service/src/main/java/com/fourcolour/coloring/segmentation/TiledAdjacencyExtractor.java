@@ -0,0 +1,60 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.engine.RegionGraph;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel variant of {@link AdjacencyExtractor}. Run tables are built per horizontal strip,
+ * joined, and each strip then collects the edges of its own rows into a private edge set
+ * (looking across the seam into the rows below). The per-strip edge sets are merged into one
+ * graph at the end.
+ */
+public class TiledAdjacencyExtractor extends AdjacencyExtractor {
+
+    private final ForkJoinPool pool;
+    private final int minStripRows;
+
+    public TiledAdjacencyExtractor(ForkJoinPool pool) {
+        this(pool, DEFAULT_FUZZINESS, TiledRegionLabeler.DEFAULT_MIN_STRIP_ROWS);
+    }
+
+    public TiledAdjacencyExtractor(ForkJoinPool pool, int fuzziness, int minStripRows) {
+        super(fuzziness);
+        if (minStripRows < 1) {
+            throw new IllegalArgumentException("Strips must have at least one row");
+        }
+        this.pool = pool;
+        this.minStripRows = minStripRows;
+    }
+
+    @Override
+    public RegionGraph extract(LabelImage image) {
+        int height = image.getHeight();
+        int regionCount = image.getRegionCount();
+        int[] stripStart = Strips.split(height, pool.getParallelism(), minStripRows);
+        int strips = stripStart.length - 1;
+
+        Runs[] parts = new Runs[strips];
+        TiledRegionLabeler.invokeAll(pool, strips,
+                s -> parts[s] = Runs.of(image, stripStart[s], stripStart[s + 1]));
+        Runs runs = Runs.concat(parts, stripStart);
+        for (Runs part : parts) {
+            part.release();
+        }
+
+        RegionGraph.Builder[] builders = new RegionGraph.Builder[strips];
+        TiledRegionLabeler.invokeAll(pool, strips, s -> {
+            builders[s] = RegionGraph.builder(regionCount);
+            extractRows(runs, height, stripStart[s], stripStart[s + 1], builders[s], regionCount);
+        });
+        runs.release();
+
+        RegionGraph.Builder merged = builders[0];
+        for (int s = 1; s < strips; s++) {
+            merged.addAll(builders[s]);
+            builders[s].discard();
+        }
+        return merged.build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.buffer.BufferPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Labels horizontal strips of the image in parallel and stitches them together.
+ * <p>
+ * Each strip is thresholded and labelled independently with {@link RegionLabeler#labelRows}. Strip labels are
+ * then shifted into one global range, regions touching across each seam are merged with
+ * union-find, and a final parallel pass rewrites every pixel with its compacted label. Because
+ * union-find keeps the smallest label as root, the result is numbered in the same raster
+ * order as the sequential labeller.
+ */
+public class TiledRegionLabeler extends RegionLabeler {
+
+    public static final int DEFAULT_MIN_STRIP_ROWS = 64;
+
+    private final ForkJoinPool pool;
+    private final int minStripRows;
+
+    public TiledRegionLabeler(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_STRIP_ROWS);
+    }
+
+    public TiledRegionLabeler(ForkJoinPool pool, int minStripRows) {
+        this(pool, minStripRows, MaskThresholders.preferred());
+    }
+
+    public TiledRegionLabeler(ForkJoinPool pool, int minStripRows, MaskThresholder thresholder) {
+        super(thresholder);
+        if (minStripRows < 1) {
+            throw new IllegalArgumentException("Strips must have at least one row");
+        }
+        this.pool = pool;
+        this.minStripRows = minStripRows;
+    }
+
+    @Override
+    protected LabelImage label(int width, int height, MaskSource source) {
+        int[] stripStart = Strips.split(height, pool.getParallelism(), minStripRows);
+        int strips = stripStart.length - 1;
+        BufferPool buffers = BufferPool.shared();
+        long[] words = buffers.takeLongs(BinaryMask.wordsFor(width, height));
+        BinaryMask mask = new BinaryMask(width, height, words);
+        int[] labels = new int[width * height];
+
+        int[] counts = new int[strips];
+        invokeAll(pool, strips, s -> {
+            source.threshold(stripStart[s], stripStart[s + 1], mask);
+            counts[s] = labelRows(mask, stripStart[s], stripStart[s + 1], labels);
+        });
+        buffers.give(words);
+
+        int[] offset = new int[strips];
+        int total = 0;
+        for (int s = 0; s < strips; s++) {
+            offset[s] = total;
+            total += counts[s];
+        }
+
+        int[] parent = buffers.takeInts(total + 1);
+        for (int label = 0; label <= total; label++) {
+            parent[label] = label;
+        }
+        for (int s = 1; s < strips; s++) {
+            int below = stripStart[s] * width;
+            int above = below - width;
+            for (int x = 0; x < width; x++) {
+                int up = labels[above + x];
+                int down = labels[below + x];
+                if (up != 0 && down != 0) {
+                    union(parent, up + offset[s - 1], down + offset[s]);
+                }
+            }
+        }
+
+        // Roots are the smallest label of their set, so numbering roots in label order
+        // reproduces raster order; every other label follows its (smaller) root
+        int[] compact = buffers.takeInts(total + 1);
+        int regionCount = 0;
+        for (int label = 1; label <= total; label++) {
+            int root = find(parent, label);
+            compact[label] = root == label ? ++regionCount : compact[root];
+        }
+
+        invokeAll(pool, strips, s -> {
+            int shift = offset[s];
+            int to = stripStart[s + 1] * width;
+            for (int index = stripStart[s] * width; index < to; index++) {
+                if (labels[index] != 0) {
+                    labels[index] = compact[labels[index] + shift];
+                }
+            }
+        });
+        buffers.give(parent);
+        buffers.give(compact);
+
+        return new LabelImage(width, height, labels, regionCount);
+    }
+
+    static void invokeAll(ForkJoinPool pool, int strips, IntConsumer task) {
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(strips);
+            for (int s = 0; s < strips; s++) {
+                int strip = s;
+                tasks.add(ForkJoinTask.adapt(() -> task.accept(strip)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }));
+    }
+}
@@ -0,0 +1,61 @@
+package com.fourcolour.coloring.segmentation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Thresholder built on the JDK Vector API. Each step loads one vector of consecutive RGBA
+ * ints, compares every lane against the threshold at once and keeps the red-channel bits of
+ * the lane mask with {@link Long#compress}, which the JIT lowers to a single bit-extract on
+ * hardware that has one. A step covers {@code lanes / 4} pixels; since that is a power of two
+ * no larger than 64, a step never straddles two words.
+ * <p>
+ * Only loaded through {@link MaskThresholders} when the {@code jdk.incubator.vector} module is
+ * present at runtime.
+ */
+final class VectorMaskThresholder implements MaskThresholder {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int PIXELS_PER_STEP = LANES / 4;
+    private static final long RED_LANES;
+
+    static {
+        long redLanes = 0;
+        for (int lane = 0; lane < LANES; lane += 4) {
+            redLanes |= 1L << lane;
+        }
+        RED_LANES = redLanes;
+    }
+
+    static int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public void threshold(int[] rgba, int rowFrom, int rowTo, BinaryMask mask) {
+        int width = mask.getWidth();
+        int wordsPerRow = mask.getWordsPerRow();
+        long[] words = mask.getWords();
+        int vectorBound = width - width % PIXELS_PER_STEP;
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int rowPixel = y * width;
+            int rowWord = y * wordsPerRow;
+
+            int x = 0;
+            for (; x < vectorBound; x += PIXELS_PER_STEP) {
+                long lanes = IntVector.fromArray(SPECIES, rgba, (rowPixel + x) << 2)
+                        .compare(VectorOperators.GT, THRESHOLD)
+                        .toLong();
+                words[rowWord + (x >>> 6)] |= Long.compress(lanes, RED_LANES) << (x & 63);
+            }
+            for (; x < width; x++) {
+                if (rgba[(rowPixel + x) << 2] > THRESHOLD) {
+                    words[rowWord + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+    }
+}
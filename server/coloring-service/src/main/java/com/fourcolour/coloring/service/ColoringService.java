@@ -0,0 +1,362 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.dto.IncrementalSolveRequest;
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.ComponentStats;
+import com.fourcolour.coloring.engine.Deadline;
+import com.fourcolour.coloring.engine.GraphColoringEngine;
+import com.fourcolour.coloring.engine.IncrementalRecoloring;
+import com.fourcolour.coloring.engine.RegionGraph;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.coloring.segmentation.AdjacencyExtractor;
+import com.fourcolour.coloring.segmentation.IncrementalRelabeler;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.coloring.segmentation.LabelPatch;
+import com.fourcolour.coloring.segmentation.PackedMask;
+import com.fourcolour.coloring.segmentation.RegionCountEstimator;
+import com.fourcolour.coloring.segmentation.RegionLabeler;
+import com.fourcolour.coloring.segmentation.TiledAdjacencyExtractor;
+import com.fourcolour.coloring.segmentation.TiledRegionLabeler;
+import com.fourcolour.common.service.LoggerClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Service
+public class ColoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColoringService.class);
+
+    private final RegionLabeler regionLabeler = new RegionLabeler();
+    private final AdjacencyExtractor adjacencyExtractor = new AdjacencyExtractor();
+    private final RegionLabeler tiledRegionLabeler = new TiledRegionLabeler(ForkJoinPool.commonPool());
+    private final AdjacencyExtractor tiledAdjacencyExtractor = new TiledAdjacencyExtractor(ForkJoinPool.commonPool());
+    private final GraphColoringEngine engine = new GraphColoringEngine();
+    private final IncrementalRelabeler incrementalRelabeler = new IncrementalRelabeler();
+    private final IncrementalRecoloring incrementalRecoloring = new IncrementalRecoloring();
+    // Cancellation flags of queued and running solves the caller named, by request id
+    private final Map<String, AtomicBoolean> cancellableSolves = new ConcurrentHashMap<>();
+
+    // Images at least this large are segmented in parallel strips; 0 disables tiling
+    @Value("${coloring.segmentation.tiled-min-pixels:4000000}")
+    private long tiledMinPixels;
+
+    // Raw uploads are spooled so their size does not land on the heap; keeping their label
+    // image for incremental re-solves would put it back there, so by default they are not cached
+    @Value("${coloring.spool.cache-solves:false}")
+    private boolean cacheSpooledSolves;
+
+    // Longest a solve may search, and the budget when the caller sends none; 0 means unbounded
+    @Value("${coloring.solve.max-budget-ms:30000}")
+    private long maxBudgetMillis;
+
+    @Autowired
+    private LoggerClient loggerClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SolveCache solveCache;
+
+    @Autowired
+    private SolveScheduler solveScheduler;
+
+    @Autowired
+    private ImageSpool imageSpool;
+
+    public MapSolution solve(SolveRequest request) {
+        return solve(request, null);
+    }
+
+    /**
+     * Queue the solve on the {@link SolveScheduler} by its estimated cost and wait for it. The
+     * budget starts now, so time spent queueing counts against it.
+     *
+     * @param budgetMillis how long the caller will wait, or {@code null} for the configured
+     *                     maximum; larger budgets are capped to it
+     * @throws SolveRejectedException if the scheduler sheds the solve
+     */
+    public MapSolution solve(SolveRequest request, Long budgetMillis) {
+        return solve(request, budgetMillis, null);
+    }
+
+    /**
+     * As {@link #solve(SolveRequest, Long)}, registering the solve under {@code requestId} so
+     * that {@link #cancel(String)} can abandon it while it is queued or running.
+     *
+     * @param requestId caller-chosen id, unique among solves in flight, or {@code null}
+     * @throws SolveCancelledException if the solve is cancelled before it finishes
+     */
+    public MapSolution solve(SolveRequest request, Long budgetMillis, String requestId) {
+        Deadline deadline = deadline(budgetMillis);
+        validate(request);
+
+        int width = request.getWidth();
+        int height = request.getHeight();
+        long cost = (long) width * height * RegionCountEstimator.estimate(request.getImage(), width, height);
+        SolveListener listener = register(requestId);
+        try {
+            return solveScheduler.run(cost, () -> solveNow(width, height, request.getUserId(), deadline,
+                    listener, true, labeler -> labeler.label(request.getImage(), width, height)));
+        } finally {
+            if (requestId != null) {
+                cancellableSolves.remove(requestId);
+            }
+        }
+    }
+
+    /**
+     * Ask the solve registered under {@code requestId} to stop. A queued solve never starts;
+     * a running one is abandoned at its next cancellation check.
+     *
+     * @return whether a solve with that id was in flight
+     */
+    public boolean cancel(String requestId) {
+        AtomicBoolean cancelled = cancellableSolves.get(requestId);
+        if (cancelled == null) {
+            return false;
+        }
+        cancelled.set(true);
+        return true;
+    }
+
+    private SolveListener register(String requestId) {
+        if (requestId == null) {
+            return SolveListener.NONE;
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        if (cancellableSolves.putIfAbsent(requestId, cancelled) != null) {
+            throw new IllegalArgumentException("Solve request id already in use");
+        }
+        return new SolveListener() {
+            @Override
+            public void onProgress(SolveProgress progress) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+    }
+
+    /**
+     * Solve a canvas uploaded as raw RGBA bytes. The body is spooled to a memory-mapped file
+     * and labelled from there, so the image never occupies the heap. Unless
+     * {@code coloring.spool.cache-solves} is set, the solve is not kept for incremental
+     * re-solves and has no solve ID.
+     *
+     * @param budgetMillis as for {@link #solve(SolveRequest, Long)}
+     * @throws SolveRejectedException if the scheduler sheds the solve
+     */
+    public MapSolution solveRaw(InputStream rgba, int width, int height, String userId, Long budgetMillis) {
+        Deadline deadline = deadline(budgetMillis);
+        try (SpooledImage image = imageSpool.spool(rgba, width, height)) {
+            long cost = (long) width * height * RegionCountEstimator.estimate(image.getPixels(), width, height);
+            return solveScheduler.run(cost, () -> solveNow(width, height, userId, deadline,
+                    SolveListener.NONE, cacheSpooledSolves, labeler -> labeler.label(image.getPixels(), width, height)));
+        }
+    }
+
+    /**
+     * Solve a mask the client has already thresholded and packed one bit per pixel, as sent
+     * over gRPC. {@code listener} hears each phase as it completes, and can cancel the solve.
+     *
+     * @param budgetMillis as for {@link #solve(SolveRequest, Long)}
+     * @throws SolveRejectedException if the scheduler sheds the solve
+     * @throws SolveCancelledException if the listener cancels the solve before it finishes
+     */
+    public MapSolution solvePacked(byte[] packedMask, int width, int height, String userId, Long budgetMillis,
+                                   SolveListener listener) {
+        Deadline deadline = deadline(budgetMillis);
+        PackedMask.validate(packedMask.length, width, height);
+
+        long cost = (long) width * height * RegionCountEstimator.estimatePacked(packedMask, width, height);
+        return solveScheduler.run(cost, () -> solveNow(width, height, userId, deadline,
+                listener, true, labeler -> labeler.labelPacked(packedMask, width, height)));
+    }
+
+    private MapSolution solveNow(int width, int height, String requestUserId, Deadline deadline,
+                                 SolveListener listener, boolean cacheable,
+                                 Function<RegionLabeler, LabelImage> labelling) {
+        String userId = requestUserId != null ? requestUserId : "unknown";
+        long begin = System.nanoTime();
+        // Checked between phases here and inside the search by the engine
+        Deadline cancellable = deadline.cancelledWhen(listener::isCancelled);
+
+        boolean tiled = tiledMinPixels > 0 && (long) width * height >= tiledMinPixels;
+        RegionLabeler labeler = tiled ? tiledRegionLabeler : regionLabeler;
+        AdjacencyExtractor extractor = tiled ? tiledAdjacencyExtractor : adjacencyExtractor;
+
+        LabelImage labelImage;
+        RegionGraph graph;
+        ColoringResult result;
+        try {
+            // A solve whose caller left while it was queued stops before doing any work
+            cancellable.checkCancelled();
+            listener.onProgress(new SolveProgress(SolveProgress.Stage.INGESTED, -1, -1, 0, 0));
+
+            labelImage = labelling.apply(labeler);
+            int regionCount = labelImage.getRegionCount();
+            cancellable.checkCancelled();
+            listener.onProgress(new SolveProgress(SolveProgress.Stage.LABELLED,
+                    regionCount, -1, 0, System.nanoTime() - begin));
+            RegionGraph extracted = extractor.extract(labelImage);
+            graph = extracted;
+            cancellable.checkCancelled();
+            listener.onProgress(new SolveProgress(SolveProgress.Stage.GRAPH_BUILT,
+                    regionCount, graph.edgeCount(), 0, System.nanoTime() - begin));
+            result = engine.solve(graph, cancellable, colored -> listener.onProgress(new SolveProgress(
+                    SolveProgress.Stage.COLORING, regionCount, extracted.edgeCount(), colored,
+                    System.nanoTime() - begin)));
+        } catch (SolveCancelledException e) {
+            logger.info("Abandoned solve for user {} after {} ms; the caller cancelled", userId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            meterRegistry.counter("coloring.solves.cancelled").increment();
+            throw e;
+        }
+
+        double processingSeconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        long slowestComponentNanos = result.getComponents().stream()
+                .mapToLong(ComponentStats::getElapsedNanos)
+                .max()
+                .orElse(0L);
+        logger.info("Coloured map with {} regions ({} in core) in {} components and {} edges via {} in {} seconds",
+                labelImage.getRegionCount(), result.getCoreSize(), result.getComponentCount(), graph.edgeCount(),
+                result.getPath(), String.format("%.2f", processingSeconds));
+
+        meterRegistry.counter("coloring.solves", "path", result.getPath().name()).increment();
+        recordBudgetExhaustion(result);
+        if (result.getRegionCount() > 0) {
+            meterRegistry.summary("coloring.core.ratio")
+                    .record((double) result.getCoreSize() / result.getRegionCount());
+        }
+
+        try {
+            loggerClient.logEvent(
+                    "coloring-service",
+                    "map_coloring_completed",
+                    userId,
+                    "Successfully colored map",
+                    1,
+                    Map.of(
+                            "processing_time", String.format("%.2f", processingSeconds),
+                            "vertices", String.valueOf(labelImage.getRegionCount()),
+                            "core_vertices", String.valueOf(result.getCoreSize()),
+                            "edges", String.valueOf(graph.edgeCount()),
+                            "components", String.valueOf(result.getComponentCount()),
+                            "slowest_component_ms", String.format("%.2f", slowestComponentNanos / 1_000_000.0),
+                            "solve_path", result.getPath().name(),
+                            "greedy_uncolored", String.valueOf(result.getGreedyUncolored()),
+                            "complete", String.valueOf(result.isComplete()),
+                            "conflicts", String.valueOf(result.getConflicts())
+                    )
+            );
+        } catch (Exception e) {
+            logger.warn("Failed to log map coloring event: {}", e.getMessage());
+        }
+
+        String solveId = cacheable ? solveCache.put(new SolveSnapshot(labelImage, graph, result.getColors())) : null;
+        return new MapSolution(labelImage, result, graph.edgeCount(), solveId);
+    }
+
+    /**
+     * Re-solve a cached solve after a pixel edit, relabelling and recolouring only around it.
+     *
+     * @return the new solution, or {@code null} if the previous solve is no longer cached
+     */
+    public MapSolution solveIncremental(IncrementalSolveRequest request) {
+        return solveIncremental(request, null);
+    }
+
+    /**
+     * @param budgetMillis as for {@link #solve(SolveRequest, Long)}
+     */
+    public MapSolution solveIncremental(IncrementalSolveRequest request, Long budgetMillis) {
+        Deadline deadline = deadline(budgetMillis);
+        if (request == null || request.getPreviousSolveId() == null || request.getPixels() == null) {
+            throw new IllegalArgumentException("Missing required fields");
+        }
+        SolveSnapshot previous = solveCache.get(request.getPreviousSolveId());
+        if (previous == null) {
+            return null;
+        }
+
+        long begin = System.nanoTime();
+        LabelPatch patch = incrementalRelabeler.apply(
+                previous.getLabelImage(), previous.getExtents(), request.getPixels());
+        LabelImage labelImage = patch.getImage();
+
+        RegionGraph graph = previous.getGraph();
+        int vertexCount = labelImage.getRegionCount();
+        if (!patch.isEmpty() || vertexCount != graph.vertexCount()) {
+            // Borders that appeared or were not carried over lie within the radius of the box
+            int margin = adjacencyExtractor.getRadius() + 1;
+            RegionGraph.Builder windowEdges = patch.isEmpty()
+                    ? RegionGraph.builder(vertexCount)
+                    : adjacencyExtractor.extractWindow(labelImage,
+                            Math.max(0, patch.getMinX() - margin),
+                            Math.max(0, patch.getMinY() - margin),
+                            Math.min(labelImage.getWidth() - 1, patch.getMaxX() + margin),
+                            Math.min(labelImage.getHeight() - 1, patch.getMaxY() + margin),
+                            vertexCount);
+            graph = incrementalRecoloring.patchGraph(graph, v -> patch.carryOver(v + 1) - 1, windowEdges);
+        }
+        ColoringResult result = incrementalRecoloring.recolor(graph, previous.getColors(), deadline);
+
+        long elapsedNanos = System.nanoTime() - begin;
+        logger.info("Incrementally re-coloured map with {} changed pixels: {} regions, {} recoloured via {} in {} ms",
+                request.getPixels().length / 3, vertexCount, result.getGreedyUncolored(), result.getPath(),
+                String.format("%.2f", elapsedNanos / 1_000_000.0));
+        meterRegistry.counter("coloring.solves", "path", result.getPath().name()).increment();
+        recordBudgetExhaustion(result);
+        meterRegistry.timer("coloring.incremental.duration").record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        String solveId = solveCache.put(new SolveSnapshot(labelImage, graph, result.getColors(), patch.getExtents()));
+        return new MapSolution(labelImage, result, graph.edgeCount(), solveId);
+    }
+
+    private Deadline deadline(Long budgetMillis) {
+        if (budgetMillis != null && budgetMillis <= 0) {
+            throw new IllegalArgumentException("Solve budget must be positive");
+        }
+        long budget = budgetMillis == null ? maxBudgetMillis
+                : maxBudgetMillis > 0 ? Math.min(budgetMillis, maxBudgetMillis) : budgetMillis;
+        return budget > 0 ? Deadline.after(budget, TimeUnit.MILLISECONDS) : Deadline.NONE;
+    }
+
+    private void recordBudgetExhaustion(ColoringResult result) {
+        if (!result.isComplete()) {
+            logger.warn("Solve budget exhausted; returning best effort with {} conflicts", result.getConflicts());
+            meterRegistry.counter("coloring.budget.exhausted").increment();
+        }
+    }
+
+    private void validate(SolveRequest request) {
+        if (request == null || request.getImage() == null
+                || request.getWidth() == null || request.getHeight() == null) {
+            throw new IllegalArgumentException("Missing required fields");
+        }
+        if (request.getWidth() <= 0 || request.getHeight() <= 0) {
+            throw new IllegalArgumentException("Invalid dimensions");
+        }
+        long expectedLength = (long) request.getWidth() * request.getHeight() * 4;
+        if (request.getImage().length != expectedLength) {
+            throw new IllegalArgumentException("Image data length mismatch. Expected "
+                    + expectedLength + ", got " + request.getImage().length);
+        }
+    }
+}
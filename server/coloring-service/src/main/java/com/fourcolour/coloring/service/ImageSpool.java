@@ -0,0 +1,99 @@
+package com.fourcolour.coloring.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes raw RGBA uploads to temporary files and maps them read-only, so a large canvas is
+ * labelled straight from the page cache instead of being decoded into a heap array first.
+ * Heap use per upload is one copy buffer, whatever the image size.
+ */
+@Component
+public class ImageSpool {
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    // Empty means the JVM's temporary directory
+    @Value("${coloring.spool.directory:}")
+    private String directory;
+
+    // Largest upload accepted; a mapping cannot exceed 2 GiB
+    @Value("${coloring.spool.max-bytes:1073741824}")
+    private long maxBytes;
+
+    /**
+     * Copy exactly {@code width * height * 4} bytes from {@code body} to a spool file.
+     *
+     * @throws IllegalArgumentException if the upload is too large or not exactly that long
+     */
+    public SpooledImage spool(InputStream body, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid dimensions");
+        }
+        long expectedBytes = (long) width * height * 4;
+        if (expectedBytes > Math.min(maxBytes, Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Image of " + expectedBytes + " bytes exceeds the "
+                    + Math.min(maxBytes, Integer.MAX_VALUE) + " byte upload limit");
+        }
+
+        Path file = null;
+        try {
+            file = directory.isEmpty()
+                    ? Files.createTempFile("canvas-", ".rgba")
+                    : Files.createTempFile(Path.of(directory), "canvas-", ".rgba");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long written = copy(body, channel, expectedBytes);
+                if (written != expectedBytes) {
+                    throw new IllegalArgumentException("Image data length mismatch. Expected "
+                            + expectedBytes + ", got " + written);
+                }
+                MappedByteBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedBytes);
+                return new SpooledImage(file, pixels, width, height);
+            }
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Failed to spool image", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    /**
+     * @return bytes copied, stopping one past {@code limit} so oversized bodies are caught
+     */
+    private static long copy(InputStream body, FileChannel channel, long limit) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
+        long written = 0;
+        int read;
+        while (written <= limit && (read = body.read(buffer)) != -1) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            written += read;
+        }
+        return written;
+    }
+
+    static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Temporary files are cleaned up by the OS eventually
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.MapColor;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.common.dto.RegionLabelBitmap;
+import com.fourcolour.common.dto.RunLengthMatrix;
+
+/**
+ * Everything produced by one solve: the segmented regions, the engine outcome and the
+ * region graph size.
+ */
+public class MapSolution {
+
+    private final LabelImage labelImage;
+    private final ColoringResult result;
+    private final int edgeCount;
+    private final String solveId;
+
+    public MapSolution(LabelImage labelImage, ColoringResult result, int edgeCount) {
+        this(labelImage, result, edgeCount, null);
+    }
+
+    public MapSolution(LabelImage labelImage, ColoringResult result, int edgeCount, String solveId) {
+        this.labelImage = labelImage;
+        this.result = result;
+        this.edgeCount = edgeCount;
+        this.solveId = solveId;
+    }
+
+    public LabelImage getLabelImage() {
+        return labelImage;
+    }
+
+    public ColoringResult getResult() {
+        return result;
+    }
+
+    public int getRegionCount() {
+        return labelImage.getRegionCount();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * ID under which this solve can be re-solved incrementally, or {@code null} if it was not cached.
+     */
+    public String getSolveId() {
+        return solveId;
+    }
+
+    /**
+     * Render the colouring as the {@code height x width x 3} RGB matrix the client expects.
+     * Border pixels stay black.
+     */
+    public int[][][] toRgbMatrix() {
+        int width = labelImage.getWidth();
+        int height = labelImage.getHeight();
+        int[] labels = labelImage.getLabels();
+        int[] colors = result.getColors();
+
+        int[][][] matrix = new int[height][width][];
+        int[] black = {0, 0, 0};
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int label = labels[y * width + x];
+                if (label == 0) {
+                    matrix[y][x] = black.clone();
+                } else {
+                    MapColor color = MapColor.of(colors[label - 1]);
+                    matrix[y][x] = new int[]{color.getRed(), color.getGreen(), color.getBlue()};
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Render the colouring as per-row colour runs. Runs follow colours rather than labels, so
+     * neighbouring regions that happen to share a colour collapse into one run.
+     */
+    public RunLengthMatrix toRunLengthMatrix() {
+        int width = labelImage.getWidth();
+        int height = labelImage.getHeight();
+        int[] labels = labelImage.getLabels();
+        int[] colors = result.getColors();
+
+        int[] palette = packedPalette();
+
+        int[][] rows = new int[height][];
+        int[] packed = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int label = labels[y * width + x];
+                packed[x] = label == 0 ? 0 : palette[colors[label - 1]];
+            }
+            rows[y] = RunLengthMatrix.encodeRow(packed, width);
+        }
+        return new RunLengthMatrix(width, height, rows);
+    }
+
+    /**
+     * Split the colouring into the compressed label bitmap and a per-region colour table, for
+     * clients that recolour regions themselves.
+     */
+    public RegionColoring toRegionColoring() {
+        int[] colors = result.getColors();
+        int[] palette = packedPalette();
+
+        int[] regionColors = new int[colors.length + 1];
+        for (int region = 0; region < colors.length; region++) {
+            regionColors[region + 1] = palette[colors[region]];
+        }
+
+        RegionLabelBitmap labels = RegionLabelBitmap.encode(labelImage.getLabels(),
+                labelImage.getWidth(), labelImage.getHeight(), labelImage.getRegionCount());
+        return new RegionColoring(labels, regionColors);
+    }
+
+    private static int[] packedPalette() {
+        int[] palette = new int[MapColor.COUNT];
+        for (MapColor color : MapColor.values()) {
+            palette[color.ordinal()] = RunLengthMatrix.pack(color.getRed(), color.getGreen(), color.getBlue());
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,52 @@
+package com.fourcolour.coloring.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Recent solves kept in memory so edits can be re-solved incrementally. Bounded by total
+ * pixel count rather than entry count, since one 8K snapshot weighs as much as a hundred
+ * small ones; least recently used snapshots are evicted first.
+ */
+@Component
+public class SolveCache {
+
+    private final Map<String, SolveSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPixels;
+
+    // 0 disables caching, and with it incremental re-solves
+    @Value("${coloring.incremental.cache-max-pixels:50000000}")
+    private long maxPixels;
+
+    /**
+     * @return the ID to pass as {@code previousSolveId}, or {@code null} if the snapshot was not kept
+     */
+    public synchronized String put(SolveSnapshot snapshot) {
+        if (snapshot.getPixelCount() > maxPixels) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        snapshots.put(id, snapshot);
+        cachedPixels += snapshot.getPixelCount();
+
+        Iterator<SolveSnapshot> eldest = snapshots.values().iterator();
+        while (cachedPixels > maxPixels && eldest.hasNext()) {
+            cachedPixels -= eldest.next().getPixelCount();
+            eldest.remove();
+        }
+        return id;
+    }
+
+    public synchronized SolveSnapshot get(String id) {
+        return id == null ? null : snapshots.get(id);
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+}
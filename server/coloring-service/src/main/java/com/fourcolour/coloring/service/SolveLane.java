@@ -0,0 +1,14 @@
+package com.fourcolour.coloring.service;
+
+/**
+ * Priority lanes of the {@link SolveScheduler}, from most to least urgent. A solve's lane is
+ * chosen from its estimated cost, pixels times regions.
+ */
+public enum SolveLane {
+    /** Canvas-sized maps a user is waiting on. */
+    INTERACTIVE,
+    /** Large but ordinary maps. */
+    STANDARD,
+    /** Very large or very fragmented maps that would hold a worker for seconds. */
+    BULK
+}
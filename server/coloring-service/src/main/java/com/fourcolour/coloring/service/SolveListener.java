@@ -0,0 +1,22 @@
+package com.fourcolour.coloring.service;
+
+/**
+ * Receives {@link SolveProgress} events from the worker running a solve, in stage order and
+ * before the solve returns.
+ */
+@FunctionalInterface
+public interface SolveListener {
+
+    SolveListener NONE = progress -> {};
+
+    void onProgress(SolveProgress progress);
+
+    /**
+     * Polled by the worker between phases and during the search; once this returns true the
+     * solve is abandoned with a {@link com.fourcolour.coloring.engine.SolveCancelledException}.
+     * Called from solving threads, so it must be cheap and thread-safe.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.fourcolour.coloring.service;
+
+/**
+ * A phase of a solve that has just finished, with what is known about the map so far.
+ * Counts not yet known are {@code -1}.
+ */
+public class SolveProgress {
+
+    public enum Stage {
+        /** Left the scheduler queue and started on a worker */
+        INGESTED,
+        /** Regions labelled; the region count is known */
+        LABELLED,
+        /** Region graph built; the edge count is known */
+        GRAPH_BUILT,
+        /** More connected components coloured; repeated until every region is */
+        COLORING
+    }
+
+    private final Stage stage;
+    private final int regionCount;
+    private final int edgeCount;
+    private final int coloredCount;
+    private final long elapsedNanos;
+
+    public SolveProgress(Stage stage, int regionCount, int edgeCount, int coloredCount, long elapsedNanos) {
+        this.stage = stage;
+        this.regionCount = regionCount;
+        this.edgeCount = edgeCount;
+        this.coloredCount = coloredCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Regions coloured so far; every region once the last {@link Stage#COLORING} event arrives.
+     */
+    public int getColoredCount() {
+        return coloredCount;
+    }
+
+    /**
+     * Time since the solve was started on its worker.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
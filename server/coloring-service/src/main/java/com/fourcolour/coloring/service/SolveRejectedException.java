@@ -0,0 +1,28 @@
+package com.fourcolour.coloring.service;
+
+/**
+ * Thrown when the {@link SolveScheduler} sheds a solve because its queue is full or the
+ * predicted wait is too long.
+ */
+public class SolveRejectedException extends RuntimeException {
+
+    private final SolveLane lane;
+    private final long retryAfterSeconds;
+
+    public SolveRejectedException(SolveLane lane, long retryAfterSeconds) {
+        super("Solver is busy, please retry later");
+        this.lane = lane;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public SolveLane getLane() {
+        return lane;
+    }
+
+    /**
+     * When the queue is predicted to have drained enough to admit the solve.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,326 @@
+package com.fourcolour.coloring.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs solves on a fixed set of worker threads in front of the engine, so one huge map cannot
+ * hold up the small interactive ones queued behind it.
+ * <p>
+ * Each solve carries an estimated cost, pixels times regions, which picks its
+ * {@link SolveLane}. Workers serve the most urgent non-empty lane, shortest job first, except
+ * that a solve queued for longer than the wait limit is taken first so large jobs still make
+ * progress. Run time per unit of cost is learned from finished solves, which gives a predicted
+ * queue wait for every new solve: the work queued ahead of it in its own and more urgent
+ * lanes, spread over the workers. Solves that would wait longer than the limit, or that find
+ * the queue full, are rejected with a retry hint instead of queueing.
+ */
+public class SolveScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolveScheduler.class);
+
+    // Roughly what segmentation plus colouring costs on a typical canvas
+    static final double INITIAL_NANOS_PER_COST = 0.25;
+    private static final double SMOOTHING = 0.2;
+
+    private final int workerCount;
+    private final int capacity;
+    private final long maxQueueWaitNanos;
+    private final long interactiveMaxCost;
+    private final long standardMaxCost;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<SolveLane, PriorityQueue<Job<?>>> lanes = new EnumMap<>(SolveLane.class);
+    private long sequence;
+    private int queued;
+    private int running;
+    private long runningEstimateNanos;
+    private double nanosPerCost = INITIAL_NANOS_PER_COST;
+    private boolean shutdown;
+
+    /**
+     * @param workerCount        worker threads, at least 1
+     * @param capacity           solves that may wait at once, across all lanes
+     * @param maxQueueWaitMillis longest predicted wait a solve is admitted with
+     * @param interactiveMaxCost highest cost still in the interactive lane
+     * @param standardMaxCost    highest cost still in the standard lane
+     */
+    public SolveScheduler(int workerCount, int capacity, long maxQueueWaitMillis,
+                          long interactiveMaxCost, long standardMaxCost, MeterRegistry meterRegistry) {
+        if (workerCount < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Scheduler needs at least one worker and one queue slot");
+        }
+        this.workerCount = workerCount;
+        this.capacity = capacity;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+        this.interactiveMaxCost = interactiveMaxCost;
+        this.standardMaxCost = standardMaxCost;
+        this.meterRegistry = meterRegistry;
+
+        Comparator<Job<?>> shortestFirst = Comparator.<Job<?>>comparingLong(job -> job.cost)
+                .thenComparingLong(job -> job.sequence);
+        for (SolveLane lane : SolveLane.values()) {
+            lanes.put(lane, new PriorityQueue<>(shortestFirst));
+            Gauge.builder("coloring.scheduler.queued", () -> queuedIn(lane))
+                    .tag("lane", lane.name())
+                    .register(meterRegistry);
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "solve-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        logger.info("Solve scheduler started with {} workers and {} queue slots", workerCount, capacity);
+    }
+
+    public SolveLane laneFor(long cost) {
+        if (cost <= interactiveMaxCost) {
+            return SolveLane.INTERACTIVE;
+        }
+        return cost <= standardMaxCost ? SolveLane.STANDARD : SolveLane.BULK;
+    }
+
+    /**
+     * Queue {@code task} and wait for it to run on a worker.
+     *
+     * @throws SolveRejectedException if the solve is shed
+     */
+    public <T> T run(long cost, Supplier<T> task) {
+        Job<T> job = enqueue(cost, task);
+        try {
+            return job.future.get();
+        } catch (InterruptedException e) {
+            cancel(job);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a solve worker", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            for (PriorityQueue<Job<?>> lane : lanes.values()) {
+                for (Job<?> job : lane) {
+                    job.future.completeExceptionally(new IllegalStateException("Solve scheduler shut down"));
+                }
+                lane.clear();
+            }
+            queued = 0;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int queuedIn(SolveLane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Predicted queue wait of a solve of {@code cost} submitted now.
+     */
+    public long predictWaitNanos(long cost) {
+        lock.lock();
+        try {
+            return predictWaitNanos(laneFor(cost), cost);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> Job<T> enqueue(long cost, Supplier<T> task) {
+        SolveLane lane = laneFor(cost);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new IllegalStateException("Solve scheduler shut down");
+            }
+            long predictedWait = predictWaitNanos(lane, cost);
+            if (queued >= capacity || predictedWait > maxQueueWaitNanos) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(predictedWait) + 1);
+                meterRegistry.counter("coloring.scheduler.rejected", "lane", lane.name()).increment();
+                logger.warn("Shedding {} solve of cost {}: {} queued, predicted wait {} ms",
+                        lane, cost, queued, TimeUnit.NANOSECONDS.toMillis(predictedWait));
+                throw new SolveRejectedException(lane, retryAfter);
+            }
+
+            Job<T> job = new Job<>(lane, cost, sequence++, estimateNanos(cost), task);
+            lanes.get(lane).add(job);
+            queued++;
+            available.signal();
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel(Job<?> job) {
+        lock.lock();
+        try {
+            if (lanes.get(job.lane).remove(job)) {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        job.future.cancel(false);
+    }
+
+    // Callers hold the lock
+    private long predictWaitNanos(SolveLane lane, long cost) {
+        // Running solves are on average half done
+        long aheadNanos = runningEstimateNanos / 2;
+        int jobsAhead = running;
+        for (SolveLane other : SolveLane.values()) {
+            if (other.compareTo(lane) > 0) {
+                break;
+            }
+            for (Job<?> job : lanes.get(other)) {
+                if (other != lane || job.cost <= cost) {
+                    aheadNanos += job.estimateNanos;
+                    jobsAhead++;
+                }
+            }
+        }
+        return jobsAhead < workerCount ? 0 : aheadNanos / workerCount;
+    }
+
+    private long estimateNanos(long cost) {
+        return (long) (cost * nanosPerCost);
+    }
+
+    private void work() {
+        while (true) {
+            Job<?> job = take();
+            if (job == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            meterRegistry.timer("coloring.scheduler.wait", "lane", job.lane.name())
+                    .record(start - job.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                job.complete();
+            } finally {
+                finished(job, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private Job<?> take() {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                if (shutdown) {
+                    return null;
+                }
+                available.awaitUninterruptibly();
+            }
+            Job<?> job = next();
+            queued--;
+            running++;
+            runningEstimateNanos += job.estimateNanos;
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Callers hold the lock and have checked that a job is queued
+    private Job<?> next() {
+        long now = System.nanoTime();
+        Job<?> overdue = null;
+        for (PriorityQueue<Job<?>> lane : lanes.values()) {
+            for (Job<?> job : lane) {
+                if (now - job.enqueuedAt > maxQueueWaitNanos && (overdue == null || job.sequence < overdue.sequence)) {
+                    overdue = job;
+                }
+            }
+        }
+        if (overdue != null) {
+            lanes.get(overdue.lane).remove(overdue);
+            return overdue;
+        }
+        for (PriorityQueue<Job<?>> lane : lanes.values()) {
+            if (!lane.isEmpty()) {
+                return lane.poll();
+            }
+        }
+        throw new IllegalStateException("No queued solve");
+    }
+
+    private void finished(Job<?> job, long elapsedNanos) {
+        lock.lock();
+        try {
+            running--;
+            runningEstimateNanos -= job.estimateNanos;
+            if (job.cost > 0) {
+                nanosPerCost += SMOOTHING * ((double) elapsedNanos / job.cost - nanosPerCost);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Job<T> {
+        final SolveLane lane;
+        final long cost;
+        final long sequence;
+        final long estimateNanos;
+        final long enqueuedAt = System.nanoTime();
+        final Supplier<T> task;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Job(SolveLane lane, long cost, long sequence, long estimateNanos, Supplier<T> task) {
+            this.lane = lane;
+            this.cost = cost;
+            this.sequence = sequence;
+            this.estimateNanos = estimateNanos;
+            this.task = task;
+        }
+
+        void complete() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.engine.RegionGraph;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.coloring.segmentation.RegionExtents;
+
+/**
+ * What an incremental re-solve needs from an earlier solve. Treated as immutable: the
+ * incremental path works on copies, so one snapshot can seed several edits.
+ */
+public final class SolveSnapshot {
+
+    private final LabelImage labelImage;
+    private final RegionGraph graph;
+    private final int[] colors;
+    private final RegionExtents extents;
+
+    public SolveSnapshot(LabelImage labelImage, RegionGraph graph, int[] colors) {
+        this(labelImage, graph, colors, RegionExtents.of(labelImage));
+    }
+
+    public SolveSnapshot(LabelImage labelImage, RegionGraph graph, int[] colors, RegionExtents extents) {
+        this.labelImage = labelImage;
+        this.graph = graph;
+        this.colors = colors;
+        this.extents = extents;
+    }
+
+    public LabelImage getLabelImage() {
+        return labelImage;
+    }
+
+    public RegionGraph getGraph() {
+        return graph;
+    }
+
+    public int[] getColors() {
+        return colors;
+    }
+
+    public RegionExtents getExtents() {
+        return extents;
+    }
+
+    public long getPixelCount() {
+        return (long) labelImage.getWidth() * labelImage.getHeight();
+    }
+}
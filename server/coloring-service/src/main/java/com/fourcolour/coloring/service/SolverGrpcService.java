@@ -0,0 +1,143 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.solver.proto.SolverProto;
+import com.fourcolour.solver.proto.SolverServiceGrpc;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary counterpart of {@code /api/solve}: takes a packed bitmap instead of a JSON RGBA
+ * array, streams a progress event per solve phase and finishes with the region colouring.
+ * Errors map onto gRPC statuses the way the HTTP endpoint maps them onto status codes.
+ * <p>
+ * When the caller cancels, the solve is abandoned: a queued solve never starts and a running
+ * one stops at its next cancellation check, between phases or inside the search. Nothing more
+ * is sent on a cancelled call, which grpc-java would reject with a {@code CANCELLED} status.
+ */
+@GrpcService
+public class SolverGrpcService extends SolverServiceGrpc.SolverServiceImplBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolverGrpcService.class);
+
+    public static final Metadata.Key<String> RETRY_AFTER_KEY =
+            Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+
+    @Autowired
+    private ColoringService coloringService;
+
+    @Override
+    public void solve(SolverProto.SolveRequest request, StreamObserver<SolverProto.SolveEvent> responseObserver) {
+        // Cancelled promptly even while this thread is busy, unlike the call's cancel handler
+        Context context = Context.current();
+
+        MapSolution solution;
+        try {
+            solution = coloringService.solvePacked(
+                    request.getMask().toByteArray(),
+                    request.getWidth(),
+                    request.getHeight(),
+                    request.getUserId().isEmpty() ? null : request.getUserId(),
+                    request.getBudgetMs() > 0 ? request.getBudgetMs() : null,
+                    new SolveListener() {
+                        @Override
+                        public void onProgress(SolveProgress progress) {
+                            if (!callCancelled(responseObserver)) {
+                                responseObserver.onNext(toEvent(progress));
+                            }
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return context.isCancelled();
+                        }
+                    });
+        } catch (SolveCancelledException e) {
+            logger.info("Abandoned gRPC solve after the caller cancelled");
+            return;
+        } catch (StatusRuntimeException e) {
+            // A progress event raced the caller's cancellation
+            if (e.getStatus().getCode() == Status.Code.CANCELLED) {
+                logger.info("Abandoned gRPC solve after the caller cancelled");
+                return;
+            }
+            logger.error("Error processing gRPC solve: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to color map").asRuntimeException());
+            return;
+        } catch (SolveRejectedException e) {
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_AFTER_KEY, String.valueOf(e.getRetryAfterSeconds()));
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException(trailers));
+            return;
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (Exception e) {
+            logger.error("Error processing gRPC solve: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL.withDescription("Failed to color map").asRuntimeException());
+            return;
+        }
+
+        if (callCancelled(responseObserver)) {
+            logger.info("Dropped gRPC solve result; the caller cancelled");
+            return;
+        }
+        try {
+            responseObserver.onNext(SolverProto.SolveEvent.newBuilder().setResult(toResult(solution)).build());
+            responseObserver.onCompleted();
+        } catch (StatusRuntimeException e) {
+            if (e.getStatus().getCode() != Status.Code.CANCELLED) {
+                throw e;
+            }
+            logger.info("Dropped gRPC solve result; the caller cancelled");
+        }
+    }
+
+    private static boolean callCancelled(StreamObserver<?> responseObserver) {
+        return responseObserver instanceof ServerCallStreamObserver<?> call && call.isCancelled();
+    }
+
+    static SolverProto.SolveEvent toEvent(SolveProgress progress) {
+        return SolverProto.SolveEvent.newBuilder()
+                .setProgress(SolverProto.SolveProgress.newBuilder()
+                        .setStage(SolverProto.SolveStage.valueOf(progress.getStage().name()))
+                        .setRegionCount(progress.getRegionCount())
+                        .setEdgeCount(progress.getEdgeCount())
+                        .setColoredCount(progress.getColoredCount())
+                        .setElapsedMs(TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos())))
+                .build();
+    }
+
+    static SolverProto.SolveResult toResult(MapSolution solution) {
+        RegionColoring coloring = solution.toRegionColoring();
+        SolverProto.SolveResult.Builder result = SolverProto.SolveResult.newBuilder()
+                .setPath(solution.getResult().getPath().name())
+                .setComplete(solution.getResult().isComplete())
+                .setConflicts(solution.getResult().getConflicts())
+                .setWidth(coloring.getLabels().getWidth())
+                .setHeight(coloring.getLabels().getHeight())
+                .setRegionCount(solution.getRegionCount())
+                .setEdgeCount(solution.getEdgeCount());
+        if (solution.getSolveId() != null) {
+            result.setSolveId(solution.getSolveId());
+        }
+        for (int run : coloring.getLabels().getRuns()) {
+            result.addLabelRuns(run);
+        }
+        for (int color : coloring.getRegionColors()) {
+            result.addRegionColors(color);
+        }
+        return result.build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.fourcolour.coloring.service;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A raw RGBA upload mapped from its spool file. Closing deletes the file; the mapping itself
+ * is released when the buffer is garbage collected, which Linux allows after the unlink.
+ */
+public final class SpooledImage implements AutoCloseable {
+
+    private final Path file;
+    private final ByteBuffer pixels;
+    private final int width;
+    private final int height;
+
+    SpooledImage(Path file, ByteBuffer pixels, int width, int height) {
+        this.file = file;
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Packed RGBA bytes, one per channel, read-only.
+     */
+    public ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        ImageSpool.deleteQuietly(file);
+    }
+}
@@ -0,0 +1,16 @@
+package com.fourcolour.coloring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ColoringServiceApplicationTest {
+
+    @Test
+    void contextLoads() {
+        // This test ensures that the Spring Boot application context loads successfully
+        // If the context fails to load, this test will fail
+    }
+}
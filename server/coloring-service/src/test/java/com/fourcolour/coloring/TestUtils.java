@@ -0,0 +1,186 @@
+package com.fourcolour.coloring;
+
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.MapColor;
+import com.fourcolour.coloring.engine.RegionGraph;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class TestUtils {
+
+    /**
+     * Build an RGBA canvas from ASCII art: any character other than '.' is a white region
+     * pixel, '.' is a black border pixel.
+     */
+    public static int[] createImage(String... rows) {
+        int height = rows.length;
+        int width = rows[0].length();
+        int[] rgba = new int[width * height * 4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = rows[y].charAt(x) == '.' ? 0 : 255;
+                int index = (y * width + x) * 4;
+                rgba[index] = value;
+                rgba[index + 1] = value;
+                rgba[index + 2] = value;
+                rgba[index + 3] = 255;
+            }
+        }
+        return rgba;
+    }
+
+    /**
+     * The same canvas as raw RGBA bytes, as sent to the raw upload endpoint.
+     */
+    public static byte[] toBytes(int[] rgba) {
+        byte[] bytes = new byte[rgba.length];
+        for (int i = 0; i < rgba.length; i++) {
+            bytes[i] = (byte) rgba[i];
+        }
+        return bytes;
+    }
+
+    public static ByteBuffer toBuffer(int[] rgba) {
+        return ByteBuffer.wrap(toBytes(rgba)).asReadOnlyBuffer();
+    }
+
+    /**
+     * The same canvas thresholded and packed one bit per pixel, as sent over gRPC.
+     */
+    public static byte[] toPackedMask(int[] rgba) {
+        int pixels = rgba.length / 4;
+        byte[] mask = new byte[(pixels + 7) / 8];
+        for (int pixel = 0; pixel < pixels; pixel++) {
+            if (rgba[pixel * 4] > 128) {
+                mask[pixel / 8] |= (byte) (1 << (pixel % 8));
+            }
+        }
+        return mask;
+    }
+
+    public static SolveRequest createSolveRequest(String... rows) {
+        return new SolveRequest(createImage(rows), rows[0].length(), rows.length, "user123");
+    }
+
+    /**
+     * A map of {@code cells x cells} square countries separated by one-pixel borders.
+     */
+    public static SolveRequest createGridMapRequest(int cells, int cellSize) {
+        int size = cells * (cellSize + 1) - 1;
+        String[] rows = new String[size];
+        for (int y = 0; y < size; y++) {
+            StringBuilder row = new StringBuilder(size);
+            for (int x = 0; x < size; x++) {
+                boolean border = (x + 1) % (cellSize + 1) == 0 || (y + 1) % (cellSize + 1) == 0;
+                row.append(border ? '.' : '#');
+            }
+            rows[y] = row.toString();
+        }
+        return createSolveRequest(rows);
+    }
+
+    public static RegionGraph createGraph(int vertexCount, int[][] edges) {
+        RegionGraph.Builder builder = RegionGraph.builder(vertexCount);
+        for (int[] edge : edges) {
+            builder.addEdge(edge[0], edge[1]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A random graph with each edge present independently; around an average degree of 8 it
+     * sits near the four-colourability threshold and keeps the backtracking search busy.
+     */
+    public static RegionGraph createRandomGraph(int vertexCount, double averageDegree, long seed) {
+        Random random = new Random(seed);
+        double probability = averageDegree / (vertexCount - 1);
+        RegionGraph.Builder builder = RegionGraph.builder(vertexCount);
+        for (int u = 0; u < vertexCount; u++) {
+            for (int v = u + 1; v < vertexCount; v++) {
+                if (random.nextDouble() < probability) {
+                    builder.addEdge(u, v);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static RegionGraph createCompleteGraph(int vertexCount) {
+        RegionGraph.Builder builder = RegionGraph.builder(vertexCount);
+        for (int u = 0; u < vertexCount; u++) {
+            for (int v = u + 1; v < vertexCount; v++) {
+                builder.addEdge(u, v);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The octahedron: planar and 4-regular, so low-degree peeling leaves it untouched.
+     * Opposite vertices {@code (0,1)}, {@code (2,3)} and {@code (4,5)} are not adjacent.
+     */
+    public static RegionGraph createOctahedron() {
+        RegionGraph.Builder builder = RegionGraph.builder(6);
+        for (int u = 0; u < 6; u++) {
+            for (int v = u + 1; v < 6; v++) {
+                if (u / 2 != v / 2) {
+                    builder.addEdge(u, v);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * A triangulated grid: planar, so always four-colourable, but dense enough that the greedy
+     * pass regularly gets stuck.
+     */
+    public static RegionGraph createTriangulatedGrid(int side) {
+        RegionGraph.Builder builder = RegionGraph.builder(side * side);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int v = y * side + x;
+                if (x + 1 < side) {
+                    builder.addEdge(v, v + 1);
+                }
+                if (y + 1 < side) {
+                    builder.addEdge(v, v + side);
+                }
+                if (x + 1 < side && y + 1 < side) {
+                    if ((x * 7 + y * 13) % 3 == 0) {
+                        builder.addEdge(v, v + side + 1);
+                    } else {
+                        builder.addEdge(v + 1, v + side);
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Several copies of {@code component} side by side in one graph, with no edges between copies.
+     */
+    public static RegionGraph createDisjointCopies(RegionGraph component, int copies) {
+        int size = component.vertexCount();
+        RegionGraph.Builder builder = RegionGraph.builder(size * copies);
+        for (int copy = 0; copy < copies; copy++) {
+            for (int v = 0; v < size; v++) {
+                for (int u : component.neighbours(v)) {
+                    builder.addEdge(copy * size + v, copy * size + u);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static boolean isProperColoring(RegionGraph graph, int[] colors) {
+        for (int color : colors) {
+            if (color < 0 || color >= MapColor.COUNT) {
+                return false;
+            }
+        }
+        return graph.countConflicts(colors) == 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.fourcolour.coloring.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferPoolTest {
+
+    private final BufferPool pool = new BufferPool(1 << 20);
+
+    @Test
+    void takeInts_ShouldRoundUpToSizeClass() {
+        assertEquals(64, pool.takeInts(1).length);
+        assertEquals(128, pool.takeInts(65).length);
+        assertEquals(1024, pool.takeInts(1024).length);
+    }
+
+    @Test
+    void takeInts_AfterGive_ShouldReuseBufferOfSameClass() {
+        int[] buffer = pool.takeInts(100);
+        pool.give(buffer);
+
+        assertSame(buffer, pool.takeInts(120));
+        assertEquals(1, pool.getReused());
+        assertEquals(1, pool.getAllocated());
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    void takeZeroedInts_ShouldClearRequestedLength() {
+        int[] buffer = pool.takeInts(64);
+        Arrays.fill(buffer, 7);
+        pool.give(buffer);
+
+        int[] reused = pool.takeZeroedInts(10);
+
+        assertSame(buffer, reused);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, reused[i]);
+        }
+    }
+
+    @Test
+    void takeLongs_ShouldNotReturnIntBuffers() {
+        pool.give(pool.takeInts(64));
+
+        long[] buffer = pool.takeLongs(64);
+
+        assertEquals(64, buffer.length);
+        assertEquals(2, pool.getAllocated());
+    }
+
+    @Test
+    void give_WithArrayNotFromPool_ShouldBeIgnored() {
+        pool.give(new int[100]);
+        pool.give(new int[16]);
+        pool.give((int[]) null);
+
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    void give_BeyondRetainedLimit_ShouldDropBuffer() {
+        BufferPool small = new BufferPool(4 * 128);
+        int[] first = small.takeInts(128);
+        int[] second = small.takeInts(128);
+
+        small.give(first);
+        small.give(second);
+
+        assertEquals(4 * 128, small.getRetainedBytes());
+        assertSame(first, small.takeInts(128));
+        assertNotSame(second, small.takeInts(128));
+    }
+
+    @Test
+    void give_BeyondLocalDepth_ShouldShareBufferWithOtherThreads() throws Exception {
+        int[][] buffers = new int[BufferPool.LOCAL_DEPTH + 1][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.takeInts(128);
+        }
+        for (int[] buffer : buffers) {
+            pool.give(buffer);
+        }
+
+        assertEquals(4 * 128, pool.getRetainedBytes());
+        AtomicReference<int[]> taken = new AtomicReference<>();
+        Thread other = new Thread(() -> taken.set(pool.takeInts(128)));
+        other.start();
+        other.join();
+
+        assertSame(buffers[BufferPool.LOCAL_DEPTH], taken.get());
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    void give_OnVirtualThread_ShouldGoToSharedClasses() throws Exception {
+        int[] buffer = pool.takeInts(128);
+
+        Thread.ofVirtual().start(() -> pool.give(buffer)).join();
+
+        assertEquals(4 * 128, pool.getRetainedBytes());
+        assertSame(buffer, pool.takeInts(128));
+    }
+
+    @Test
+    void takeInts_WithNegativeLength_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> pool.takeInts(-1));
+    }
+}
@@ -0,0 +1,270 @@
+package com.fourcolour.coloring.controller;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.dto.IncrementalSolveRequest;
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.coloring.engine.SolvePath;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.coloring.service.ColoringService;
+import com.fourcolour.coloring.service.MapSolution;
+import com.fourcolour.coloring.service.SolveLane;
+import com.fourcolour.coloring.service.SolveRejectedException;
+import com.fourcolour.common.dto.RegionColoring;
+import com.fourcolour.common.dto.RunLengthMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ColoringControllerTest {
+
+    @Mock
+    private ColoringService coloringService;
+
+    @InjectMocks
+    private ColoringController coloringController;
+
+    @Test
+    void health_ShouldReturnHealthy() {
+        ResponseEntity<Map<String, String>> response = coloringController.health();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("healthy", response.getBody().get("status"));
+    }
+
+    @Test
+    void solve_WithValidRequest_ShouldReturnMatrixAndSolvePath() {
+        SolveRequest request = TestUtils.createSolveRequest("#.#");
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.KEMPE_REPAIR, 1, 0, 1000L);
+        when(coloringService.solve(request, null, null)).thenReturn(new MapSolution(labels, result, 1));
+
+        ResponseEntity<?> response = coloringController.solve(request, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("KEMPE_REPAIR", response.getHeaders().getFirst(ColoringController.SOLVE_PATH_HEADER));
+        assertEquals("true", response.getHeaders().getFirst(ColoringController.SOLVE_COMPLETE_HEADER));
+        int[][][] matrix = (int[][][]) response.getBody();
+        assertArrayEquals(new int[]{255, 0, 0}, matrix[0][0]);
+        assertArrayEquals(new int[]{0, 0, 0}, matrix[0][1]);
+        assertArrayEquals(new int[]{0, 255, 0}, matrix[0][2]);
+    }
+
+    @Test
+    void solve_WithRunLengthAccept_ShouldReturnEncodedRows() {
+        SolveRequest request = TestUtils.createSolveRequest("##.#");
+        LabelImage labels = new LabelImage(4, 1, new int[]{1, 1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 0}, SolvePath.GREEDY, 0, 0, 1000L);
+        when(coloringService.solve(request, null, null)).thenReturn(new MapSolution(labels, result, 0));
+
+        ResponseEntity<?> response = coloringController.solve(request, "application/json;q=0.5, " + RunLengthMatrix.MEDIA_TYPE, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(RunLengthMatrix.MEDIA_TYPE, response.getHeaders().getContentType().toString());
+        assertEquals(HttpHeaders.ACCEPT, response.getHeaders().getFirst(HttpHeaders.VARY));
+        RunLengthMatrix matrix = (RunLengthMatrix) response.getBody();
+        assertEquals(4, matrix.getWidth());
+        assertArrayEquals(new int[]{0xFF0000, 2, 0x000000, 1, 0xFF0000, 1}, matrix.getRows()[0]);
+    }
+
+    @Test
+    void solve_WithRegionsAccept_ShouldReturnLabelsAndPalette() {
+        SolveRequest request = TestUtils.createSolveRequest("##.#");
+        LabelImage labels = new LabelImage(4, 1, new int[]{1, 1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{2, 3}, SolvePath.GREEDY, 0, 0, 1000L);
+        when(coloringService.solve(request, null, null)).thenReturn(new MapSolution(labels, result, 0));
+
+        ResponseEntity<?> response = coloringController.solve(request, RegionColoring.MEDIA_TYPE, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(RegionColoring.MEDIA_TYPE, response.getHeaders().getContentType().toString());
+        RegionColoring coloring = (RegionColoring) response.getBody();
+        assertArrayEquals(new int[]{0x000000, 0x0000FF, 0xFFFF00}, coloring.getRegionColors());
+        assertEquals(2, coloring.getLabels().getRegionCount());
+        assertArrayEquals(new int[]{1, 2, 0, 1, 2, 1}, coloring.getLabels().getRuns());
+    }
+
+    @Test
+    void solve_WithBudgetHeader_ShouldPassBudgetAndReportIncompleteResult() {
+        SolveRequest request = TestUtils.createSolveRequest("#.#");
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 0}, SolvePath.BEST_EFFORT, 2, 1, 1000L, 2, false);
+        when(coloringService.solve(request, 250L, null)).thenReturn(new MapSolution(labels, result, 1));
+
+        ResponseEntity<?> response = coloringController.solve(request, null, 250L, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("false", response.getHeaders().getFirst(ColoringController.SOLVE_COMPLETE_HEADER));
+        assertEquals("1", response.getHeaders().getFirst(ColoringController.SOLVE_CONFLICTS_HEADER));
+    }
+
+    @Test
+    void solve_WithNullBody_ShouldReturnBadRequest() {
+        ResponseEntity<?> response = coloringController.solve(null, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Map.of("error", "No JSON data received"), response.getBody());
+        verify(coloringService, never()).solve(any(), any());
+    }
+
+    @Test
+    void solve_WithInvalidRequest_ShouldReturnBadRequest() {
+        when(coloringService.solve(any(), any(), any())).thenThrow(new IllegalArgumentException("Invalid dimensions"));
+
+        ResponseEntity<?> response = coloringController.solve(new SolveRequest(), null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Map.of("error", "Invalid dimensions"), response.getBody());
+    }
+
+    @Test
+    void solve_WhenSchedulerSheds_ShouldReturnServiceUnavailableWithRetryAfter() {
+        when(coloringService.solve(any(), any(), any())).thenThrow(new SolveRejectedException(SolveLane.BULK, 7));
+
+        ResponseEntity<?> response = coloringController.solve(new SolveRequest(), null, null, null);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(Map.of("error", "Solver is busy, please retry later"), response.getBody());
+    }
+
+    @Test
+    void solve_WhenEngineFails_ShouldReturnInternalServerError() {
+        when(coloringService.solve(any(), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        ResponseEntity<?> response = coloringController.solve(new SolveRequest(), null, null, null);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(Map.of("error", "Failed to color map"), response.getBody());
+    }
+
+    @Test
+    void solveRaw_WithValidBody_ShouldPassStreamAndDimensions() {
+        InputStream body = new ByteArrayInputStream(new byte[12]);
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.GREEDY, 1, 0, 1000L);
+        when(coloringService.solveRaw(body, 3, 1, "user123", null)).thenReturn(new MapSolution(labels, result, 1, "raw"));
+
+        ResponseEntity<?> response = coloringController.solveRaw(body, 3, 1, "user123", RegionColoring.MEDIA_TYPE, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("raw", response.getHeaders().getFirst(ColoringController.SOLVE_ID_HEADER));
+        assertEquals(RegionColoring.MEDIA_TYPE, response.getHeaders().getContentType().toString());
+    }
+
+    @Test
+    void solveRaw_WithWrongLength_ShouldReturnBadRequest() {
+        when(coloringService.solveRaw(any(), anyInt(), anyInt(), any(), any()))
+                .thenThrow(new IllegalArgumentException("Image data length mismatch. Expected 12, got 8"));
+
+        ResponseEntity<?> response = coloringController.solveRaw(
+                new ByteArrayInputStream(new byte[8]), 3, 1, null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Map.of("error", "Image data length mismatch. Expected 12, got 8"), response.getBody());
+    }
+
+    @Test
+    void solve_ShouldRegisterTheRequestIdForCancellation() {
+        SolveRequest request = TestUtils.createSolveRequest("#.#");
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.GREEDY, 0, 0, 1000L);
+        when(coloringService.solve(request, null, "request-1")).thenReturn(new MapSolution(labels, result, 1));
+
+        ResponseEntity<?> response = coloringController.solve(request, null, null, "request-1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void solve_WhenCancelled_ShouldReturnServiceUnavailable() {
+        when(coloringService.solve(any(), any(), any())).thenThrow(new SolveCancelledException());
+
+        ResponseEntity<?> response = coloringController.solve(new SolveRequest(), null, null, "request-1");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void cancelSolve_WithSolveInFlight_ShouldReturnNoContent() {
+        when(coloringService.cancel("request-1")).thenReturn(true);
+
+        ResponseEntity<?> response = coloringController.cancelSolve("request-1");
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void cancelSolve_WithUnknownRequest_ShouldReturnNotFound() {
+        ResponseEntity<?> response = coloringController.cancelSolve("missing");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(Map.of("error", "Solve request not found"), response.getBody());
+    }
+
+    @Test
+    void solveIncremental_WithCachedSolve_ShouldReturnMatrixAndNewSolveId() {
+        IncrementalSolveRequest request = new IncrementalSolveRequest("previous", new int[]{1, 0, 255}, "user123");
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 1, 1}, 1);
+        ColoringResult result = new ColoringResult(new int[]{0}, SolvePath.INCREMENTAL, 0, 0, 1000L);
+        when(coloringService.solveIncremental(request, null)).thenReturn(new MapSolution(labels, result, 0, "next"));
+
+        ResponseEntity<?> response = coloringController.solveIncremental(request, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("INCREMENTAL", response.getHeaders().getFirst(ColoringController.SOLVE_PATH_HEADER));
+        assertEquals("next", response.getHeaders().getFirst(ColoringController.SOLVE_ID_HEADER));
+        int[][][] matrix = (int[][][]) response.getBody();
+        assertArrayEquals(new int[]{255, 0, 0}, matrix[0][1]);
+    }
+
+    @Test
+    void solveIncremental_WithEvictedSolve_ShouldReturnNotFound() {
+        when(coloringService.solveIncremental(any(), any())).thenReturn(null);
+
+        ResponseEntity<?> response = coloringController.solveIncremental(
+                new IncrementalSolveRequest("gone", new int[0], null), null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(Map.of("error", "Previous solve not found"), response.getBody());
+    }
+
+    @Test
+    void solveIncremental_WithInvalidPixels_ShouldReturnBadRequest() {
+        when(coloringService.solveIncremental(any(), any()))
+                .thenThrow(new IllegalArgumentException("Pixel changes must be [x, y, value] triples"));
+
+        ResponseEntity<?> response = coloringController.solveIncremental(new IncrementalSolveRequest(), null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Map.of("error", "Pixel changes must be [x, y, value] triples"), response.getBody());
+    }
+
+    @Test
+    void solveIncremental_WithNullBody_ShouldReturnBadRequest() {
+        ResponseEntity<?> response = coloringController.solveIncremental(null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(coloringService, never()).solveIncremental(any(), any());
+    }
+}
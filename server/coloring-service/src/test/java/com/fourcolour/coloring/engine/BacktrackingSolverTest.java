@@ -0,0 +1,81 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktrackingSolverTest {
+
+    private final BacktrackingSolver solver = new BacktrackingSolver();
+
+    @Test
+    void solve_WithEmptyGraph_ShouldReturnEmptyColouring() {
+        assertArrayEquals(new int[0], solver.solve(RegionGraph.builder(0).build()));
+    }
+
+    @Test
+    void solve_WithIsolatedRegions_ShouldColourEveryRegion() {
+        RegionGraph graph = RegionGraph.builder(3).build();
+
+        int[] colors = solver.solve(graph);
+
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void solve_WithCompleteGraphOfFour_ShouldFindColouring() {
+        RegionGraph graph = TestUtils.createCompleteGraph(4);
+
+        int[] colors = solver.solve(graph);
+
+        assertNotNull(colors);
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void solve_WithCompleteGraphOfFive_ShouldReturnNull() {
+        assertNull(solver.solve(TestUtils.createCompleteGraph(5)));
+    }
+
+    @Test
+    void solve_WithLargePlanarGraph_ShouldNotOverflowStack() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(60);
+
+        int[] colors = solver.solve(graph);
+
+        assertNotNull(colors);
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void search_WithExpiredDeadline_ShouldStopWithPartialAssignment() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(10);
+
+        BacktrackingSolver.SearchResult result = solver.search(graph, Deadline.after(0, TimeUnit.MILLISECONDS));
+
+        assertTrue(result.isTimedOut());
+        assertNull(result.getColors());
+        assertEquals(graph.vertexCount(), result.getDeepestPartial().length);
+        assertEquals(0, graph.countConflicts(result.getDeepestPartial()));
+    }
+
+    @Test
+    void search_WithCancelledDeadline_ShouldAbandonSearch() {
+        Deadline cancelled = Deadline.NONE.cancelledWhen(() -> true);
+
+        assertThrows(SolveCancelledException.class,
+                () -> solver.search(TestUtils.createTriangulatedGrid(10), cancelled));
+    }
+
+    @Test
+    void search_WithoutColouring_ShouldNotReportTimeout() {
+        BacktrackingSolver.SearchResult result = solver.search(
+                TestUtils.createCompleteGraph(5), Deadline.after(1, TimeUnit.MINUTES));
+
+        assertFalse(result.isTimedOut());
+        assertNull(result.getColors());
+    }
+}
@@ -0,0 +1,276 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphColoringEngineTest {
+
+    private final GraphColoringEngine engine = new GraphColoringEngine();
+
+    @Test
+    void solve_WithBipartiteGraph_ShouldFinishInGreedyPass() {
+        RegionGraph graph = TestUtils.createGraph(4, new int[][]{{0, 1}, {1, 2}, {2, 3}});
+
+        ColoringResult result = engine.solve(graph);
+
+        assertEquals(SolvePath.GREEDY, result.getPath());
+        assertEquals(0, result.getGreedyUncolored());
+        assertEquals(0, result.getConflicts());
+        assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+    }
+
+    @Test
+    void solve_WhenGreedyGetsStuck_ShouldRepairWithKempeChains() {
+        RegionGraph graph = TestUtils.createOctahedron();
+        GreedyColoring stuckGreedy = new GreedyColoring() {
+            @Override
+            public int[] color(RegionGraph g) {
+                // Regions 4 and 5 each see all four colours on their neighbours
+                return new int[]{0, 1, 2, 3, MapColor.UNASSIGNED, MapColor.UNASSIGNED};
+            }
+        };
+        GraphColoringEngine stagedEngine = new GraphColoringEngine(
+                stuckGreedy, new KempeChainRepair(), new BacktrackingSolver());
+
+        ColoringResult result = stagedEngine.solve(graph);
+
+        assertEquals(SolvePath.KEMPE_REPAIR, result.getPath());
+        assertEquals(2, result.getGreedyUncolored());
+        assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+    }
+
+    @Test
+    void solve_WhenRepairFails_ShouldEscalateToBacktracking() {
+        RegionGraph graph = TestUtils.createOctahedron();
+        GreedyColoring noGreedy = new GreedyColoring() {
+            @Override
+            public int[] color(RegionGraph g) {
+                int[] colors = new int[g.vertexCount()];
+                Arrays.fill(colors, MapColor.UNASSIGNED);
+                return colors;
+            }
+        };
+        KempeChainRepair failingRepair = new KempeChainRepair() {
+            @Override
+            public boolean repair(RegionGraph g, int[] colors) {
+                return false;
+            }
+        };
+        GraphColoringEngine stagedEngine = new GraphColoringEngine(
+                noGreedy, failingRepair, new BacktrackingSolver());
+
+        ColoringResult result = stagedEngine.solve(graph);
+
+        assertEquals(SolvePath.BACKTRACKING, result.getPath());
+        assertEquals(graph.vertexCount(), result.getGreedyUncolored());
+        assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+    }
+
+    @Test
+    void solve_WhenDeadlineExpires_ShouldReturnIncompleteBestEffort() {
+        RegionGraph graph = TestUtils.createOctahedron();
+        GreedyColoring partialGreedy = new GreedyColoring() {
+            @Override
+            public int[] color(RegionGraph g) {
+                return new int[]{0, 1, 2, 3, MapColor.UNASSIGNED, MapColor.UNASSIGNED};
+            }
+        };
+        KempeChainRepair failingRepair = new KempeChainRepair() {
+            @Override
+            public boolean repair(RegionGraph g, int[] colors) {
+                return false;
+            }
+        };
+        GraphColoringEngine stagedEngine = new GraphColoringEngine(
+                partialGreedy, failingRepair, new BacktrackingSolver());
+
+        ColoringResult result = stagedEngine.solve(graph, Deadline.after(0, TimeUnit.MILLISECONDS));
+
+        assertFalse(result.isComplete());
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+        assertEquals(0, GraphColoringEngine.countUnassigned(result.getColors()));
+        assertEquals(graph.countConflicts(result.getColors()), result.getConflicts());
+    }
+
+    @Test
+    void solve_WithinDeadline_ShouldReportComplete() {
+        ColoringResult result = engine.solve(TestUtils.createCompleteGraph(5), Deadline.after(1, TimeUnit.MINUTES));
+
+        assertTrue(result.isComplete());
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+    }
+
+    @Test
+    void solve_WhenCancelledMidway_ShouldStopBeforeRemainingComponents() {
+        RegionGraph graph = TestUtils.createDisjointCopies(TestUtils.createTriangulatedGrid(10), 3);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Integer> reported = new ArrayList<>();
+
+        assertThrows(SolveCancelledException.class, () -> engine.solve(graph,
+                Deadline.NONE.cancelledWhen(cancelled::get), colored -> {
+                    reported.add(colored);
+                    cancelled.set(true);
+                }));
+        assertEquals(List.of(100), reported);
+    }
+
+    @Test
+    void solve_WithDisconnectedGraph_ShouldBeIncompleteIfAnyComponentTimedOut() {
+        RegionGraph graph = TestUtils.createDisjointCopies(TestUtils.createOctahedron(), 2);
+        GreedyColoring noGreedy = new GreedyColoring() {
+            @Override
+            public int[] color(RegionGraph g) {
+                int[] colors = new int[g.vertexCount()];
+                Arrays.fill(colors, MapColor.UNASSIGNED);
+                return colors;
+            }
+        };
+        KempeChainRepair failingRepair = new KempeChainRepair() {
+            @Override
+            public boolean repair(RegionGraph g, int[] colors) {
+                return false;
+            }
+        };
+        GraphColoringEngine stagedEngine = new GraphColoringEngine(noGreedy, failingRepair, new BacktrackingSolver());
+
+        ColoringResult result = stagedEngine.solve(graph, Deadline.after(0, TimeUnit.MILLISECONDS));
+
+        assertEquals(2, result.getComponentCount());
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    void solve_WithNonPlanarGraph_ShouldReturnBestEffortColouring() {
+        RegionGraph graph = TestUtils.createCompleteGraph(5);
+
+        ColoringResult result = engine.solve(graph);
+
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+        assertEquals(1, result.getConflicts());
+        assertEquals(0, GraphColoringEngine.countUnassigned(result.getColors()));
+    }
+
+    @Test
+    void solve_WithPlanarGraphs_ShouldAlwaysReturnProperColouring() {
+        for (int side = 2; side <= 20; side++) {
+            RegionGraph graph = TestUtils.createTriangulatedGrid(side);
+
+            ColoringResult result = engine.solve(graph);
+
+            assertNotEquals(SolvePath.BEST_EFFORT, result.getPath());
+            assertTrue(TestUtils.isProperColoring(graph, result.getColors()), "side " + side);
+        }
+    }
+
+    @Test
+    void solve_ShouldOnlySearchTheCore() {
+        // A K5 core with a chain of low-degree regions hanging off it
+        RegionGraph.Builder builder = RegionGraph.builder(8);
+        for (int u = 0; u < 5; u++) {
+            for (int v = u + 1; v < 5; v++) {
+                builder.addEdge(u, v);
+            }
+        }
+        builder.addEdge(4, 5).addEdge(5, 6).addEdge(6, 7);
+        RegionGraph graph = builder.build();
+
+        ColoringResult result = engine.solve(graph);
+
+        assertEquals(8, result.getRegionCount());
+        assertEquals(5, result.getCoreSize());
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+        assertEquals(1, result.getConflicts());
+    }
+
+    @Test
+    void solve_WithFullyPeelableGraph_ShouldReportEmptyCore() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(10);
+
+        ColoringResult result = engine.solve(graph);
+
+        assertEquals(100, result.getRegionCount());
+        assertTrue(result.getCoreSize() < result.getRegionCount());
+        assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+    }
+
+    @Test
+    void solve_WithConnectedGraph_ShouldReportSingleComponent() {
+        ColoringResult result = engine.solve(TestUtils.createTriangulatedGrid(5));
+
+        assertEquals(1, result.getComponentCount());
+        assertEquals(25, result.getComponents().get(0).getRegionCount());
+    }
+
+    @Test
+    void solve_WithDisconnectedGraph_ShouldSolveComponentsInParallel() {
+        RegionGraph island = TestUtils.createTriangulatedGrid(10);
+        RegionGraph graph = TestUtils.createDisjointCopies(island, 6);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GraphColoringEngine parallelEngine = new GraphColoringEngine(new GreedyColoring(), new KempeChainRepair(),
+                new BacktrackingSolver(), new LowDegreeReduction(), pool);
+
+        try {
+            ColoringResult result = parallelEngine.solve(graph);
+
+            assertEquals(6, result.getComponentCount());
+            assertEquals(600, result.getRegionCount());
+            assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+            for (ComponentStats component : result.getComponents()) {
+                assertEquals(100, component.getRegionCount());
+                assertTrue(component.getElapsedNanos() > 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void solve_WithMixedComponents_ShouldReportMostExpensivePath() {
+        // A K5 island next to a path of three regions
+        RegionGraph.Builder builder = RegionGraph.builder(8);
+        for (int u = 0; u < 5; u++) {
+            for (int v = u + 1; v < 5; v++) {
+                builder.addEdge(u, v);
+            }
+        }
+        builder.addEdge(5, 6).addEdge(6, 7);
+        RegionGraph graph = builder.build();
+
+        ColoringResult result = engine.solve(graph);
+
+        assertEquals(2, result.getComponentCount());
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+        assertEquals(SolvePath.BEST_EFFORT, result.getComponents().get(0).getPath());
+        assertEquals(SolvePath.GREEDY, result.getComponents().get(1).getPath());
+        assertEquals(1, result.getConflicts());
+        assertEquals(5, result.getCoreSize());
+    }
+
+    @Test
+    void solve_WithDisconnectedGraph_ShouldReportColouredRegionsAsComponentsFinish() {
+        RegionGraph graph = TestUtils.createDisjointCopies(TestUtils.createTriangulatedGrid(10), 3);
+        List<Integer> progress = new ArrayList<>();
+
+        engine.solve(graph, Deadline.NONE, progress::add);
+
+        assertEquals(List.of(100, 200, 300), progress);
+    }
+
+    @Test
+    void solve_WithConnectedGraph_ShouldReportOnceWhenDone() {
+        List<Integer> progress = new ArrayList<>();
+
+        engine.solve(TestUtils.createTriangulatedGrid(5), Deadline.NONE, progress::add);
+
+        assertEquals(List.of(25), progress);
+    }
+}
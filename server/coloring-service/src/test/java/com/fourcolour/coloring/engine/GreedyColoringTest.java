@@ -0,0 +1,53 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedyColoringTest {
+
+    private final GreedyColoring greedyColoring = new GreedyColoring();
+
+    @Test
+    void color_WithEmptyGraph_ShouldReturnEmptyArray() {
+        int[] colors = greedyColoring.color(RegionGraph.builder(0).build());
+
+        assertEquals(0, colors.length);
+    }
+
+    @Test
+    void color_WithCompleteGraphOfFour_ShouldUseAllColours() {
+        RegionGraph graph = TestUtils.createCompleteGraph(4);
+
+        int[] colors = greedyColoring.color(graph);
+
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void color_WithCompleteGraphOfFive_ShouldLeaveOneRegionUnassigned() {
+        RegionGraph graph = TestUtils.createCompleteGraph(5);
+
+        int[] colors = greedyColoring.color(graph);
+
+        assertEquals(1, GraphColoringEngine.countUnassigned(colors));
+        assertEquals(0, graph.countConflicts(colors));
+    }
+
+    @Test
+    void color_ShouldNeverProduceConflicts() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(12);
+
+        int[] colors = greedyColoring.color(graph);
+
+        assertEquals(0, graph.countConflicts(colors));
+    }
+
+    @Test
+    void color_ShouldBeDeterministic() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(8);
+
+        assertArrayEquals(greedyColoring.color(graph), greedyColoring.color(graph));
+    }
+}
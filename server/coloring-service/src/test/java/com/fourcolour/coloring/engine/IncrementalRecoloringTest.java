@@ -0,0 +1,59 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalRecoloringTest {
+
+    private final IncrementalRecoloring recoloring = new IncrementalRecoloring();
+
+    @Test
+    void patchGraph_ShouldMoveEdgesOntoCurrentVertices() {
+        // Vertex 1 merged into 0, vertex 2 lost pixels and is re-extracted
+        RegionGraph previous = TestUtils.createGraph(4, new int[][]{{0, 3}, {1, 3}, {2, 3}});
+        int[] carryOver = {0, 0, -1, 3};
+        RegionGraph.Builder window = RegionGraph.builder(5).addEdge(4, 3);
+
+        RegionGraph graph = recoloring.patchGraph(previous, v -> carryOver[v], window);
+
+        assertArrayEquals(new int[]{0, 4}, graph.neighbours(3));
+        assertEquals(0, graph.degree(1));
+        assertEquals(0, graph.degree(2));
+    }
+
+    @Test
+    void recolor_WithoutConflicts_ShouldKeepPreviousColours() {
+        RegionGraph graph = TestUtils.createGraph(3, new int[][]{{0, 1}, {1, 2}});
+
+        ColoringResult result = recoloring.recolor(graph, new int[]{0, 1, 0});
+
+        assertEquals(SolvePath.INCREMENTAL, result.getPath());
+        assertArrayEquals(new int[]{0, 1, 0}, result.getColors());
+        assertEquals(0, result.getGreedyUncolored());
+    }
+
+    @Test
+    void recolor_WithNewAndConflictingRegions_ShouldRepairLocally() {
+        // Vertex 3 is new; the edge 0-2 appeared between two regions of colour 0
+        RegionGraph graph = TestUtils.createGraph(4, new int[][]{{0, 1}, {1, 2}, {0, 2}, {3, 0}, {3, 1}});
+
+        ColoringResult result = recoloring.recolor(graph, new int[]{0, 1, 0});
+
+        assertEquals(SolvePath.INCREMENTAL, result.getPath());
+        assertEquals(2, result.getGreedyUncolored());
+        assertEquals(0, result.getColors()[0]);
+        assertEquals(1, result.getColors()[1]);
+        assertTrue(TestUtils.isProperColoring(graph, result.getColors()));
+    }
+
+    @Test
+    void recolor_WhenRepairFails_ShouldFallBackToFullSolve() {
+        RegionGraph graph = TestUtils.createCompleteGraph(5);
+
+        ColoringResult result = recoloring.recolor(graph, new int[]{0, 1, 2, 3});
+
+        assertEquals(SolvePath.BEST_EFFORT, result.getPath());
+    }
+}
@@ -0,0 +1,64 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KempeChainRepairTest {
+
+    private final KempeChainRepair kempeChainRepair = new KempeChainRepair();
+
+    @Test
+    void repair_WithIndependentChains_ShouldSwapAndColourRegion() {
+        // Region 4 touches four regions that already use every colour
+        RegionGraph graph = TestUtils.createGraph(5, new int[][]{{4, 0}, {4, 1}, {4, 2}, {4, 3}});
+        int[] colors = {0, 1, 2, 3, MapColor.UNASSIGNED};
+
+        assertTrue(kempeChainRepair.repair(graph, colors));
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void repair_WithChainLinkingNeighbours_ShouldUseAnotherColourPair() {
+        // Wheel around region 4; the rim 0-1-2-3 forms a 4-cycle
+        RegionGraph graph = TestUtils.createGraph(5, new int[][]{
+                {4, 0}, {4, 1}, {4, 2}, {4, 3},
+                {0, 1}, {1, 2}, {2, 3}, {3, 0}
+        });
+        int[] colors = {0, 1, 2, 3, MapColor.UNASSIGNED};
+
+        assertTrue(kempeChainRepair.repair(graph, colors));
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void repair_WithFreeColour_ShouldAssignWithoutSwapping() {
+        RegionGraph graph = TestUtils.createGraph(3, new int[][]{{0, 1}, {1, 2}});
+        int[] colors = {0, MapColor.UNASSIGNED, 0};
+
+        assertTrue(kempeChainRepair.repair(graph, colors));
+        assertArrayEquals(new int[]{0, 1, 0}, colors);
+    }
+
+    @Test
+    void repair_WithCompleteGraphOfFive_ShouldReportFailure() {
+        RegionGraph graph = TestUtils.createCompleteGraph(5);
+        int[] colors = {0, 1, 2, 3, MapColor.UNASSIGNED};
+
+        assertFalse(kempeChainRepair.repair(graph, colors));
+        assertEquals(MapColor.UNASSIGNED, colors[4]);
+        assertEquals(0, graph.countConflicts(colors));
+    }
+
+    @Test
+    void repair_AfterGreedyOnPlanarGraph_ShouldKeepColouringProper() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(15);
+        int[] colors = new GreedyColoring().color(graph);
+
+        boolean complete = kempeChainRepair.repair(graph, colors);
+
+        assertEquals(0, graph.countConflicts(colors));
+        assertEquals(complete, GraphColoringEngine.countUnassigned(colors) == 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LowDegreeReductionTest {
+
+    private final LowDegreeReduction reduction = new LowDegreeReduction();
+
+    @Test
+    void reduce_WithTree_ShouldPeelEverything() {
+        RegionGraph graph = TestUtils.createGraph(5, new int[][]{{0, 1}, {1, 2}, {1, 3}, {3, 4}});
+
+        LowDegreeReduction.Reduction result = reduction.reduce(graph);
+
+        assertEquals(5, result.getOriginalSize());
+        assertEquals(0, result.getCoreSize());
+        assertEquals(0, result.getCore().vertexCount());
+    }
+
+    @Test
+    void reduce_WithFourRegularGraph_ShouldKeepWholeGraph() {
+        RegionGraph graph = TestUtils.createOctahedron();
+
+        LowDegreeReduction.Reduction result = reduction.reduce(graph);
+
+        assertEquals(6, result.getCoreSize());
+        assertSame(graph, result.getCore());
+    }
+
+    @Test
+    void reduce_ShouldPeelHangingRegionAndStopAtCore() {
+        // Region 6 hangs off the octahedron; once it is peeled nothing else drops below four
+        RegionGraph graph = TestUtils.createGraph(7, new int[][]{
+                {0, 2}, {0, 3}, {0, 4}, {0, 5}, {1, 2}, {1, 3}, {1, 4}, {1, 5},
+                {2, 4}, {2, 5}, {3, 4}, {3, 5}, {6, 0}, {6, 1}
+        });
+
+        LowDegreeReduction.Reduction result = reduction.reduce(graph);
+
+        assertEquals(6, result.getCoreSize());
+        assertEquals(12, result.getCore().edgeCount());
+    }
+
+    @Test
+    void expand_ShouldColourPeeledRegionsWithoutConflicts() {
+        RegionGraph graph = TestUtils.createTriangulatedGrid(20);
+        LowDegreeReduction.Reduction result = reduction.reduce(graph);
+        int[] coreColors = new BacktrackingSolver().solve(result.getCore());
+
+        int[] colors = result.expand(coreColors);
+
+        assertEquals(graph.vertexCount(), colors.length);
+        assertTrue(TestUtils.isProperColoring(graph, colors));
+    }
+
+    @Test
+    void expand_ShouldKeepCoreColours() {
+        RegionGraph graph = TestUtils.createGraph(7, new int[][]{
+                {0, 2}, {0, 3}, {0, 4}, {0, 5}, {1, 2}, {1, 3}, {1, 4}, {1, 5},
+                {2, 4}, {2, 5}, {3, 4}, {3, 5}, {6, 0}
+        });
+        LowDegreeReduction.Reduction result = reduction.reduce(graph);
+
+        int[] colors = result.expand(new int[]{0, 0, 1, 1, 2, 2});
+
+        assertArrayEquals(new int[]{0, 0, 1, 1, 2, 2, 1}, colors);
+    }
+}
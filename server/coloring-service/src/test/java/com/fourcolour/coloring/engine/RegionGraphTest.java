@@ -0,0 +1,135 @@
+package com.fourcolour.coloring.engine;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionGraphTest {
+
+    @Test
+    void build_ShouldDeduplicateAndSortNeighbours() {
+        RegionGraph graph = RegionGraph.builder(4)
+                .addEdge(0, 2)
+                .addEdge(2, 0)
+                .addEdge(0, 1)
+                .addEdge(3, 0)
+                .build();
+
+        assertEquals(4, graph.vertexCount());
+        assertEquals(3, graph.edgeCount());
+        assertArrayEquals(new int[]{1, 2, 3}, graph.neighbours(0));
+        assertArrayEquals(new int[]{0}, graph.neighbours(2));
+        assertEquals(3, graph.degree(0));
+    }
+
+    @Test
+    void build_WithManyRepeatedEdges_ShouldMatchDistinctEdges() {
+        // Enough repeats to fill and deduplicate the edge buffer several times
+        int vertexCount = 3000;
+        RegionGraph.Builder builder = RegionGraph.builder(vertexCount);
+        for (int round = 0; round < 5; round++) {
+            for (int v = vertexCount - 1; v > 0; v--) {
+                builder.addEdge(v, v - 1);
+                builder.addEdge(v, (v * 7) % vertexCount);
+            }
+        }
+
+        RegionGraph graph = builder.build();
+
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        for (int v = 0; v < vertexCount; v++) {
+            expected.add(new TreeSet<>());
+        }
+        for (int v = 1; v < vertexCount; v++) {
+            int[] others = {v - 1, (v * 7) % vertexCount};
+            for (int u : others) {
+                if (u != v) {
+                    expected.get(v).add(u);
+                    expected.get(u).add(v);
+                }
+            }
+        }
+        int degreeSum = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int[] neighbours = expected.get(v).stream().mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(neighbours, graph.neighbours(v));
+            degreeSum += neighbours.length;
+        }
+        assertEquals(degreeSum / 2, graph.edgeCount());
+    }
+
+    @Test
+    void addAll_ShouldMergeWithoutDuplicates() {
+        RegionGraph.Builder first = RegionGraph.builder(3).addEdge(0, 1).addEdge(1, 2);
+        RegionGraph.Builder second = RegionGraph.builder(3).addEdge(2, 1).addEdge(0, 2);
+
+        RegionGraph graph = first.addAll(second).build();
+
+        assertEquals(3, graph.edgeCount());
+        assertArrayEquals(new int[]{0, 2}, graph.neighbours(1));
+    }
+
+    @Test
+    void addEdge_WithSelfLoopOrOutOfRange_ShouldBeIgnored() {
+        RegionGraph graph = RegionGraph.builder(2)
+                .addEdge(1, 1)
+                .addEdge(0, 5)
+                .addEdge(-1, 0)
+                .build();
+
+        assertEquals(0, graph.edgeCount());
+        assertEquals(0, graph.degree(0));
+    }
+
+    @Test
+    void builder_WithNegativeVertexCount_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> RegionGraph.builder(-1));
+    }
+
+    @Test
+    void countConflicts_ShouldIgnoreUnassignedVertices() {
+        RegionGraph graph = TestUtils.createCompleteGraph(3);
+
+        assertEquals(3, graph.countConflicts(new int[]{0, 0, 0}));
+        assertEquals(1, graph.countConflicts(new int[]{0, 0, 1}));
+        assertEquals(0, graph.countConflicts(new int[]{0, MapColor.UNASSIGNED, MapColor.UNASSIGNED}));
+    }
+
+    @Test
+    void subgraph_ShouldRemapVerticesAndDropOutsideEdges() {
+        RegionGraph graph = TestUtils.createGraph(5, new int[][]{{0, 1}, {1, 2}, {2, 3}, {3, 4}, {0, 4}});
+
+        RegionGraph subgraph = graph.subgraph(new int[]{1, 2, 4});
+
+        assertEquals(3, subgraph.vertexCount());
+        assertEquals(1, subgraph.edgeCount());
+        assertArrayEquals(new int[]{1}, subgraph.neighbours(0));
+        assertArrayEquals(new int[]{0}, subgraph.neighbours(1));
+        assertEquals(0, subgraph.degree(2));
+    }
+
+    @Test
+    void connectedComponents_ShouldGroupVerticesInAscendingOrder() {
+        RegionGraph graph = TestUtils.createGraph(7, new int[][]{{0, 4}, {4, 2}, {1, 3}, {5, 6}});
+
+        int[][] components = graph.connectedComponents();
+
+        assertEquals(3, components.length);
+        assertArrayEquals(new int[]{0, 2, 4}, components[0]);
+        assertArrayEquals(new int[]{1, 3}, components[1]);
+        assertArrayEquals(new int[]{5, 6}, components[2]);
+    }
+
+    @Test
+    void connectedComponents_WithIsolatedVertices_ShouldReturnSingletons() {
+        int[][] components = RegionGraph.builder(3).build().connectedComponents();
+
+        assertEquals(3, components.length);
+        assertArrayEquals(new int[]{2}, components[2]);
+    }
+}
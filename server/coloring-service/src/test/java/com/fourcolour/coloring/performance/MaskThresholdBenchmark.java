@@ -0,0 +1,79 @@
+package com.fourcolour.coloring.performance;
+
+import com.fourcolour.coloring.segmentation.BinaryMask;
+import com.fourcolour.coloring.segmentation.MaskThresholder;
+import com.fourcolour.coloring.segmentation.MaskThresholders;
+import com.fourcolour.coloring.segmentation.ScalarMaskThresholder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of scalar and Vector API thresholding on 4K and 8K canvases. Not part of the
+ * surefire run; start {@link #main} on the test classpath after {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx2g"})
+public class MaskThresholdBenchmark {
+
+    @Param({"3840x2160", "7680x4320"})
+    private String resolution;
+
+    private int width;
+    private int height;
+    private int[] image;
+    private MaskThresholder scalar;
+    private MaskThresholder vector;
+
+    @Setup
+    public void setUp() {
+        String[] parts = resolution.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+
+        // Mostly white canvas with random dark strokes, like a drawn map
+        Random random = new Random(4);
+        image = new int[width * height * 4];
+        for (int i = 0; i < width * height; i++) {
+            int value = random.nextInt(10) == 0 ? 0 : 255;
+            image[i * 4] = value;
+            image[i * 4 + 1] = value;
+            image[i * 4 + 2] = value;
+            image[i * 4 + 3] = 255;
+        }
+
+        scalar = new ScalarMaskThresholder();
+        vector = MaskThresholders.vectorized();
+        if (vector == null) {
+            throw new IllegalStateException("Vector API not available, run with --add-modules jdk.incubator.vector");
+        }
+    }
+
+    @Benchmark
+    public BinaryMask scalar() {
+        BinaryMask mask = new BinaryMask(width, height);
+        scalar.threshold(image, 0, height, mask);
+        return mask;
+    }
+
+    @Benchmark
+    public BinaryMask vector() {
+        BinaryMask mask = new BinaryMask(width, height);
+        vector.threshold(image, 0, height, mask);
+        return mask;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MaskThresholdBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
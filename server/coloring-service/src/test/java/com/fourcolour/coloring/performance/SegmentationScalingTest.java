@@ -0,0 +1,77 @@
+package com.fourcolour.coloring.performance;
+
+import com.fourcolour.coloring.engine.RegionGraph;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.coloring.segmentation.RegionLabeler;
+import com.fourcolour.coloring.segmentation.TiledAdjacencyExtractor;
+import com.fourcolour.coloring.segmentation.TiledRegionLabeler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scaling of tiled segmentation across 1, 2, 4 and 8 worker threads. Speed-up depends on the
+ * cores available to the build, so the test only checks results agree and prints the timings.
+ */
+class SegmentationScalingTest {
+
+    private static final int SIZE = 2048;
+    private static final int CELL = 40;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 3;
+
+    @Test
+    void tiledSegmentation_AcrossThreadCounts_ShouldProduceSameGraph() {
+        int[] image = createCellMap(SIZE, CELL);
+        LabelImage reference = new RegionLabeler().label(image, SIZE, SIZE);
+
+        long singleThreadMs = 0;
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                TiledRegionLabeler labeler = new TiledRegionLabeler(pool);
+                TiledAdjacencyExtractor extractor = new TiledAdjacencyExtractor(pool);
+
+                LabelImage labels = null;
+                RegionGraph graph = null;
+                long totalNanos = 0;
+                for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    labels = labeler.label(image, SIZE, SIZE);
+                    graph = extractor.extract(labels);
+                    if (round >= WARMUP_ROUNDS) {
+                        totalNanos += System.nanoTime() - start;
+                    }
+                }
+
+                assertEquals(reference.getRegionCount(), labels.getRegionCount());
+                assertArrayEquals(reference.getLabels(), labels.getLabels());
+                assertTrue(graph.edgeCount() > 0);
+
+                long averageMs = totalNanos / MEASURED_ROUNDS / 1_000_000;
+                if (threads == 1) {
+                    singleThreadMs = Math.max(1, averageMs);
+                }
+                System.out.println("Tiled segmentation of " + SIZE + "x" + SIZE + " with " + threads
+                        + " threads: " + averageMs + "ms (speed-up "
+                        + String.format("%.2f", (double) singleThreadMs / Math.max(1, averageMs)) + "x)");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static int[] createCellMap(int size, int cell) {
+        int[] rgba = new int[size * size * 4];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (x % cell != 0 && y % cell != 0) {
+                    rgba[(y * size + x) * 4] = 255;
+                }
+            }
+        }
+        return rgba;
+    }
+}
@@ -0,0 +1,58 @@
+package com.fourcolour.coloring.performance;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.GraphColoringEngine;
+import com.fourcolour.coloring.segmentation.AdjacencyExtractor;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.coloring.segmentation.RegionLabeler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per solve (label, extract, colour) on grid maps, run with JMH's GC profiler so
+ * {@code gc.alloc.rate.norm} shows the bytes each solve allocates. With pooled working
+ * buffers that is close to the label array and graph the solve returns, about four bytes
+ * per pixel. Not part of the surefire run; start {@link #main} on the test classpath after
+ * {@code mvn test-compile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx2g"})
+public class SolveAllocationBenchmark {
+
+    @Param({"30", "60", "120"})
+    private int cells;
+
+    private SolveRequest request;
+    private final RegionLabeler labeler = new RegionLabeler();
+    private final AdjacencyExtractor extractor = new AdjacencyExtractor();
+    private final GraphColoringEngine engine = new GraphColoringEngine();
+
+    @Setup
+    public void setUp() {
+        request = TestUtils.createGridMapRequest(cells, 15);
+    }
+
+    @Benchmark
+    public ColoringResult solve() {
+        LabelImage labels = labeler.label(request.getImage(), request.getWidth(), request.getHeight());
+        return engine.solve(extractor.extract(labels));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SolveAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.fourcolour.coloring.performance;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.Deadline;
+import com.fourcolour.coloring.engine.GraphColoringEngine;
+import com.fourcolour.coloring.engine.RegionGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Random graphs near the four-colourability threshold keep the backtracking search busy far
+ * longer than any client would wait. The engine must hand back a best-effort colouring
+ * shortly after the budget, however hard the graph.
+ */
+class SolveBudgetTest {
+
+    private static final int REGIONS = 300;
+    private static final double AVERAGE_DEGREE = 8.4;
+    private static final long BUDGET_MS = 300;
+    // Time allowed past the budget for the last deadline check, completion and conflict count,
+    // generous so a loaded build machine does not fail it; an unbounded search takes far longer
+    private static final long SLACK_MS = 1_200;
+
+    @Test
+    void solve_WithHardGraph_ShouldReturnWithinBudget() {
+        RegionGraph graph = TestUtils.createRandomGraph(REGIONS, AVERAGE_DEGREE, 42);
+        GraphColoringEngine engine = new GraphColoringEngine();
+
+        long start = System.nanoTime();
+        ColoringResult result = engine.solve(graph, Deadline.after(BUDGET_MS, TimeUnit.MILLISECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("Solve of %d regions with %d ms budget: %s, complete=%b, %d conflicts in %d ms%n",
+                REGIONS, BUDGET_MS, result.getPath(), result.isComplete(), result.getConflicts(), elapsedMs);
+        assertTrue(elapsedMs < BUDGET_MS + SLACK_MS, "took " + elapsedMs + " ms");
+        assertEquals(graph.countConflicts(result.getColors()), result.getConflicts());
+    }
+}
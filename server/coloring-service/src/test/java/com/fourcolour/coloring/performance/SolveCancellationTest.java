@@ -0,0 +1,75 @@
+package com.fourcolour.coloring.performance;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.engine.Deadline;
+import com.fourcolour.coloring.engine.GraphColoringEngine;
+import com.fourcolour.coloring.engine.RegionGraph;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A client that disconnects a moment into a hard solve should not leave the backtracking
+ * search burning a core until the budget runs out. Compares the CPU time of a solve left to
+ * exhaust its budget with one cancelled shortly after it starts.
+ */
+class SolveCancellationTest {
+
+    private static final int REGIONS = 300;
+    private static final double AVERAGE_DEGREE = 8.4;
+    private static final long BUDGET_MS = 2000;
+    private static final long CANCEL_AFTER_MS = 100;
+    // Time allowed past the cancellation for the next check in the search loop, generous so a
+    // loaded build machine does not fail it while still well short of the budget
+    private static final long SLACK_MS = 900;
+
+    @Test
+    void solve_WhenCancelled_ShouldReclaimTheRestOfTheBudget() throws InterruptedException {
+        RegionGraph graph = TestUtils.createRandomGraph(REGIONS, AVERAGE_DEGREE, 42);
+        GraphColoringEngine engine = new GraphColoringEngine();
+
+        long abandonedCpuNanos = cpuTimeOf(() -> engine.solve(graph, Deadline.after(BUDGET_MS, TimeUnit.MILLISECONDS)));
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Thread disconnect = new Thread(() -> {
+            try {
+                Thread.sleep(CANCEL_AFTER_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            cancelled.set(true);
+        });
+        disconnect.start();
+        long start = System.nanoTime();
+        long cancelledCpuNanos = cpuTimeOf(() -> assertThrows(SolveCancelledException.class, () -> engine.solve(graph,
+                Deadline.after(BUDGET_MS, TimeUnit.MILLISECONDS).cancelledWhen(cancelled::get))));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        disconnect.join();
+
+        long reclaimedMs = TimeUnit.NANOSECONDS.toMillis(abandonedCpuNanos - cancelledCpuNanos);
+        System.out.printf("Solve of %d regions with %d ms budget: %d ms CPU uncancelled, %d ms CPU cancelled after %d ms"
+                        + " (stopped at %d ms), %d ms CPU reclaimed%n",
+                REGIONS, BUDGET_MS, TimeUnit.NANOSECONDS.toMillis(abandonedCpuNanos),
+                TimeUnit.NANOSECONDS.toMillis(cancelledCpuNanos), CANCEL_AFTER_MS, elapsedMs, reclaimedMs);
+        assertTrue(elapsedMs < CANCEL_AFTER_MS + SLACK_MS, "took " + elapsedMs + " ms");
+        // A quarter of the budget, as other load on the machine eats into the uncancelled solve's CPU too
+        assertTrue(reclaimedMs > BUDGET_MS / 4, "reclaimed only " + reclaimedMs + " ms");
+    }
+
+    /**
+     * CPU time the process spends running {@code solve}, which covers any components the
+     * engine forks onto the pool as well as the calling thread.
+     */
+    private static long cpuTimeOf(Runnable solve) {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long before = os.getProcessCpuTime();
+        solve.run();
+        return os.getProcessCpuTime() - before;
+    }
+}
@@ -0,0 +1,80 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.engine.RegionGraph;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdjacencyExtractorTest {
+
+    private final RegionLabeler labeler = new RegionLabeler();
+    private final AdjacencyExtractor extractor = new AdjacencyExtractor();
+
+    @Test
+    void extract_ShouldConnectRegionsAcrossThinBorder() {
+        LabelImage labels = labeler.label(TestUtils.createImage(
+                "###.###",
+                "###.###"), 7, 2);
+
+        RegionGraph graph = extractor.extract(labels);
+
+        assertEquals(2, graph.vertexCount());
+        assertArrayEquals(new int[]{1}, graph.neighbours(0));
+    }
+
+    @Test
+    void extract_ShouldNotConnectRegionsBeyondFuzziness() {
+        LabelImage labels = labeler.label(TestUtils.createImage(
+                "##.....##",
+                "##.....##"), 9, 2);
+
+        RegionGraph graph = extractor.extract(labels);
+
+        assertEquals(0, graph.edgeCount());
+    }
+
+    @Test
+    void extract_ShouldConnectRegionsAcrossRows() {
+        LabelImage labels = labeler.label(TestUtils.createImage(
+                "#####",
+                ".....",
+                ".....",
+                "#####"), 5, 4);
+
+        RegionGraph graph = extractor.extract(labels);
+
+        assertEquals(1, graph.edgeCount());
+    }
+
+    @Test
+    void extract_ShouldConnectDiagonalNeighbours() {
+        LabelImage labels = labeler.label(TestUtils.createImage(
+                "##....",
+                "##....",
+                "....##",
+                "....##"), 6, 4);
+
+        RegionGraph graph = extractor.extract(labels);
+
+        assertEquals(1, graph.edgeCount());
+    }
+
+    @Test
+    void extract_WithGridMap_ShouldFindEightNeighbourhood() {
+        int[] image = TestUtils.createGridMapRequest(3, 10).getImage();
+        LabelImage labels = labeler.label(image, 32, 32);
+
+        RegionGraph graph = extractor.extract(labels);
+
+        assertEquals(9, graph.vertexCount());
+        // Centre cell borders all eight others through edges and corners
+        assertEquals(8, graph.degree(4));
+        assertEquals(3, graph.degree(0));
+    }
+
+    @Test
+    void constructor_WithTooSmallFuzziness_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new AdjacencyExtractor(1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalRelabelerTest {
+
+    private final RegionLabeler labeler = new RegionLabeler();
+    private final IncrementalRelabeler relabeler = new IncrementalRelabeler();
+
+    private LabelPatch apply(LabelImage previous, int... pixels) {
+        return relabeler.apply(previous, RegionExtents.of(previous), pixels);
+    }
+
+    @Test
+    void apply_WithLineAcrossRegion_ShouldSplitIntoNewRegion() {
+        LabelImage previous = labeler.label(TestUtils.createImage(
+                "#####",
+                "#####",
+                "#####"), 5, 3);
+
+        LabelPatch patch = apply(previous, 2, 0, 0, 2, 1, 0, 2, 2, 0);
+        LabelImage image = patch.getImage();
+
+        assertEquals(2, image.getRegionCount());
+        assertEquals(0, image.labelAt(2, 1));
+        assertNotEquals(image.labelAt(0, 0), image.labelAt(4, 2));
+        assertEquals(6, patch.getExtents().size(1));
+        assertEquals(6, patch.getExtents().size(2));
+        assertEquals(0, patch.carryOver(1));
+        assertEquals(1, patch.remap(1));
+    }
+
+    @Test
+    void apply_WithNotchThatKeepsRegionConnected_ShouldNotSplit() {
+        LabelImage previous = labeler.label(TestUtils.createImage(
+                "#####",
+                "#####"), 5, 2);
+
+        LabelPatch patch = apply(previous, 2, 0, 0);
+
+        assertEquals(1, patch.getImage().getRegionCount());
+        assertEquals(9, patch.getExtents().size(1));
+    }
+
+    @Test
+    void apply_WithPixelBridgingRegions_ShouldMergeIntoLargest() {
+        LabelImage previous = labeler.label(TestUtils.createImage(
+                "##.#",
+                "##.#"), 4, 2);
+
+        LabelPatch patch = apply(previous, 2, 0, 255);
+        LabelImage image = patch.getImage();
+
+        assertEquals(1, image.labelAt(3, 1));
+        assertEquals(7, patch.getExtents().size(1));
+        assertEquals(0, patch.getExtents().size(2));
+        assertEquals(1, patch.remap(2));
+        assertEquals(3, patch.getExtents().maxX(1));
+    }
+
+    @Test
+    void apply_WithIsolatedPixel_ShouldStartNewRegion() {
+        LabelImage previous = labeler.label(TestUtils.createImage(
+                "#...",
+                "...."), 4, 2);
+
+        LabelPatch patch = apply(previous, 3, 1, 255);
+
+        assertEquals(2, patch.getImage().getRegionCount());
+        assertEquals(2, patch.getImage().labelAt(3, 1));
+        assertEquals(1, patch.getPreviousRegionCount());
+        assertEquals(1, patch.carryOver(1));
+    }
+
+    @Test
+    void apply_WithRepeatedPixel_ShouldKeepLastValue() {
+        LabelImage previous = labeler.label(TestUtils.createImage("#.#"), 3, 1);
+
+        LabelPatch patch = apply(previous, 1, 0, 255, 1, 0, 0);
+
+        assertEquals(2, patch.getImage().getRegionCount());
+        assertEquals(0, patch.getImage().labelAt(1, 0));
+        assertEquals(1, patch.carryOver(1));
+        assertEquals(2, patch.carryOver(2));
+    }
+
+    @Test
+    void apply_WithoutEffectiveChange_ShouldReturnEmptyPatch() {
+        LabelImage previous = labeler.label(TestUtils.createImage("#.#"), 3, 1);
+
+        LabelPatch patch = apply(previous, 0, 0, 255, 1, 0, 0);
+
+        assertTrue(patch.isEmpty());
+        assertArrayEquals(previous.getLabels(), patch.getImage().getLabels());
+    }
+
+    @Test
+    void apply_ShouldLeavePreviousImageUntouched() {
+        LabelImage previous = labeler.label(TestUtils.createImage("###"), 3, 1);
+
+        apply(previous, 1, 0, 0);
+
+        assertEquals(1, previous.labelAt(1, 0));
+    }
+
+    @Test
+    void apply_WithPixelOutsideImage_ShouldThrowException() {
+        LabelImage previous = labeler.label(TestUtils.createImage("###"), 3, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> apply(previous, 3, 0, 0));
+    }
+
+    @Test
+    void apply_WithIncompleteTriple_ShouldThrowException() {
+        LabelImage previous = labeler.label(TestUtils.createImage("###"), 3, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> apply(previous, 1, 0));
+    }
+}
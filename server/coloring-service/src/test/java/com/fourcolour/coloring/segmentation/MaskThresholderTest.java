@@ -0,0 +1,76 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MaskThresholderTest {
+
+    @Test
+    void scalarThreshold_ShouldSetBitsForRegionPixels() {
+        int[] image = TestUtils.createImage(
+                "#.#",
+                "..#");
+
+        BinaryMask mask = new BinaryMask(3, 2);
+        new ScalarMaskThresholder().threshold(image, 0, 2, mask);
+
+        assertTrue(mask.get(0, 0));
+        assertFalse(mask.get(1, 0));
+        assertTrue(mask.get(2, 0));
+        assertFalse(mask.get(0, 1));
+        assertTrue(mask.get(2, 1));
+    }
+
+    @Test
+    void scalarThreshold_ShouldUseStrictlyGreaterThan128() {
+        int[] image = {128, 0, 0, 255, 129, 0, 0, 255};
+
+        BinaryMask mask = new BinaryMask(2, 1);
+        new ScalarMaskThresholder().threshold(image, 0, 1, mask);
+
+        assertFalse(mask.get(0, 0));
+        assertTrue(mask.get(1, 0));
+    }
+
+    @Test
+    void binaryMask_ShouldStartEachRowOnNewWord() {
+        BinaryMask mask = new BinaryMask(65, 3);
+
+        assertEquals(2, mask.getWordsPerRow());
+        assertEquals(6, mask.getWords().length);
+    }
+
+    @Test
+    void vectorThreshold_ShouldMatchScalarOnRandomImages() {
+        MaskThresholder vector = MaskThresholders.vectorized();
+        assumeTrue(vector != null, "Vector API not available on this JVM");
+        ScalarMaskThresholder scalar = new ScalarMaskThresholder();
+        Random random = new Random(30);
+
+        // Widths around word and lane boundaries exercise the scalar tail
+        for (int width : new int[]{1, 7, 31, 63, 64, 65, 130, 257}) {
+            int height = 1 + random.nextInt(5);
+            int[] image = new int[width * height * 4];
+            for (int i = 0; i < image.length; i++) {
+                image[i] = random.nextInt(256);
+            }
+
+            BinaryMask expected = new BinaryMask(width, height);
+            BinaryMask actual = new BinaryMask(width, height);
+            scalar.threshold(image, 0, height, expected);
+            vector.threshold(image, 0, height, actual);
+
+            assertArrayEquals(expected.getWords(), actual.getWords(), "width " + width);
+        }
+    }
+
+    @Test
+    void preferred_ShouldAlwaysReturnThresholder() {
+        assertNotNull(MaskThresholders.preferred());
+    }
+}
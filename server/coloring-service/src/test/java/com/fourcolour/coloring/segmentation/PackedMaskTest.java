@@ -0,0 +1,61 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedMaskTest {
+
+    @Test
+    void unpack_ShouldRealignRowsThatStartMidByte() {
+        int[] image = TestUtils.createImage(
+                "#.#",
+                "..#",
+                "##.");
+
+        BinaryMask mask = new BinaryMask(3, 3);
+        PackedMask.unpack(TestUtils.toPackedMask(image), 0, 3, mask);
+
+        assertTrue(mask.get(0, 0));
+        assertFalse(mask.get(1, 0));
+        assertTrue(mask.get(2, 0));
+        assertFalse(mask.get(0, 1));
+        assertTrue(mask.get(2, 1));
+        assertTrue(mask.get(1, 2));
+        assertFalse(mask.get(2, 2));
+    }
+
+    @Test
+    void unpack_ShouldMatchThresholderAcrossWordBoundaries() {
+        Random random = new Random(42);
+        int width = 203;
+        int height = 37;
+        int[] image = new int[width * height * 4];
+        for (int i = 0; i < image.length; i += 4) {
+            image[i] = random.nextBoolean() ? 255 : 0;
+        }
+
+        BinaryMask expected = new BinaryMask(width, height);
+        new ScalarMaskThresholder().threshold(image, 0, height, expected);
+        BinaryMask actual = new BinaryMask(width, height);
+        PackedMask.unpack(TestUtils.toPackedMask(image), 0, height, actual);
+
+        assertArrayEquals(expected.getWords(), actual.getWords());
+    }
+
+    @Test
+    void validate_WithWrongLength_ShouldThrowException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> PackedMask.validate(3, 5, 5));
+
+        assertEquals("Mask length mismatch. Expected 4, got 3", e.getMessage());
+    }
+
+    @Test
+    void validate_WithInvalidDimensions_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> PackedMask.validate(0, 0, 5));
+    }
+}
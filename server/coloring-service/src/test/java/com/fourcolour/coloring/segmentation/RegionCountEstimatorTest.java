@@ -0,0 +1,60 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.dto.SolveRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionCountEstimatorTest {
+
+    @Test
+    void estimate_OnSmallCanvas_ShouldCountExactly() {
+        int[] image = TestUtils.createImage(
+                "##.##",
+                "##.##",
+                ".....",
+                "#.###");
+
+        assertEquals(4, RegionCountEstimator.estimate(image, 5, 4));
+    }
+
+    @Test
+    void estimate_ShouldCountUShapedRegionOncePerProng() {
+        int[] image = TestUtils.createImage(
+                "#.#",
+                "###");
+
+        assertEquals(2, RegionCountEstimator.estimate(image, 3, 2));
+    }
+
+    @Test
+    void estimate_OnLargeGridMap_ShouldBeClose() {
+        SolveRequest request = TestUtils.createGridMapRequest(60, 15);
+        int actual = new RegionLabeler().label(request.getImage(), request.getWidth(), request.getHeight())
+                .getRegionCount();
+
+        int estimate = RegionCountEstimator.estimate(request.getImage(), request.getWidth(), request.getHeight());
+
+        assertEquals(actual, estimate, actual * 0.2);
+    }
+
+    @Test
+    void estimate_OnBlankCanvas_ShouldBeAtLeastOne() {
+        int[] image = TestUtils.createImage(
+                "...",
+                "...");
+
+        assertEquals(1, RegionCountEstimator.estimate(image, 3, 2));
+    }
+
+    @Test
+    void estimatePacked_ShouldMatchRgbaEstimate() {
+        SolveRequest request = TestUtils.createGridMapRequest(30, 9);
+        int width = request.getWidth();
+        int height = request.getHeight();
+
+        assertEquals(RegionCountEstimator.estimate(request.getImage(), width, height),
+                RegionCountEstimator.estimatePacked(TestUtils.toPackedMask(request.getImage()), width, height));
+    }
+}
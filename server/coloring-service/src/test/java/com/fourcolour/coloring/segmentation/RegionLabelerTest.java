@@ -0,0 +1,104 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionLabelerTest {
+
+    private final RegionLabeler labeler = new RegionLabeler();
+
+    @Test
+    void label_ShouldNumberRegionsInRasterOrder() {
+        int[] image = TestUtils.createImage(
+                "##.##",
+                "##.##",
+                ".....",
+                "#.###");
+
+        LabelImage labels = labeler.label(image, 5, 4);
+
+        assertEquals(4, labels.getRegionCount());
+        assertEquals(1, labels.labelAt(0, 0));
+        assertEquals(2, labels.labelAt(4, 1));
+        assertEquals(0, labels.labelAt(2, 2));
+        assertEquals(3, labels.labelAt(0, 3));
+        assertEquals(4, labels.labelAt(4, 3));
+    }
+
+    @Test
+    void label_ShouldMergeRegionsJoinedFurtherDown() {
+        int[] image = TestUtils.createImage(
+                "#.#.#",
+                "#.#.#",
+                "#####");
+
+        LabelImage labels = labeler.label(image, 5, 3);
+
+        assertEquals(1, labels.getRegionCount());
+        assertEquals(1, labels.labelAt(4, 0));
+    }
+
+    @Test
+    void label_ShouldUseFourConnectivity() {
+        int[] image = TestUtils.createImage(
+                "#.",
+                ".#");
+
+        LabelImage labels = labeler.label(image, 2, 2);
+
+        assertEquals(2, labels.getRegionCount());
+    }
+
+    @Test
+    void label_ShouldTreatValuesAtThresholdAsBorder() {
+        int[] image = {128, 0, 0, 255, 129, 0, 0, 255};
+
+        LabelImage labels = labeler.label(image, 2, 1);
+
+        assertEquals(0, labels.labelAt(0, 0));
+        assertEquals(1, labels.labelAt(1, 0));
+    }
+
+    @Test
+    void label_WithMismatchedLength_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> labeler.label(new int[7], 1, 2));
+    }
+
+    @Test
+    void label_FromByteBuffer_ShouldMatchIntArray() {
+        int[] image = TestUtils.createImage(
+                "##.##",
+                "#..##",
+                ".....",
+                "#.#.#");
+
+        LabelImage fromInts = labeler.label(image, 5, 4);
+        LabelImage fromBytes = labeler.label(TestUtils.toBuffer(image), 5, 4);
+
+        assertEquals(fromInts.getRegionCount(), fromBytes.getRegionCount());
+        assertArrayEquals(fromInts.getLabels(), fromBytes.getLabels());
+    }
+
+    @Test
+    void label_FromShortByteBuffer_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> labeler.label(TestUtils.toBuffer(new int[12]), 2, 2));
+    }
+
+    @Test
+    void labelPacked_ShouldMatchIntArray() {
+        int[] image = TestUtils.createImage(
+                "##.##.#",
+                "#..##..",
+                ".......",
+                "#.#.###");
+
+        LabelImage fromInts = labeler.label(image, 7, 4);
+        LabelImage fromMask = labeler.labelPacked(TestUtils.toPackedMask(image), 7, 4);
+
+        assertEquals(fromInts.getRegionCount(), fromMask.getRegionCount());
+        assertArrayEquals(fromInts.getLabels(), fromMask.getLabels());
+    }
+}
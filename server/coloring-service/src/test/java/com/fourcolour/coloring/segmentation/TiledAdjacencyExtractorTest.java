@@ -0,0 +1,61 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.engine.RegionGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledAdjacencyExtractorTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void extract_ShouldFindEdgesAcrossStripSeams() {
+        LabelImage labels = new RegionLabeler().label(TestUtils.createImage(
+                "####",
+                "....",
+                "....",
+                "####"), 4, 4);
+
+        RegionGraph graph = new TiledAdjacencyExtractor(pool, 8, 1).extract(labels);
+
+        assertEquals(1, graph.edgeCount());
+    }
+
+    @Test
+    void extract_ShouldMatchSequentialExtraction() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            int width = 1 + random.nextInt(50);
+            int height = 1 + random.nextInt(50);
+            int[] image = new int[width * height * 4];
+            for (int i = 0; i < width * height; i++) {
+                image[i * 4] = random.nextInt(100) < 60 ? 255 : 0;
+            }
+            LabelImage labels = new RegionLabeler().label(image, width, height);
+
+            RegionGraph expected = new AdjacencyExtractor().extract(labels);
+            RegionGraph actual = new TiledAdjacencyExtractor(pool, 8, 1 + random.nextInt(6)).extract(labels);
+
+            assertEquals(expected.edgeCount(), actual.edgeCount(), "round " + round);
+            for (int v = 0; v < expected.vertexCount(); v++) {
+                assertArrayEquals(expected.neighbours(v), actual.neighbours(v));
+            }
+        }
+    }
+
+    @Test
+    void constructor_WithInvalidStripRows_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TiledAdjacencyExtractor(pool, 8, 0));
+    }
+}
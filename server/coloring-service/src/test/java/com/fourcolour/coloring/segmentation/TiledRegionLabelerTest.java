@@ -0,0 +1,75 @@
+package com.fourcolour.coloring.segmentation;
+
+import com.fourcolour.coloring.TestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledRegionLabelerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void label_ShouldMergeRegionsAcrossStripSeams() {
+        // A U-shape whose arms only join in the last strip
+        int[] image = TestUtils.createImage(
+                "#.#",
+                "#.#",
+                "#.#",
+                "###");
+
+        LabelImage labels = new TiledRegionLabeler(pool, 1).label(image, 3, 4);
+
+        assertEquals(1, labels.getRegionCount());
+        assertEquals(1, labels.labelAt(2, 0));
+    }
+
+    @Test
+    void label_ShouldMatchSequentialLabelling() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(60);
+            int[] image = new int[width * height * 4];
+            for (int i = 0; i < width * height; i++) {
+                image[i * 4] = random.nextInt(100) < 55 ? 255 : 0;
+            }
+
+            LabelImage expected = new RegionLabeler().label(image, width, height);
+            LabelImage actual = new TiledRegionLabeler(pool, 1 + random.nextInt(8)).label(image, width, height);
+
+            assertEquals(expected.getRegionCount(), actual.getRegionCount());
+            assertArrayEquals(expected.getLabels(), actual.getLabels(), "round " + round);
+        }
+    }
+
+    @Test
+    void label_WithFewerRowsThanStrip_ShouldUseSingleStrip() {
+        int[] image = TestUtils.createImage("#.#");
+
+        LabelImage labels = new TiledRegionLabeler(pool).label(image, 3, 1);
+
+        assertEquals(2, labels.getRegionCount());
+    }
+
+    @Test
+    void label_WithMismatchedLength_ShouldThrowException() {
+        TiledRegionLabeler labeler = new TiledRegionLabeler(pool);
+
+        assertThrows(IllegalArgumentException.class, () -> labeler.label(new int[3], 1, 1));
+    }
+
+    @Test
+    void constructor_WithInvalidStripRows_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TiledRegionLabeler(pool, 0));
+    }
+}
@@ -0,0 +1,359 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.dto.IncrementalSolveRequest;
+import com.fourcolour.coloring.dto.SolveRequest;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.coloring.engine.SolvePath;
+import com.fourcolour.common.service.LoggerClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ColoringServiceTest {
+
+    @Mock
+    private LoggerClient loggerClient;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SolveCache solveCache = new SolveCache();
+
+    @InjectMocks
+    private ColoringService coloringService;
+
+    private SolveScheduler solveScheduler;
+
+    @BeforeEach
+    void setUp() {
+        doNothing().when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+        ReflectionTestUtils.setField(solveCache, "maxPixels", 1_000_000L);
+        solveScheduler = new SolveScheduler(2, 8, 10_000, 50_000_000L, 2_000_000_000L, meterRegistry);
+        ReflectionTestUtils.setField(coloringService, "solveScheduler", solveScheduler);
+        ImageSpool imageSpool = new ImageSpool();
+        ReflectionTestUtils.setField(imageSpool, "directory", "");
+        ReflectionTestUtils.setField(imageSpool, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(coloringService, "imageSpool", imageSpool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        solveScheduler.shutdown();
+    }
+
+    @Test
+    void solve_WithGridMap_ShouldColourEveryRegion() {
+        SolveRequest request = TestUtils.createGridMapRequest(4, 6);
+
+        MapSolution solution = coloringService.solve(request);
+
+        assertEquals(16, solution.getRegionCount());
+        assertEquals(0, solution.getResult().getConflicts());
+        assertEquals(16, solution.getResult().getColors().length);
+    }
+
+    @Test
+    void solve_ShouldLogSolvePath() {
+        MapSolution solution = coloringService.solve(TestUtils.createGridMapRequest(2, 4));
+
+        verify(loggerClient).logEvent(
+                eq("coloring-service"),
+                eq("map_coloring_completed"),
+                eq("user123"),
+                eq("Successfully colored map"),
+                eq(1),
+                argThat((Map<String, String> metadata) ->
+                        solution.getResult().getPath().name().equals(metadata.get("solve_path"))
+                                && "4".equals(metadata.get("vertices"))
+                                && "0".equals(metadata.get("core_vertices"))
+                                && "1".equals(metadata.get("components")))
+        );
+    }
+
+    @Test
+    void solve_ShouldCountSolvesByPath() {
+        coloringService.solve(TestUtils.createGridMapRequest(2, 4));
+
+        assertEquals(1.0, meterRegistry.counter("coloring.solves", "path", SolvePath.GREEDY.name()).count());
+    }
+
+    @Test
+    void solve_ShouldRecordCoreRatio() {
+        coloringService.solve(TestUtils.createGridMapRequest(3, 4));
+
+        assertEquals(1, meterRegistry.summary("coloring.core.ratio").count());
+    }
+
+    @Test
+    void solve_WithNullUserId_ShouldLogAsUnknown() {
+        SolveRequest request = TestUtils.createGridMapRequest(2, 4);
+        request.setUserId(null);
+
+        coloringService.solve(request);
+
+        verify(loggerClient).logEvent(anyString(), anyString(), eq("unknown"), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void solve_WhenLoggerFails_ShouldStillReturnSolution() {
+        doThrow(new RuntimeException("Logger down"))
+                .when(loggerClient).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+
+        assertNotNull(coloringService.solve(TestUtils.createGridMapRequest(2, 4)));
+    }
+
+    @Test
+    void solve_WithTiledSegmentation_ShouldMatchSequentialResult() {
+        SolveRequest request = TestUtils.createGridMapRequest(5, 8);
+        MapSolution sequential = coloringService.solve(request);
+
+        ReflectionTestUtils.setField(coloringService, "tiledMinPixels", 1L);
+        MapSolution tiled = coloringService.solve(request);
+
+        assertEquals(sequential.getRegionCount(), tiled.getRegionCount());
+        assertEquals(sequential.getEdgeCount(), tiled.getEdgeCount());
+        assertArrayEquals(sequential.getLabelImage().getLabels(), tiled.getLabelImage().getLabels());
+    }
+
+    @Test
+    void solve_WithBudget_ShouldReportCompleteSolve() {
+        MapSolution solution = coloringService.solve(TestUtils.createGridMapRequest(4, 6), 5_000L);
+
+        assertTrue(solution.getResult().isComplete());
+        assertEquals(0.0, meterRegistry.counter("coloring.budget.exhausted").count());
+    }
+
+    @Test
+    void solve_WithNonPositiveBudget_ShouldThrowException() {
+        SolveRequest request = TestUtils.createGridMapRequest(2, 4);
+
+        assertThrows(IllegalArgumentException.class, () -> coloringService.solve(request, 0L));
+    }
+
+    @Test
+    void solve_ShouldRunOnSchedulerInInteractiveLane() {
+        coloringService.solve(TestUtils.createGridMapRequest(4, 6));
+
+        assertEquals(1, meterRegistry.timer("coloring.scheduler.wait", "lane", SolveLane.INTERACTIVE.name()).count());
+    }
+
+    @Test
+    void solve_WithMissingImage_ShouldThrowException() {
+        SolveRequest request = new SolveRequest(null, 2, 2, "user123");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> coloringService.solve(request));
+        assertEquals("Missing required fields", e.getMessage());
+    }
+
+    @Test
+    void solve_WithInvalidDimensions_ShouldThrowException() {
+        SolveRequest request = new SolveRequest(new int[0], 0, 5, "user123");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> coloringService.solve(request));
+        assertEquals("Invalid dimensions", e.getMessage());
+    }
+
+    @Test
+    void solve_WithMismatchedImageLength_ShouldThrowException() {
+        SolveRequest request = new SolveRequest(new int[10], 2, 2, "user123");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> coloringService.solve(request));
+        assertEquals("Image data length mismatch. Expected 16, got 10", e.getMessage());
+    }
+
+    @Test
+    void toRgbMatrix_ShouldPaintRegionsAndKeepBordersBlack() {
+        MapSolution solution = coloringService.solve(TestUtils.createSolveRequest(
+                "##.##",
+                "##.##"));
+
+        int[][][] matrix = solution.toRgbMatrix();
+
+        assertEquals(2, matrix.length);
+        assertEquals(5, matrix[0].length);
+        assertArrayEquals(new int[]{0, 0, 0}, matrix[0][2]);
+        assertArrayEquals(new int[]{0, 0, 0}, matrix[1][2]);
+        // Which region gets which colour depends on the peeling order; only that they differ is fixed
+        assertArrayEquals(matrix[0][0], matrix[1][1]);
+        assertArrayEquals(matrix[0][4], matrix[1][3]);
+        assertFalse(Arrays.equals(matrix[0][0], matrix[0][4]));
+        assertFalse(Arrays.equals(new int[]{0, 0, 0}, matrix[0][0]));
+        assertFalse(Arrays.equals(new int[]{0, 0, 0}, matrix[0][4]));
+    }
+
+    @Test
+    void solve_ShouldCacheSnapshotForIncrementalSolves() {
+        MapSolution solution = coloringService.solve(TestUtils.createGridMapRequest(2, 4));
+
+        assertNotNull(solution.getSolveId());
+        assertNotNull(solveCache.get(solution.getSolveId()));
+    }
+
+    @Test
+    void solveIncremental_WithBorderAcrossRegion_ShouldSplitAndRecolourLocally() {
+        // 2x2 grid of 4-pixel cells; erase a vertical line through the top-left cell
+        MapSolution previous = coloringService.solve(TestUtils.createGridMapRequest(2, 4));
+        int[] pixels = {1, 0, 0, 1, 1, 0, 1, 2, 0, 1, 3, 0};
+
+        MapSolution solution = coloringService.solveIncremental(
+                new IncrementalSolveRequest(previous.getSolveId(), pixels, "user123"));
+
+        assertEquals(5, solution.getRegionCount());
+        assertEquals(SolvePath.INCREMENTAL, solution.getResult().getPath());
+        assertEquals(0, solution.getResult().getConflicts());
+        assertNotEquals(previous.getSolveId(), solution.getSolveId());
+        assertEquals(1.0, meterRegistry.counter("coloring.solves", "path", SolvePath.INCREMENTAL.name()).count());
+    }
+
+    @Test
+    void solveIncremental_ShouldKeepColoursOfUntouchedRegions() {
+        MapSolution previous = coloringService.solve(TestUtils.createGridMapRequest(3, 4));
+        int[] pixels = {0, 0, 0};
+
+        MapSolution solution = coloringService.solveIncremental(
+                new IncrementalSolveRequest(previous.getSolveId(), pixels, "user123"));
+
+        assertArrayEquals(previous.getResult().getColors(), solution.getResult().getColors());
+    }
+
+    @Test
+    void solveRaw_ShouldMatchJsonSolve() {
+        SolveRequest request = TestUtils.createGridMapRequest(4, 6);
+        MapSolution json = coloringService.solve(request);
+
+        MapSolution raw = coloringService.solveRaw(new ByteArrayInputStream(TestUtils.toBytes(request.getImage())),
+                request.getWidth(), request.getHeight(), "user123", null);
+
+        assertEquals(json.getRegionCount(), raw.getRegionCount());
+        assertArrayEquals(json.getLabelImage().getLabels(), raw.getLabelImage().getLabels());
+        assertEquals(json.getEdgeCount(), raw.getEdgeCount());
+        assertEquals(0, raw.getResult().getConflicts());
+    }
+
+    @Test
+    void solveRaw_ByDefault_ShouldNotCacheSnapshot() {
+        SolveRequest request = TestUtils.createGridMapRequest(2, 4);
+
+        MapSolution raw = coloringService.solveRaw(new ByteArrayInputStream(TestUtils.toBytes(request.getImage())),
+                request.getWidth(), request.getHeight(), "user123", null);
+
+        assertNull(raw.getSolveId());
+        assertEquals(0, solveCache.size());
+    }
+
+    @Test
+    void solveRaw_WhenCachingEnabled_ShouldCacheSnapshot() {
+        ReflectionTestUtils.setField(coloringService, "cacheSpooledSolves", true);
+        SolveRequest request = TestUtils.createGridMapRequest(2, 4);
+
+        MapSolution raw = coloringService.solveRaw(new ByteArrayInputStream(TestUtils.toBytes(request.getImage())),
+                request.getWidth(), request.getHeight(), "user123", null);
+
+        assertNotNull(solveCache.get(raw.getSolveId()));
+    }
+
+    @Test
+    void solveRaw_WithWrongLength_ShouldThrowException() {
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[10]);
+
+        assertThrows(IllegalArgumentException.class, () -> coloringService.solveRaw(body, 2, 2, "user123", null));
+    }
+
+    @Test
+    void solvePacked_ShouldMatchJsonSolveAndReportEachStage() {
+        SolveRequest request = TestUtils.createGridMapRequest(4, 6);
+        MapSolution json = coloringService.solve(request);
+        List<SolveProgress> progress = new ArrayList<>();
+
+        MapSolution packed = coloringService.solvePacked(TestUtils.toPackedMask(request.getImage()),
+                request.getWidth(), request.getHeight(), "user123", null, progress::add);
+
+        assertArrayEquals(json.getLabelImage().getLabels(), packed.getLabelImage().getLabels());
+        assertEquals(json.getEdgeCount(), packed.getEdgeCount());
+        assertEquals(List.of(SolveProgress.Stage.INGESTED, SolveProgress.Stage.LABELLED,
+                        SolveProgress.Stage.GRAPH_BUILT, SolveProgress.Stage.COLORING),
+                progress.stream().map(SolveProgress::getStage).toList());
+        assertEquals(16, progress.get(1).getRegionCount());
+        assertEquals(json.getEdgeCount(), progress.get(2).getEdgeCount());
+        assertEquals(16, progress.get(3).getColoredCount());
+    }
+
+    @Test
+    void solvePacked_WithWrongLength_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> coloringService.solvePacked(new byte[1], 4, 4, "user123", null, SolveListener.NONE));
+    }
+
+    @Test
+    void solvePacked_WhenListenerCancels_ShouldAbandonSolve() {
+        SolveRequest request = TestUtils.createGridMapRequest(4, 6);
+        List<SolveProgress> progress = new ArrayList<>();
+        SolveListener listener = new SolveListener() {
+            @Override
+            public void onProgress(SolveProgress event) {
+                progress.add(event);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return !progress.isEmpty();
+            }
+        };
+
+        assertThrows(SolveCancelledException.class, () -> coloringService.solvePacked(
+                TestUtils.toPackedMask(request.getImage()), request.getWidth(), request.getHeight(),
+                "user123", null, listener));
+        assertEquals(1, progress.size());
+        assertEquals(1.0, meterRegistry.counter("coloring.solves.cancelled").count());
+        verify(loggerClient, never()).logEvent(anyString(), anyString(), anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void solve_WithRequestId_ShouldOnlyBeCancellableWhileInFlight() {
+        assertFalse(coloringService.cancel("request-1"));
+
+        MapSolution solution = coloringService.solve(TestUtils.createGridMapRequest(4, 6), null, "request-1");
+
+        assertEquals(16, solution.getRegionCount());
+        assertFalse(coloringService.cancel("request-1"));
+    }
+
+    @Test
+    void solveIncremental_WithUnknownSolveId_ShouldReturnNull() {
+        assertNull(coloringService.solveIncremental(new IncrementalSolveRequest("missing", new int[0], "user123")));
+    }
+
+    @Test
+    void solveIncremental_WithMissingPixels_ShouldThrowException() {
+        IncrementalSolveRequest request = new IncrementalSolveRequest("id", null, "user123");
+
+        assertThrows(IllegalArgumentException.class, () -> coloringService.solveIncremental(request));
+    }
+}
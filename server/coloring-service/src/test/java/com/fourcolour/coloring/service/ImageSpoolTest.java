@@ -0,0 +1,82 @@
+package com.fourcolour.coloring.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private final ImageSpool imageSpool = new ImageSpool();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageSpool, "directory", directory.toString());
+        ReflectionTestUtils.setField(imageSpool, "maxBytes", 64L);
+    }
+
+    @Test
+    void spool_ShouldMapUploadedBytes() {
+        byte[] body = new byte[16];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 16);
+        }
+
+        try (SpooledImage image = imageSpool.spool(new ByteArrayInputStream(body), 2, 2)) {
+            assertEquals(16, image.getPixels().capacity());
+            assertEquals((byte) 0xF0, image.getPixels().get(15));
+            assertTrue(image.getPixels().isReadOnly());
+            assertTrue(Files.exists(image.getFile()));
+        }
+    }
+
+    @Test
+    void close_ShouldDeleteSpoolFile() throws Exception {
+        SpooledImage image = imageSpool.spool(new ByteArrayInputStream(new byte[16]), 2, 2);
+
+        image.close();
+
+        assertFalse(Files.exists(image.getFile()));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void spool_WithShortBody_ShouldThrowAndDeleteFile() throws Exception {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> imageSpool.spool(new ByteArrayInputStream(new byte[12]), 2, 2));
+
+        assertEquals("Image data length mismatch. Expected 16, got 12", e.getMessage());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void spool_WithLongBody_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> imageSpool.spool(new ByteArrayInputStream(new byte[20]), 2, 2));
+    }
+
+    @Test
+    void spool_OverSizeLimit_ShouldThrowBeforeReading() {
+        assertThrows(IllegalArgumentException.class,
+                () -> imageSpool.spool(new ByteArrayInputStream(new byte[0]), 8, 8));
+    }
+
+    @Test
+    void spool_WithInvalidDimensions_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> imageSpool.spool(new ByteArrayInputStream(new byte[0]), 0, 2));
+    }
+}
@@ -0,0 +1,60 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.TestUtils;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolveCacheTest {
+
+    private final SolveCache solveCache = new SolveCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(solveCache, "maxPixels", 20L);
+    }
+
+    private static SolveSnapshot snapshot(int width, int height) {
+        LabelImage image = new LabelImage(width, height, new int[width * height], 0);
+        return new SolveSnapshot(image, TestUtils.createGraph(0, new int[0][]), new int[0]);
+    }
+
+    @Test
+    void put_ShouldReturnIdForLookup() {
+        SolveSnapshot snapshot = snapshot(2, 2);
+
+        String id = solveCache.put(snapshot);
+
+        assertNotNull(id);
+        assertSame(snapshot, solveCache.get(id));
+    }
+
+    @Test
+    void put_WhenOverBudget_ShouldEvictLeastRecentlyUsed() {
+        String first = solveCache.put(snapshot(3, 3));
+        String second = solveCache.put(snapshot(3, 3));
+        solveCache.get(first);
+
+        String third = solveCache.put(snapshot(2, 2));
+
+        assertNotNull(solveCache.get(first));
+        assertNull(solveCache.get(second));
+        assertNotNull(solveCache.get(third));
+        assertEquals(2, solveCache.size());
+    }
+
+    @Test
+    void put_WithSnapshotLargerThanBudget_ShouldNotCache() {
+        assertNull(solveCache.put(snapshot(5, 5)));
+        assertEquals(0, solveCache.size());
+    }
+
+    @Test
+    void get_WithUnknownId_ShouldReturnNull() {
+        assertNull(solveCache.get("missing"));
+        assertNull(solveCache.get(null));
+    }
+}
@@ -0,0 +1,172 @@
+package com.fourcolour.coloring.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolveSchedulerTest {
+
+    private static final long INTERACTIVE_MAX = 1_000;
+    private static final long STANDARD_MAX = 1_000_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SolveScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        callers.shutdownNow();
+    }
+
+    private SolveScheduler create(int workers, int capacity, long maxQueueWaitMillis) {
+        scheduler = new SolveScheduler(workers, capacity, maxQueueWaitMillis, INTERACTIVE_MAX, STANDARD_MAX, meterRegistry);
+        return scheduler;
+    }
+
+    /**
+     * Occupy the only worker until {@link #release} opens.
+     */
+    private Future<?> blockWorker(long cost) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> blocker = callers.submit(() -> scheduler.run(cost, () -> {
+            started.countDown();
+            awaitRelease();
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitQueued(SolveLane lane, int count) throws InterruptedException {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.queuedIn(lane) < count) {
+            assertTrue(System.nanoTime() < giveUp, "solves were not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void run_ShouldReturnTaskResult() {
+        create(1, 4, 10_000);
+
+        assertEquals("done", scheduler.run(10, () -> "done"));
+    }
+
+    @Test
+    void run_WhenTaskFails_ShouldRethrowItsException() {
+        create(1, 4, 10_000);
+
+        assertThrows(IllegalArgumentException.class, () -> scheduler.run(10, () -> {
+            throw new IllegalArgumentException("Invalid dimensions");
+        }));
+    }
+
+    @Test
+    void laneFor_ShouldSplitByCost() {
+        create(1, 4, 10_000);
+
+        assertEquals(SolveLane.INTERACTIVE, scheduler.laneFor(INTERACTIVE_MAX));
+        assertEquals(SolveLane.STANDARD, scheduler.laneFor(INTERACTIVE_MAX + 1));
+        assertEquals(SolveLane.BULK, scheduler.laneFor(STANDARD_MAX + 1));
+    }
+
+    @Test
+    void run_WithinLane_ShouldServeShortestJobFirst() throws Exception {
+        create(1, 8, 60_000);
+        blockWorker(1);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        List<Future<?>> waiting = new ArrayList<>();
+        for (long cost : new long[]{300, 100, 200}) {
+            waiting.add(callers.submit(() -> scheduler.run(cost, () -> order.add(cost))));
+        }
+        awaitQueued(SolveLane.INTERACTIVE, 3);
+
+        release.countDown();
+        for (Future<?> future : waiting) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(100L, 200L, 300L), order);
+    }
+
+    @Test
+    void run_ShouldServeMoreUrgentLaneFirst() throws Exception {
+        create(1, 8, 60_000);
+        blockWorker(1);
+        List<SolveLane> order = new CopyOnWriteArrayList<>();
+        Future<?> bulk = callers.submit(() -> scheduler.run(STANDARD_MAX + 1, () -> order.add(SolveLane.BULK)));
+        awaitQueued(SolveLane.BULK, 1);
+        Future<?> interactive = callers.submit(() -> scheduler.run(10, () -> order.add(SolveLane.INTERACTIVE)));
+        awaitQueued(SolveLane.INTERACTIVE, 1);
+
+        release.countDown();
+        bulk.get(5, TimeUnit.SECONDS);
+        interactive.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(SolveLane.INTERACTIVE, SolveLane.BULK), order);
+    }
+
+    @Test
+    void run_WhenQueueFull_ShouldReject() throws Exception {
+        create(1, 1, 60_000);
+        blockWorker(1);
+        callers.submit(() -> scheduler.run(10, () -> null));
+        awaitQueued(SolveLane.INTERACTIVE, 1);
+
+        SolveRejectedException rejected = assertThrows(SolveRejectedException.class,
+                () -> scheduler.run(10, () -> null));
+
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.counter("coloring.scheduler.rejected", "lane", "INTERACTIVE").count());
+    }
+
+    @Test
+    void run_WhenPredictedWaitTooLong_ShouldRejectWithRetryAfter() throws Exception {
+        create(1, 8, 1_000);
+        // At the initial rate this solve is estimated at 5 seconds, so a queued one waits about 2.5
+        blockWorker((long) (5e9 / SolveScheduler.INITIAL_NANOS_PER_COST));
+
+        SolveRejectedException rejected = assertThrows(SolveRejectedException.class,
+                () -> scheduler.run(10, () -> null));
+
+        assertEquals(3, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    void predictWaitNanos_WithIdleWorker_ShouldBeZero() {
+        create(2, 8, 1_000);
+
+        assertEquals(0, scheduler.predictWaitNanos(STANDARD_MAX * 10));
+    }
+
+    @Test
+    void constructor_WithoutWorkers_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SolveScheduler(0, 8, 1_000, INTERACTIVE_MAX, STANDARD_MAX, meterRegistry));
+    }
+}
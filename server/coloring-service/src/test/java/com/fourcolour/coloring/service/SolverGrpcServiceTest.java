@@ -0,0 +1,190 @@
+package com.fourcolour.coloring.service;
+
+import com.fourcolour.coloring.engine.ColoringResult;
+import com.fourcolour.coloring.engine.SolveCancelledException;
+import com.fourcolour.coloring.engine.SolvePath;
+import com.fourcolour.coloring.segmentation.LabelImage;
+import com.fourcolour.solver.proto.SolverProto;
+import com.google.protobuf.ByteString;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SolverGrpcServiceTest {
+
+    @Mock
+    private ColoringService coloringService;
+
+    @Mock
+    private StreamObserver<SolverProto.SolveEvent> responseObserver;
+
+    @Mock
+    private ServerCallStreamObserver<SolverProto.SolveEvent> serverCall;
+
+    @InjectMocks
+    private SolverGrpcService solverGrpcService;
+
+    private final SolverProto.SolveRequest request = SolverProto.SolveRequest.newBuilder()
+            .setWidth(3)
+            .setHeight(1)
+            .setMask(ByteString.copyFrom(new byte[]{0b101}))
+            .setUserId("user123")
+            .setBudgetMs(250)
+            .build();
+
+    @Test
+    void solve_ShouldStreamProgressThenResult() {
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.GREEDY, 1, 0, 1000L);
+        when(coloringService.solvePacked(any(), eq(3), eq(1), eq("user123"), eq(250L), any()))
+                .thenAnswer(invocation -> {
+                    SolveListener listener = invocation.getArgument(5);
+                    listener.onProgress(new SolveProgress(SolveProgress.Stage.LABELLED, 2, -1, 0, 5_000_000L));
+                    return new MapSolution(labels, result, 1, "solve-1");
+                });
+
+        solverGrpcService.solve(request, responseObserver);
+
+        ArgumentCaptor<SolverProto.SolveEvent> events = ArgumentCaptor.forClass(SolverProto.SolveEvent.class);
+        verify(responseObserver, times(2)).onNext(events.capture());
+        verify(responseObserver).onCompleted();
+        SolverProto.SolveProgress progress = events.getAllValues().get(0).getProgress();
+        assertEquals(SolverProto.SolveStage.LABELLED, progress.getStage());
+        assertEquals(2, progress.getRegionCount());
+        assertEquals(5, progress.getElapsedMs());
+        SolverProto.SolveResult solved = events.getAllValues().get(1).getResult();
+        assertEquals("solve-1", solved.getSolveId());
+        assertEquals("GREEDY", solved.getPath());
+        assertEquals(List.of(1, 1, 0, 1, 2, 1), solved.getLabelRunsList());
+        assertEquals(List.of(0x000000, 0xFF0000, 0x00FF00), solved.getRegionColorsList());
+    }
+
+    @Test
+    void solve_WithInvalidMask_ShouldFailWithInvalidArgument() {
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("Mask length mismatch. Expected 1, got 0"));
+
+        solverGrpcService.solve(request, responseObserver);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        Status status = ((StatusRuntimeException) error.getValue()).getStatus();
+        assertEquals(Status.Code.INVALID_ARGUMENT, status.getCode());
+        assertEquals("Mask length mismatch. Expected 1, got 0", status.getDescription());
+        verify(responseObserver, never()).onCompleted();
+    }
+
+    @Test
+    void solve_WhenSchedulerSheds_ShouldFailUnavailableWithRetryAfter() {
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenThrow(new SolveRejectedException(SolveLane.BULK, 7));
+
+        solverGrpcService.solve(request, responseObserver);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        StatusRuntimeException e = (StatusRuntimeException) error.getValue();
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        assertEquals("7", e.getTrailers().get(SolverGrpcService.RETRY_AFTER_KEY));
+    }
+
+    @Test
+    void solve_WhenCallerCancels_ShouldAbandonSolveWithoutResponding() {
+        Context.CancellableContext context = Context.current().withCancellation();
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    SolveListener listener = invocation.getArgument(5);
+                    listener.onProgress(new SolveProgress(SolveProgress.Stage.INGESTED, -1, -1, 0, 0L));
+                    assertFalse(listener.isCancelled());
+                    context.cancel(null);
+                    assertTrue(listener.isCancelled());
+                    throw new SolveCancelledException();
+                });
+
+        context.run(() -> solverGrpcService.solve(request, responseObserver));
+
+        verify(responseObserver, times(1)).onNext(any());
+        verify(responseObserver, never()).onError(any());
+        verify(responseObserver, never()).onCompleted();
+    }
+
+    @Test
+    void solve_WhenCallAlreadyCancelled_ShouldSendNothing() {
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.GREEDY, 1, 0, 1000L);
+        when(serverCall.isCancelled()).thenReturn(true);
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    SolveListener listener = invocation.getArgument(5);
+                    listener.onProgress(new SolveProgress(SolveProgress.Stage.INGESTED, -1, -1, 0, 0L));
+                    return new MapSolution(labels, result, 1, "solve-1");
+                });
+
+        solverGrpcService.solve(request, serverCall);
+
+        verify(serverCall, never()).onNext(any());
+        verify(serverCall, never()).onError(any());
+        verify(serverCall, never()).onCompleted();
+    }
+
+    @Test
+    void solve_WhenProgressRacesCancellation_ShouldNotReportAnError() {
+        doThrow(Status.CANCELLED.asRuntimeException()).when(serverCall).onNext(any());
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    SolveListener listener = invocation.getArgument(5);
+                    listener.onProgress(new SolveProgress(SolveProgress.Stage.INGESTED, -1, -1, 0, 0L));
+                    return null;
+                });
+
+        solverGrpcService.solve(request, serverCall);
+
+        verify(serverCall, times(1)).onNext(any());
+        verify(serverCall, never()).onError(any());
+        verify(serverCall, never()).onCompleted();
+    }
+
+    @Test
+    void solve_WhenResultRacesCancellation_ShouldNotThrow() {
+        LabelImage labels = new LabelImage(3, 1, new int[]{1, 0, 2}, 2);
+        ColoringResult result = new ColoringResult(new int[]{0, 1}, SolvePath.GREEDY, 1, 0, 1000L);
+        doThrow(Status.CANCELLED.asRuntimeException()).when(serverCall).onNext(any());
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenReturn(new MapSolution(labels, result, 1, "solve-1"));
+
+        assertDoesNotThrow(() -> solverGrpcService.solve(request, serverCall));
+
+        verify(serverCall, never()).onError(any());
+        verify(serverCall, never()).onCompleted();
+    }
+
+    @Test
+    void solve_WithoutBudget_ShouldLeaveItToTheService() {
+        when(coloringService.solvePacked(any(), anyInt(), anyInt(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        solverGrpcService.solve(request.toBuilder().setBudgetMs(0).clearUserId().build(), responseObserver);
+
+        verify(coloringService).solvePacked(any(), eq(3), eq(1), isNull(), isNull(), any());
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(error.capture());
+        assertEquals(Status.Code.INTERNAL, ((StatusRuntimeException) error.getValue()).getStatus().getCode());
+    }
+}
@@ -0,0 +1,69 @@
+package com.fourcolour.common.dto;
+
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * Representations of a colouring result that the solve endpoint can produce, selected from
+ * the client's {@code Accept} header.
+ */
+public enum ColoringFormat {
+    DENSE("application/json"),
+    RUN_LENGTH(RunLengthMatrix.MEDIA_TYPE),
+    REGIONS(RegionColoring.MEDIA_TYPE);
+
+    private final String mediaType;
+
+    ColoringFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Pick the compact format the client asked for by name, preferring the higher quality
+     * value. Wildcards and plain JSON keep the dense matrix so existing clients are unaffected.
+     */
+    public static ColoringFormat negotiate(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return DENSE;
+        }
+
+        List<MimeType> accepted;
+        try {
+            accepted = MimeTypeUtils.parseMimeTypes(accept);
+        } catch (InvalidMimeTypeException e) {
+            return DENSE;
+        }
+
+        ColoringFormat best = DENSE;
+        double bestQuality = 0;
+        for (MimeType type : accepted) {
+            double quality = quality(type);
+            for (ColoringFormat format : new ColoringFormat[]{RUN_LENGTH, REGIONS}) {
+                if (quality > bestQuality && MimeTypeUtils.parseMimeType(format.mediaType).equalsTypeAndSubtype(type)) {
+                    best = format;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double quality(MimeType type) {
+        String q = type.getParameter("q");
+        if (q == null) {
+            return 1.0;
+        }
+        try {
+            return Double.parseDouble(q);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
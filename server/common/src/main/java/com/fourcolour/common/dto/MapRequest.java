@@ -16,6 +16,17 @@ public class MapRequest {
     
     private int[][] matrix;
     
+    /** Run-length form of the coloured map, sent instead of {@link #matrix} by compact clients. */
+    @JsonProperty("encodedMatrix")
+    private RunLengthMatrix encodedMatrix;
+    
+    /** Label bitmap of a region-level result; stored apart from {@link #regionColors}. */
+    @JsonProperty("regionLabels")
+    private RegionLabelBitmap regionLabels;
+    
+    @JsonProperty("regionColors")
+    private int[] regionColors;
+    
     @NotNull(message = "Width is required")
     private Integer width;
     
@@ -65,6 +76,30 @@ public class MapRequest {
         this.matrix = matrix;
     }
 
+    public RunLengthMatrix getEncodedMatrix() {
+        return encodedMatrix;
+    }
+
+    public void setEncodedMatrix(RunLengthMatrix encodedMatrix) {
+        this.encodedMatrix = encodedMatrix;
+    }
+
+    public RegionLabelBitmap getRegionLabels() {
+        return regionLabels;
+    }
+
+    public void setRegionLabels(RegionLabelBitmap regionLabels) {
+        this.regionLabels = regionLabels;
+    }
+
+    public int[] getRegionColors() {
+        return regionColors;
+    }
+
+    public void setRegionColors(int[] regionColors) {
+        this.regionColors = regionColors;
+    }
+
     public Integer getWidth() {
         return width;
     }
@@ -0,0 +1,56 @@
+package com.fourcolour.common.dto;
+
+/**
+ * Region-level colouring result: the label bitmap, sent once, plus a palette giving each
+ * region's colour packed as {@code 0xRRGGBB}. {@code regionColors[0]} is the border colour and
+ * {@code regionColors[id]} the colour of region {@code id}, so recolouring a map only means
+ * replacing the palette. Served when the client accepts {@link #MEDIA_TYPE}.
+ */
+public class RegionColoring {
+
+    public static final String MEDIA_TYPE = "application/vnd.fourcolour.regions+json";
+
+    private RegionLabelBitmap labels;
+    private int[] regionColors;
+
+    public RegionColoring() {}
+
+    public RegionColoring(RegionLabelBitmap labels, int[] regionColors) {
+        this.labels = labels;
+        this.regionColors = regionColors;
+    }
+
+    /**
+     * Paint the palette onto the label bitmap as per-row colour runs.
+     */
+    public RunLengthMatrix toRunLengthMatrix() {
+        int width = labels.getWidth();
+        int height = labels.getHeight();
+        int[] decoded = labels.decode();
+        int[][] rows = new int[height][];
+        int[] packed = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                packed[x] = regionColors[decoded[y * width + x]];
+            }
+            rows[y] = RunLengthMatrix.encodeRow(packed, width);
+        }
+        return new RunLengthMatrix(width, height, rows);
+    }
+
+    public RegionLabelBitmap getLabels() {
+        return labels;
+    }
+
+    public void setLabels(RegionLabelBitmap labels) {
+        this.labels = labels;
+    }
+
+    public int[] getRegionColors() {
+        return regionColors;
+    }
+
+    public void setRegionColors(int[] regionColors) {
+        this.regionColors = regionColors;
+    }
+}
@@ -0,0 +1,78 @@
+package com.fourcolour.common.dto;
+
+/**
+ * Region label image compressed as runs over raster order: {@code runs} is a flat list of
+ * {@code [label, length]} pairs, with label {@code 0} marking border pixels. Regions are
+ * numbered from {@code 1} to {@code regionCount}.
+ */
+public class RegionLabelBitmap {
+
+    private Integer width;
+    private Integer height;
+    private Integer regionCount;
+    private int[] runs;
+
+    public RegionLabelBitmap() {}
+
+    public RegionLabelBitmap(Integer width, Integer height, Integer regionCount, int[] runs) {
+        this.width = width;
+        this.height = height;
+        this.regionCount = regionCount;
+        this.runs = runs;
+    }
+
+    /**
+     * Compress a row-major label array of {@code width * height} entries.
+     */
+    public static RegionLabelBitmap encode(int[] labels, int width, int height, int regionCount) {
+        int[] runs = RunLengthMatrix.encodeRow(labels, width * height);
+        return new RegionLabelBitmap(width, height, regionCount, runs);
+    }
+
+    /**
+     * Expand back into a row-major label array.
+     */
+    public int[] decode() {
+        int[] labels = new int[width * height];
+        int index = 0;
+        for (int i = 0; i < runs.length; i += 2) {
+            int label = runs[i];
+            for (int end = index + runs[i + 1]; index < end; index++) {
+                labels[index] = label;
+            }
+        }
+        return labels;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public Integer getRegionCount() {
+        return regionCount;
+    }
+
+    public void setRegionCount(Integer regionCount) {
+        this.regionCount = regionCount;
+    }
+
+    public int[] getRuns() {
+        return runs;
+    }
+
+    public void setRuns(int[] runs) {
+        this.runs = runs;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fourcolour.common.dto;
+
+/**
+ * Compact form of a coloured map: each row is a flat list of {@code [rgb, length]} pairs,
+ * where {@code rgb} is the colour packed as {@code 0xRRGGBB} and {@code length} the number of
+ * consecutive pixels that share it. Served instead of the dense {@code height x width x 3}
+ * matrix when the client accepts {@link #MEDIA_TYPE}.
+ */
+public class RunLengthMatrix {
+
+    public static final String MEDIA_TYPE = "application/vnd.fourcolour.rle+json";
+
+    private Integer width;
+    private Integer height;
+    private int[][] rows;
+
+    public RunLengthMatrix() {}
+
+    public RunLengthMatrix(Integer width, Integer height, int[][] rows) {
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+    }
+
+    public static int pack(int red, int green, int blue) {
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Encode a dense {@code height x width x 3} RGB matrix.
+     */
+    public static RunLengthMatrix fromRgbMatrix(int[][][] matrix) {
+        int height = matrix.length;
+        int width = height > 0 ? matrix[0].length : 0;
+        int[][] rows = new int[height][];
+        int[] packed = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int[] pixel = matrix[y][x];
+                packed[x] = pack(pixel[0], pixel[1], pixel[2]);
+            }
+            rows[y] = encodeRow(packed, width);
+        }
+        return new RunLengthMatrix(width, height, rows);
+    }
+
+    /**
+     * Run-length encode the first {@code width} packed colours of {@code packed}.
+     */
+    public static int[] encodeRow(int[] packed, int width) {
+        int runs = 0;
+        for (int x = 0; x < width; x++) {
+            if (x == 0 || packed[x] != packed[x - 1]) {
+                runs++;
+            }
+        }
+        int[] row = new int[runs * 2];
+        int run = -1;
+        for (int x = 0; x < width; x++) {
+            if (x == 0 || packed[x] != packed[x - 1]) {
+                run++;
+                row[run * 2] = packed[x];
+            }
+            row[run * 2 + 1]++;
+        }
+        return row;
+    }
+
+    /**
+     * Expand back into the dense {@code height x width x 3} RGB matrix.
+     */
+    public int[][][] toRgbMatrix() {
+        int[][][] matrix = new int[height][width][];
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            for (int i = 0; i < rows[y].length; i += 2) {
+                int rgb = rows[y][i];
+                int[] pixel = {(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF};
+                for (int end = x + rows[y][i + 1]; x < end; x++) {
+                    matrix[y][x] = pixel.clone();
+                }
+            }
+        }
+        return matrix;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public int[][] getRows() {
+        return rows;
+    }
+
+    public void setRows(int[][] rows) {
+        this.rows = rows;
+    }
+}
@@ -14,6 +14,9 @@ public class TokenResponse {
     
     @JsonProperty("expires_at")
     private String expiresAt;
+    
+    @JsonProperty("refresh_token")
+    private String refreshToken;
 
     public TokenResponse() {}
 
@@ -25,6 +28,12 @@ public class TokenResponse {
         this.expiresAt = expiresAt;
     }
 
+    public TokenResponse(String token, String name, Integer userId, String email, String expiresAt,
+                         String refreshToken) {
+        this(token, name, userId, email, expiresAt);
+        this.refreshToken = refreshToken;
+    }
+
     // Getters and setters
     public String getToken() {
         return token;
@@ -65,4 +74,12 @@ public class TokenResponse {
     public void setExpiresAt(String expiresAt) {
         this.expiresAt = expiresAt;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 } 
\ No newline at end of file
@@ -26,6 +26,15 @@ public class LoggerClient {
 
     public void logEvent(String serviceName, String eventType, String userId, String description, 
                         int severity, Map<String, String> metadata) {
+        logEvent(serviceName, eventType, userId, description, severity, metadata, LocalDateTime.now());
+    }
+
+    /**
+     * Logs an event stamped with when it happened rather than when it is sent, for callers
+     * that queue events and ship them later.
+     */
+    public void logEvent(String serviceName, String eventType, String userId, String description,
+                        int severity, Map<String, String> metadata, LocalDateTime occurredAt) {
         try {
             LoggerProto.LogRequest request = LoggerProto.LogRequest.newBuilder()
                 .setServiceName(serviceName)
@@ -33,7 +42,7 @@ public class LoggerClient {
                 .setUserId(userId)
                 .setDescription(description)
                 .setSeverity(severity)
-                .setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .setTimestamp(occurredAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
                 .putAllMetadata(metadata != null ? metadata : Collections.emptyMap())
                 .build();
 
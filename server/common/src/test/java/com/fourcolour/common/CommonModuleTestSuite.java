@@ -1,9 +1,12 @@
 package com.fourcolour.common;
 
+import com.fourcolour.common.dto.ColoringFormatTest;
 import com.fourcolour.common.dto.ColoringRequestTest;
 import com.fourcolour.common.dto.LoginRequestTest;
 import com.fourcolour.common.dto.MapRequestTest;
+import com.fourcolour.common.dto.RegionColoringTest;
 import com.fourcolour.common.dto.RegisterRequestTest;
+import com.fourcolour.common.dto.RunLengthMatrixTest;
 import com.fourcolour.common.dto.TokenResponseTest;
 import com.fourcolour.common.service.LoggerClientTest;
 import org.junit.platform.suite.api.SelectClasses;
@@ -17,10 +20,13 @@ import org.junit.platform.suite.api.SuiteDisplayName;
 @Suite
 @SuiteDisplayName("Common Module Test Suite")
 @SelectClasses({
+    ColoringFormatTest.class,
     ColoringRequestTest.class,
     LoginRequestTest.class,
     MapRequestTest.class,
+    RegionColoringTest.class,
     RegisterRequestTest.class,
+    RunLengthMatrixTest.class,
     TokenResponseTest.class,
     LoggerClientTest.class
 })
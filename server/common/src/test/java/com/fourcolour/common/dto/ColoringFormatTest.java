@@ -0,0 +1,40 @@
+package com.fourcolour.common.dto;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColoringFormatTest {
+
+    @Test
+    void testNegotiateWithoutAcceptHeader() {
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate(null));
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate(" "));
+    }
+
+    @Test
+    void testNegotiateKeepsDenseForWildcardsAndJson() {
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate("*/*"));
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate("application/json"));
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate("application/*"));
+    }
+
+    @Test
+    void testNegotiateExplicitFormats() {
+        assertEquals(ColoringFormat.RUN_LENGTH, ColoringFormat.negotiate(RunLengthMatrix.MEDIA_TYPE));
+        assertEquals(ColoringFormat.REGIONS, ColoringFormat.negotiate(RegionColoring.MEDIA_TYPE));
+        assertEquals(ColoringFormat.RUN_LENGTH,
+                ColoringFormat.negotiate("application/json;q=0.5, " + RunLengthMatrix.MEDIA_TYPE));
+    }
+
+    @Test
+    void testNegotiatePrefersHigherQuality() {
+        String accept = RunLengthMatrix.MEDIA_TYPE + ";q=0.4, " + RegionColoring.MEDIA_TYPE + ";q=0.9";
+        assertEquals(ColoringFormat.REGIONS, ColoringFormat.negotiate(accept));
+    }
+
+    @Test
+    void testNegotiateIgnoresRejectedAndMalformedTypes() {
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate(RunLengthMatrix.MEDIA_TYPE + ";q=0"));
+        assertEquals(ColoringFormat.DENSE, ColoringFormat.negotiate("not a media type"));
+    }
+}
@@ -96,6 +96,14 @@ public class MapRequestTest {
         assertArrayEquals(newMatrix, mapRequest.getMatrix());
     }
 
+    @Test
+    void testSetEncodedMatrix() {
+        assertNull(mapRequest.getEncodedMatrix());
+        RunLengthMatrix encoded = new RunLengthMatrix(3, 1, new int[][]{{0xFF0000, 3}});
+        mapRequest.setEncodedMatrix(encoded);
+        assertSame(encoded, mapRequest.getEncodedMatrix());
+    }
+
     @Test
     void testGetWidth() {
         assertEquals(3, mapRequest.getWidth());
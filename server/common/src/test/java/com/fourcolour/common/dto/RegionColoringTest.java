@@ -0,0 +1,46 @@
+package com.fourcolour.common.dto;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionColoringTest {
+
+    @Test
+    void testDefaultConstructor() {
+        RegionColoring coloring = new RegionColoring();
+        assertNull(coloring.getLabels());
+        assertNull(coloring.getRegionColors());
+    }
+
+    @Test
+    void testLabelBitmapRoundTrip() {
+        int[] labels = {1, 1, 0, 2, 2, 2, 0, 0, 3};
+
+        RegionLabelBitmap bitmap = RegionLabelBitmap.encode(labels, 3, 3, 3);
+
+        assertEquals(3, bitmap.getRegionCount());
+        assertArrayEquals(new int[]{1, 2, 0, 1, 2, 3, 0, 2, 3, 1}, bitmap.getRuns());
+        assertArrayEquals(labels, bitmap.decode());
+    }
+
+    @Test
+    void testToRunLengthMatrixAppliesPalette() {
+        RegionLabelBitmap bitmap = RegionLabelBitmap.encode(new int[]{1, 0, 2, 2, 0, 1}, 3, 2, 2);
+        RegionColoring coloring = new RegionColoring(bitmap, new int[]{0x000000, 0xFF0000, 0x00FF00});
+
+        RunLengthMatrix matrix = coloring.toRunLengthMatrix();
+
+        assertArrayEquals(new int[]{0xFF0000, 1, 0x000000, 1, 0x00FF00, 1}, matrix.getRows()[0]);
+        assertArrayEquals(new int[]{0x00FF00, 1, 0x000000, 1, 0xFF0000, 1}, matrix.getRows()[1]);
+    }
+
+    @Test
+    void testRecolouringOnlyChangesPalette() {
+        RegionLabelBitmap bitmap = RegionLabelBitmap.encode(new int[]{1, 1, 2}, 3, 1, 2);
+        RegionColoring coloring = new RegionColoring(bitmap, new int[]{0, 0xFF0000, 0x0000FF});
+
+        coloring.setRegionColors(new int[]{0, 0xFFFF00, 0xFFFF00});
+
+        assertArrayEquals(new int[]{0xFFFF00, 3}, coloring.toRunLengthMatrix().getRows()[0]);
+    }
+}
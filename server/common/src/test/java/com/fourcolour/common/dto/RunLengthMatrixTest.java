@@ -0,0 +1,59 @@
+package com.fourcolour.common.dto;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunLengthMatrixTest {
+
+    @Test
+    void testDefaultConstructor() {
+        RunLengthMatrix matrix = new RunLengthMatrix();
+        assertNull(matrix.getWidth());
+        assertNull(matrix.getHeight());
+        assertNull(matrix.getRows());
+    }
+
+    @Test
+    void testPack() {
+        assertEquals(0xFF0000, RunLengthMatrix.pack(255, 0, 0));
+        assertEquals(0xFFFF00, RunLengthMatrix.pack(255, 255, 0));
+        assertEquals(0, RunLengthMatrix.pack(0, 0, 0));
+    }
+
+    @Test
+    void testEncodeRowMergesEqualNeighbours() {
+        int[] row = RunLengthMatrix.encodeRow(new int[]{5, 5, 5, 0, 7, 7}, 6);
+        assertArrayEquals(new int[]{5, 3, 0, 1, 7, 2}, row);
+    }
+
+    @Test
+    void testFromRgbMatrix() {
+        int[][][] dense = {
+                {{255, 0, 0}, {255, 0, 0}, {0, 0, 0}},
+                {{0, 255, 0}, {0, 255, 0}, {0, 255, 0}}
+        };
+
+        RunLengthMatrix matrix = RunLengthMatrix.fromRgbMatrix(dense);
+
+        assertEquals(3, matrix.getWidth());
+        assertEquals(2, matrix.getHeight());
+        assertArrayEquals(new int[]{0xFF0000, 2, 0, 1}, matrix.getRows()[0]);
+        assertArrayEquals(new int[]{0x00FF00, 3}, matrix.getRows()[1]);
+    }
+
+    @Test
+    void testRoundTrip() {
+        int[][][] dense = {
+                {{0, 0, 255}, {255, 255, 0}, {255, 255, 0}, {0, 0, 0}},
+                {{0, 0, 0}, {0, 0, 0}, {0, 0, 255}, {0, 0, 255}}
+        };
+
+        int[][][] decoded = RunLengthMatrix.fromRgbMatrix(dense).toRgbMatrix();
+
+        for (int y = 0; y < dense.length; y++) {
+            for (int x = 0; x < dense[y].length; x++) {
+                assertArrayEquals(dense[y][x], decoded[y][x]);
+            }
+        }
+    }
+}
@@ -136,5 +136,19 @@ public class TokenResponseTest {
         
         assertNotNull(expiresAtAnnotation);
         assertEquals("expires_at", expiresAtAnnotation.value());
+
+        JsonProperty refreshTokenAnnotation = TokenResponse.class.getDeclaredField("refreshToken").getAnnotation(JsonProperty.class);
+        assertNotNull(refreshTokenAnnotation);
+        assertEquals("refresh_token", refreshTokenAnnotation.value());
+    }
+
+    @Test
+    void testConstructorWithRefreshToken() {
+        TokenResponse response = new TokenResponse("token", "Name", 1, "a@b.com", "2024-01-01T00:00:00", "refresh");
+
+        assertEquals("token", response.getToken());
+        assertEquals(1, response.getUserId());
+        assertEquals("refresh", response.getRefreshToken());
+        assertNull(new TokenResponse("token", "Name", 1, "a@b.com", "2024-01-01T00:00:00").getRefreshToken());
     }
 } 
\ No newline at end of file
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -334,4 +335,21 @@ public class LoggerClientTest {
         // Assert
         verify(loggerServiceStub, times(1)).logEvent(any(LoggerProto.LogRequest.class));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testLogEventWithOccurredAt_ShouldStampEventTime() {
+        // Arrange
+        LoggerProto.LogResponse mockResponse = LoggerProto.LogResponse.newBuilder()
+                .setSuccess(true)
+                .build();
+        when(loggerServiceStub.logEvent(any(LoggerProto.LogRequest.class))).thenReturn(mockResponse);
+        LocalDateTime occurredAt = LocalDateTime.of(2024, 6, 1, 12, 30, 15);
+
+        // Act
+        loggerClient.logEvent("test-service", "INFO", "user123", "Queued event", 1, null, occurredAt);
+
+        // Assert
+        verify(loggerServiceStub).logEvent(argThat(request ->
+                request.getTimestamp().equals("2024-06-01T12:30:15")));
+    }
+}
@@ -71,6 +71,24 @@ public class MapController {
         }
     }
 
+    @PutMapping("/{id}/region-colors")
+    public ResponseEntity<?> updateRegionColors(@PathVariable String id, @RequestBody int[] regionColors) {
+        try {
+            Map map = mapService.updateRegionColors(id, regionColors);
+            if (map == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(java.util.Map.of("error", "Map not found"));
+            }
+            return ResponseEntity.ok(map);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(java.util.Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(java.util.Map.of("error", "Failed to update region colors"));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteMap(@PathVariable String id) {
         try {
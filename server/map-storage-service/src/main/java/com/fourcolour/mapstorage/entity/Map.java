@@ -1,6 +1,8 @@
 package com.fourcolour.mapstorage.entity;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fourcolour.common.dto.RegionLabelBitmap;
+import com.fourcolour.common.dto.RunLengthMatrix;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -28,6 +30,18 @@ public class Map {
 
     private int[][] matrix;
 
+    @Field("encodedMatrix")
+    @JsonProperty("encodedMatrix")
+    private RunLengthMatrix encodedMatrix;
+
+    @Field("regionLabels")
+    @JsonProperty("regionLabels")
+    private RegionLabelBitmap regionLabels;
+
+    @Field("regionColors")
+    @JsonProperty("regionColors")
+    private int[] regionColors;
+
     @Field("createdAt")
     @JsonProperty("createdAt")
     private LocalDateTime createdAt;
@@ -108,6 +122,30 @@ public class Map {
         this.matrix = matrix;
     }
 
+    public RunLengthMatrix getEncodedMatrix() {
+        return encodedMatrix;
+    }
+
+    public void setEncodedMatrix(RunLengthMatrix encodedMatrix) {
+        this.encodedMatrix = encodedMatrix;
+    }
+
+    public RegionLabelBitmap getRegionLabels() {
+        return regionLabels;
+    }
+
+    public void setRegionLabels(RegionLabelBitmap regionLabels) {
+        this.regionLabels = regionLabels;
+    }
+
+    public int[] getRegionColors() {
+        return regionColors;
+    }
+
+    public void setRegionColors(int[] regionColors) {
+        this.regionColors = regionColors;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
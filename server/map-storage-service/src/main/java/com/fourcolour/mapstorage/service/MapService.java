@@ -38,6 +38,9 @@ public class MapService {
         map.setHeight(request.getHeight());
         map.setImageData(request.getImageData());
         map.setMatrix(request.getMatrix());
+        map.setEncodedMatrix(request.getEncodedMatrix());
+        map.setRegionLabels(request.getRegionLabels());
+        map.setRegionColors(request.getRegionColors());
 
         Map savedMap = mapRepository.save(map);
 
@@ -82,6 +85,38 @@ public class MapService {
         return mapOpt.orElse(null);
     }
 
+    /**
+     * Replace only the region palette of a map saved in region-level form; the label bitmap
+     * is left untouched.
+     *
+     * @return the updated map, or {@code null} if no map has this ID
+     */
+    public Map updateRegionColors(String id, int[] regionColors) {
+        logger.info("Updating region colours of map with ID: {}", id);
+
+        if (!isValidObjectId(id)) {
+            throw new IllegalArgumentException("Invalid map ID format");
+        }
+
+        Optional<Map> mapOpt = mapRepository.findById(id);
+        if (!mapOpt.isPresent()) {
+            return null;
+        }
+
+        Map map = mapOpt.get();
+        if (map.getRegionLabels() == null) {
+            throw new IllegalStateException("Map has no region labels");
+        }
+        int expected = map.getRegionLabels().getRegionCount() + 1;
+        if (regionColors == null || regionColors.length != expected) {
+            throw new IllegalArgumentException("Region colour count mismatch. Expected " + expected);
+        }
+
+        map.setRegionColors(regionColors);
+        map.updateTimestamp();
+        return mapRepository.save(map);
+    }
+
     public boolean deleteMap(String id) {
         logger.info("Deleting map with ID: {}", id);
         
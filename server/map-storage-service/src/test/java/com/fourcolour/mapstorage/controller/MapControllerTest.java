@@ -197,6 +197,37 @@ class MapControllerTest {
         assertTrue(response.getBody().toString().contains("Failed to retrieve map"));
     }
 
+    @Test
+    void updateRegionColors_WithValidPalette_ShouldReturnMap() {
+        int[] colors = {0, 0xFF0000, 0x00FF00};
+        when(mapService.updateRegionColors("507f1f77bcf86cd799439011", colors)).thenReturn(testMap);
+
+        ResponseEntity<?> response = mapController.updateRegionColors("507f1f77bcf86cd799439011", colors);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(testMap, response.getBody());
+    }
+
+    @Test
+    void updateRegionColors_WithNonExistentId_ShouldReturnNotFound() {
+        when(mapService.updateRegionColors(anyString(), any())).thenReturn(null);
+
+        ResponseEntity<?> response = mapController.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0});
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void updateRegionColors_WithWrongLength_ShouldReturnBadRequest() {
+        when(mapService.updateRegionColors(anyString(), any()))
+                .thenThrow(new IllegalArgumentException("Region colour count mismatch. Expected 3"));
+
+        ResponseEntity<?> response = mapController.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0});
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(java.util.Map.of("error", "Region colour count mismatch. Expected 3"), response.getBody());
+    }
+
     @Test
     void deleteMap_WithValidId_ShouldReturnNoContent() {
         when(mapService.deleteMap("507f1f77bcf86cd799439011"))
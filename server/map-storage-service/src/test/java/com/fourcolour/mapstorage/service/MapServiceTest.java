@@ -1,6 +1,8 @@
 package com.fourcolour.mapstorage.service;
 
 import com.fourcolour.common.dto.MapRequest;
+import com.fourcolour.common.dto.RegionLabelBitmap;
+import com.fourcolour.common.dto.RunLengthMatrix;
 import com.fourcolour.common.service.LoggerClient;
 import com.fourcolour.mapstorage.entity.Map;
 import com.fourcolour.mapstorage.repository.MapRepository;
@@ -91,6 +93,72 @@ class MapServiceTest {
         );
     }
 
+    @Test
+    void saveMap_WithEncodedMatrix_ShouldPersistRunLengthForm() {
+        RunLengthMatrix encoded = new RunLengthMatrix(2, 1, new int[][]{{0xFF0000, 2}});
+        mapRequest.setMatrix(null);
+        mapRequest.setEncodedMatrix(encoded);
+        when(mapRepository.save(any(Map.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Map savedMap = mapService.saveMap(mapRequest);
+
+        assertSame(encoded, savedMap.getEncodedMatrix());
+        assertNull(savedMap.getMatrix());
+    }
+
+    @Test
+    void saveMap_WithRegionFormat_ShouldPersistLabelsAndColorsSeparately() {
+        RegionLabelBitmap labels = new RegionLabelBitmap(2, 1, 2, new int[]{1, 1, 2, 1});
+        int[] colors = {0, 0xFF0000, 0x00FF00};
+        mapRequest.setRegionLabels(labels);
+        mapRequest.setRegionColors(colors);
+        when(mapRepository.save(any(Map.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Map savedMap = mapService.saveMap(mapRequest);
+
+        assertSame(labels, savedMap.getRegionLabels());
+        assertArrayEquals(colors, savedMap.getRegionColors());
+    }
+
+    @Test
+    void updateRegionColors_ShouldReplacePaletteOnly() {
+        RegionLabelBitmap labels = new RegionLabelBitmap(2, 1, 2, new int[]{1, 1, 2, 1});
+        testMap.setRegionLabels(labels);
+        testMap.setRegionColors(new int[]{0, 0xFF0000, 0x00FF00});
+        when(mapRepository.findById("507f1f77bcf86cd799439011")).thenReturn(Optional.of(testMap));
+        when(mapRepository.save(any(Map.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Map updated = mapService.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0, 0x0000FF, 0xFFFF00});
+
+        assertArrayEquals(new int[]{0, 0x0000FF, 0xFFFF00}, updated.getRegionColors());
+        assertSame(labels, updated.getRegionLabels());
+    }
+
+    @Test
+    void updateRegionColors_WithWrongLength_ShouldThrowException() {
+        testMap.setRegionLabels(new RegionLabelBitmap(2, 1, 2, new int[]{1, 1, 2, 1}));
+        when(mapRepository.findById("507f1f77bcf86cd799439011")).thenReturn(Optional.of(testMap));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> mapService.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0, 1}));
+        verify(mapRepository, never()).save(any(Map.class));
+    }
+
+    @Test
+    void updateRegionColors_WithoutRegionLabels_ShouldThrowException() {
+        when(mapRepository.findById("507f1f77bcf86cd799439011")).thenReturn(Optional.of(testMap));
+
+        assertThrows(IllegalStateException.class,
+                () -> mapService.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0}));
+    }
+
+    @Test
+    void updateRegionColors_WithNonExistentId_ShouldReturnNull() {
+        when(mapRepository.findById("507f1f77bcf86cd799439011")).thenReturn(Optional.empty());
+
+        assertNull(mapService.updateRegionColors("507f1f77bcf86cd799439011", new int[]{0}));
+    }
+
     @Test
     void saveMap_WithNullUserId_ShouldThrowException() {
         mapRequest.setUserId(null);